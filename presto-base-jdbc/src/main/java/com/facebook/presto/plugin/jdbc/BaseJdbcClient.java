@@ -15,9 +15,16 @@ package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.plugin.jdbc.cache.JdbcCacheConfig;
 import com.facebook.presto.plugin.jdbc.cache.JdbcCacheSplit;
-import com.facebook.presto.plugin.jdbc.cache.JdbcJavaBean;
+import com.facebook.presto.plugin.jdbc.cache.JdbcCacheTable;
+import com.facebook.presto.plugin.jdbc.cache.JdbcMetadataCache;
+import com.facebook.presto.plugin.jdbc.cache.JdbcMetadataCache.CachedFunction;
+import com.facebook.presto.plugin.jdbc.cache.JdbcMetadataCacheStats;
 import com.facebook.presto.plugin.jdbc.cache.JdbcResultCache;
+import com.facebook.presto.plugin.jdbc.cache.JdbcResultCacheStats;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
 import com.facebook.presto.plugin.jdbc.subtable.JdbcSubTableConfig;
+import com.facebook.presto.plugin.jdbc.subtable.JdbcSubTableInfo;
+import com.facebook.presto.plugin.jdbc.subtable.JdbcSplitStatsModel;
 import com.facebook.presto.plugin.jdbc.subtable.JdbcSubTableManager;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorColumnHandle;
@@ -25,12 +32,14 @@ import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorPartitionResult;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.FixedSplitSource;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.FixedWidthType;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
@@ -41,7 +50,11 @@ import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -54,6 +67,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
@@ -73,8 +87,10 @@ import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Maps.fromProperties;
+import static java.lang.String.format;
 import static java.util.Collections.nCopies;
 import static java.util.Locale.ENGLISH;
 
@@ -83,6 +99,16 @@ public class BaseJdbcClient
 {
     private static final Logger log = Logger.get(BaseJdbcClient.class);
 
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+    private static final int MAX_PARAMETERS_PER_INSERT = 2000;
+
+    // bounds of the fetch size derived from the fetch buffer
+    private static final int MIN_FETCH_SIZE = 16;
+    private static final int MAX_FETCH_SIZE = 100_000;
+    // driver side cost of a field on top of its value, and the assumed width of a variable width value
+    private static final int FIELD_OVERHEAD_BYTES = 16;
+    private static final int VARIABLE_WIDTH_BYTES = 64;
+
     private static final Map<Type, String> SQL_TYPES = ImmutableMap.<Type, String>builder()
             .put(BOOLEAN, "boolean")
             .put(BIGINT, "bigint")
@@ -101,23 +127,38 @@ public class BaseJdbcClient
     protected final String connectionUrl;
     protected final Properties connectionProperties;
     protected final String identifierQuote;
+    protected final JdbcConnectionPool connectionPool;
 
     protected final boolean jdbcSubTableEnable;
     private JdbcSubTableManager subTableManager;
+    private final JdbcSplitStatsModel splitStatsModel;
+
+    protected final boolean writeBulkLoadEnable;
+    protected final long fetchBufferBytes;
 
     protected final boolean cacheEnable;
     private JdbcResultCache jdbcResultCache;
+    private final JdbcResultCacheStats resultCacheStats = new JdbcResultCacheStats();
+
+    private final JdbcMetadataCache metadataCache;
+    private final JdbcMetadataCacheStats metadataCacheStats = new JdbcMetadataCacheStats();
+    private final CachedFunction<String, Set<String>> schemaNamesCache;
+    private final CachedFunction<Optional<String>, List<SchemaTableName>> tableNamesCache;
+    private final CachedFunction<SchemaTableName, Optional<JdbcTableHandle>> tableHandleCache;
+    private final CachedFunction<JdbcTableHandle, List<JdbcColumnHandle>> columnsCache;
 
     public BaseJdbcClient(JdbcConnectorId connectorId,
             BaseJdbcConfig config,
             String identifierQuote,
             Driver driver,
             JdbcSubTableConfig subTableConfig,
-            JdbcCacheConfig cacheConfig)
+            JdbcCacheConfig cacheConfig,
+            JdbcConnectionPool connectionPool)
     {
         this.connectorId = checkNotNull(connectorId, "connectorId is null").toString();
         this.identifierQuote = checkNotNull(identifierQuote, "identifierQuote is null");
         this.driver = checkNotNull(driver, "driver is null");
+        this.connectionPool = checkNotNull(connectionPool, "connectionPool is null");
 
         checkNotNull(config, "config is null");
         connectionUrl = config.getConnectionUrl();
@@ -129,23 +170,38 @@ public class BaseJdbcClient
         if (config.getConnectionPassword() != null) {
             connectionProperties.setProperty("password", config.getConnectionPassword());
         }
+        writeBulkLoadEnable = config.getWriteBulkLoadEnable();
+        fetchBufferBytes = config.getFetchBufferSize().toBytes();
 
         // sub table
         jdbcSubTableEnable = subTableConfig.getJdbcSubTableEnable();
+        splitStatsModel = new JdbcSplitStatsModel(subTableConfig.getJdbcSplitStatsHalfLife());
         if (jdbcSubTableEnable) {
-            this.subTableManager = new JdbcSubTableManager(this.connectorId, identifierQuote, driver, connectionUrl, connectionProperties, subTableConfig);
+            this.subTableManager = new JdbcSubTableManager(this.connectorId, identifierQuote, driver, connectionUrl, connectionProperties, subTableConfig, connectionPool, splitStatsModel);
         }
+        // metadata cache, the loaders are only called once the subclass is constructed
+        metadataCache = new JdbcMetadataCache(cacheConfig, metadataCacheStats, this.connectorId);
+        schemaNamesCache = metadataCache.newCache(key -> loadSchemaNames());
+        tableNamesCache = metadataCache.newCache(schema -> loadTableNames(schema.orElse(null)));
+        tableHandleCache = metadataCache.newCache(name -> Optional.ofNullable(loadTableHandle(name)));
+        columnsCache = metadataCache.newCache(this::loadColumns);
         // jdbc cache
         cacheEnable = cacheConfig.getJdbcCacheEnable();
         if (cacheEnable) {
-            this.jdbcResultCache = new JdbcResultCache(identifierQuote, driver, connectionProperties, cacheConfig);
+            this.jdbcResultCache = new JdbcResultCache(identifierQuote, driver, connectionProperties, cacheConfig, connectionPool, resultCacheStats, this.connectorId,
+                    metadataCache);
         }
     }
 
     @Override
     public Set<String> getSchemaNames()
     {
-        try (Connection connection = driver.connect(connectionUrl, connectionProperties);
+        return schemaNamesCache.apply("");
+    }
+
+    protected Set<String> loadSchemaNames()
+    {
+        try (Connection connection = getConnection();
                 ResultSet resultSet = connection.getMetaData().getSchemas()) {
             ImmutableSet.Builder<String> schemaNames = ImmutableSet.builder();
             while (resultSet.next()) {
@@ -165,7 +221,12 @@ public class BaseJdbcClient
     @Override
     public List<SchemaTableName> getTableNames(@Nullable String schema)
     {
-        try (Connection connection = driver.connect(connectionUrl, connectionProperties)) {
+        return tableNamesCache.apply(Optional.ofNullable(schema));
+    }
+
+    protected List<SchemaTableName> loadTableNames(@Nullable String schema)
+    {
+        try (Connection connection = getConnection()) {
             DatabaseMetaData metadata = connection.getMetaData();
             if (metadata.storesUpperCaseIdentifiers() && (schema != null)) {
                 schema = schema.toUpperCase(ENGLISH);
@@ -187,7 +248,13 @@ public class BaseJdbcClient
     @Override
     public JdbcTableHandle getTableHandle(SchemaTableName schemaTableName)
     {
-        try (Connection connection = driver.connect(connectionUrl, connectionProperties)) {
+        return tableHandleCache.apply(schemaTableName).orElse(null);
+    }
+
+    @Nullable
+    protected JdbcTableHandle loadTableHandle(SchemaTableName schemaTableName)
+    {
+        try (Connection connection = getConnection()) {
             DatabaseMetaData metadata = connection.getMetaData();
             String jdbcSchemaName = schemaTableName.getSchemaName();
             String jdbcTableName = schemaTableName.getTableName();
@@ -222,7 +289,14 @@ public class BaseJdbcClient
     @Override
     public List<JdbcColumnHandle> getColumns(JdbcTableHandle tableHandle)
     {
-        try (Connection connection = driver.connect(connectionUrl, connectionProperties)) {
+        // the columns do not depend on what is pushed down into the scan
+        return columnsCache.apply(new JdbcTableHandle(connectorId, tableHandle.getSchemaTableName(), tableHandle.getCatalogName(),
+                tableHandle.getSchemaName(), tableHandle.getTableName()));
+    }
+
+    protected List<JdbcColumnHandle> loadColumns(JdbcTableHandle tableHandle)
+    {
+        try (Connection connection = getConnection()) {
             DatabaseMetaData metadata = connection.getMetaData();
             try (ResultSet resultSet = metadata.getColumns(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName(), null)) {
                 List<JdbcColumnHandle> columns = new ArrayList<>();
@@ -258,7 +332,31 @@ public class BaseJdbcClient
         // currently we don't support partitions
         return new ConnectorPartitionResult(
                 ImmutableList.<ConnectorPartition>of(new JdbcPartition(jdbcTableHandle, tupleDomain)),
-                tupleDomain);
+                getUndeterminedTupleDomain(tupleDomain));
+    }
+
+    /**
+     * Every domain is sent to the database, but only comparisons of numbers and booleans are
+     * known to give the same result there as in Presto. Text comparisons depend on the collation
+     * of the column, so those domains are checked again by the engine.
+     */
+    private static TupleDomain<ConnectorColumnHandle> getUndeterminedTupleDomain(TupleDomain<ConnectorColumnHandle> tupleDomain)
+    {
+        if (tupleDomain.isNone()) {
+            return tupleDomain;
+        }
+        ImmutableMap.Builder<ConnectorColumnHandle, Domain> undetermined = ImmutableMap.builder();
+        for (Map.Entry<ConnectorColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            if (!(entry.getKey() instanceof JdbcColumnHandle) || !isExactlyComparable(((JdbcColumnHandle) entry.getKey()).getColumnType())) {
+                undetermined.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return TupleDomain.withColumnDomains(undetermined.build());
+    }
+
+    static boolean isExactlyComparable(Type type)
+    {
+        return type.equals(BIGINT) || type.equals(DOUBLE) || type.equals(BOOLEAN);
     }
 
     @Override
@@ -277,7 +375,7 @@ public class BaseJdbcClient
                 connectionUrl,
                 fromProperties(connectionProperties),
                 jdbcPartition.getTupleDomain(),
-                "", of, true, "", "", "", "", System.nanoTime(), 1, false);
+                "", of, true, "", "", "", "", System.nanoTime(), 1, false, jdbcTableHandle.getPushDown());
         return new FixedSplitSource(connectorId, ImmutableList.of(jdbcSplit));
     }
 
@@ -285,7 +383,7 @@ public class BaseJdbcClient
     public Connection getConnection(JdbcSplit split)
             throws SQLException
     {
-        Connection connection = driver.connect(split.getConnectionUrl(), toProperties(split.getConnectionProperties()));
+        Connection connection = connectionPool.getConnection(driver, split.getConnectionUrl(), toProperties(split.getConnectionProperties()));
         try {
             connection.setReadOnly(true);
         }
@@ -296,15 +394,64 @@ public class BaseJdbcClient
         return connection;
     }
 
+    /**
+     * Creates the statement that scans the split. The driver is asked to fetch as many rows at
+     * a time as fit in the fetch buffer, so narrow rows take few round trips and wide rows
+     * do not blow up the heap.
+     */
+    @Override
+    public Statement createScanStatement(JdbcSplit split, Connection connection, List<JdbcColumnHandle> columnHandles)
+            throws SQLException
+    {
+        Statement statement = connection.createStatement();
+        statement.setFetchSize(getFetchSize(columnHandles));
+        return statement;
+    }
+
+    protected int getFetchSize(List<JdbcColumnHandle> columnHandles)
+    {
+        long rows = fetchBufferBytes / estimateRowSize(columnHandles);
+        return (int) Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, rows));
+    }
+
+    /**
+     * @return the approximate number of bytes the driver buffers for a row of the columns
+     */
+    public static long estimateRowSize(List<JdbcColumnHandle> columnHandles)
+    {
+        long size = FIELD_OVERHEAD_BYTES;
+        for (JdbcColumnHandle columnHandle : columnHandles) {
+            Type type = columnHandle.getColumnType();
+            size += FIELD_OVERHEAD_BYTES + (type instanceof FixedWidthType ? ((FixedWidthType) type).getFixedSize() : VARIABLE_WIDTH_BYTES);
+        }
+        return size;
+    }
+
     @Override
     public String buildSql(JdbcSplit split, List<JdbcColumnHandle> columnHandles)
     {
-        return new QueryBuilder(identifierQuote).buildSql(
+        return new QueryBuilder(identifierQuote, hasBackslashEscapes()).buildSql(
                 split.getCatalogName(),
                 split.getSchemaName(),
                 split.getTableName(),
                 columnHandles,
-                split.getTupleDomain());
+                split.getTupleDomain(),
+                split.getSplitPart(),
+                split.getPushDown());
+    }
+
+    /**
+     * @return whether a backslash in a string literal escapes the next character, rather than standing for itself
+     */
+    protected boolean hasBackslashEscapes()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean supportsLimit()
+    {
+        return true;
     }
 
     @Override
@@ -318,7 +465,8 @@ public class BaseJdbcClient
             throw new PrestoException(NOT_FOUND, "Schema not found: " + schema);
         }
 
-        try (Connection connection = driver.connect(connectionUrl, connectionProperties)) {
+        try (Connection connection = getConnection()) {
+            connection.setReadOnly(false);
             boolean uppercase = connection.getMetaData().storesUpperCaseIdentifiers();
             if (uppercase) {
                 schema = schema.toUpperCase(ENGLISH);
@@ -326,31 +474,37 @@ public class BaseJdbcClient
             }
             String catalog = connection.getCatalog();
 
-            String temporaryName = "tmp_presto_" + UUID.randomUUID().toString().replace("-", "");
-            StringBuilder sql = new StringBuilder()
-                    .append("CREATE TABLE ")
-                    .append(quoted(catalog, schema, temporaryName))
-                    .append(" (");
             ImmutableList.Builder<String> columnNames = ImmutableList.builder();
             ImmutableList.Builder<Type> columnTypes = ImmutableList.builder();
-            ImmutableList.Builder<String> columnList = ImmutableList.builder();
             for (ColumnMetadata column : tableMetadata.getColumns()) {
-                String columnName = column.getName();
-                if (uppercase) {
-                    columnName = columnName.toUpperCase(ENGLISH);
-                }
-                columnNames.add(columnName);
+                columnNames.add(uppercase ? column.getName().toUpperCase(ENGLISH) : column.getName());
                 columnTypes.add(column.getType());
-                columnList.add(new StringBuilder()
-                        .append(quoted(columnName))
-                        .append(" ")
-                        .append(toSqlType(column.getType()))
-                        .toString());
             }
-            Joiner.on(", ").appendTo(sql, columnList.build());
-            sql.append(")");
 
-            execute(connection, sql.toString());
+            // the base table is created even when the rows go to sub-tables, so that it can be queried
+            String temporaryName = createTemporaryTable(connection, catalog, schema, tableMetadata.getColumns(), uppercase);
+            JdbcWriteShard baseTable = new JdbcWriteShard(connectionUrl, fromProperties(connectionProperties), catalog, schema, table, temporaryName, null, null);
+
+            // a sharded base table gets a temporary table on every sub-table, which is renamed on commit
+            String shardColumn = null;
+            List<JdbcWriteShard> shards = new ArrayList<>();
+            try {
+                List<JdbcSubTableInfo> subTables = getSubTables(schemaTableName);
+                if (!subTables.isEmpty()) {
+                    shardColumn = getShardColumn(schemaTableName, subTables, tableMetadata.getColumns());
+                    for (JdbcWriteShard shard : getWriteShards(subTables)) {
+                        try (Connection shardConnection = getConnection(shard.getConnectionUrl(), shard.getConnectionProperties())) {
+                            boolean shardUppercase = shardConnection.getMetaData().storesUpperCaseIdentifiers();
+                            String shardTemporaryName = createTemporaryTable(shardConnection, shard.getCatalogName(), shard.getSchemaName(), tableMetadata.getColumns(), shardUppercase);
+                            shards.add(shard.withTemporaryTableName(shardTemporaryName));
+                        }
+                    }
+                }
+            }
+            catch (SQLException | RuntimeException e) {
+                dropTemporaryTables(ImmutableList.<JdbcWriteShard>builder().add(baseTable).addAll(shards).build());
+                throw e;
+            }
 
             return new JdbcOutputTableHandle(
                     connectorId,
@@ -362,46 +516,415 @@ public class BaseJdbcClient
                     tableMetadata.getOwner(),
                     temporaryName,
                     connectionUrl,
-                    fromProperties(connectionProperties));
+                    fromProperties(connectionProperties),
+                    shardColumn,
+                    shards);
         }
         catch (SQLException e) {
             throw Throwables.propagate(e);
         }
     }
 
+    private String createTemporaryTable(Connection connection, String catalog, String schema, List<ColumnMetadata> columns, boolean uppercase)
+            throws SQLException
+    {
+        String temporaryName = "tmp_presto_" + UUID.randomUUID().toString().replace("-", "");
+        StringBuilder sql = new StringBuilder()
+                .append("CREATE TABLE ")
+                .append(quoted(catalog, schema, temporaryName))
+                .append(" (");
+        ImmutableList.Builder<String> columnList = ImmutableList.builder();
+        for (ColumnMetadata column : columns) {
+            String columnName = column.getName();
+            if (uppercase) {
+                columnName = columnName.toUpperCase(ENGLISH);
+            }
+            columnList.add(new StringBuilder()
+                    .append(quoted(columnName))
+                    .append(" ")
+                    .append(toSqlType(column.getType()))
+                    .toString());
+        }
+        Joiner.on(", ").appendTo(sql, columnList.build());
+        sql.append(")");
+
+        execute(connection, sql.toString());
+        return temporaryName;
+    }
+
+    /**
+     * Renames the temporary tables to the table names. The databases cannot rename tables of
+     * several shards atomically, so when a rename fails the tables renamed before are dropped
+     * again, together with the remaining temporary tables, and the create table fails as a whole.
+     */
     @Override
     public void commitCreateTable(JdbcOutputTableHandle handle, Collection<Slice> fragments)
+    {
+        List<JdbcWriteShard> tables = getTemporaryTables(handle);
+        List<JdbcWriteShard> renamed = new ArrayList<>();
+        try {
+            for (JdbcWriteShard table : tables) {
+                try (Connection connection = getConnection(table.getConnectionUrl(), table.getConnectionProperties())) {
+                    renameTable(connection, table.getCatalogName(), table.getSchemaName(), table.getTemporaryTableName(), table.getTableName());
+                }
+                renamed.add(table);
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            for (JdbcWriteShard table : renamed) {
+                dropTable(table.getConnectionUrl(), table.getConnectionProperties(), table.getCatalogName(), table.getSchemaName(), table.getTableName());
+            }
+            dropTemporaryTables(tables.subList(renamed.size(), tables.size()));
+            throw Throwables.propagate(e);
+        }
+        // the new table must be visible right away, creating tables is rare enough to drop all entries
+        tableNamesCache.invalidateAll();
+        tableHandleCache.invalidateAll();
+        columnsCache.invalidateAll();
+    }
+
+    /**
+     * @return the temporary table of the base table followed by those of its sub-tables
+     */
+    public static List<JdbcWriteShard> getTemporaryTables(JdbcOutputTableHandle handle)
+    {
+        return ImmutableList.<JdbcWriteShard>builder()
+                .add(new JdbcWriteShard(
+                        handle.getConnectionUrl(),
+                        handle.getConnectionProperties(),
+                        handle.getCatalogName(),
+                        handle.getSchemaName(),
+                        handle.getTableName(),
+                        handle.getTemporaryTableName(),
+                        null,
+                        null))
+                .addAll(handle.getShards())
+                .build();
+    }
+
+    @Override
+    public void dropTemporaryTables(List<JdbcWriteShard> shards)
+    {
+        for (JdbcWriteShard shard : shards) {
+            if (shard.getTemporaryTableName() != null) {
+                dropTable(shard.getConnectionUrl(), shard.getConnectionProperties(), shard.getCatalogName(), shard.getSchemaName(), shard.getTemporaryTableName());
+            }
+        }
+    }
+
+    private void dropTable(String url, Map<String, String> properties, String catalog, String schema, String table)
+    {
+        try (Connection connection = getConnection(url, properties)) {
+            execute(connection, "DROP TABLE " + quoted(catalog, schema, table));
+        }
+        catch (SQLException e) {
+            // another writer of the same query may have dropped it already
+            log.warn("Failed to drop table %s: %s", quoted(catalog, schema, table), e.getMessage());
+        }
+    }
+
+    protected void renameTable(Connection connection, String catalog, String schema, String oldTable, String newTable)
+            throws SQLException
     {
         StringBuilder sql = new StringBuilder()
                 .append("ALTER TABLE ")
-                .append(quoted(handle.getCatalogName(), handle.getSchemaName(), handle.getTemporaryTableName()))
+                .append(quoted(catalog, schema, oldTable))
                 .append(" RENAME TO ")
-                .append(quoted(handle.getCatalogName(), handle.getSchemaName(), handle.getTableName()));
+                .append(quoted(catalog, schema, newTable));
+        execute(connection, sql.toString());
+    }
+
+    @Override
+    public JdbcInsertTableHandle beginInsert(JdbcTableHandle tableHandle)
+    {
+        List<JdbcColumnHandle> columns = getColumns(tableHandle);
+        ImmutableList.Builder<String> columnNames = ImmutableList.builder();
+        ImmutableList.Builder<Type> columnTypes = ImmutableList.builder();
+        ImmutableList.Builder<ColumnMetadata> columnMetadata = ImmutableList.builder();
+        for (JdbcColumnHandle column : columns) {
+            columnNames.add(column.getColumnName());
+            columnTypes.add(column.getColumnType());
+            columnMetadata.add(column.getColumnMetadata());
+        }
+
+        SchemaTableName schemaTableName = tableHandle.getSchemaTableName();
+        List<JdbcSubTableInfo> subTables = getSubTables(schemaTableName);
+        String shardColumn = null;
+        List<JdbcWriteShard> shards;
+        if (!subTables.isEmpty()) {
+            shardColumn = getShardColumn(schemaTableName, subTables, columnMetadata.build());
+            shards = getWriteShards(subTables);
+        }
+        else {
+            shards = ImmutableList.of(new JdbcWriteShard(
+                    connectionUrl,
+                    fromProperties(connectionProperties),
+                    tableHandle.getCatalogName(),
+                    tableHandle.getSchemaName(),
+                    tableHandle.getTableName(),
+                    null,
+                    null,
+                    null));
+        }
+        return new JdbcInsertTableHandle(connectorId, schemaTableName.toString(), columnNames.build(), columnTypes.build(), shardColumn,
+                createStagingTables(shards, columnNames.build()));
+    }
+
+    /**
+     * Creates an empty staging table next to the table of every shard. The writers fill the
+     * staging tables and {@link #commitInsert} moves their rows into the tables, so the rows of
+     * a failed insert never become visible.
+     */
+    private List<JdbcWriteShard> createStagingTables(List<JdbcWriteShard> shards, List<String> columnNames)
+    {
+        List<JdbcWriteShard> stagedShards = new ArrayList<>();
+        try {
+            for (JdbcWriteShard shard : shards) {
+                try (Connection connection = getConnection(shard.getConnectionUrl(), shard.getConnectionProperties())) {
+                    String stagingName = "tmp_presto_" + UUID.randomUUID().toString().replace("-", "");
+                    createStagingTable(connection, shard.getCatalogName(), shard.getSchemaName(), shard.getTableName(), stagingName, columnNames);
+                    stagedShards.add(shard.withTemporaryTableName(stagingName));
+                }
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            dropTemporaryTables(stagedShards);
+            throw Throwables.propagate(e);
+        }
+        return ImmutableList.copyOf(stagedShards);
+    }
 
-        try (Connection connection = getConnection(handle)) {
-            execute(connection, sql.toString());
+    /**
+     * Creates an empty table with the given columns of the table
+     */
+    protected void createStagingTable(Connection connection, String catalog, String schema, String table, String stagingTable, List<String> columnNames)
+            throws SQLException
+    {
+        execute(connection, new StringBuilder()
+                .append("CREATE TABLE ")
+                .append(quoted(catalog, schema, stagingTable))
+                .append(" AS SELECT ")
+                .append(quotedColumns(columnNames))
+                .append(" FROM ")
+                .append(quoted(catalog, schema, table))
+                .append(" WHERE 1 = 0")
+                .toString());
+    }
+
+    /**
+     * Moves the staged rows of every shard into its table and drops the staging tables. The moves
+     * of all shards run in open transactions that are only committed once all of them succeeded,
+     * so a failure leaves a partial insert behind only if it hits between the commits.
+     */
+    @Override
+    public void commitInsert(JdbcInsertTableHandle handle)
+    {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (JdbcWriteShard shard : handle.getShards()) {
+                Connection connection = getConnection(shard.getConnectionUrl(), shard.getConnectionProperties());
+                connections.add(connection);
+                connection.setAutoCommit(false);
+                execute(connection, new StringBuilder()
+                        .append("INSERT INTO ")
+                        .append(quoted(shard.getCatalogName(), shard.getSchemaName(), shard.getTableName()))
+                        .append(" (")
+                        .append(quotedColumns(handle.getColumnNames()))
+                        .append(") SELECT ")
+                        .append(quotedColumns(handle.getColumnNames()))
+                        .append(" FROM ")
+                        .append(quoted(shard.getCatalogName(), shard.getSchemaName(), shard.getTemporaryTableName()))
+                        .toString());
+            }
+            for (Connection connection : connections) {
+                connection.commit();
+            }
         }
         catch (SQLException e) {
+            for (Connection connection : connections) {
+                try {
+                    connection.rollback();
+                }
+                catch (SQLException ignored) {
+                }
+            }
             throw Throwables.propagate(e);
         }
+        finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                }
+                catch (SQLException e) {
+                    log.warn("Failed to close connection: %s", e.getMessage());
+                }
+            }
+            dropTemporaryTables(handle.getShards());
+        }
+    }
+
+    private String quotedColumns(List<String> columnNames)
+    {
+        ImmutableList.Builder<String> columns = ImmutableList.builder();
+        for (String columnName : columnNames) {
+            columns.add(quoted(columnName));
+        }
+        return Joiner.on(", ").join(columns.build());
+    }
+
+    /**
+     * @return the sub-tables of the routing metadata of the base table, or an empty list if the table is not sharded
+     */
+    private List<JdbcSubTableInfo> getSubTables(SchemaTableName schemaTableName)
+    {
+        if (!jdbcSubTableEnable) {
+            return ImmutableList.of();
+        }
+        return subTableManager.getSubTables(schemaTableName.getSchemaName(), schemaTableName.getTableName());
+    }
+
+    /**
+     * The shard key of a base table is the split field of its sub-tables, which all sub-tables must share
+     */
+    private static String getShardColumn(SchemaTableName schemaTableName, List<JdbcSubTableInfo> subTables, List<ColumnMetadata> columns)
+    {
+        String shardColumn = nullToEmpty(subTables.get(0).getAutoincrementfield()).toLowerCase(ENGLISH);
+        for (JdbcSubTableInfo subTable : subTables) {
+            if (!nullToEmpty(subTable.getAutoincrementfield()).toLowerCase(ENGLISH).equals(shardColumn)) {
+                throw new PrestoException(NOT_SUPPORTED, format("Sub-tables of %s have different shard keys", schemaTableName));
+            }
+        }
+        if (shardColumn.isEmpty()) {
+            throw new PrestoException(NOT_SUPPORTED, format("Sub-tables of %s have no shard key", schemaTableName));
+        }
+        for (ColumnMetadata column : columns) {
+            if (column.getName().toLowerCase(ENGLISH).equals(shardColumn)) {
+                return column.getName();
+            }
+        }
+        throw new PrestoException(NOT_SUPPORTED, format("Writes into %s must include the shard key %s", schemaTableName, shardColumn));
+    }
+
+    private List<JdbcWriteShard> getWriteShards(List<JdbcSubTableInfo> subTables)
+    {
+        ImmutableList.Builder<JdbcWriteShard> shards = ImmutableList.builder();
+        for (JdbcSubTableInfo subTable : subTables) {
+            Properties properties = (Properties) connectionProperties.clone();
+            if (!isNullOrEmpty(subTable.getUsername()) && !isNullOrEmpty(subTable.getPassword())) {
+                properties.setProperty("user", subTable.getUsername());
+                properties.setProperty("password", subTable.getPassword());
+            }
+            // a routing key of zero means the key range of the sub-table is unknown
+            boolean ranged = subTable.getFieldMaxValue() > 0;
+            shards.add(new JdbcWriteShard(
+                    subTable.getConnectionURL(),
+                    fromProperties(properties),
+                    null,
+                    subTable.getSchemaname(),
+                    subTable.getTablename(),
+                    null,
+                    ranged ? subTable.getFieldMinValue() : null,
+                    ranged ? subTable.getFieldMaxValue() : null));
+        }
+        return shards.build();
     }
 
     @Override
     public String buildInsertSql(JdbcOutputTableHandle handle)
     {
-        String vars = Joiner.on(',').join(nCopies(handle.getColumnNames().size(), "?"));
+        return buildInsertSql(handle.getCatalogName(), handle.getSchemaName(), handle.getTemporaryTableName(), handle.getColumnNames().size(), 1);
+    }
+
+    /**
+     * Build an insert statement for the given number of rows, using a multi row VALUES list
+     */
+    protected String buildInsertSql(String catalog, String schema, String table, int columnCount, int rowCount)
+    {
+        String vars = "(" + Joiner.on(',').join(nCopies(columnCount, "?")) + ")";
         return new StringBuilder()
                 .append("INSERT INTO ")
-                .append(quoted(handle.getCatalogName(), handle.getSchemaName(), handle.getTemporaryTableName()))
-                .append(" VALUES (").append(vars).append(")")
+                .append(quoted(catalog, schema, table))
+                .append(" VALUES ")
+                .append(Joiner.on(',').join(nCopies(rowCount, vars)))
                 .toString();
     }
 
+    /**
+     * @return the number of rows inserted by one multi row INSERT statement
+     */
+    protected int getRowsPerInsert(int columnCount)
+    {
+        // SQL Server accepts at most 2100 parameters and 1000 rows per statement
+        return Math.max(1, Math.min(MAX_ROWS_PER_INSERT, MAX_PARAMETERS_PER_INSERT / Math.max(1, columnCount)));
+    }
+
+    /**
+     * @return the bulk load path of the database, or null if it only supports INSERT statements
+     */
+    @Nullable
+    protected JdbcTextPageWriter.TextLoader getTextLoader(String catalog, String schema, String table, List<String> columnNames)
+    {
+        return null;
+    }
+
+    @Override
+    public JdbcPageWriter createPageWriter(JdbcWriteShard shard, List<String> columnNames, List<Type> columnTypes)
+            throws SQLException
+    {
+        String table = (shard.getTemporaryTableName() != null) ? shard.getTemporaryTableName() : shard.getTableName();
+        Connection connection = getConnection(shard.getConnectionUrl(), shard.getConnectionProperties());
+        try {
+            connection.setAutoCommit(false);
+            if (writeBulkLoadEnable && JdbcTextPageWriter.isSupported(columnTypes)) {
+                JdbcTextPageWriter.TextLoader loader = getTextLoader(shard.getCatalogName(), shard.getSchemaName(), table, columnNames);
+                if (loader != null) {
+                    return new JdbcTextPageWriter(connection, columnTypes, loader);
+                }
+            }
+            return new JdbcInsertPageWriter(
+                    connection,
+                    columnTypes,
+                    rowCount -> buildInsertSql(shard.getCatalogName(), shard.getSchemaName(), table, columnTypes.size(), rowCount),
+                    getRowsPerInsert(columnTypes.size()));
+        }
+        catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
     @Override
     public Connection getConnection(JdbcOutputTableHandle handle)
             throws SQLException
     {
-        return driver.connect(handle.getConnectionUrl(), toProperties(handle.getConnectionProperties()));
+        return getConnection(handle.getConnectionUrl(), handle.getConnectionProperties());
+    }
+
+    /**
+     * Get a writable pooled connection
+     */
+    protected Connection getConnection(String url, Map<String, String> properties)
+            throws SQLException
+    {
+        Connection connection = connectionPool.getConnection(driver, url, toProperties(properties));
+        try {
+            // pooled connections may have been handed out read only before
+            connection.setReadOnly(false);
+        }
+        catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Get a pooled connection to the default connection url of this connector
+     */
+    protected Connection getConnection()
+            throws SQLException
+    {
+        return connectionPool.getConnection(driver, connectionUrl, connectionProperties);
     }
 
     protected ResultSet getTables(Connection connection, String schemaName, String tableName)
@@ -503,18 +1026,85 @@ public class BaseJdbcClient
         return properties;
     }
 
-    public synchronized List<JdbcJavaBean> getTableDataSet(JdbcCacheSplit key)
+    public JdbcCacheTable getTableDataSet(JdbcCacheSplit key)
     {
         return jdbcResultCache.getResult(key);
     }
 
+    @Managed
+    @Nested
+    public JdbcResultCacheStats getResultCacheStats()
+    {
+        return resultCacheStats;
+    }
+
+    @Managed
+    public long getResultCacheTableCount()
+    {
+        return jdbcResultCache == null ? 0 : jdbcResultCache.getCachedTableCount();
+    }
+
+    @Managed
+    @Nested
+    public JdbcSplitStatsModel getSplitStatsModel()
+    {
+        return splitStatsModel;
+    }
+
+    @Managed
+    public long getResultCacheBytes()
+    {
+        return jdbcResultCache == null ? 0 : jdbcResultCache.getCachedBytes();
+    }
+
+    @Managed
+    @Nested
+    public JdbcMetadataCacheStats getMetadataCacheStats()
+    {
+        return metadataCacheStats;
+    }
+
+    @Managed
+    public long getMetadataCacheEntryCount()
+    {
+        return metadataCache.getCachedEntryCount();
+    }
+
+    @Managed
+    public void flushMetadataCache()
+    {
+        metadataCache.flushCache();
+    }
+
+    @Managed
+    public void flushResultCache()
+    {
+        if (jdbcResultCache != null) {
+            jdbcResultCache.flushCache();
+        }
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        metadataCache.shutdown();
+        if (subTableManager != null) {
+            subTableManager.shutdown();
+        }
+        if (jdbcResultCache != null) {
+            jdbcResultCache.shutdown();
+        }
+    }
+
     public boolean isCacheTable(String tableName)
     {
         return cacheEnable && jdbcResultCache != null && jdbcResultCache.isCacheTable(tableName);
     }
 
-    public void commitPdboLogs(JdbcSplit split, long rowCount)
+    public void recordSplitCompletion(JdbcSplit split, long rowCount, long scanNanos)
     {
-        this.subTableManager.commitPdboLogs(split, rowCount);
+        if (subTableManager != null) {
+            subTableManager.recordSplitCompletion(split, rowCount, scanNanos);
+        }
     }
 }
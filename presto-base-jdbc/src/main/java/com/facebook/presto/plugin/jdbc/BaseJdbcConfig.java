@@ -14,14 +14,24 @@
 package com.facebook.presto.plugin.jdbc;
 
 import io.airlift.configuration.Config;
+import io.airlift.units.DataSize;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
 public class BaseJdbcConfig
 {
     private String connectionUrl;
     private String connectionUser;
     private String connectionPassword;
+    private int writeConnections = 4;
+    private DataSize writeBatchSize = new DataSize(1, MEGABYTE);
+    private boolean writeBulkLoadEnable;
+    private boolean splitLocalityEnable;
+    private int maxSplitsPerDatabase;
+    private DataSize fetchBufferSize = new DataSize(4, MEGABYTE);
 
     @NotNull
     public String getConnectionUrl()
@@ -59,4 +69,80 @@ public class BaseJdbcConfig
         this.connectionPassword = connectionPassword;
         return this;
     }
+
+    @Min(1)
+    public int getWriteConnections()
+    {
+        return writeConnections;
+    }
+
+    @Config("write-connections")
+    public BaseJdbcConfig setWriteConnections(int writeConnections)
+    {
+        this.writeConnections = writeConnections;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getWriteBatchSize()
+    {
+        return writeBatchSize;
+    }
+
+    @Config("write-batch-size")
+    public BaseJdbcConfig setWriteBatchSize(DataSize writeBatchSize)
+    {
+        this.writeBatchSize = writeBatchSize;
+        return this;
+    }
+
+    public boolean getWriteBulkLoadEnable()
+    {
+        return writeBulkLoadEnable;
+    }
+
+    @Config("write-bulk-load-enable")
+    public BaseJdbcConfig setWriteBulkLoadEnable(boolean writeBulkLoadEnable)
+    {
+        this.writeBulkLoadEnable = writeBulkLoadEnable;
+        return this;
+    }
+
+    public boolean getSplitLocalityEnable()
+    {
+        return splitLocalityEnable;
+    }
+
+    @Config("split-locality-enable")
+    public BaseJdbcConfig setSplitLocalityEnable(boolean splitLocalityEnable)
+    {
+        this.splitLocalityEnable = splitLocalityEnable;
+        return this;
+    }
+
+    @Min(0)
+    public int getMaxSplitsPerDatabase()
+    {
+        return maxSplitsPerDatabase;
+    }
+
+    @Config("max-splits-per-database")
+    public BaseJdbcConfig setMaxSplitsPerDatabase(int maxSplitsPerDatabase)
+    {
+        this.maxSplitsPerDatabase = maxSplitsPerDatabase;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFetchBufferSize()
+    {
+        return fetchBufferSize;
+    }
+
+    @Config("fetch-buffer-size")
+    public BaseJdbcConfig setFetchBufferSize(DataSize fetchBufferSize)
+    {
+        this.fetchBufferSize = fetchBufferSize;
+        return this;
+    }
 }
@@ -19,12 +19,14 @@ import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
 
 import javax.annotation.Nullable;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -47,8 +49,19 @@ public interface JdbcClient
     Connection getConnection(JdbcSplit split)
             throws SQLException;
 
+    /**
+     * Creates the statement that runs the query of the split on the connection
+     */
+    Statement createScanStatement(JdbcSplit split, Connection connection, List<JdbcColumnHandle> columnHandles)
+            throws SQLException;
+
     String buildSql(JdbcSplit split, List<JdbcColumnHandle> columnHandles);
 
+    /**
+     * @return true if the database accepts a trailing LIMIT clause, so limits and TopN can be pushed down
+     */
+    boolean supportsLimit();
+
     JdbcOutputTableHandle beginCreateTable(ConnectorTableMetadata tableMetadata);
 
     void commitCreateTable(JdbcOutputTableHandle handle, Collection<Slice> fragments);
@@ -57,4 +70,25 @@ public interface JdbcClient
 
     Connection getConnection(JdbcOutputTableHandle handle)
             throws SQLException;
+
+    /**
+     * Starts an insert into the table, or into its sub-tables if the table is sharded
+     */
+    JdbcInsertTableHandle beginInsert(JdbcTableHandle tableHandle);
+
+    /**
+     * Publishes the rows staged by the writers of the insert
+     */
+    void commitInsert(JdbcInsertTableHandle handle);
+
+    /**
+     * Drops the temporary tables of the shards, after a write failed
+     */
+    void dropTemporaryTables(List<JdbcWriteShard> shards);
+
+    /**
+     * Creates a writer for the shard on a new connection
+     */
+    JdbcPageWriter createPageWriter(JdbcWriteShard shard, List<String> columnNames, List<Type> columnTypes)
+            throws SQLException;
 }
@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimeType.TIME;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static org.joda.time.DateTimeZone.UTC;
+
+/**
+ * Reads one column of the current row of a {@link ResultSet} and appends it, in the
+ * Presto native representation of the column type, to a {@link BlockBuilder}.
+ * Readers are resolved once per column so that the per row work is a single virtual call.
+ */
+public interface JdbcColumnReader
+{
+    void read(ResultSet resultSet, int columnIndex, BlockBuilder output)
+            throws SQLException;
+
+    static JdbcColumnReader forType(Type type)
+    {
+        if (type.equals(BOOLEAN)) {
+            return (resultSet, columnIndex, output) -> {
+                boolean value = resultSet.getBoolean(columnIndex);
+                if (resultSet.wasNull()) {
+                    output.appendNull();
+                }
+                else {
+                    BOOLEAN.writeBoolean(output, value);
+                }
+            };
+        }
+        if (type.equals(BIGINT)) {
+            return (resultSet, columnIndex, output) -> {
+                long value = resultSet.getLong(columnIndex);
+                if (resultSet.wasNull()) {
+                    output.appendNull();
+                }
+                else {
+                    BIGINT.writeLong(output, value);
+                }
+            };
+        }
+        if (type.equals(DOUBLE)) {
+            return (resultSet, columnIndex, output) -> {
+                double value = resultSet.getDouble(columnIndex);
+                if (resultSet.wasNull()) {
+                    output.appendNull();
+                }
+                else {
+                    DOUBLE.writeDouble(output, value);
+                }
+            };
+        }
+        if (type.equals(VARCHAR)) {
+            return (resultSet, columnIndex, output) -> {
+                String value = resultSet.getString(columnIndex);
+                if (value == null) {
+                    output.appendNull();
+                }
+                else {
+                    VARCHAR.writeSlice(output, utf8Slice(value));
+                }
+            };
+        }
+        if (type.equals(VARBINARY)) {
+            return (resultSet, columnIndex, output) -> {
+                byte[] value = resultSet.getBytes(columnIndex);
+                if (value == null) {
+                    output.appendNull();
+                }
+                else {
+                    VARBINARY.writeSlice(output, wrappedBuffer(value));
+                }
+            };
+        }
+        if (type.equals(DATE)) {
+            // JDBC returns a date using a timestamp at midnight in the JVM timezone
+            DateTimeZone jvmZone = ISOChronology.getInstance().getZone();
+            return (resultSet, columnIndex, output) -> {
+                Date value = resultSet.getDate(columnIndex);
+                if (value == null) {
+                    output.appendNull();
+                }
+                else {
+                    // Convert it to a midnight in UTC and then to days
+                    long utcMillis = jvmZone.getMillisKeepLocal(UTC, value.getTime());
+                    DATE.writeLong(output, TimeUnit.MILLISECONDS.toDays(utcMillis));
+                }
+            };
+        }
+        if (type.equals(TIME)) {
+            ISOChronology utcChronology = ISOChronology.getInstance(UTC);
+            return (resultSet, columnIndex, output) -> {
+                Time value = resultSet.getTime(columnIndex);
+                if (value == null) {
+                    output.appendNull();
+                }
+                else {
+                    TIME.writeLong(output, utcChronology.millisOfDay().get(value.getTime()));
+                }
+            };
+        }
+        if (type.equals(TIMESTAMP)) {
+            return (resultSet, columnIndex, output) -> {
+                Timestamp value = resultSet.getTimestamp(columnIndex);
+                if (value == null) {
+                    output.appendNull();
+                }
+                else {
+                    TIMESTAMP.writeLong(output, value.getTime());
+                }
+            };
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Unsupported column type: " + type.getTypeSignature());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimeType.TIME;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.joda.time.DateTimeZone.UTC;
+
+/**
+ * Binds one value of a {@link Block} to a parameter of a {@link PreparedStatement}.
+ * This is the write side counterpart of {@link JdbcColumnReader}.
+ */
+public interface JdbcColumnWriter
+{
+    void write(PreparedStatement statement, int parameterIndex, Block block, int position)
+            throws SQLException;
+
+    static JdbcColumnWriter forType(Type type)
+    {
+        JdbcColumnWriter writer = forNonNullValues(type);
+        return (statement, parameterIndex, block, position) -> {
+            if (block.isNull(position)) {
+                statement.setObject(parameterIndex, null);
+            }
+            else {
+                writer.write(statement, parameterIndex, block, position);
+            }
+        };
+    }
+
+    static JdbcColumnWriter forNonNullValues(Type type)
+    {
+        if (type.equals(BOOLEAN)) {
+            return (statement, parameterIndex, block, position) -> statement.setBoolean(parameterIndex, BOOLEAN.getBoolean(block, position));
+        }
+        if (type.equals(BIGINT)) {
+            return (statement, parameterIndex, block, position) -> statement.setLong(parameterIndex, BIGINT.getLong(block, position));
+        }
+        if (type.equals(DOUBLE)) {
+            return (statement, parameterIndex, block, position) -> statement.setDouble(parameterIndex, DOUBLE.getDouble(block, position));
+        }
+        if (type.equals(VARCHAR)) {
+            return (statement, parameterIndex, block, position) -> statement.setString(parameterIndex, VARCHAR.getSlice(block, position).toStringUtf8());
+        }
+        if (type.equals(VARBINARY)) {
+            return (statement, parameterIndex, block, position) -> statement.setBytes(parameterIndex, VARBINARY.getSlice(block, position).getBytes());
+        }
+        if (type.equals(DATE)) {
+            // JDBC expects a date as a timestamp at midnight in the JVM timezone
+            DateTimeZone jvmZone = ISOChronology.getInstance().getZone();
+            return (statement, parameterIndex, block, position) -> {
+                long utcMillis = TimeUnit.DAYS.toMillis(DATE.getLong(block, position));
+                statement.setDate(parameterIndex, new Date(UTC.getMillisKeepLocal(jvmZone, utcMillis)));
+            };
+        }
+        if (type.equals(TIME)) {
+            return (statement, parameterIndex, block, position) -> statement.setTime(parameterIndex, new Time(TIME.getLong(block, position)));
+        }
+        if (type.equals(TIMESTAMP)) {
+            return (statement, parameterIndex, block, position) -> statement.setTimestamp(parameterIndex, new Timestamp(TIMESTAMP.getLong(block, position)));
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Unsupported column type: " + type.getTypeSignature());
+    }
+}
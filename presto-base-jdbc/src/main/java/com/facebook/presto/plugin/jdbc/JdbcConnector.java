@@ -16,6 +16,8 @@ package com.facebook.presto.plugin.jdbc;
 import com.facebook.presto.spi.Connector;
 import com.facebook.presto.spi.ConnectorHandleResolver;
 import com.facebook.presto.spi.ConnectorMetadata;
+import com.facebook.presto.spi.ConnectorPageSinkProvider;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorRecordSetProvider;
 import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
@@ -30,22 +32,28 @@ public class JdbcConnector
     private final JdbcMetadata jdbcMetadata;
     private final JdbcSplitManager jdbcSplitManager;
     private final JdbcRecordSetProvider jdbcRecordSetProvider;
+    private final JdbcPageSourceProvider jdbcPageSourceProvider;
     private final JdbcHandleResolver jdbcHandleResolver;
     private final JdbcRecordSinkProvider jdbcRecordSinkProvider;
+    private final JdbcPageSinkProvider jdbcPageSinkProvider;
 
     @Inject
     public JdbcConnector(
             JdbcMetadata jdbcMetadata,
             JdbcSplitManager jdbcSplitManager,
             JdbcRecordSetProvider jdbcRecordSetProvider,
+            JdbcPageSourceProvider jdbcPageSourceProvider,
             JdbcHandleResolver jdbcHandleResolver,
-            JdbcRecordSinkProvider jdbcRecordSinkProvider)
+            JdbcRecordSinkProvider jdbcRecordSinkProvider,
+            JdbcPageSinkProvider jdbcPageSinkProvider)
     {
         this.jdbcMetadata = checkNotNull(jdbcMetadata, "jdbcMetadata is null");
         this.jdbcSplitManager = checkNotNull(jdbcSplitManager, "jdbcSplitManager is null");
         this.jdbcRecordSetProvider = checkNotNull(jdbcRecordSetProvider, "jdbcRecordSetProvider is null");
+        this.jdbcPageSourceProvider = checkNotNull(jdbcPageSourceProvider, "jdbcPageSourceProvider is null");
         this.jdbcHandleResolver = checkNotNull(jdbcHandleResolver, "jdbcHandleResolver is null");
         this.jdbcRecordSinkProvider = checkNotNull(jdbcRecordSinkProvider, "jdbcRecordSinkProvider is null");
+        this.jdbcPageSinkProvider = checkNotNull(jdbcPageSinkProvider, "jdbcPageSinkProvider is null");
     }
 
     @Override
@@ -66,6 +74,12 @@ public class JdbcConnector
         return jdbcRecordSetProvider;
     }
 
+    @Override
+    public ConnectorPageSourceProvider getPageSourceProvider()
+    {
+        return jdbcPageSourceProvider;
+    }
+
     @Override
     public ConnectorHandleResolver getHandleResolver()
     {
@@ -77,4 +91,10 @@ public class JdbcConnector
     {
         return jdbcRecordSinkProvider;
     }
+
+    @Override
+    public ConnectorPageSinkProvider getPageSinkProvider()
+    {
+        return jdbcPageSinkProvider;
+    }
 }
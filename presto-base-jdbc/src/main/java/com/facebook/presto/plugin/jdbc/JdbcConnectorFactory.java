@@ -13,20 +13,26 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
+import com.facebook.presto.plugin.jdbc.util.RebindSafeMBeanServer;
 import com.facebook.presto.spi.Connector;
 import com.facebook.presto.spi.ConnectorFactory;
+import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Injector;
 import com.google.inject.Module;
 import io.airlift.bootstrap.Bootstrap;
+import org.weakref.jmx.guice.MBeanModule;
+
+import javax.management.MBeanServer;
 
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
 
 public class JdbcConnectorFactory
         implements ConnectorFactory
@@ -34,14 +40,24 @@ public class JdbcConnectorFactory
     private final String name;
     private final Module module;
     private final Map<String, String> optionalConfig;
+    private final NodeManager nodeManager;
     private final ClassLoader classLoader;
 
     public JdbcConnectorFactory(String name, Module module, Map<String, String> optionalConfig, ClassLoader classLoader)
+    {
+        this(name, module, optionalConfig, null, classLoader);
+    }
+
+    /**
+     * @param nodeManager the nodes of the cluster, or null if the splits are not placed by the locality of their database
+     */
+    public JdbcConnectorFactory(String name, Module module, Map<String, String> optionalConfig, NodeManager nodeManager, ClassLoader classLoader)
     {
         checkArgument(!isNullOrEmpty(name), "name is null or empty");
         this.name = name;
         this.module = checkNotNull(module, "module is null");
         this.optionalConfig = ImmutableMap.copyOf(checkNotNull(optionalConfig, "optionalConfig is null"));
+        this.nodeManager = nodeManager;
         this.classLoader = checkNotNull(classLoader, "classLoader is null");
     }
 
@@ -58,7 +74,17 @@ public class JdbcConnectorFactory
         checkNotNull(optionalConfig, "optionalConfig is null");
 
         try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
-            Bootstrap app = new Bootstrap(new JdbcModule(connectorId), module);
+            Bootstrap app = new Bootstrap(
+                    new MBeanModule(),
+                    binder -> {
+                        MBeanServer mbeanServer = new RebindSafeMBeanServer(getPlatformMBeanServer());
+                        binder.bind(MBeanServer.class).toInstance(mbeanServer);
+                        if (nodeManager != null) {
+                            binder.bind(NodeManager.class).toInstance(nodeManager);
+                        }
+                    },
+                    new JdbcModule(connectorId),
+                    module);
 
             Injector injector = app
                     .strictConfig()
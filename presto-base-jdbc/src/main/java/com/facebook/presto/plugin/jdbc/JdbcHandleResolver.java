@@ -15,6 +15,7 @@ package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorHandleResolver;
+import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
 import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.ConnectorTableHandle;
@@ -58,6 +59,12 @@ public class JdbcHandleResolver
         return (tableHandle instanceof JdbcOutputTableHandle) && ((JdbcOutputTableHandle) tableHandle).getConnectorId().equals(connectorId);
     }
 
+    @Override
+    public boolean canHandle(ConnectorInsertTableHandle tableHandle)
+    {
+        return (tableHandle instanceof JdbcInsertTableHandle) && ((JdbcInsertTableHandle) tableHandle).getConnectorId().equals(connectorId);
+    }
+
     @Override
     public Class<? extends ConnectorTableHandle> getTableHandleClass()
     {
@@ -81,4 +88,10 @@ public class JdbcHandleResolver
     {
         return JdbcOutputTableHandle.class;
     }
+
+    @Override
+    public Class<? extends ConnectorInsertTableHandle> getInsertTableHandleClass()
+    {
+        return JdbcInsertTableHandle.class;
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes rows with multi row {@code INSERT ... VALUES (...), (...)} statements. Full
+ * statements are prepared once and sent as a JDBC batch, the rows left over at the end
+ * of a batch go through a single statement sized to fit them.
+ */
+public class JdbcInsertPageWriter
+        implements JdbcPageWriter
+{
+    private final Connection connection;
+    private final List<JdbcColumnWriter> columnWriters;
+    private final IntFunction<String> insertSql;
+    private final int rowsPerStatement;
+    private PreparedStatement fullStatement;
+
+    /**
+     * @param insertSql builds the insert statement for the given number of rows
+     */
+    public JdbcInsertPageWriter(Connection connection, List<Type> columnTypes, IntFunction<String> insertSql, int rowsPerStatement)
+    {
+        this.connection = checkNotNull(connection, "connection is null");
+        this.insertSql = checkNotNull(insertSql, "insertSql is null");
+        checkArgument(rowsPerStatement > 0, "rowsPerStatement must be positive");
+        this.rowsPerStatement = rowsPerStatement;
+
+        ImmutableList.Builder<JdbcColumnWriter> columnWriters = ImmutableList.builder();
+        for (Type type : checkNotNull(columnTypes, "columnTypes is null")) {
+            columnWriters.add(JdbcColumnWriter.forType(type));
+        }
+        this.columnWriters = columnWriters.build();
+    }
+
+    @Override
+    public void write(List<Page> pages)
+            throws SQLException
+    {
+        int remainingRows = 0;
+        for (Page page : pages) {
+            remainingRows += page.getPositionCount();
+        }
+
+        PreparedStatement statement = null;
+        int statementRows = 0;
+        int row = 0;
+        boolean batched = false;
+        try {
+            for (Page page : pages) {
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    if (statement == null) {
+                        statementRows = Math.min(remainingRows, rowsPerStatement);
+                        statement = (statementRows == rowsPerStatement) ? getFullStatement() : connection.prepareStatement(insertSql.apply(statementRows));
+                        row = 0;
+                    }
+
+                    int parameterIndex = row * columnWriters.size() + 1;
+                    for (int channel = 0; channel < columnWriters.size(); channel++) {
+                        columnWriters.get(channel).write(statement, parameterIndex + channel, page.getBlock(channel), position);
+                    }
+                    row++;
+                    remainingRows--;
+
+                    if (row == statementRows) {
+                        if (statement == fullStatement) {
+                            statement.addBatch();
+                            batched = true;
+                        }
+                        else {
+                            statement.executeUpdate();
+                            statement.close();
+                        }
+                        statement = null;
+                    }
+                }
+            }
+            if (batched) {
+                fullStatement.executeBatch();
+            }
+            connection.commit();
+        }
+        finally {
+            if (statement != null && statement != fullStatement) {
+                statement.close();
+            }
+        }
+    }
+
+    @Override
+    public void rollback()
+            throws SQLException
+    {
+        connection.rollback();
+    }
+
+    @Override
+    public void close()
+            throws SQLException
+    {
+        try (Connection connection = this.connection) {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+        }
+    }
+
+    private PreparedStatement getFullStatement()
+            throws SQLException
+    {
+        if (fullStatement == null) {
+            fullStatement = connection.prepareStatement(insertSql.apply(rowsPerStatement));
+        }
+        return fullStatement;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorInsertTableHandle;
+import com.facebook.presto.spi.type.Type;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+public class JdbcInsertTableHandle
+        implements ConnectorInsertTableHandle
+{
+    private final String connectorId;
+    private final String tableName;
+    private final List<String> columnNames;
+    private final List<Type> columnTypes;
+    private final String shardColumn;
+    private final List<JdbcWriteShard> shards;
+
+    /**
+     * @param shardColumn the column the rows are routed to the shards by, or null if there is a single shard
+     * @param shards the tables the rows are inserted into
+     */
+    @JsonCreator
+    public JdbcInsertTableHandle(
+            @JsonProperty("connectorId") String connectorId,
+            @JsonProperty("tableName") String tableName,
+            @JsonProperty("columnNames") List<String> columnNames,
+            @JsonProperty("columnTypes") List<Type> columnTypes,
+            @JsonProperty("shardColumn") @Nullable String shardColumn,
+            @JsonProperty("shards") List<JdbcWriteShard> shards)
+    {
+        this.connectorId = checkNotNull(connectorId, "connectorId is null");
+        this.tableName = checkNotNull(tableName, "tableName is null");
+        this.shardColumn = shardColumn;
+        this.shards = ImmutableList.copyOf(checkNotNull(shards, "shards is null"));
+        checkArgument(!shards.isEmpty(), "shards is empty");
+        checkArgument(shards.size() == 1 || shardColumn != null, "shards require a shard column");
+
+        checkNotNull(columnNames, "columnNames is null");
+        checkNotNull(columnTypes, "columnTypes is null");
+        checkArgument(columnNames.size() == columnTypes.size(), "columnNames and columnTypes sizes don't match");
+        this.columnNames = ImmutableList.copyOf(columnNames);
+        this.columnTypes = ImmutableList.copyOf(columnTypes);
+    }
+
+    @JsonProperty
+    public String getConnectorId()
+    {
+        return connectorId;
+    }
+
+    @JsonProperty
+    public String getTableName()
+    {
+        return tableName;
+    }
+
+    @JsonProperty
+    public List<String> getColumnNames()
+    {
+        return columnNames;
+    }
+
+    @JsonProperty
+    public List<Type> getColumnTypes()
+    {
+        return columnTypes;
+    }
+
+    @JsonProperty
+    @Nullable
+    public String getShardColumn()
+    {
+        return shardColumn;
+    }
+
+    @JsonProperty
+    public List<JdbcWriteShard> getShards()
+    {
+        return shards;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format("jdbc:%s(%s shards)", tableName, shards.size());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(connectorId, tableName, columnNames, columnTypes, shardColumn, shards);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        JdbcInsertTableHandle other = (JdbcInsertTableHandle) obj;
+        return Objects.equals(this.connectorId, other.connectorId) &&
+                Objects.equals(this.tableName, other.tableName) &&
+                Objects.equals(this.columnNames, other.columnNames) &&
+                Objects.equals(this.columnTypes, other.columnTypes) &&
+                Objects.equals(this.shardColumn, other.shardColumn) &&
+                Objects.equals(this.shards, other.shards);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Key range (begin, end] of a table that is cut into splits only when the engine asks for
+ * more splits. Every split takes 1/parallelism of what is left of the range (guided
+ * self-scheduling), down to a minimum of 1/chunks of the range, so the first splits are large
+ * and the last ones are small. The small splits at the end of a slow range are picked up by
+ * the drivers that have finished their own splits, instead of the whole range being bound to
+ * one driver at planning time.
+ */
+@ThreadSafe
+public class JdbcKeyRange
+{
+    public interface SplitFactory
+    {
+        JdbcSplit createSplit(long begin, long end);
+    }
+
+    private final long end;
+    private final long minChunkWidth;
+    private final int parallelism;
+    private final SplitFactory splitFactory;
+
+    @GuardedBy("this")
+    private long next;
+
+    /**
+     * @param parallelism the number of drivers that scan the table at the same time
+     */
+    public JdbcKeyRange(long begin, long end, int chunks, int parallelism, SplitFactory splitFactory)
+    {
+        checkArgument(begin <= end, "begin is greater than end");
+        checkArgument(chunks > 0, "chunks must be positive");
+        checkArgument(parallelism > 0, "parallelism must be positive");
+        this.next = begin;
+        this.end = end;
+        this.minChunkWidth = Math.max(1, (long) Math.ceil(((double) end - begin) / chunks));
+        this.parallelism = parallelism;
+        this.splitFactory = checkNotNull(splitFactory, "splitFactory is null");
+    }
+
+    /**
+     * @return the next split of the range, or null if the whole range has been handed out
+     */
+    public synchronized JdbcSplit nextSplit()
+    {
+        if (next >= end) {
+            return null;
+        }
+        long remaining = end - next;
+        long width = Math.min(remaining, Math.max(minChunkWidth, (long) Math.ceil((double) remaining / parallelism)));
+        JdbcSplit split = splitFactory.createSplit(next, next + width);
+        next += width;
+        return split;
+    }
+
+    public synchronized boolean isFinished()
+    {
+        return next >= end;
+    }
+}
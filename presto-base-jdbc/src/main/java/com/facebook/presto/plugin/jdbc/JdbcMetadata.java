@@ -14,6 +14,8 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregationPushDown;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
@@ -26,6 +28,8 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.TableNotFoundException;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
@@ -38,6 +42,10 @@ import java.util.Map;
 
 import static com.facebook.presto.plugin.jdbc.Types.checkType;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class JdbcMetadata
@@ -165,13 +173,18 @@ public class JdbcMetadata
     @Override
     public ConnectorInsertTableHandle beginInsert(ConnectorSession session, ConnectorTableHandle tableHandle, InsertOption insertOption)
     {
-        throw new PrestoException(NOT_SUPPORTED, "This connector does not support inserts");
+        if (insertOption != null && (insertOption.isOverwrite() || insertOption.isPartition())) {
+            throw new PrestoException(NOT_SUPPORTED, "This connector does not support overwriting or partitioned inserts");
+        }
+        JdbcTableHandle handle = checkType(tableHandle, JdbcTableHandle.class, "tableHandle");
+        return jdbcClient.beginInsert(handle);
     }
 
     @Override
     public void commitInsert(ConnectorInsertTableHandle insertHandle, Collection<Slice> fragments)
     {
-        throw new UnsupportedOperationException();
+        JdbcInsertTableHandle handle = checkType(insertHandle, JdbcInsertTableHandle.class, "insertHandle");
+        jdbcClient.commitInsert(handle);
     }
 
     @Override
@@ -197,4 +210,90 @@ public class JdbcMetadata
     {
         return ImmutableMap.of();
     }
+
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        JdbcTableHandle handle = checkType(tableHandle, JdbcTableHandle.class, "tableHandle");
+        if (!jdbcClient.supportsLimit() || (handle.getPushDown() != null && handle.getPushDown().isAggregation())) {
+            return null;
+        }
+        return handle.withPushDown(JdbcPushDown.limit(handle.getPushDown(), limit));
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownTopN(ConnectorTableHandle tableHandle, List<ConnectorColumnHandle> sortColumns, List<SortOrder> sortOrders, long limit)
+    {
+        JdbcTableHandle handle = checkType(tableHandle, JdbcTableHandle.class, "tableHandle");
+        if (!jdbcClient.supportsLimit() || handle.getPushDown() != null) {
+            return null;
+        }
+        ImmutableList.Builder<JdbcPushDown.SortItem> orderBy = ImmutableList.builder();
+        for (int i = 0; i < sortColumns.size(); i++) {
+            JdbcColumnHandle column = checkType(sortColumns.get(i), JdbcColumnHandle.class, "columnHandle");
+            if (!isOrderedLikePresto(column.getColumnType())) {
+                return null;
+            }
+            orderBy.add(new JdbcPushDown.SortItem(column, sortOrders.get(i)));
+        }
+        return handle.withPushDown(JdbcPushDown.topN(orderBy.build(), limit));
+    }
+
+    @Override
+    public ConnectorAggregationPushDown pushDownAggregation(ConnectorTableHandle tableHandle, List<ConnectorColumnHandle> groupBy, List<ConnectorAggregate> aggregates)
+    {
+        JdbcTableHandle handle = checkType(tableHandle, JdbcTableHandle.class, "tableHandle");
+        if (handle.getPushDown() != null) {
+            return null;
+        }
+
+        ImmutableList.Builder<JdbcColumnHandle> groupByColumns = ImmutableList.builder();
+        for (ConnectorColumnHandle groupByColumn : groupBy) {
+            JdbcColumnHandle column = checkType(groupByColumn, JdbcColumnHandle.class, "columnHandle");
+            // text is grouped by the collation of the column, which may merge values that differ in Presto
+            if (!isOrderedLikePresto(column.getColumnType())) {
+                return null;
+            }
+            groupByColumns.add(column);
+        }
+
+        ImmutableList.Builder<JdbcPushDown.Aggregate> jdbcAggregates = ImmutableList.builder();
+        ImmutableList.Builder<ConnectorColumnHandle> outputs = ImmutableList.builder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            ConnectorAggregate aggregate = aggregates.get(i);
+            JdbcColumnHandle argument = null;
+            if (aggregate.getArgument() != null) {
+                argument = checkType(aggregate.getArgument(), JdbcColumnHandle.class, "columnHandle");
+            }
+            if (!isPushableAggregate(aggregate.getFunctionName(), argument)) {
+                return null;
+            }
+            // the aggregates are hidden columns named after their position, which no table column can use
+            JdbcColumnHandle output = new JdbcColumnHandle(handle.getConnectorId(), "$" + aggregate.getFunctionName() + "_" + i, aggregate.getType(), i);
+            jdbcAggregates.add(new JdbcPushDown.Aggregate(aggregate.getFunctionName(), argument, output));
+            outputs.add(output);
+        }
+
+        JdbcPushDown pushDown = JdbcPushDown.aggregation(groupByColumns.build(), jdbcAggregates.build());
+        return new ConnectorAggregationPushDown(handle.withPushDown(pushDown), outputs.build());
+    }
+
+    private static boolean isPushableAggregate(String functionName, JdbcColumnHandle argument)
+    {
+        switch (functionName) {
+            case "count":
+                return true;
+            case "sum":
+            case "min":
+            case "max":
+                return argument != null && (argument.getColumnType().equals(BIGINT) || argument.getColumnType().equals(DOUBLE));
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isOrderedLikePresto(Type type)
+    {
+        return BaseJdbcClient.isExactlyComparable(type) || type.equals(DATE) || type.equals(TIMESTAMP);
+    }
 }
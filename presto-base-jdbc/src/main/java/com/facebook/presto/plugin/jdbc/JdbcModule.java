@@ -13,11 +13,16 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPoolConfig;
 import com.google.inject.Binder;
 import com.google.inject.Module;
 import com.google.inject.Scopes;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.configuration.ConfigurationModule.bindConfig;
+import static org.weakref.jmx.ObjectNames.generatedNameOf;
+import static org.weakref.jmx.guice.ExportBinder.newExporter;
 
 public class JdbcModule
         implements Module
@@ -35,9 +40,19 @@ public class JdbcModule
         binder.bind(JdbcConnectorId.class).toInstance(new JdbcConnectorId(connectorId));
         binder.bind(JdbcMetadata.class).in(Scopes.SINGLETON);
         binder.bind(JdbcSplitManager.class).in(Scopes.SINGLETON);
+        binder.bind(JdbcSplitPlacement.class).in(Scopes.SINGLETON);
+        binder.bind(JdbcScanLimiter.class).in(Scopes.SINGLETON);
         binder.bind(JdbcRecordSetProvider.class).in(Scopes.SINGLETON);
+        binder.bind(JdbcPageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(JdbcHandleResolver.class).in(Scopes.SINGLETON);
         binder.bind(JdbcRecordSinkProvider.class).in(Scopes.SINGLETON);
+        binder.bind(JdbcPageSinkProvider.class).in(Scopes.SINGLETON);
         binder.bind(JdbcConnector.class).in(Scopes.SINGLETON);
+
+        bindConfig(binder).to(JdbcConnectionPoolConfig.class);
+        binder.bind(JdbcConnectionPool.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(JdbcConnectionPool.class).as(generatedNameOf(JdbcConnectionPool.class, connectorId));
+        newExporter(binder).export(JdbcClient.class).as(generatedNameOf(JdbcClient.class, connectorId));
+        newExporter(binder).export(JdbcPageSinkProvider.class).as(generatedNameOf(JdbcPageSinkProvider.class, connectorId));
     }
 }
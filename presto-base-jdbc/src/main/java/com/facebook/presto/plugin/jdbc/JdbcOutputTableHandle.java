@@ -43,7 +43,29 @@ public class JdbcOutputTableHandle
     private final String temporaryTableName;
     private final String connectionUrl;
     private final Map<String, String> connectionProperties;
+    private final String shardColumn;
+    private final List<JdbcWriteShard> shards;
 
+    public JdbcOutputTableHandle(
+            String connectorId,
+            @Nullable String catalogName,
+            @Nullable String schemaName,
+            String tableName,
+            List<String> columnNames,
+            List<Type> columnTypes,
+            String tableOwner,
+            String temporaryTableName,
+            String connectionUrl,
+            Map<String, String> connectionProperties)
+    {
+        this(connectorId, catalogName, schemaName, tableName, columnNames, columnTypes, tableOwner, temporaryTableName,
+                connectionUrl, connectionProperties, null, ImmutableList.of());
+    }
+
+    /**
+     * @param shardColumn the column the rows are routed to the shards by, or null if the table is not sharded
+     * @param shards the sub-tables created along with the table, empty if the table is not sharded
+     */
     @JsonCreator
     public JdbcOutputTableHandle(
             @JsonProperty("connectorId") String connectorId,
@@ -55,7 +77,9 @@ public class JdbcOutputTableHandle
             @JsonProperty("tableOwner") String tableOwner,
             @JsonProperty("temporaryTableName") String temporaryTableName,
             @JsonProperty("connectionUrl") String connectionUrl,
-            @JsonProperty("connectionProperties") Map<String, String> connectionProperties)
+            @JsonProperty("connectionProperties") Map<String, String> connectionProperties,
+            @JsonProperty("shardColumn") @Nullable String shardColumn,
+            @JsonProperty("shards") List<JdbcWriteShard> shards)
     {
         this.connectorId = checkNotNull(connectorId, "connectorId is null");
         this.catalogName = catalogName;
@@ -65,6 +89,9 @@ public class JdbcOutputTableHandle
         this.temporaryTableName = checkNotNull(temporaryTableName, "temporaryTableName is null");
         this.connectionUrl = checkNotNull(connectionUrl, "connectionUrl is null");
         this.connectionProperties = ImmutableMap.copyOf(checkNotNull(connectionProperties, "connectionProperties is null"));
+        this.shardColumn = shardColumn;
+        this.shards = ImmutableList.copyOf(checkNotNull(shards, "shards is null"));
+        checkArgument(shards.isEmpty() || shardColumn != null, "shards require a shard column");
 
         checkNotNull(columnNames, "columnNames is null");
         checkNotNull(columnTypes, "columnTypes is null");
@@ -135,6 +162,19 @@ public class JdbcOutputTableHandle
         return connectionProperties;
     }
 
+    @JsonProperty
+    @Nullable
+    public String getShardColumn()
+    {
+        return shardColumn;
+    }
+
+    @JsonProperty
+    public List<JdbcWriteShard> getShards()
+    {
+        return shards;
+    }
+
     @Override
     public String toString()
     {
@@ -154,7 +194,9 @@ public class JdbcOutputTableHandle
                 tableOwner,
                 temporaryTableName,
                 connectionUrl,
-                connectionProperties);
+                connectionProperties,
+                shardColumn,
+                shards);
     }
 
     @Override
@@ -176,6 +218,8 @@ public class JdbcOutputTableHandle
                 Objects.equals(this.tableOwner, other.tableOwner) &&
                 Objects.equals(this.temporaryTableName, other.temporaryTableName) &&
                 Objects.equals(this.connectionUrl, other.connectionUrl) &&
-                Objects.equals(this.connectionProperties, other.connectionProperties);
+                Objects.equals(this.connectionProperties, other.connectionProperties) &&
+                Objects.equals(this.shardColumn, other.shardColumn) &&
+                Objects.equals(this.shards, other.shards);
     }
 }
@@ -0,0 +1,347 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorPageSink;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+
+import javax.annotation.Nullable;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Writes pages into one or more shards. Pages are buffered per shard until the batch size
+ * is reached and each batch is then written and committed on one of up to
+ * {@code maxWritersPerShard} connections to the shard in the background, so that the
+ * databases can work on several batches at once while the next batches are buffered.
+ * When all connections of a shard are busy, {@link #appendPage} waits for one to become free.
+ * Rows are routed to the shards by the {@link JdbcShardRouter}.
+ */
+public class JdbcPageSink
+        implements ConnectorPageSink
+{
+    private static final Logger log = Logger.get(JdbcPageSink.class);
+
+    private final JdbcClient jdbcClient;
+    private final List<String> columnNames;
+    private final List<Type> columnTypes;
+    private final Executor executor;
+    private final JdbcWriteStats stats;
+    private final int maxWritersPerShard;
+    private final long batchSizeInBytes;
+
+    private final int shardChannel;
+    private final JdbcShardRouter router;
+    private final List<ShardWriter> shardWriters;
+    private final List<JdbcWriteShard> temporaryTables;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public JdbcPageSink(
+            JdbcClient jdbcClient,
+            List<String> columnNames,
+            List<Type> columnTypes,
+            @Nullable String shardColumn,
+            List<JdbcWriteShard> shards,
+            Executor executor,
+            JdbcWriteStats stats,
+            int maxWritersPerShard,
+            long batchSizeInBytes)
+    {
+        this(jdbcClient, columnNames, columnTypes, shardColumn, shards, shards, executor, stats, maxWritersPerShard, batchSizeInBytes);
+    }
+
+    /**
+     * @param temporaryTables the temporary tables of the write, which are dropped when the write is rolled back
+     */
+    public JdbcPageSink(
+            JdbcClient jdbcClient,
+            List<String> columnNames,
+            List<Type> columnTypes,
+            @Nullable String shardColumn,
+            List<JdbcWriteShard> shards,
+            List<JdbcWriteShard> temporaryTables,
+            Executor executor,
+            JdbcWriteStats stats,
+            int maxWritersPerShard,
+            long batchSizeInBytes)
+    {
+        this.jdbcClient = checkNotNull(jdbcClient, "jdbcClient is null");
+        this.columnNames = ImmutableList.copyOf(checkNotNull(columnNames, "columnNames is null"));
+        this.columnTypes = ImmutableList.copyOf(checkNotNull(columnTypes, "columnTypes is null"));
+        this.executor = checkNotNull(executor, "executor is null");
+        this.stats = checkNotNull(stats, "stats is null");
+        checkArgument(maxWritersPerShard > 0, "maxWritersPerShard must be positive");
+        this.maxWritersPerShard = maxWritersPerShard;
+        this.batchSizeInBytes = batchSizeInBytes;
+        this.temporaryTables = ImmutableList.copyOf(checkNotNull(temporaryTables, "temporaryTables is null"));
+
+        checkNotNull(shards, "shards is null");
+        checkArgument(!shards.isEmpty(), "shards is empty");
+        ImmutableList.Builder<ShardWriter> shardWriters = ImmutableList.builder();
+        for (JdbcWriteShard shard : shards) {
+            shardWriters.add(new ShardWriter(shard));
+        }
+        this.shardWriters = shardWriters.build();
+
+        if (shards.size() > 1) {
+            checkArgument(shardColumn != null, "shardColumn is null");
+            shardChannel = indexOfIgnoreCase(columnNames, shardColumn);
+            checkArgument(shardChannel >= 0, "shard column %s is not written", shardColumn);
+            router = new JdbcShardRouter(columnTypes.get(shardChannel), shards);
+        }
+        else {
+            shardChannel = -1;
+            router = null;
+        }
+    }
+
+    @Override
+    public void appendPage(Page page, Block sampleWeightBlock)
+    {
+        checkFailure();
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+        if (router == null) {
+            shardWriters.get(0).append(page);
+            return;
+        }
+
+        Block keyBlock = page.getBlock(shardChannel);
+        int[] shards = new int[page.getPositionCount()];
+        boolean singleShard = true;
+        for (int position = 0; position < shards.length; position++) {
+            shards[position] = router.getShard(keyBlock, position);
+            singleShard &= shards[position] == shards[0];
+        }
+        if (singleShard) {
+            shardWriters.get(shards[0]).append(page);
+            return;
+        }
+        for (int position = 0; position < shards.length; position++) {
+            shardWriters.get(shards[position]).appendRow(page, position);
+        }
+    }
+
+    @Override
+    public Collection<Slice> commit()
+    {
+        try {
+            for (ShardWriter shardWriter : shardWriters) {
+                shardWriter.flush();
+            }
+            for (ShardWriter shardWriter : shardWriters) {
+                shardWriter.awaitWriters();
+            }
+            checkFailure();
+        }
+        finally {
+            for (ShardWriter shardWriter : shardWriters) {
+                shardWriter.closeWriters(false);
+            }
+        }
+        // the committer does not need any additional info
+        return ImmutableList.of();
+    }
+
+    @Override
+    public void rollback()
+    {
+        try {
+            for (ShardWriter shardWriter : shardWriters) {
+                shardWriter.awaitWriters();
+            }
+        }
+        finally {
+            for (ShardWriter shardWriter : shardWriters) {
+                shardWriter.closeWriters(true);
+            }
+            // the query fails with this sink, so the other sinks of the query no longer need the tables either
+            jdbcClient.dropTemporaryTables(temporaryTables);
+        }
+    }
+
+    private void checkFailure()
+    {
+        Throwable t = failure.get();
+        if (t != null) {
+            throw Throwables.propagate(t);
+        }
+    }
+
+    private static int indexOfIgnoreCase(List<String> names, String name)
+    {
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).toLowerCase(ENGLISH).equals(name.toLowerCase(ENGLISH))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private final class ShardWriter
+    {
+        private final JdbcWriteShard shard;
+        private final List<JdbcPageWriter> writers = new ArrayList<>();
+        private final BlockingQueue<JdbcPageWriter> idleWriters = new LinkedBlockingQueue<>();
+        private PageBuilder pageBuilder;
+        private List<Page> batch = new ArrayList<>();
+        private long batchBytes;
+
+        private ShardWriter(JdbcWriteShard shard)
+        {
+            this.shard = shard;
+        }
+
+        public void append(Page page)
+        {
+            batch.add(page);
+            batchBytes += page.getSizeInBytes();
+            if (batchBytes >= batchSizeInBytes) {
+                writeBatch();
+            }
+        }
+
+        public void appendRow(Page page, int position)
+        {
+            if (pageBuilder == null) {
+                pageBuilder = new PageBuilder(columnTypes);
+            }
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < columnTypes.size(); channel++) {
+                columnTypes.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+            if (pageBuilder.isFull()) {
+                append(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+
+        public void flush()
+        {
+            if (pageBuilder != null && !pageBuilder.isEmpty()) {
+                append(pageBuilder.build());
+                pageBuilder.reset();
+            }
+            if (!batch.isEmpty()) {
+                writeBatch();
+            }
+        }
+
+        private void writeBatch()
+        {
+            List<Page> pages = batch;
+            long bytes = batchBytes;
+            batch = new ArrayList<>();
+            batchBytes = 0;
+
+            long rows = 0;
+            for (Page page : pages) {
+                rows += page.getPositionCount();
+            }
+            long batchRows = rows;
+
+            JdbcPageWriter writer = acquireWriter();
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    writer.write(pages);
+                    stats.recordBatch(batchRows, bytes, System.nanoTime() - start);
+                }
+                catch (Throwable t) {
+                    stats.recordBatchFailure();
+                    failure.compareAndSet(null, t);
+                }
+                finally {
+                    idleWriters.add(writer);
+                }
+            });
+        }
+
+        private JdbcPageWriter acquireWriter()
+        {
+            JdbcPageWriter writer = idleWriters.poll();
+            if (writer != null) {
+                return writer;
+            }
+            if (writers.size() < maxWritersPerShard) {
+                try {
+                    writer = jdbcClient.createPageWriter(shard, columnNames, columnTypes);
+                }
+                catch (SQLException e) {
+                    throw Throwables.propagate(e);
+                }
+                writers.add(writer);
+                return writer;
+            }
+            try {
+                writer = idleWriters.take();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+            // a failed batch leaves the writer idle, so check before writing the next one
+            checkFailure();
+            return writer;
+        }
+
+        public void awaitWriters()
+        {
+            try {
+                for (int i = 0; i < writers.size(); i++) {
+                    idleWriters.take();
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+        }
+
+        public void closeWriters(boolean rollback)
+        {
+            for (JdbcPageWriter writer : writers) {
+                try (JdbcPageWriter closing = writer) {
+                    if (rollback) {
+                        closing.rollback();
+                    }
+                }
+                catch (SQLException e) {
+                    log.warn(e, "Failed to close writer for %s", shard);
+                }
+            }
+            writers.clear();
+            idleWriters.clear();
+        }
+    }
+}
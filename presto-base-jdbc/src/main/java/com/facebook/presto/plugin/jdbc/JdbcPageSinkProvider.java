@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorInsertTableHandle;
+import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPageSink;
+import com.facebook.presto.spi.ConnectorPageSinkProvider;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.plugin.jdbc.Types.checkType;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+public class JdbcPageSinkProvider
+        implements ConnectorPageSinkProvider
+{
+    private final JdbcClient jdbcClient;
+    private final int writeConnections;
+    private final long writeBatchSize;
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("jdbc-writer-%s"));
+    private final JdbcWriteStats stats = new JdbcWriteStats();
+
+    @Inject
+    public JdbcPageSinkProvider(JdbcClient jdbcClient, BaseJdbcConfig config)
+    {
+        this.jdbcClient = checkNotNull(jdbcClient, "jdbcClient is null");
+        checkNotNull(config, "config is null");
+        this.writeConnections = config.getWriteConnections();
+        this.writeBatchSize = config.getWriteBatchSize().toBytes();
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ConnectorPageSink createPageSink(ConnectorOutputTableHandle tableHandle)
+    {
+        JdbcOutputTableHandle handle = checkType(tableHandle, JdbcOutputTableHandle.class, "tableHandle");
+        List<JdbcWriteShard> temporaryTables = BaseJdbcClient.getTemporaryTables(handle);
+        // the rows go to the temporary table of the base table unless it is sharded
+        List<JdbcWriteShard> shards = handle.getShards().isEmpty() ? temporaryTables : handle.getShards();
+        return new JdbcPageSink(jdbcClient, handle.getColumnNames(), handle.getColumnTypes(), handle.getShardColumn(), shards, temporaryTables,
+                executor, stats, writeConnections, writeBatchSize);
+    }
+
+    @Override
+    public ConnectorPageSink createPageSink(ConnectorInsertTableHandle tableHandle)
+    {
+        JdbcInsertTableHandle handle = checkType(tableHandle, JdbcInsertTableHandle.class, "tableHandle");
+        return new JdbcPageSink(jdbcClient, handle.getColumnNames(), handle.getColumnTypes(), handle.getShardColumn(), handle.getShards(),
+                executor, stats, writeConnections, writeBatchSize);
+    }
+
+    @Managed
+    @Nested
+    public JdbcWriteStats getWriteStats()
+    {
+        return stats;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+/**
+ * Reads the rows of a split straight into pages. The reader of every column is resolved
+ * once, so a row costs one virtual call per column instead of the per field type dispatch
+ * of {@link JdbcRecordCursor}. Pages are cut by the {@link PageBuilder}, which bounds them
+ * by their size in bytes.
+ */
+public class JdbcPageSource
+        implements ConnectorPageSource
+{
+    private static final Logger log = Logger.get(JdbcPageSource.class);
+
+    private static final int ROWS_PER_REQUEST = 4096;
+
+    private final BaseJdbcClient client;
+    private final JdbcSplit split;
+    private final JdbcColumnReader[] readers;
+    private final PageBuilder pageBuilder;
+    private final JdbcScanLimiter scanLimiter;
+    private final List<JdbcColumnHandle> columnHandles;
+    private final String sql;
+    private final long rowSize;
+    private final long startNanos = System.nanoTime();
+
+    private Connection connection;
+    private Statement statement;
+    private ResultSet resultSet;
+    private CompletableFuture<?> scan;
+    private boolean finished;
+    private boolean closed;
+    private long rowCount;
+    private long completedBytes;
+    private long readTimeNanos;
+    private long fetchBufferBytes;
+
+    public JdbcPageSource(JdbcClient jdbcClient, JdbcSplit split, List<JdbcColumnHandle> columnHandles)
+    {
+        this(jdbcClient, split, columnHandles, new JdbcScanLimiter(split.getConnectorId(), 0));
+    }
+
+    public JdbcPageSource(JdbcClient jdbcClient, JdbcSplit split, List<JdbcColumnHandle> columnHandles, JdbcScanLimiter scanLimiter)
+    {
+        this.scanLimiter = checkNotNull(scanLimiter, "scanLimiter is null");
+        this.client = (BaseJdbcClient) checkNotNull(jdbcClient, "jdbcClient is null");
+        this.split = checkNotNull(split, "split is null");
+        this.columnHandles = ImmutableList.copyOf(checkNotNull(columnHandles, "columnHandles is null"));
+
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        readers = new JdbcColumnReader[columnHandles.size()];
+        for (int i = 0; i < readers.length; i++) {
+            Type type = columnHandles.get(i).getColumnType();
+            types.add(type);
+            readers[i] = JdbcColumnReader.forType(type);
+        }
+        pageBuilder = new PageBuilder(types.build());
+        sql = jdbcClient.buildSql(split, columnHandles);
+        rowSize = BaseJdbcClient.estimateRowSize(columnHandles);
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        if (closed) {
+            return 0;
+        }
+        return fetchBufferBytes + pageBuilder.getSizeInBytes();
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (closed || resultSet != null) {
+            return NOT_BLOCKED;
+        }
+        return requestScan();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed || (finished && pageBuilder.isEmpty());
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (closed) {
+            return null;
+        }
+        if (resultSet == null) {
+            if (!requestScan().isDone()) {
+                // the database of the split is busy, the driver waits for isBlocked
+                return null;
+            }
+            open();
+        }
+
+        if (!finished) {
+            long start = System.nanoTime();
+            try {
+                for (int row = 0; row < ROWS_PER_REQUEST && !pageBuilder.isFull(); row++) {
+                    if (!resultSet.next()) {
+                        finished = true;
+                        break;
+                    }
+                    pageBuilder.declarePosition();
+                    for (int column = 0; column < readers.length; column++) {
+                        readers[column].read(resultSet, column + 1, pageBuilder.getBlockBuilder(column));
+                    }
+                    rowCount++;
+                }
+            }
+            catch (SQLException e) {
+                throw handleSqlException(e);
+            }
+            readTimeNanos += System.nanoTime() - start;
+        }
+
+        // only return a page if it is full or the result set is exhausted
+        if (pageBuilder.isEmpty() || (!finished && !pageBuilder.isFull())) {
+            if (finished) {
+                close();
+            }
+            return null;
+        }
+
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        completedBytes += page.getSizeInBytes();
+        if (finished) {
+            close();
+        }
+        return page;
+    }
+
+    @SuppressWarnings({"UnusedDeclaration", "EmptyTryBlock"})
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (scan != null) {
+            scanLimiter.release(split, scan);
+        }
+        // only an unfiltered split that was read to the end says how many rows its key range holds
+        if (finished && !isNullOrEmpty(split.getSplitField()) && split.getPdboEnable() && split.getPushDown() == null && split.getTupleDomain().isAll()) {
+            client.recordSplitCompletion(split, rowCount, System.nanoTime() - startNanos);
+        }
+        // a streaming driver reads the rest of the result when it is closed, so stop the query first
+        boolean cancelled = false;
+        if (statement != null && !finished) {
+            try {
+                statement.cancel();
+                cancelled = true;
+            }
+            catch (SQLException e) {
+                log.debug(e, "Failed to cancel query: %s", sql);
+            }
+        }
+        // use try with resources to close everything properly, the connection last
+        try (Connection connection = this.connection;
+                Statement statement = this.statement;
+                ResultSet resultSet = this.resultSet) {
+            // do nothing
+        }
+        catch (SQLException e) {
+            // the rest of a cancelled query is not needed
+            if (!cancelled) {
+                throw Throwables.propagate(e);
+            }
+            log.debug(e, "Failed to close cancelled query: %s", sql);
+        }
+    }
+
+    private CompletableFuture<?> requestScan()
+    {
+        if (scan == null) {
+            scan = scanLimiter.acquire(split);
+        }
+        return scan;
+    }
+
+    /**
+     * Runs the query, once the database of the split took the scan.
+     */
+    private void open()
+    {
+        try {
+            connection = client.getConnection(split);
+            statement = client.createScanStatement(split, connection, columnHandles);
+            // a streaming statement has a negative fetch size and holds one row at a time
+            fetchBufferBytes = Math.max(statement.getFetchSize(), 1) * rowSize;
+
+            long start = System.nanoTime();
+            log.debug("JdbcPageSource Executing: %s ", sql);
+            resultSet = statement.executeQuery(sql);
+            readTimeNanos += System.nanoTime() - start;
+        }
+        catch (SQLException e) {
+            throw handleSqlException(e);
+        }
+    }
+
+    private RuntimeException handleSqlException(SQLException e)
+    {
+        try {
+            close();
+        }
+        catch (Exception closeException) {
+            e.addSuppressed(closeException);
+        }
+        return Throwables.propagate(e);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.plugin.jdbc.cache.JdbcCachePageSource;
+import com.facebook.presto.plugin.jdbc.cache.JdbcCacheSplit;
+import com.facebook.presto.plugin.jdbc.cache.JdbcCacheTable;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+
+import javax.inject.Inject;
+
+import java.util.List;
+
+import static com.facebook.presto.plugin.jdbc.Types.checkType;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class JdbcPageSourceProvider
+        implements ConnectorPageSourceProvider
+{
+    private final JdbcClient jdbcClient;
+    private final JdbcScanLimiter scanLimiter;
+
+    @Inject
+    public JdbcPageSourceProvider(JdbcClient jdbcClient, JdbcScanLimiter scanLimiter)
+    {
+        this.jdbcClient = checkNotNull(jdbcClient, "jdbcClient is null");
+        this.scanLimiter = checkNotNull(scanLimiter, "scanLimiter is null");
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns)
+    {
+        JdbcSplit jdbcSplit = checkType(split, JdbcSplit.class, "split");
+
+        ImmutableList.Builder<JdbcColumnHandle> builder = ImmutableList.builder();
+        for (ConnectorColumnHandle handle : columns) {
+            builder.add(checkType(handle, JdbcColumnHandle.class, "columnHandle"));
+        }
+        List<JdbcColumnHandle> handles = builder.build();
+
+        if (jdbcClient instanceof BaseJdbcClient) {
+            BaseJdbcClient client = (BaseJdbcClient) jdbcClient;
+            if (client.isCacheTable(jdbcSplit.getBaseTableName())) {
+                JdbcCacheSplit key = new JdbcCacheSplit(jdbcSplit.getConnectorId(), jdbcSplit.getCatalogName(),
+                        jdbcSplit.getSchemaName(), jdbcSplit.getTableName(), jdbcSplit.getConnectionUrl(), jdbcSplit.getBaseTableName(),
+                        jdbcSplit.getSplitField());
+                JdbcCacheTable table = client.getTableDataSet(key);
+                // queries that need columns that are not cached, or filter on them, read from the database
+                if (table.containsColumns(handles) && table.containsColumns(getDomainColumns(jdbcSplit.getTupleDomain()))) {
+                    return new JdbcCachePageSource(table, handles, jdbcSplit.getTupleDomain());
+                }
+            }
+        }
+        return new JdbcPageSource(jdbcClient, jdbcSplit, handles, scanLimiter);
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns, TupleDomain<ConnectorColumnHandle> dynamicFilter)
+    {
+        // the filter is added to the query, so the database skips the rows
+        JdbcSplit jdbcSplit = checkType(split, JdbcSplit.class, "split");
+        return createPageSource(jdbcSplit.withTupleDomain(jdbcSplit.getTupleDomain().intersect(dynamicFilter)), columns);
+    }
+
+    private static List<JdbcColumnHandle> getDomainColumns(TupleDomain<ConnectorColumnHandle> tupleDomain)
+    {
+        if (tupleDomain.isNone()) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<JdbcColumnHandle> columns = ImmutableList.builder();
+        for (ConnectorColumnHandle column : tupleDomain.getDomains().keySet()) {
+            columns.add(checkType(column, JdbcColumnHandle.class, "columnHandle"));
+        }
+        return columns.build();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.Page;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes batches of pages into the temporary table of a create table through one
+ * connection. A writer is used by one thread at a time, but successive batches may
+ * be written from different threads.
+ */
+public interface JdbcPageWriter
+        extends AutoCloseable
+{
+    /**
+     * Writes all rows of the pages and commits them as one transaction.
+     */
+    void write(List<Page> pages)
+            throws SQLException;
+
+    void rollback()
+            throws SQLException;
+
+    @Override
+    void close()
+            throws SQLException;
+}
@@ -14,11 +14,14 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ConnectorFactory;
+import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.spi.Plugin;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Module;
 
+import javax.inject.Inject;
+
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +36,7 @@ public class JdbcPlugin
     private final String name;
     private final Module module;
     private Map<String, String> optionalConfig = ImmutableMap.of();
+    private NodeManager nodeManager;
 
     public JdbcPlugin(String name, Module module)
     {
@@ -47,11 +51,17 @@ public class JdbcPlugin
         this.optionalConfig = ImmutableMap.copyOf(checkNotNull(optionalConfig, "optionalConfig is null"));
     }
 
+    @Inject
+    public void setNodeManager(NodeManager nodeManager)
+    {
+        this.nodeManager = nodeManager;
+    }
+
     @Override
     public <T> List<T> getServices(Class<T> type)
     {
         if (type == ConnectorFactory.class) {
-            return ImmutableList.of(type.cast(new JdbcConnectorFactory(name, module, optionalConfig, getClassLoader())));
+            return ImmutableList.of(type.cast(new JdbcConnectorFactory(name, module, optionalConfig, nodeManager, getClassLoader())));
         }
         return ImmutableList.of();
     }
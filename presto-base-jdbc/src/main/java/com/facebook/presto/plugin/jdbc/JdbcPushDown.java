@@ -0,0 +1,276 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.block.SortOrder;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The operations a split runs in the database on top of the projection and the tuple
+ * domain: a grouped aggregation, an ordering and a row limit. They are applied to each
+ * split on its own, so the engine still combines the rows of all splits.
+ */
+public final class JdbcPushDown
+{
+    private final List<JdbcColumnHandle> groupBy;
+    private final List<Aggregate> aggregates;
+    private final List<SortItem> orderBy;
+    private final Long limit;
+
+    @JsonCreator
+    public JdbcPushDown(
+            @JsonProperty("groupBy") List<JdbcColumnHandle> groupBy,
+            @JsonProperty("aggregates") List<Aggregate> aggregates,
+            @JsonProperty("orderBy") List<SortItem> orderBy,
+            @JsonProperty("limit") @Nullable Long limit)
+    {
+        this.groupBy = ImmutableList.copyOf(checkNotNull(groupBy, "groupBy is null"));
+        this.aggregates = ImmutableList.copyOf(checkNotNull(aggregates, "aggregates is null"));
+        this.orderBy = ImmutableList.copyOf(checkNotNull(orderBy, "orderBy is null"));
+        checkArgument(limit == null || limit >= 0, "limit is negative");
+        this.limit = limit;
+    }
+
+    public static JdbcPushDown aggregation(List<JdbcColumnHandle> groupBy, List<Aggregate> aggregates)
+    {
+        return new JdbcPushDown(groupBy, aggregates, ImmutableList.of(), null);
+    }
+
+    public static JdbcPushDown topN(List<SortItem> orderBy, long limit)
+    {
+        return new JdbcPushDown(ImmutableList.of(), ImmutableList.of(), orderBy, limit);
+    }
+
+    /**
+     * Adds a limit to the operations, keeping the smaller limit if there already is one.
+     */
+    public static JdbcPushDown limit(@Nullable JdbcPushDown pushDown, long limit)
+    {
+        if (pushDown == null) {
+            return new JdbcPushDown(ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), limit);
+        }
+        if (pushDown.limit != null) {
+            limit = Math.min(limit, pushDown.limit);
+        }
+        return new JdbcPushDown(pushDown.groupBy, pushDown.aggregates, pushDown.orderBy, limit);
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getGroupBy()
+    {
+        return groupBy;
+    }
+
+    @JsonProperty
+    public List<Aggregate> getAggregates()
+    {
+        return aggregates;
+    }
+
+    @JsonProperty
+    public List<SortItem> getOrderBy()
+    {
+        return orderBy;
+    }
+
+    @JsonProperty
+    @Nullable
+    public Long getLimit()
+    {
+        return limit;
+    }
+
+    public boolean isAggregation()
+    {
+        return !groupBy.isEmpty() || !aggregates.isEmpty();
+    }
+
+    /**
+     * @return the aggregate computing the column, or null if the column is not an aggregate
+     */
+    @Nullable
+    public Aggregate getAggregate(JdbcColumnHandle column)
+    {
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.getOutput().equals(column)) {
+                return aggregate;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+        JdbcPushDown o = (JdbcPushDown) obj;
+        return Objects.equals(this.groupBy, o.groupBy) &&
+                Objects.equals(this.aggregates, o.aggregates) &&
+                Objects.equals(this.orderBy, o.orderBy) &&
+                Objects.equals(this.limit, o.limit);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(groupBy, aggregates, orderBy, limit);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("groupBy", groupBy)
+                .add("aggregates", aggregates)
+                .add("orderBy", orderBy)
+                .add("limit", limit)
+                .toString();
+    }
+
+    public static final class Aggregate
+    {
+        private final String functionName;
+        private final JdbcColumnHandle argument;
+        private final JdbcColumnHandle output;
+
+        @JsonCreator
+        public Aggregate(
+                @JsonProperty("functionName") String functionName,
+                @JsonProperty("argument") @Nullable JdbcColumnHandle argument,
+                @JsonProperty("output") JdbcColumnHandle output)
+        {
+            this.functionName = checkNotNull(functionName, "functionName is null");
+            this.argument = argument;
+            this.output = checkNotNull(output, "output is null");
+        }
+
+        @JsonProperty
+        public String getFunctionName()
+        {
+            return functionName;
+        }
+
+        /**
+         * @return the aggregated column, or null for {@code count(*)}
+         */
+        @JsonProperty
+        @Nullable
+        public JdbcColumnHandle getArgument()
+        {
+            return argument;
+        }
+
+        @JsonProperty
+        public JdbcColumnHandle getOutput()
+        {
+            return output;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if ((obj == null) || (getClass() != obj.getClass())) {
+                return false;
+            }
+            Aggregate o = (Aggregate) obj;
+            return Objects.equals(this.functionName, o.functionName) &&
+                    Objects.equals(this.argument, o.argument) &&
+                    Objects.equals(this.output, o.output);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(functionName, argument, output);
+        }
+
+        @Override
+        public String toString()
+        {
+            return functionName + "(" + (argument == null ? "*" : argument.getColumnName()) + ")";
+        }
+    }
+
+    public static final class SortItem
+    {
+        private final JdbcColumnHandle column;
+        private final SortOrder sortOrder;
+
+        @JsonCreator
+        public SortItem(
+                @JsonProperty("column") JdbcColumnHandle column,
+                @JsonProperty("sortOrder") SortOrder sortOrder)
+        {
+            this.column = checkNotNull(column, "column is null");
+            this.sortOrder = checkNotNull(sortOrder, "sortOrder is null");
+        }
+
+        @JsonProperty
+        public JdbcColumnHandle getColumn()
+        {
+            return column;
+        }
+
+        @JsonProperty
+        public SortOrder getSortOrder()
+        {
+            return sortOrder;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if ((obj == null) || (getClass() != obj.getClass())) {
+                return false;
+            }
+            SortItem o = (SortItem) obj;
+            return Objects.equals(this.column, o.column) &&
+                    Objects.equals(this.sortOrder, o.sortOrder);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(column, sortOrder);
+        }
+
+        @Override
+        public String toString()
+        {
+            return column.getColumnName() + " " + sortOrder;
+        }
+    }
+}
@@ -13,8 +13,6 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
-import com.facebook.presto.plugin.jdbc.cache.JdbcCacheSplit;
-import com.facebook.presto.plugin.jdbc.cache.JdbcJavaBean;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.type.BigintType;
@@ -66,52 +64,27 @@ public class JdbcRecordCursor
     private ResultSet resultSet;
     private boolean closed;
 
-    private List<JdbcJavaBean> tableDataSet;
-    private boolean isCacheTable = false;
     private AtomicLong rowRecord = new AtomicLong(0);
     private BaseJdbcClient client;
     private JdbcSplit split;
+    private final long startNanos = System.nanoTime();
 
     public JdbcRecordCursor(JdbcClient jdbcClient, JdbcSplit split, List<JdbcColumnHandle> columnHandles)
     {
         this.client = (BaseJdbcClient) jdbcClient;
         this.split = split;
-        isCacheTable = client.isCacheTable(split.getBaseTableName());
         this.columnHandles = ImmutableList.copyOf(checkNotNull(columnHandles, "columnHandles is null"));
-        if (isCacheTable) {
-            JdbcCacheSplit key = new JdbcCacheSplit(split.getConnectorId(), split.getCatalogName(),
-                    split.getSchemaName(), split.getTableName(), split.getConnectionUrl(), split.getBaseTableName());
-            tableDataSet = client.getTableDataSet(key);
+        String sql = jdbcClient.buildSql(split, columnHandles);
+        try {
+            connection = jdbcClient.getConnection(split);
+            statement = jdbcClient.createScanStatement(split, connection, columnHandles);
+            long startTime = System.currentTimeMillis();
+            log.info("JdbcRecordCursor Executing: %s ", sql);
+            resultSet = statement.executeQuery(sql);
+            log.debug("The connection url: %s ,JdbcRecordCursor Executing: %s ,spend time : %s", split.getConnectionUrl(), sql, (System.currentTimeMillis() - startTime));
         }
-        else {
-            String sql = jdbcClient.buildSql(split, columnHandles);
-            try {
-                connection = jdbcClient.getConnection(split);
-                statement = connection.createStatement();
-                statement.setFetchSize(1000);
-
-                String whereCondition = split.getSplitPart();
-                if (!isNullOrEmpty(whereCondition)) {
-                    if (whereCondition.indexOf("LIMIT") != -1) {
-                        sql += split.getSplitPart();
-                    }
-                    else {
-                        if (sql.indexOf("WHERE") != -1) {
-                            sql += " AND " + split.getSplitPart();
-                        }
-                        else {
-                            sql += " WHERE " + split.getSplitPart();
-                        }
-                    }
-                }
-                long startTime = System.currentTimeMillis();
-                log.info("JdbcRecordCursor Executing: %s ", sql);
-                resultSet = statement.executeQuery(sql);
-                log.debug("The connection url: %s ,JdbcRecordCursor Executing: %s ,spend time : %s", split.getConnectionUrl(), sql, (System.currentTimeMillis() - startTime));
-            }
-            catch (SQLException e) {
-                throw handleSqlException(e);
-            }
+        catch (SQLException e) {
+            throw handleSqlException(e);
         }
     }
 
@@ -146,21 +119,15 @@ public class JdbcRecordCursor
             return false;
         }
         boolean result;
-        if (isCacheTable) {
-            long andIncrement = rowRecord.incrementAndGet();
-            result = andIncrement <= tableDataSet.size();
-        }
-        else {
-            try {
-                result = resultSet.next();
-                if (result) {
-                    rowRecord.getAndIncrement();
-                }
-            }
-            catch (SQLException e) {
-                throw handleSqlException(e);
+        try {
+            result = resultSet.next();
+            if (result) {
+                rowRecord.getAndIncrement();
             }
         }
+        catch (SQLException e) {
+            throw handleSqlException(e);
+        }
         if (!result) {
             close();
         }
@@ -171,16 +138,11 @@ public class JdbcRecordCursor
     public boolean getBoolean(int field)
     {
         checkState(!closed, "cursor is closed");
-        if (isCacheTable) {
-            return (boolean) getFieldValue(field);
+        try {
+            return resultSet.getBoolean(field + 1);
         }
-        else {
-            try {
-                return resultSet.getBoolean(field + 1);
-            }
-            catch (SQLException e) {
-                throw handleSqlException(e);
-            }
+        catch (SQLException e) {
+            throw handleSqlException(e);
         }
     }
 
@@ -191,21 +153,10 @@ public class JdbcRecordCursor
         try {
             Type type = getType(field);
             if (type.equals(BigintType.BIGINT)) {
-                if (isCacheTable) {
-                    return (long) getFieldValue(field);
-                }
-                else {
-                    return resultSet.getLong(field + 1);
-                }
+                return resultSet.getLong(field + 1);
             }
             if (type.equals(DateType.DATE)) {
-                Date date = null;
-                if (isCacheTable) {
-                    date = (Date) getFieldValue(field);
-                }
-                else {
-                    date = resultSet.getDate(field + 1);
-                }
+                Date date = resultSet.getDate(field + 1);
                 // JDBC returns a date using a timestamp at midnight in the JVM timezone
                 long localMillis = date.getTime();
                 // Convert it to a midnight in UTC
@@ -214,23 +165,11 @@ public class JdbcRecordCursor
                 return TimeUnit.MILLISECONDS.toDays(utcMillis);
             }
             if (type.equals(TimeType.TIME)) {
-                Time time = null;
-                if (isCacheTable) {
-                    time = (Time) getFieldValue(field);
-                }
-                else {
-                    time = resultSet.getTime(field + 1);
-                }
+                Time time = resultSet.getTime(field + 1);
                 return UTC_CHRONOLOGY.millisOfDay().get(time.getTime());
             }
             if (type.equals(TimestampType.TIMESTAMP)) {
-                Timestamp timestamp = null;
-                if (isCacheTable) {
-                    timestamp = (Timestamp) getFieldValue(field);
-                }
-                else {
-                    timestamp = resultSet.getTimestamp(field + 1);
-                }
+                Timestamp timestamp = resultSet.getTimestamp(field + 1);
                 return timestamp.getTime();
             }
             throw new PrestoException(INTERNAL_ERROR, "Unhandled type for long: " + type.getTypeSignature());
@@ -244,16 +183,11 @@ public class JdbcRecordCursor
     public double getDouble(int field)
     {
         checkState(!closed, "cursor is closed");
-        if (isCacheTable) {
-            return (double) getFieldValue(field);
+        try {
+            return resultSet.getDouble(field + 1);
         }
-        else {
-            try {
-                    return resultSet.getDouble(field + 1);
-                }
-            catch (SQLException e) {
-                throw handleSqlException(e);
-            }
+        catch (SQLException e) {
+            throw handleSqlException(e);
         }
     }
 
@@ -264,24 +198,10 @@ public class JdbcRecordCursor
         try {
             Type type = getType(field);
             if (type.equals(VarcharType.VARCHAR)) {
-                String str = null;
-                if (isCacheTable) {
-                    str = (String) getFieldValue(field);
-                }
-                else {
-                    str = resultSet.getString(field + 1);
-                }
-                return utf8Slice(str);
+                return utf8Slice(resultSet.getString(field + 1));
             }
             if (type.equals(VarbinaryType.VARBINARY)) {
-                byte[] bytes = null;
-                if (isCacheTable) {
-                    bytes = (byte[]) getFieldValue(field);
-                }
-                else {
-                    bytes = resultSet.getBytes(field + 1);
-                }
-                return wrappedBuffer(bytes);
+                return wrappedBuffer(resultSet.getBytes(field + 1));
             }
             throw new PrestoException(INTERNAL_ERROR, "Unhandled type for slice: " + type.getTypeSignature());
         }
@@ -297,10 +217,6 @@ public class JdbcRecordCursor
         checkArgument(field < columnHandles.size(), "Invalid field index");
 
         try {
-            if (isCacheTable) {
-                Object feildValue = getFieldValue(field);
-                return feildValue == null;
-            }
             // JDBC is kind of dumb: we need to read the field and then ask
             // if it was null, which means we are wasting effort here.
             // We could save the result of the field access if it matters.
@@ -317,14 +233,15 @@ public class JdbcRecordCursor
     @Override
     public void close()
     {
-        if (!closed && !isNullOrEmpty(split.getSplitField()) && split.getPdboEnable()) {
-            client.commitPdboLogs(split, rowRecord.get());
+        // pushed down operations and predicates change the number of rows returned, so those splits say nothing about the key distribution
+        if (!closed && !isNullOrEmpty(split.getSplitField()) && split.getPdboEnable() && split.getPushDown() == null && split.getTupleDomain().isAll()) {
+            client.recordSplitCompletion(split, rowRecord.get(), System.nanoTime() - startNanos);
         }
         closed = true;
-        // use try with resources to close everything properly
-        try (ResultSet resultSet = this.resultSet;
+        // use try with resources to close everything properly, the connection last
+        try (Connection connection = this.connection;
                 Statement statement = this.statement;
-                Connection connection = this.connection) {
+                ResultSet resultSet = this.resultSet) {
             // do nothing
         }
         catch (SQLException e) {
@@ -332,13 +249,6 @@ public class JdbcRecordCursor
         }
     }
 
-    private Object getFieldValue(int field)
-    {
-        String lowerCase = columnHandles.get(field).getColumnName().toLowerCase();
-        JdbcJavaBean jdbcJavaBean = tableDataSet.get(rowRecord.intValue() - 1);
-        return jdbcJavaBean.getFieldObjectValue(jdbcJavaBean.getColumns().indexOf(lowerCase));
-    }
-
     private RuntimeException handleSqlException(SQLException e)
     {
         try {
@@ -0,0 +1,299 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.NodeManager;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Limits the splits scanning a database instance at the same time. The limit holds for the
+ * whole cluster: the coordinator divides it among the nodes that may run the splits of the
+ * database and writes the share of a node into every split. When the database has fewer
+ * scans than there are nodes, its splits are pinned to as many nodes as it has scans, each
+ * of them running one. Every node then runs at most the share of the latest split of the
+ * database, or the whole limit if the coordinator did not divide it.
+ * <p>
+ * A split waits for its scan with a future, so the driver is not scheduled until it can run.
+ */
+@ThreadSafe
+public class JdbcScanLimiter
+{
+    private final String connectorId;
+    private final int maxSplitsPerDatabase;
+    private final ConcurrentMap<String, DatabaseScans> scans = new ConcurrentHashMap<>();
+    private volatile NodeManager nodeManager;
+
+    @Inject
+    public JdbcScanLimiter(JdbcConnectorId connectorId, BaseJdbcConfig config)
+    {
+        this(connectorId.toString(), config.getMaxSplitsPerDatabase());
+    }
+
+    /**
+     * @param maxSplitsPerDatabase the splits scanning a database instance at the same time, 0 for no limit
+     */
+    public JdbcScanLimiter(String connectorId, int maxSplitsPerDatabase)
+    {
+        checkArgument(maxSplitsPerDatabase >= 0, "maxSplitsPerDatabase is negative");
+        this.connectorId = checkNotNull(connectorId, "connectorId is null");
+        this.maxSplitsPerDatabase = maxSplitsPerDatabase;
+    }
+
+    @Inject(optional = true)
+    public void setNodeManager(NodeManager nodeManager)
+    {
+        this.nodeManager = nodeManager;
+    }
+
+    /**
+     * Divides the limit of every database among the nodes that may run the splits of the source.
+     */
+    public ConnectorSplitSource assign(ConnectorSplitSource splitSource)
+    {
+        if (maxSplitsPerDatabase == 0 || nodeManager == null) {
+            return splitSource;
+        }
+        return new AssignedSplitSource(splitSource);
+    }
+
+    @VisibleForTesting
+    List<ConnectorSplit> assign(List<ConnectorSplit> splits)
+    {
+        List<HostAddress> activeNodes = null;
+        ImmutableList.Builder<ConnectorSplit> assigned = ImmutableList.builder();
+        for (ConnectorSplit split : splits) {
+            if (!(split instanceof JdbcSplit)) {
+                assigned.add(split);
+                continue;
+            }
+            List<HostAddress> nodes;
+            if (!split.isRemotelyAccessible() && !split.getAddresses().isEmpty()) {
+                nodes = split.getAddresses();
+            }
+            else {
+                if (activeNodes == null) {
+                    activeNodes = getActiveNodes();
+                }
+                nodes = activeNodes;
+            }
+            assigned.add(assign((JdbcSplit) split, nodes));
+        }
+        return assigned.build();
+    }
+
+    private JdbcSplit assign(JdbcSplit split, List<HostAddress> nodes)
+    {
+        if (nodes.isEmpty()) {
+            return split;
+        }
+        if (nodes.size() <= maxSplitsPerDatabase) {
+            return split.withScanPermits(maxSplitsPerDatabase / nodes.size());
+        }
+        // the same nodes for all splits of a database, which databases get which nodes is spread by their name
+        String database = getDatabaseInstance(split.getConnectionUrl());
+        int start = Math.floorMod(database.hashCode(), nodes.size());
+        ImmutableList.Builder<HostAddress> scanNodes = ImmutableList.builder();
+        for (int i = 0; i < maxSplitsPerDatabase; i++) {
+            scanNodes.add(nodes.get((start + i) % nodes.size()));
+        }
+        return split.withPlacement(scanNodes.build(), false).withScanPermits(1);
+    }
+
+    private List<HostAddress> getActiveNodes()
+    {
+        List<HostAddress> nodes = new ArrayList<>();
+        for (Node node : nodeManager.getActiveDatasourceNodes(connectorId)) {
+            nodes.add(node.getHostAndPort());
+        }
+        // every batch must pick the same nodes for a database
+        nodes.sort(Comparator.comparing(HostAddress::toString));
+        return nodes;
+    }
+
+    /**
+     * Requests a scan of the database of the split. The future completes once the scan may
+     * start, the split must then give it back with {@link #release}, even if it gave up waiting.
+     */
+    public CompletableFuture<?> acquire(JdbcSplit split)
+    {
+        if (maxSplitsPerDatabase == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int limit = split.getScanPermits() > 0 ? split.getScanPermits() : maxSplitsPerDatabase;
+        return getScans(split).acquire(limit);
+    }
+
+    /**
+     * Gives back a scan requested with {@link #acquire}, or stops waiting for it.
+     */
+    public void release(JdbcSplit split, CompletableFuture<?> scan)
+    {
+        if (maxSplitsPerDatabase == 0) {
+            return;
+        }
+        getScans(split).release(scan);
+    }
+
+    private DatabaseScans getScans(JdbcSplit split)
+    {
+        return scans.computeIfAbsent(getDatabaseInstance(split.getConnectionUrl()), database -> new DatabaseScans());
+    }
+
+    /**
+     * @return the host and port of the database in a connection url, or the whole url if it has none
+     */
+    @VisibleForTesting
+    static String getDatabaseInstance(String connectionUrl)
+    {
+        int start = connectionUrl.indexOf("//");
+        if (start < 0) {
+            return connectionUrl;
+        }
+        start += 2;
+        int end = start;
+        while (end < connectionUrl.length() && "/?;".indexOf(connectionUrl.charAt(end)) < 0) {
+            end++;
+        }
+        // credentials are not part of the instance
+        int credentials = connectionUrl.lastIndexOf('@', end - 1);
+        if (credentials >= start) {
+            start = credentials + 1;
+        }
+        return connectionUrl.substring(start, end).toLowerCase(ENGLISH);
+    }
+
+    private class AssignedSplitSource
+            implements ConnectorSplitSource
+    {
+        private final ConnectorSplitSource splitSource;
+
+        public AssignedSplitSource(ConnectorSplitSource splitSource)
+        {
+            this.splitSource = checkNotNull(splitSource, "splitSource is null");
+        }
+
+        @Override
+        public String getDataSourceName()
+        {
+            return splitSource.getDataSourceName();
+        }
+
+        @Override
+        public List<ConnectorSplit> getNextBatch(int maxSize)
+                throws InterruptedException
+        {
+            return assign(splitSource.getNextBatch(maxSize));
+        }
+
+        @Override
+        public void close()
+        {
+            splitSource.close();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return splitSource.isFinished();
+        }
+    }
+
+    private static class DatabaseScans
+    {
+        @GuardedBy("this")
+        private final Queue<CompletableFuture<?>> waiting = new ArrayDeque<>();
+        @GuardedBy("this")
+        private int limit;
+        @GuardedBy("this")
+        private int running;
+
+        public CompletableFuture<?> acquire(int limit)
+        {
+            CompletableFuture<?> scan = new CompletableFuture<>();
+            List<CompletableFuture<?>> started;
+            synchronized (this) {
+                // the latest share assigned by the coordinator wins, scans over a lowered limit run to completion
+                this.limit = limit;
+                waiting.add(scan);
+                started = start();
+            }
+            complete(started);
+            return scan;
+        }
+
+        public void release(CompletableFuture<?> scan)
+        {
+            if (scan.cancel(false)) {
+                // the split stopped waiting
+                synchronized (this) {
+                    waiting.remove(scan);
+                }
+                return;
+            }
+            List<CompletableFuture<?>> started;
+            synchronized (this) {
+                running--;
+                started = start();
+            }
+            complete(started);
+        }
+
+        @GuardedBy("this")
+        private List<CompletableFuture<?>> start()
+        {
+            List<CompletableFuture<?>> started = new ArrayList<>();
+            while (running < limit && !waiting.isEmpty()) {
+                CompletableFuture<?> scan = waiting.poll();
+                if (!scan.isCancelled()) {
+                    running++;
+                    started.add(scan);
+                }
+            }
+            return started;
+        }
+
+        private void complete(List<CompletableFuture<?>> started)
+        {
+            // complete outside of the lock, the futures run the listeners of the waiting drivers
+            for (CompletableFuture<?> scan : started) {
+                if (!scan.complete(null)) {
+                    // cancelled after it was started
+                    release(scan);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.facebook.presto.spi.StandardErrorCode.CONSTRAINT_VIOLATION;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+/**
+ * Picks the shard of a row from its bigint shard key. A row goes to the shard whose key range
+ * holds the key, and keys above the last range, which an auto increment key produces, go to the
+ * last shard. The splits of a shard read its range and the keys above it, so a null key, a key
+ * below all ranges or a key between two ranges would never be read back, and fails the write.
+ */
+public class JdbcShardRouter
+{
+    private final long[] lowKeys;
+    private final long[] highKeys;
+    private final int[] rangeShards;
+    private final String[] tableNames;
+
+    public JdbcShardRouter(Type keyType, List<JdbcWriteShard> shards)
+    {
+        checkNotNull(keyType, "keyType is null");
+        checkNotNull(shards, "shards is null");
+        checkArgument(!shards.isEmpty(), "shards is empty");
+        int shardCount = shards.size();
+
+        if (!keyType.equals(BIGINT)) {
+            throw new PrestoException(NOT_SUPPORTED, format("Shard key of type %s cannot be routed to a sub-table", keyType));
+        }
+        for (JdbcWriteShard shard : shards) {
+            if (shard.getLowKey() == null || shard.getHighKey() == null) {
+                throw new PrestoException(NOT_SUPPORTED, format("Sub-table %s has no key range to route rows by", shard.getTableName()));
+            }
+        }
+
+        Integer[] order = new Integer[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(shard -> shards.get(shard).getLowKey()));
+        lowKeys = new long[shardCount];
+        highKeys = new long[shardCount];
+        rangeShards = new int[shardCount];
+        tableNames = new String[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            JdbcWriteShard shard = shards.get(order[i]);
+            rangeShards[i] = order[i];
+            lowKeys[i] = shard.getLowKey();
+            highKeys[i] = shard.getHighKey();
+            tableNames[i] = shard.getTableName();
+        }
+    }
+
+    public int getShardCount()
+    {
+        return rangeShards.length;
+    }
+
+    public int getShard(Block block, int position)
+    {
+        if (block.isNull(position)) {
+            throw new PrestoException(CONSTRAINT_VIOLATION, "Shard key is null");
+        }
+        long key = BIGINT.getLong(block, position);
+        int index = Arrays.binarySearch(lowKeys, key);
+        if (index < 0) {
+            // the last range starting below the key
+            index = -index - 2;
+        }
+        if (index < 0) {
+            throw new PrestoException(CONSTRAINT_VIOLATION, format("Shard key %s is below the range of sub-table %s", key, tableNames[0]));
+        }
+        if (key > highKeys[index] && index < rangeShards.length - 1) {
+            throw new PrestoException(CONSTRAINT_VIOLATION, format("Shard key %s is between the ranges of sub-tables %s and %s", key, tableNames[index], tableNames[index + 1]));
+        }
+        return rangeShards[index];
+    }
+}
@@ -48,7 +48,37 @@ public class JdbcSplit
     private final long timeStamp;
     private final int scanNodes;
     private final boolean pdboEnable;
+    private final JdbcPushDown pushDown;
+    private final int scanPermits;
 
+    public JdbcSplit(
+            String connectorId,
+            @Nullable String catalogName,
+            @Nullable String schemaName,
+            String tableName,
+            String connectionUrl,
+            Map<String, String> connectionProperties,
+            TupleDomain<ConnectorColumnHandle> tupleDomain,
+            String splitPart,
+            List<HostAddress> addresses,
+            boolean remotelyAccessible,
+            String baseTableName,
+            String splitField,
+            String beginIndex,
+            String endIndex,
+            long timeStamp,
+            int scanNodes,
+            boolean pdboEnable,
+            @Nullable JdbcPushDown pushDown)
+    {
+        this(connectorId, catalogName, schemaName, tableName, connectionUrl, connectionProperties, tupleDomain, splitPart, addresses,
+                remotelyAccessible, baseTableName, splitField, beginIndex, endIndex, timeStamp, scanNodes, pdboEnable, pushDown, 0);
+    }
+
+    /**
+     * @param scanPermits the scans of the database of this split that each node may run at the same time,
+     * as assigned by the coordinator, or 0 if the node decides
+     */
     @JsonCreator
     public JdbcSplit(
             @JsonProperty("connectorId") String connectorId,
@@ -67,7 +97,9 @@ public class JdbcSplit
             @JsonProperty("endIndex") String endIndex,
             @JsonProperty("timeStamp") long timeStamp,
             @JsonProperty("scanNodes") int scanNodes,
-            @JsonProperty("pdboEnable") boolean pdboEnable)
+            @JsonProperty("pdboEnable") boolean pdboEnable,
+            @JsonProperty("pushDown") @Nullable JdbcPushDown pushDown,
+            @JsonProperty("scanPermits") int scanPermits)
     {
         this.connectorId = checkNotNull(connectorId, "connector id is null");
         this.catalogName = catalogName;
@@ -86,6 +118,8 @@ public class JdbcSplit
         this.timeStamp = timeStamp;
         this.scanNodes = scanNodes;
         this.pdboEnable = pdboEnable;
+        this.pushDown = pushDown;
+        this.scanPermits = scanPermits;
     }
 
     @JsonProperty
@@ -152,6 +186,36 @@ public class JdbcSplit
         return this;
     }
 
+    /**
+     * @return a copy of this split that is scheduled on the nodes at the addresses
+     */
+    public JdbcSplit withPlacement(List<HostAddress> addresses, boolean remotelyAccessible)
+    {
+        return new JdbcSplit(connectorId, catalogName, schemaName, tableName, connectionUrl, connectionProperties, tupleDomain,
+                splitPart, addresses, remotelyAccessible, baseTableName, splitField, beginIndex, endIndex, timeStamp, scanNodes,
+                pdboEnable, pushDown, scanPermits);
+    }
+
+    /**
+     * @return a copy of this split that only reads the rows within the tuple domain
+     */
+    public JdbcSplit withTupleDomain(TupleDomain<ConnectorColumnHandle> tupleDomain)
+    {
+        return new JdbcSplit(connectorId, catalogName, schemaName, tableName, connectionUrl, connectionProperties, tupleDomain,
+                splitPart, addresses, remotelyAccessible, baseTableName, splitField, beginIndex, endIndex, timeStamp, scanNodes,
+                pdboEnable, pushDown, scanPermits);
+    }
+
+    /**
+     * @return a copy of this split that runs at most the given number of scans of its database on each node
+     */
+    public JdbcSplit withScanPermits(int scanPermits)
+    {
+        return new JdbcSplit(connectorId, catalogName, schemaName, tableName, connectionUrl, connectionProperties, tupleDomain,
+                splitPart, addresses, remotelyAccessible, baseTableName, splitField, beginIndex, endIndex, timeStamp, scanNodes,
+                pdboEnable, pushDown, scanPermits);
+    }
+
     @JsonProperty
     public String getSplitPart()
     {
@@ -199,4 +263,17 @@ public class JdbcSplit
     {
         return pdboEnable;
     }
+
+    @JsonProperty
+    @Nullable
+    public JdbcPushDown getPushDown()
+    {
+        return pushDown;
+    }
+
+    @JsonProperty
+    public int getScanPermits()
+    {
+        return scanPermits;
+    }
 }
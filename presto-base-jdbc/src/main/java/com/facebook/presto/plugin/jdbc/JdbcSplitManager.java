@@ -37,12 +37,16 @@ public class JdbcSplitManager
 {
     private final String connectorId;
     private final JdbcClient jdbcClient;
+    private final JdbcSplitPlacement splitPlacement;
+    private final JdbcScanLimiter scanLimiter;
 
     @Inject
-    public JdbcSplitManager(JdbcConnectorId connectorId, JdbcClient jdbcClient)
+    public JdbcSplitManager(JdbcConnectorId connectorId, JdbcClient jdbcClient, JdbcSplitPlacement splitPlacement, JdbcScanLimiter scanLimiter)
     {
         this.connectorId = checkNotNull(connectorId, "connectorId is null").toString();
         this.jdbcClient = checkNotNull(jdbcClient, "client is null");
+        this.splitPlacement = checkNotNull(splitPlacement, "splitPlacement is null");
+        this.scanLimiter = checkNotNull(scanLimiter, "scanLimiter is null");
     }
 
     @Override
@@ -62,6 +66,7 @@ public class JdbcSplitManager
         checkArgument(partitions.size() == 1, "Expected one partition but got %s", partitions.size());
         JdbcPartition partition = checkType(partitions.get(0), JdbcPartition.class, "partition");
 
-        return jdbcClient.getPartitionSplits(partition);
+        // the scans are divided among the nodes the splits are placed on
+        return scanLimiter.assign(splitPlacement.place(jdbcClient.getPartitionSplits(partition)));
     }
 }
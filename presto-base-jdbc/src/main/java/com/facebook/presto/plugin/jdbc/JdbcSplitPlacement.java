@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.NodeManager;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Places the splits on the workers running on the host of their database. A split with
+ * such workers is pinned to them, so its rows never cross the network. A split without them
+ * may run anywhere, the scheduler still prefers the nodes in the rack of its database.
+ */
+public class JdbcSplitPlacement
+{
+    private final String connectorId;
+    private final boolean splitLocalityEnable;
+    private NodeManager nodeManager;
+
+    @Inject
+    public JdbcSplitPlacement(JdbcConnectorId connectorId, BaseJdbcConfig config)
+    {
+        this.connectorId = checkNotNull(connectorId, "connectorId is null").toString();
+        this.splitLocalityEnable = checkNotNull(config, "config is null").getSplitLocalityEnable();
+    }
+
+    @Inject(optional = true)
+    public void setNodeManager(NodeManager nodeManager)
+    {
+        this.nodeManager = nodeManager;
+    }
+
+    public ConnectorSplitSource place(ConnectorSplitSource splitSource)
+    {
+        if (!splitLocalityEnable || nodeManager == null) {
+            return splitSource;
+        }
+        return new PlacedSplitSource(splitSource);
+    }
+
+    List<ConnectorSplit> place(List<ConnectorSplit> splits)
+    {
+        // the workers on the host of each database, looked up once per batch
+        Map<String, List<HostAddress>> localNodes = new HashMap<>();
+        ImmutableList.Builder<ConnectorSplit> placed = ImmutableList.builder();
+        for (ConnectorSplit split : splits) {
+            if (!(split instanceof JdbcSplit) || split.getAddresses().isEmpty()) {
+                placed.add(split);
+                continue;
+            }
+            ImmutableList.Builder<HostAddress> nodes = ImmutableList.builder();
+            for (HostAddress address : split.getAddresses()) {
+                nodes.addAll(localNodes.computeIfAbsent(address.getHostText(), this::getLocalNodes));
+            }
+            List<HostAddress> addresses = nodes.build();
+            if (addresses.isEmpty()) {
+                placed.add(((JdbcSplit) split).withPlacement(split.getAddresses(), true));
+            }
+            else {
+                placed.add(((JdbcSplit) split).withPlacement(addresses, false));
+            }
+        }
+        return placed.build();
+    }
+
+    private List<HostAddress> getLocalNodes(String host)
+    {
+        InetAddress address = toInetAddress(host);
+        ImmutableList.Builder<HostAddress> nodes = ImmutableList.builder();
+        for (Node node : nodeManager.getActiveDatasourceNodes(connectorId)) {
+            HostAddress nodeAddress = node.getHostAndPort();
+            if (nodeAddress.getHostText().equalsIgnoreCase(host) || (address != null && address.equals(toInetAddress(nodeAddress.getHostText())))) {
+                nodes.add(nodeAddress);
+            }
+        }
+        return nodes.build();
+    }
+
+    private static InetAddress toInetAddress(String host)
+    {
+        try {
+            return InetAddress.getByName(host);
+        }
+        catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private class PlacedSplitSource
+            implements ConnectorSplitSource
+    {
+        private final ConnectorSplitSource splitSource;
+
+        public PlacedSplitSource(ConnectorSplitSource splitSource)
+        {
+            this.splitSource = checkNotNull(splitSource, "splitSource is null");
+        }
+
+        @Override
+        public String getDataSourceName()
+        {
+            return splitSource.getDataSourceName();
+        }
+
+        @Override
+        public List<ConnectorSplit> getNextBatch(int maxSize)
+                throws InterruptedException
+        {
+            return place(splitSource.getNextBatch(maxSize));
+        }
+
+        @Override
+        public void close()
+        {
+            splitSource.close();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return splitSource.isFinished();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Split source that is filled by background producers. Batches are handed out as soon as
+ * splits are available, so scheduling can start while the splits are still being enumerated.
+ * Producers may also add key ranges, which are cut into splits one batch at a time and in
+ * turns, so that all ranges are started before the last, small splits of any range.
+ */
+@ThreadSafe
+public class JdbcSplitSource
+        implements ConnectorSplitSource
+{
+    private static final ConnectorSplit FINISHED_MARKER = new ConnectorSplit()
+    {
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    // wakes up a caller waiting for splits when ranges have been added
+    private static final ConnectorSplit RANGES_ADDED_MARKER = new ConnectorSplit()
+    {
+        @Override
+        public boolean isRemotelyAccessible()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<HostAddress> getAddresses()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private final String connectorId;
+    private final BlockingQueue<ConnectorSplit> queue = new LinkedBlockingQueue<>();
+    private final Queue<JdbcKeyRange> ranges = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Throwable> throwable = new AtomicReference<>();
+    private volatile boolean closed;
+
+    @GuardedBy("this")
+    private final List<Future<?>> producerFutures = new ArrayList<>();
+
+    public JdbcSplitSource(String connectorId)
+    {
+        this.connectorId = checkNotNull(connectorId, "connectorId is null");
+    }
+
+    public void addToQueue(Iterable<? extends ConnectorSplit> splits)
+    {
+        if (throwable.get() == null) {
+            for (ConnectorSplit split : splits) {
+                queue.add(split);
+            }
+        }
+    }
+
+    public void addRanges(Iterable<JdbcKeyRange> ranges)
+    {
+        if (throwable.get() == null) {
+            boolean added = false;
+            for (JdbcKeyRange range : ranges) {
+                this.ranges.add(range);
+                added = true;
+            }
+            if (added) {
+                queue.add(RANGES_ADDED_MARKER);
+            }
+        }
+    }
+
+    public void finished()
+    {
+        if (throwable.get() == null) {
+            queue.add(FINISHED_MARKER);
+        }
+    }
+
+    public void fail(Throwable e)
+    {
+        // only record the first error message
+        if (throwable.compareAndSet(null, e)) {
+            queue.add(FINISHED_MARKER);
+            cancelProducers();
+        }
+    }
+
+    public synchronized void addProducerFuture(Future<?> future)
+    {
+        producerFutures.add(future);
+
+        // someone may have called close before calling this method
+        if (closed) {
+            future.cancel(true);
+        }
+    }
+
+    @Override
+    public String getDataSourceName()
+    {
+        return connectorId;
+    }
+
+    @Override
+    public List<ConnectorSplit> getNextBatch(int maxSize)
+            throws InterruptedException
+    {
+        checkState(!closed, "Provider is already closed");
+
+        // unless there are ranges to cut splits from, wait for at least one split
+        // and then take as many extra splits as possible
+        List<ConnectorSplit> splits = new ArrayList<>(maxSize);
+        if (ranges.isEmpty()) {
+            splits.add(queue.take());
+        }
+        queue.drainTo(splits, maxSize - splits.size());
+        splits.removeIf(split -> split == RANGES_ADDED_MARKER);
+
+        int finishedIndex = splits.indexOf(FINISHED_MARKER);
+        if (finishedIndex >= 0) {
+            // add the finish marker back to the queue so future callers will not block indefinitely
+            queue.add(FINISHED_MARKER);
+            splits = new ArrayList<>(splits.subList(0, finishedIndex));
+        }
+
+        // take one split from each range in turn
+        while (splits.size() < maxSize && !ranges.isEmpty() && !closed) {
+            JdbcKeyRange range = ranges.poll();
+            JdbcSplit split = range.nextSplit();
+            if (split != null) {
+                splits.add(split);
+            }
+            if (!range.isFinished()) {
+                ranges.add(range);
+            }
+        }
+
+        if (throwable.get() != null) {
+            throw propagatePrestoException(throwable.get());
+        }
+        return ImmutableList.copyOf(splits);
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        // the finished marker must be checked before checking the throwable
+        // to avoid a race with the fail method
+        boolean isFinished = queue.peek() == FINISHED_MARKER && ranges.isEmpty();
+        if (throwable.get() != null) {
+            throw propagatePrestoException(throwable.get());
+        }
+        return isFinished;
+    }
+
+    @Override
+    public void close()
+    {
+        ranges.clear();
+        queue.add(FINISHED_MARKER);
+        synchronized (this) {
+            closed = true;
+        }
+        cancelProducers();
+    }
+
+    private synchronized void cancelProducers()
+    {
+        for (Future<?> future : producerFutures) {
+            future.cancel(true);
+        }
+    }
+
+    private static RuntimeException propagatePrestoException(Throwable throwable)
+    {
+        if (throwable instanceof PrestoException) {
+            return (PrestoException) throwable;
+        }
+        return new PrestoException(INTERNAL_ERROR, "Failed to enumerate JDBC splits", throwable);
+    }
+}
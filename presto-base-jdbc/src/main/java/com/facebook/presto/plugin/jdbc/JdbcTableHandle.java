@@ -33,6 +33,12 @@ public final class JdbcTableHandle
     private final String catalogName;
     private final String schemaName;
     private final String tableName;
+    private final JdbcPushDown pushDown;
+
+    public JdbcTableHandle(String connectorId, SchemaTableName schemaTableName, @Nullable String catalogName, @Nullable String schemaName, String tableName)
+    {
+        this(connectorId, schemaTableName, catalogName, schemaName, tableName, null);
+    }
 
     @JsonCreator
     public JdbcTableHandle(
@@ -40,13 +46,15 @@ public final class JdbcTableHandle
             @JsonProperty("schemaTableName") SchemaTableName schemaTableName,
             @JsonProperty("catalogName") @Nullable String catalogName,
             @JsonProperty("schemaName") @Nullable String schemaName,
-            @JsonProperty("tableName") String tableName)
+            @JsonProperty("tableName") String tableName,
+            @JsonProperty("pushDown") @Nullable JdbcPushDown pushDown)
     {
         this.connectorId = checkNotNull(connectorId, "connectorId is null");
         this.schemaTableName = checkNotNull(schemaTableName, "schemaTableName is null");
         this.catalogName = catalogName;
         this.schemaName = schemaName;
         this.tableName = checkNotNull(tableName, "tableName is null");
+        this.pushDown = pushDown;
     }
 
     @JsonProperty
@@ -81,6 +89,21 @@ public final class JdbcTableHandle
         return tableName;
     }
 
+    /**
+     * @return the operations each split runs in the database on top of the scan, or null if there are none
+     */
+    @JsonProperty
+    @Nullable
+    public JdbcPushDown getPushDown()
+    {
+        return pushDown;
+    }
+
+    public JdbcTableHandle withPushDown(JdbcPushDown pushDown)
+    {
+        return new JdbcTableHandle(connectorId, schemaTableName, catalogName, schemaName, tableName, pushDown);
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -92,18 +115,19 @@ public final class JdbcTableHandle
         }
         JdbcTableHandle o = (JdbcTableHandle) obj;
         return Objects.equals(this.connectorId, o.connectorId) &&
-                Objects.equals(this.schemaTableName, o.schemaTableName);
+                Objects.equals(this.schemaTableName, o.schemaTableName) &&
+                Objects.equals(this.pushDown, o.pushDown);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(connectorId, schemaTableName);
+        return Objects.hash(connectorId, schemaTableName, pushDown);
     }
 
     @Override
     public String toString()
     {
-        return Joiner.on(":").useForNull("null").join(connectorId, schemaTableName, catalogName, schemaName, tableName);
+        return Joiner.on(":").useForNull("null").join(connectorId, schemaTableName, catalogName, schemaName, tableName, pushDown);
     }
 }
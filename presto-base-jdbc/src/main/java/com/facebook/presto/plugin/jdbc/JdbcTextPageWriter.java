@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimeType.TIME;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Writes rows through the bulk load path of the database. Each batch is encoded in memory
+ * as tab separated text, with backslash escapes and {@code \N} for null, which is the
+ * default input format of both MySQL {@code LOAD DATA} and PostgreSQL {@code COPY}, and
+ * the encoded batch is handed to the {@link TextLoader} of the dialect as a stream.
+ */
+public class JdbcTextPageWriter
+        implements JdbcPageWriter
+{
+    private static final Set<Type> SUPPORTED_TYPES = ImmutableSet.of(BOOLEAN, BIGINT, DOUBLE, VARCHAR, DATE, TIME, TIMESTAMP);
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormat.forPattern("yyyy-MM-dd").withZoneUTC();
+    // JDBC binds times and timestamps in the JVM timezone, so do the same here
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormat.forPattern("HH:mm:ss.SSS");
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private static final byte[] NULL = "\\N".getBytes(US_ASCII);
+    private static final byte[] TRUE = "1".getBytes(US_ASCII);
+    private static final byte[] FALSE = "0".getBytes(US_ASCII);
+
+    public interface TextLoader
+    {
+        /**
+         * Loads the rows into the table. The transaction is committed by the caller.
+         *
+         * @return the number of rows loaded
+         */
+        long load(Connection connection, InputStream rows)
+                throws SQLException;
+    }
+
+    private final Connection connection;
+    private final List<Type> columnTypes;
+    private final TextLoader loader;
+
+    public JdbcTextPageWriter(Connection connection, List<Type> columnTypes, TextLoader loader)
+    {
+        this.connection = checkNotNull(connection, "connection is null");
+        this.columnTypes = ImmutableList.copyOf(checkNotNull(columnTypes, "columnTypes is null"));
+        this.loader = checkNotNull(loader, "loader is null");
+        checkArgument(isSupported(columnTypes), "Unsupported column types: %s", columnTypes);
+    }
+
+    /**
+     * @return true if all types can be encoded as text without loss
+     */
+    public static boolean isSupported(List<Type> columnTypes)
+    {
+        return SUPPORTED_TYPES.containsAll(columnTypes);
+    }
+
+    @Override
+    public void write(List<Page> pages)
+            throws SQLException
+    {
+        long rows = 0;
+        for (Page page : pages) {
+            rows += page.getPositionCount();
+        }
+        // bulk loads may skip bad rows instead of failing, so make sure that all rows arrived
+        long loadedRows = loader.load(connection, encode(columnTypes, pages).getInput());
+        if (loadedRows != rows) {
+            throw new SQLException(String.format("Loaded %s of %s rows", loadedRows, rows));
+        }
+        connection.commit();
+    }
+
+    @Override
+    public void rollback()
+            throws SQLException
+    {
+        connection.rollback();
+    }
+
+    @Override
+    public void close()
+            throws SQLException
+    {
+        connection.close();
+    }
+
+    public static Slice encode(List<Type> columnTypes, List<Page> pages)
+    {
+        long sizeInBytes = 0;
+        for (Page page : pages) {
+            sizeInBytes += page.getSizeInBytes();
+        }
+        SliceOutput output = new DynamicSliceOutput((int) Math.min(sizeInBytes, Integer.MAX_VALUE - 8));
+        for (Page page : pages) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                for (int channel = 0; channel < columnTypes.size(); channel++) {
+                    if (channel > 0) {
+                        output.writeByte('\t');
+                    }
+                    encodeValue(columnTypes.get(channel), page.getBlock(channel), position, output);
+                }
+                output.writeByte('\n');
+            }
+        }
+        return output.slice();
+    }
+
+    private static void encodeValue(Type type, Block block, int position, SliceOutput output)
+    {
+        if (block.isNull(position)) {
+            output.writeBytes(NULL);
+        }
+        else if (type.equals(BOOLEAN)) {
+            output.writeBytes(BOOLEAN.getBoolean(block, position) ? TRUE : FALSE);
+        }
+        else if (type.equals(BIGINT)) {
+            writeAscii(String.valueOf(BIGINT.getLong(block, position)), output);
+        }
+        else if (type.equals(DOUBLE)) {
+            double value = DOUBLE.getDouble(block, position);
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                // MySQL would load these as 0 with a warning
+                throw new PrestoException(NOT_SUPPORTED, "Cannot bulk load " + value + " into a DOUBLE column");
+            }
+            writeAscii(String.valueOf(value), output);
+        }
+        else if (type.equals(VARCHAR)) {
+            writeEscaped(VARCHAR.getSlice(block, position), output);
+        }
+        else if (type.equals(DATE)) {
+            writeAscii(DATE_FORMATTER.print(TimeUnit.DAYS.toMillis(DATE.getLong(block, position))), output);
+        }
+        else if (type.equals(TIME)) {
+            writeAscii(TIME_FORMATTER.print(TIME.getLong(block, position)), output);
+        }
+        else if (type.equals(TIMESTAMP)) {
+            writeAscii(TIMESTAMP_FORMATTER.print(TIMESTAMP.getLong(block, position)), output);
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    private static void writeAscii(String value, SliceOutput output)
+    {
+        for (int i = 0; i < value.length(); i++) {
+            output.writeByte(value.charAt(i));
+        }
+    }
+
+    private static void writeEscaped(Slice value, SliceOutput output)
+    {
+        // UTF-8 continuation bytes never collide with the ASCII characters escaped here
+        for (int i = 0; i < value.length(); i++) {
+            byte b = value.getByte(i);
+            switch (b) {
+                case '\\':
+                    output.writeByte('\\');
+                    output.writeByte('\\');
+                    break;
+                case '\t':
+                    output.writeByte('\\');
+                    output.writeByte('t');
+                    break;
+                case '\n':
+                    output.writeByte('\\');
+                    output.writeByte('n');
+                    break;
+                case '\r':
+                    output.writeByte('\\');
+                    output.writeByte('r');
+                    break;
+                default:
+                    output.writeByte(b);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+
+import java.util.Map;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+/**
+ * A physical table that a write puts rows into. Writes into a sharded base table have
+ * one shard per sub-table of the routing metadata, the other writes have a single shard.
+ * A create table writes into the temporary table, which is renamed to the table name when
+ * the create table is committed. An insert writes into a staging table, whose rows are moved
+ * into the table when the insert is committed.
+ */
+public class JdbcWriteShard
+{
+    private final String connectionUrl;
+    private final Map<String, String> connectionProperties;
+    private final String catalogName;
+    private final String schemaName;
+    private final String tableName;
+    private final String temporaryTableName;
+    private final Long lowKey;
+    private final Long highKey;
+
+    /**
+     * @param lowKey the smallest shard key of the sub-table, or null if the sub-table has no key range
+     * @param highKey the largest shard key of the sub-table, or null if the sub-table has no key range
+     */
+    @JsonCreator
+    public JdbcWriteShard(
+            @JsonProperty("connectionUrl") String connectionUrl,
+            @JsonProperty("connectionProperties") Map<String, String> connectionProperties,
+            @JsonProperty("catalogName") @Nullable String catalogName,
+            @JsonProperty("schemaName") @Nullable String schemaName,
+            @JsonProperty("tableName") String tableName,
+            @JsonProperty("temporaryTableName") @Nullable String temporaryTableName,
+            @JsonProperty("lowKey") @Nullable Long lowKey,
+            @JsonProperty("highKey") @Nullable Long highKey)
+    {
+        this.connectionUrl = checkNotNull(connectionUrl, "connectionUrl is null");
+        this.connectionProperties = ImmutableMap.copyOf(checkNotNull(connectionProperties, "connectionProperties is null"));
+        this.catalogName = catalogName;
+        this.schemaName = schemaName;
+        this.tableName = checkNotNull(tableName, "tableName is null");
+        this.temporaryTableName = temporaryTableName;
+        this.lowKey = lowKey;
+        this.highKey = highKey;
+    }
+
+    @JsonProperty
+    public String getConnectionUrl()
+    {
+        return connectionUrl;
+    }
+
+    @JsonProperty
+    public Map<String, String> getConnectionProperties()
+    {
+        return connectionProperties;
+    }
+
+    @JsonProperty
+    @Nullable
+    public String getCatalogName()
+    {
+        return catalogName;
+    }
+
+    @JsonProperty
+    @Nullable
+    public String getSchemaName()
+    {
+        return schemaName;
+    }
+
+    @JsonProperty
+    public String getTableName()
+    {
+        return tableName;
+    }
+
+    @JsonProperty
+    @Nullable
+    public String getTemporaryTableName()
+    {
+        return temporaryTableName;
+    }
+
+    @JsonProperty
+    @Nullable
+    public Long getLowKey()
+    {
+        return lowKey;
+    }
+
+    @JsonProperty
+    @Nullable
+    public Long getHighKey()
+    {
+        return highKey;
+    }
+
+    public JdbcWriteShard withTemporaryTableName(String temporaryTableName)
+    {
+        return new JdbcWriteShard(connectionUrl, connectionProperties, catalogName, schemaName, tableName, temporaryTableName, lowKey, highKey);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(connectionUrl, connectionProperties, catalogName, schemaName, tableName, temporaryTableName, lowKey, highKey);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        JdbcWriteShard other = (JdbcWriteShard) obj;
+        return Objects.equals(this.connectionUrl, other.connectionUrl) &&
+                Objects.equals(this.connectionProperties, other.connectionProperties) &&
+                Objects.equals(this.catalogName, other.catalogName) &&
+                Objects.equals(this.schemaName, other.schemaName) &&
+                Objects.equals(this.tableName, other.tableName) &&
+                Objects.equals(this.temporaryTableName, other.temporaryTableName) &&
+                Objects.equals(this.lowKey, other.lowKey) &&
+                Objects.equals(this.highKey, other.highKey);
+    }
+
+    @Override
+    public String toString()
+    {
+        return format("%s/%s.%s", connectionUrl, schemaName, tableName);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.DistributionStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.concurrent.TimeUnit;
+
+@ThreadSafe
+public class JdbcWriteStats
+{
+    private final TimeStat batchTime = new TimeStat();
+    private final DistributionStat batchRowsPerSecond = new DistributionStat();
+    private final CounterStat writtenRows = new CounterStat();
+    private final CounterStat writtenBytes = new CounterStat();
+    private final CounterStat batchFailures = new CounterStat();
+
+    public void recordBatch(long rows, long bytes, long nanos)
+    {
+        batchTime.add(new Duration(nanos, TimeUnit.NANOSECONDS));
+        if (nanos > 0) {
+            batchRowsPerSecond.add(rows * TimeUnit.SECONDS.toNanos(1) / nanos);
+        }
+        writtenRows.update(rows);
+        writtenBytes.update(bytes);
+    }
+
+    public void recordBatchFailure()
+    {
+        batchFailures.update(1);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getBatchTime()
+    {
+        return batchTime;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getBatchRowsPerSecond()
+    {
+        return batchRowsPerSecond;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getWrittenRows()
+    {
+        return writtenRows;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getWrittenBytes()
+    {
+        return writtenBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBatchFailures()
+    {
+        return batchFailures;
+    }
+}
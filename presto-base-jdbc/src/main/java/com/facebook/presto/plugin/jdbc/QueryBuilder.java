@@ -15,76 +15,185 @@ package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Marker;
 import com.facebook.presto.spi.Range;
 import com.facebook.presto.spi.TupleDomain;
-//import com.facebook.presto.spi.type.BigintType;
-//import com.facebook.presto.spi.type.BooleanType;
-//import com.facebook.presto.spi.type.DoubleType;
-//import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.block.SortOrder;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+
+import javax.annotation.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Iterables.transform;
+import static java.util.Locale.ENGLISH;
 
 public class QueryBuilder
 {
     private final String quote;
+    private final boolean backslashEscapes;
 
     public QueryBuilder(String quote)
+    {
+        this(quote, false);
+    }
+
+    /**
+     * @param backslashEscapes whether the database reads a backslash in a string literal as an escape character
+     */
+    public QueryBuilder(String quote, boolean backslashEscapes)
     {
         this.quote = checkNotNull(quote, "quote is null");
+        this.backslashEscapes = backslashEscapes;
     }
 
     public String buildSql(String catalog, String schema, String table, List<JdbcColumnHandle> columns, TupleDomain<ConnectorColumnHandle> tupleDomain)
     {
-        StringBuilder sql = new StringBuilder();
+        return buildSql(catalog, schema, table, columns, tupleDomain, null, null);
+    }
+
+    /**
+     * @param splitPart the condition selecting the rows of the split, or a LIMIT clause for tables split by row offset
+     * @param pushDown the operations to run on the rows of the split, or null
+     */
+    public String buildSql(String catalog, String schema, String table, List<JdbcColumnHandle> columns, TupleDomain<ConnectorColumnHandle> tupleDomain,
+            @Nullable String splitPart, @Nullable JdbcPushDown pushDown)
+    {
+        StringBuilder from = new StringBuilder();
+        if (!isNullOrEmpty(catalog)) {
+            from.append(quote(catalog)).append('.');
+        }
+        if (!isNullOrEmpty(schema)) {
+            from.append(quote(schema)).append('.');
+        }
+        from.append(quote(table));
+
+        List<String> clauses = new ArrayList<>(toConjuncts(tupleDomain));
+        String limitPart = null;
+        if (!isNullOrEmpty(splitPart)) {
+            if (splitPart.contains("LIMIT")) {
+                limitPart = splitPart;
+            }
+            else {
+                clauses.add(splitPart);
+            }
+        }
 
+        if (limitPart != null && pushDown != null) {
+            // the split is a window over the rows of the table, which must be cut before the pushed down operations run
+            String window = "(SELECT * FROM " + from + where(clauses) + limitPart + ") " + quote("t");
+            from.setLength(0);
+            from.append(window);
+            clauses.clear();
+            limitPart = null;
+        }
+
+        StringBuilder sql = new StringBuilder();
         sql.append("SELECT ");
-        Joiner.on(", ").appendTo(sql, transform(columns, column -> quote(column.getColumnName())));
+        Joiner.on(", ").appendTo(sql, transform(columns, column -> toSelectItem(column, pushDown)));
         if (columns.isEmpty()) {
             sql.append("null");
         }
+        sql.append(" FROM ").append(from);
+        sql.append(where(clauses));
 
-        sql.append(" FROM ");
-        if (!isNullOrEmpty(catalog)) {
-            sql.append(quote(catalog)).append('.');
+        if (pushDown != null) {
+            if (!pushDown.getGroupBy().isEmpty()) {
+                sql.append(" GROUP BY ");
+                Joiner.on(", ").appendTo(sql, transform(pushDown.getGroupBy(), column -> quote(column.getColumnName())));
+            }
+            if (!pushDown.getOrderBy().isEmpty()) {
+                sql.append(" ORDER BY ");
+                Joiner.on(", ").appendTo(sql, transform(pushDown.getOrderBy(), this::toOrderByItem));
+            }
+            if (pushDown.getLimit() != null) {
+                sql.append(" LIMIT ").append(pushDown.getLimit());
+            }
         }
-        if (!isNullOrEmpty(schema)) {
-            sql.append(quote(schema)).append('.');
+        if (limitPart != null) {
+            sql.append(limitPart);
         }
-        sql.append(quote(table));
 
-        List<String> clauses = toConjuncts(columns, tupleDomain);
-        if (!clauses.isEmpty()) {
-            sql.append(" WHERE ")
-                    .append(Joiner.on(" AND ").join(clauses));
+        return sql.toString();
+    }
+
+    private static String where(List<String> clauses)
+    {
+        if (clauses.isEmpty()) {
+            return "";
         }
+        return " WHERE " + Joiner.on(" AND ").join(clauses);
+    }
 
-        return sql.toString();
+    private String toSelectItem(JdbcColumnHandle column, @Nullable JdbcPushDown pushDown)
+    {
+        JdbcPushDown.Aggregate aggregate = (pushDown == null) ? null : pushDown.getAggregate(column);
+        if (aggregate == null) {
+            return quote(column.getColumnName());
+        }
+        String argument = (aggregate.getArgument() == null) ? "*" : quote(aggregate.getArgument().getColumnName());
+        return aggregate.getFunctionName().toUpperCase(ENGLISH) + "(" + argument + ")";
     }
 
-    private List<String> toConjuncts(List<JdbcColumnHandle> columns, TupleDomain<ConnectorColumnHandle> tupleDomain)
+    private String toOrderByItem(JdbcPushDown.SortItem item)
+    {
+        // not every database supports NULLS FIRST and NULLS LAST, so the nulls are ordered by a separate key
+        String column = quote(item.getColumn().getColumnName());
+        SortOrder sortOrder = item.getSortOrder();
+        return "CASE WHEN " + column + " IS NULL THEN " + (sortOrder.isNullsFirst() ? "0 ELSE 1" : "1 ELSE 0") + " END, " +
+                column + (sortOrder.isAscending() ? " ASC" : " DESC");
+    }
+
+    private List<String> toConjuncts(TupleDomain<ConnectorColumnHandle> tupleDomain)
     {
         ImmutableList.Builder<String> builder = ImmutableList.builder();
-        for (JdbcColumnHandle column : columns) {
-            //Type type = column.getColumnType();
-            //if (type.equals(BigintType.BIGINT) || type.equals(DoubleType.DOUBLE) || type.equals(BooleanType.BOOLEAN)) {
-                Domain domain = tupleDomain.getDomains().get(column);
-                if (domain != null) {
-                    builder.add(toPredicate(column.getColumnName(), domain));
-                }
-            //}
+        if (tupleDomain.isNone()) {
+            return builder.add("1 = 0").build();
+        }
+        for (Map.Entry<ConnectorColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            if (entry.getKey() instanceof JdbcColumnHandle && !entry.getValue().isAll() && isPushable(entry.getValue())) {
+                builder.add(toPredicate(((JdbcColumnHandle) entry.getKey()).getColumnName(), entry.getValue()));
+            }
         }
         return builder.build();
     }
 
+    /**
+     * Text is compared by the collation of the column, which may ignore case or trailing spaces, so a range
+     * of text can select fewer rows in the database than in Presto. Only the discrete values of a text domain
+     * are pushed down, as the database then returns a superset of the rows and the engine filters the rest.
+     * Doubles that are NaN or infinite have no literal in SQL, so domains holding them are not pushed down.
+     */
+    private static boolean isPushable(Domain domain)
+    {
+        for (Range range : domain.getRanges()) {
+            if (domain.getType() == Slice.class && !range.isSingleValue() && !range.isAll()) {
+                return false;
+            }
+            if (!isFinite(range.getLow()) || !isFinite(range.getHigh())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFinite(Marker marker)
+    {
+        if (marker.isLowerUnbounded() || marker.isUpperUnbounded() || !(marker.getValue() instanceof Double)) {
+            return true;
+        }
+        double value = (Double) marker.getValue();
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+
     private String toPredicate(String columnName, Domain domain)
     {
         if (domain.getRanges().isNone() && domain.isNullAllowed()) {
@@ -144,7 +253,7 @@ public class QueryBuilder
             disjuncts.add(toPredicate(columnName, "=", getOnlyElement(singleValues)));
         }
         else if (singleValues.size() > 1) {
-            disjuncts.add(quote(columnName) + " IN (" + Joiner.on(",").join(transform(singleValues, QueryBuilder::encode)) + ")");
+            disjuncts.add(quote(columnName) + " IN (" + Joiner.on(",").join(transform(singleValues, this::encode)) + ")");
         }
 
         // Add nullability disjuncts
@@ -167,13 +276,17 @@ public class QueryBuilder
         return quote + name + quote;
     }
 
-    private static String encode(Object value)
+    private String encode(Object value)
     {
         if (value instanceof Number || value instanceof Boolean) {
             return value.toString();
         }
-        else if (value instanceof io.airlift.slice.Slice) {
-            return "'" + ((io.airlift.slice.Slice) value).toStringUtf8() + "'";
+        else if (value instanceof Slice) {
+            String string = ((Slice) value).toStringUtf8();
+            if (backslashEscapes) {
+                string = string.replace("\\", "\\\\");
+            }
+            return "'" + string.replace("'", "''") + "'";
         }
         throw new UnsupportedOperationException("Can't handle type: " + value.getClass().getName());
     }
@@ -0,0 +1,211 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Marker;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.primitives.Primitives;
+import io.airlift.slice.Slice;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Sorted index over one column of a cached table. The index holds the positions of the
+ * non null values ordered by value, so the positions matching a {@link Domain} are found
+ * with a binary search per range instead of a scan of the whole table.
+ */
+final class JdbcCacheColumnIndex
+{
+    private final Type type;
+    private final List<Block> blocks;
+    private final int[] pageOffsets;
+    private final int[] sortedPositions;
+    private final int[] nullPositions;
+
+    JdbcCacheColumnIndex(Type type, List<Block> blocks, int[] pageOffsets)
+    {
+        this.type = checkNotNull(type, "type is null");
+        this.blocks = checkNotNull(blocks, "blocks is null");
+        this.pageOffsets = checkNotNull(pageOffsets, "pageOffsets is null");
+
+        IntArrayList values = new IntArrayList();
+        IntArrayList nulls = new IntArrayList();
+        for (int page = 0; page < blocks.size(); page++) {
+            Block block = blocks.get(page);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    nulls.add(pageOffsets[page] + position);
+                }
+                else {
+                    values.add(pageOffsets[page] + position);
+                }
+            }
+        }
+        int[] positions = values.toIntArray();
+        if (type.isOrderable()) {
+            // equal values are ordered by position, so they keep their positions in ascending order
+            IntArrays.quickSort(positions, new AbstractIntComparator()
+            {
+                @Override
+                public int compare(int left, int right)
+                {
+                    int result = JdbcCacheColumnIndex.this.compare(left, right);
+                    return (result != 0) ? result : Integer.compare(left, right);
+                }
+            });
+        }
+        this.sortedPositions = positions;
+        this.nullPositions = nulls.toIntArray();
+    }
+
+    public static boolean supports(Type type, Domain domain)
+    {
+        return type.isOrderable() && domain.getType().equals(Primitives.wrap(type.getJavaType()));
+    }
+
+    /**
+     * @return the number of positions matching the domain
+     */
+    public int countMatches(Domain domain)
+    {
+        int count = domain.isNullAllowed() ? nullPositions.length : 0;
+        for (Range range : domain.getRanges()) {
+            count += upperBound(range.getHigh()) - lowerBound(range.getLow());
+        }
+        return count;
+    }
+
+    /**
+     * @return the positions matching the domain, in ascending order
+     */
+    public int[] getMatchingPositions(Domain domain)
+    {
+        int[] positions = new int[countMatches(domain)];
+        int count = 0;
+        if (domain.isNullAllowed()) {
+            System.arraycopy(nullPositions, 0, positions, count, nullPositions.length);
+            count += nullPositions.length;
+        }
+        for (Range range : domain.getRanges()) {
+            int low = lowerBound(range.getLow());
+            int high = upperBound(range.getHigh());
+            System.arraycopy(sortedPositions, low, positions, count, high - low);
+            count += high - low;
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * @return the largest value of the column, or null if the column has no non null values
+     */
+    public Comparable<?> getMaxValue()
+    {
+        if (sortedPositions.length == 0) {
+            return null;
+        }
+        return getValue(sortedPositions[sortedPositions.length - 1]);
+    }
+
+    public boolean matches(Domain domain, int position)
+    {
+        return domain.includesValue(getValue(position));
+    }
+
+    /**
+     * @return the index of the first sorted position whose value is not below the marker
+     */
+    private int lowerBound(Marker low)
+    {
+        int start = 0;
+        int end = sortedPositions.length;
+        while (start < end) {
+            int middle = (start + end) >>> 1;
+            if (Marker.exactly(getValue(sortedPositions[middle])).compareTo(low) < 0) {
+                start = middle + 1;
+            }
+            else {
+                end = middle;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * @return the index of the first sorted position whose value is above the marker
+     */
+    private int upperBound(Marker high)
+    {
+        int start = 0;
+        int end = sortedPositions.length;
+        while (start < end) {
+            int middle = (start + end) >>> 1;
+            if (Marker.exactly(getValue(sortedPositions[middle])).compareTo(high) <= 0) {
+                start = middle + 1;
+            }
+            else {
+                end = middle;
+            }
+        }
+        return start;
+    }
+
+    private int compare(int left, int right)
+    {
+        int leftPage = getPage(left);
+        int rightPage = getPage(right);
+        return type.compareTo(blocks.get(leftPage), left - pageOffsets[leftPage], blocks.get(rightPage), right - pageOffsets[rightPage]);
+    }
+
+    private Comparable<?> getValue(int position)
+    {
+        int page = getPage(position);
+        return getValue(type, blocks.get(page), position - pageOffsets[page]);
+    }
+
+    static Comparable<?> getValue(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+        Class<?> javaType = type.getJavaType();
+        if (javaType == boolean.class) {
+            return type.getBoolean(block, position);
+        }
+        if (javaType == long.class) {
+            return type.getLong(block, position);
+        }
+        if (javaType == double.class) {
+            return type.getDouble(block, position);
+        }
+        if (javaType == Slice.class) {
+            return type.getSlice(block, position);
+        }
+        throw new UnsupportedOperationException("Unsupported java type: " + javaType.getName());
+    }
+
+    private int getPage(int position)
+    {
+        return JdbcCacheTable.getPage(pageOffsets, position);
+    }
+}
@@ -14,18 +14,32 @@
 package com.facebook.presto.plugin.jdbc.cache;
 
 import io.airlift.configuration.Config;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+
 public class JdbcCacheConfig
 {
     public static final String DEFAULT_VALUE = "NA";
     private String cacheTableConfig = DEFAULT_VALUE;
     private String cacheTableClause;
+    private String cacheTableIncrementalConfig;
+    private Duration cacheFullRefreshInterval = new Duration(1, TimeUnit.HOURS);
     private Duration cacheRefreshInterval = new Duration(5, TimeUnit.MINUTES);
-    private Duration cacheExpireInterval = new Duration(5, TimeUnit.MINUTES);
+    private Duration cacheExpireInterval = new Duration(30, TimeUnit.MINUTES);
     private boolean jdbcCacheEnable = false;
+    private DataSize cacheMaxSize = new DataSize(1, GIGABYTE);
+    private int cacheRefreshThreads = 2;
+    private Duration metadataCacheTtl = new Duration(0, TimeUnit.SECONDS);
+    private Duration metadataRefreshInterval = new Duration(1, TimeUnit.MINUTES);
+    private long metadataCacheMaximumSize = 10000;
+    private int metadataRefreshThreads = 2;
 
     public String getCacheTableConfig()
     {
@@ -51,6 +65,31 @@ public class JdbcCacheConfig
         return this;
     }
 
+    public String getCacheTableIncrementalConfig()
+    {
+        return cacheTableIncrementalConfig;
+    }
+
+    @Config("jdbc-cache-table-incremental-config")
+    public JdbcCacheConfig setCacheTableIncrementalConfig(String cacheTableIncrementalConfig)
+    {
+        this.cacheTableIncrementalConfig = cacheTableIncrementalConfig;
+        return this;
+    }
+
+    @NotNull
+    public Duration getCacheFullRefreshInterval()
+    {
+        return cacheFullRefreshInterval;
+    }
+
+    @Config("jdbc-cache-full-refresh-interval")
+    public JdbcCacheConfig setCacheFullRefreshInterval(Duration cacheFullRefreshInterval)
+    {
+        this.cacheFullRefreshInterval = cacheFullRefreshInterval;
+        return this;
+    }
+
     public Duration getCacheRefreshInterval()
     {
         return cacheRefreshInterval;
@@ -86,4 +125,82 @@ public class JdbcCacheConfig
         this.jdbcCacheEnable = jdbcCacheEnable;
         return this;
     }
+
+    @NotNull
+    public DataSize getCacheMaxSize()
+    {
+        return cacheMaxSize;
+    }
+
+    @Config("jdbc-cache-max-size")
+    public JdbcCacheConfig setCacheMaxSize(DataSize cacheMaxSize)
+    {
+        this.cacheMaxSize = cacheMaxSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getCacheRefreshThreads()
+    {
+        return cacheRefreshThreads;
+    }
+
+    @Config("jdbc-cache-refresh-threads")
+    public JdbcCacheConfig setCacheRefreshThreads(int cacheRefreshThreads)
+    {
+        this.cacheRefreshThreads = cacheRefreshThreads;
+        return this;
+    }
+
+    @NotNull
+    public Duration getMetadataCacheTtl()
+    {
+        return metadataCacheTtl;
+    }
+
+    @Config("jdbc-metadata-cache-ttl")
+    public JdbcCacheConfig setMetadataCacheTtl(Duration metadataCacheTtl)
+    {
+        this.metadataCacheTtl = metadataCacheTtl;
+        return this;
+    }
+
+    @NotNull
+    public Duration getMetadataRefreshInterval()
+    {
+        return metadataRefreshInterval;
+    }
+
+    @Config("jdbc-metadata-refresh-interval")
+    public JdbcCacheConfig setMetadataRefreshInterval(Duration metadataRefreshInterval)
+    {
+        this.metadataRefreshInterval = metadataRefreshInterval;
+        return this;
+    }
+
+    @Min(1)
+    public long getMetadataCacheMaximumSize()
+    {
+        return metadataCacheMaximumSize;
+    }
+
+    @Config("jdbc-metadata-cache-maximum-size")
+    public JdbcCacheConfig setMetadataCacheMaximumSize(long metadataCacheMaximumSize)
+    {
+        this.metadataCacheMaximumSize = metadataCacheMaximumSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getMetadataRefreshThreads()
+    {
+        return metadataRefreshThreads;
+    }
+
+    @Config("jdbc-metadata-refresh-threads")
+    public JdbcCacheConfig setMetadataRefreshThreads(int metadataRefreshThreads)
+    {
+        this.metadataRefreshThreads = metadataRefreshThreads;
+        return this;
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import com.facebook.presto.plugin.jdbc.JdbcColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Serves the rows of a cached table, projected to the requested columns. When the tuple
+ * domain can be answered by the cached column indexes only the matching rows are copied
+ * out, otherwise the cached pages are returned and their blocks are shared, not copied.
+ */
+public class JdbcCachePageSource
+        implements ConnectorPageSource
+{
+    private final JdbcCacheTable table;
+    private final int[] channels;
+    private final List<Type> types;
+    private final int[] positions;
+    private final long totalBytes;
+    private int nextPosition;
+    private int nextPage;
+    private long completedBytes;
+    private boolean closed;
+
+    public JdbcCachePageSource(JdbcCacheTable table, List<JdbcColumnHandle> columns, TupleDomain<ConnectorColumnHandle> tupleDomain)
+    {
+        this.table = checkNotNull(table, "table is null");
+        checkNotNull(columns, "columns is null");
+        checkNotNull(tupleDomain, "tupleDomain is null");
+
+        channels = new int[columns.size()];
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = table.getChannel(columns.get(i).getColumnName());
+            checkArgument(channels[i] >= 0, "Column %s is not cached", columns.get(i).getColumnName());
+            types.add(table.getColumnTypes().get(channels[i]));
+        }
+        this.types = types.build();
+        this.positions = table.getMatchingPositions(tupleDomain);
+        this.totalBytes = getProjectedBytes();
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        if (closed) {
+            return true;
+        }
+        if (positions == null) {
+            return nextPage >= table.getPages().size();
+        }
+        return nextPosition >= positions.length;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (isFinished()) {
+            return null;
+        }
+        Page page = (positions == null) ? projectPage(table.getPages().get(nextPage++)) : copyMatchingRows();
+        completedBytes += page.getSizeInBytes();
+        return page;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * @return the size of the projected columns of the rows served, estimated from the
+     * average row size when only the matching rows are served
+     */
+    private long getProjectedBytes()
+    {
+        long bytes = 0;
+        long rows = 0;
+        for (Page page : table.getPages()) {
+            for (int channel : channels) {
+                bytes += page.getBlock(channel).getSizeInBytes();
+            }
+            rows += page.getPositionCount();
+        }
+        if (positions == null || rows == 0) {
+            return bytes;
+        }
+        return bytes * positions.length / rows;
+    }
+
+    private Page projectPage(Page page)
+    {
+        Block[] blocks = new Block[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            blocks[i] = page.getBlock(channels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    private Page copyMatchingRows()
+    {
+        PageBuilder pageBuilder = new PageBuilder(types);
+        while (nextPosition < positions.length && !pageBuilder.isFull()) {
+            int position = positions[nextPosition++];
+            int pageIndex = table.getPage(position);
+            Page page = table.getPages().get(pageIndex);
+            int pagePosition = position - table.getPageOffset(pageIndex);
+
+            pageBuilder.declarePosition();
+            for (int i = 0; i < channels.length; i++) {
+                types.get(i).appendTo(page.getBlock(channels[i]), pagePosition, pageBuilder.getBlockBuilder(i));
+            }
+        }
+        return pageBuilder.build();
+    }
+}
@@ -25,9 +25,10 @@ public class JdbcCacheSplit
     private final String tableName;
     private final String baseTableName;
     private final String connectionUrl;
+    private final String splitField;
 
     public JdbcCacheSplit(String connectorId, String catalogName,
-            String schemaName, String tableName, String connectionUrl, String baseTableName)
+            String schemaName, String tableName, String connectionUrl, String baseTableName, String splitField)
     {
         this.connectorId = checkNotNull(connectorId, "connector id is null");
         this.catalogName = catalogName;
@@ -35,6 +36,7 @@ public class JdbcCacheSplit
         this.tableName = checkNotNull(tableName, "table name is null");
         this.connectionUrl = checkNotNull(connectionUrl, "connectionUrl is null");
         this.baseTableName = checkNotNull(baseTableName, "table name is null");
+        this.splitField = splitField;
     }
 
     public String getConnectorId()
@@ -66,6 +68,14 @@ public class JdbcCacheSplit
     {
         return connectionUrl;
     }
+
+    /**
+     * @return the auto increment field of the sub table, or null if the sub table has none
+     */
+    public String getSplitField()
+    {
+        return splitField;
+    }
     @Override
     public int hashCode()
     {
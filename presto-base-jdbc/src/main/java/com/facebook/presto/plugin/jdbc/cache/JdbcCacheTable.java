@@ -0,0 +1,328 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import com.facebook.presto.plugin.jdbc.JdbcColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Immutable, columnar copy of a cached table. The rows are stored as Presto pages, so
+ * values are kept in their native representation and can be handed to the engine without
+ * any per row conversion. A column is indexed the first time a lookup filters on it, so
+ * that selective lookups do not have to walk the whole table, and a refreshed copy only
+ * indexes the columns that are queried again.
+ */
+public class JdbcCacheTable
+{
+    private final List<String> columnNames;
+    private final List<Type> columnTypes;
+    private final List<Page> pages;
+    private final int[] pageOffsets;
+    @GuardedBy("this")
+    private final JdbcCacheColumnIndex[] indexes;
+    private final int positionCount;
+    private final long sizeInBytes;
+    private final int keyChannel;
+    private final long fullLoadTime;
+
+    public JdbcCacheTable(List<String> columnNames, List<Type> columnTypes, List<Page> pages)
+    {
+        this(columnNames, columnTypes, pages, -1, System.currentTimeMillis());
+    }
+
+    /**
+     * @param keyChannel the channel of the primary key column, or -1 if the table has no cached single column key
+     * @param fullLoadTime the time the whole table was last read from the database
+     */
+    public JdbcCacheTable(List<String> columnNames, List<Type> columnTypes, List<Page> pages, int keyChannel, long fullLoadTime)
+    {
+        this.columnNames = ImmutableList.copyOf(checkNotNull(columnNames, "columnNames is null"));
+        this.columnTypes = ImmutableList.copyOf(checkNotNull(columnTypes, "columnTypes is null"));
+        this.pages = ImmutableList.copyOf(checkNotNull(pages, "pages is null"));
+        checkArgument(columnNames.size() == columnTypes.size(), "columnNames and columnTypes sizes don't match");
+        checkArgument(keyChannel < columnNames.size(), "keyChannel is out of range");
+        this.keyChannel = keyChannel;
+        this.fullLoadTime = fullLoadTime;
+
+        // pageOffsets[i] is the position of the first row of page i within the table
+        pageOffsets = new int[pages.size() + 1];
+        long sizeInBytes = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            Page page = pages.get(i);
+            checkArgument(page.getChannelCount() == columnNames.size(), "page channel count does not match column count");
+            pageOffsets[i + 1] = pageOffsets[i] + page.getPositionCount();
+            sizeInBytes += page.getSizeInBytes();
+        }
+        this.positionCount = pageOffsets[pages.size()];
+        this.indexes = new JdbcCacheColumnIndex[columnTypes.size()];
+
+        // the weight includes the indexes, which hold one position per row once built
+        this.sizeInBytes = sizeInBytes + (long) positionCount * Integer.BYTES * columnTypes.size();
+    }
+
+    public List<String> getColumnNames()
+    {
+        return columnNames;
+    }
+
+    public List<Type> getColumnTypes()
+    {
+        return columnTypes;
+    }
+
+    public List<Page> getPages()
+    {
+        return pages;
+    }
+
+    /**
+     * @return the position of the first row of the page within the table
+     */
+    public int getPageOffset(int page)
+    {
+        return pageOffsets[page];
+    }
+
+    /**
+     * @return the page holding the row at the position
+     */
+    public int getPage(int position)
+    {
+        return getPage(pageOffsets, position);
+    }
+
+    public int getKeyChannel()
+    {
+        return keyChannel;
+    }
+
+    public long getFullLoadTime()
+    {
+        return fullLoadTime;
+    }
+
+    /**
+     * @return the largest value of the column, or null if the column only holds nulls
+     */
+    public Comparable<?> getMaxValue(int channel)
+    {
+        synchronized (this) {
+            if (indexes[channel] != null) {
+                return indexes[channel].getMaxValue();
+            }
+        }
+
+        // a scan is cheaper than building the index only to find the maximum
+        Type type = columnTypes.get(channel);
+        Block maxBlock = null;
+        int maxPosition = -1;
+        for (Page page : pages) {
+            Block block = page.getBlock(channel);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (!block.isNull(position) && (maxBlock == null || type.compareTo(block, position, maxBlock, maxPosition) > 0)) {
+                    maxBlock = block;
+                    maxPosition = position;
+                }
+            }
+        }
+        return (maxBlock == null) ? null : JdbcCacheColumnIndex.getValue(type, maxBlock, maxPosition);
+    }
+
+    private synchronized JdbcCacheColumnIndex getIndex(int channel)
+    {
+        if (indexes[channel] == null) {
+            ImmutableList.Builder<Block> blocks = ImmutableList.builder();
+            for (Page page : pages) {
+                blocks.add(page.getBlock(channel));
+            }
+            indexes[channel] = new JdbcCacheColumnIndex(columnTypes.get(channel), blocks.build(), pageOffsets);
+        }
+        return indexes[channel];
+    }
+
+    /**
+     * Returns a copy of this table with the rows added, and the existing rows with the same
+     * key as an added row removed. Pages without any removed row are shared with this table.
+     * Without a key updated rows can not be told apart from new rows, so the table must have one.
+     */
+    public JdbcCacheTable withRows(List<Page> rows)
+    {
+        checkState(keyChannel >= 0, "rows can only be merged into a table with a key");
+        if (rows.isEmpty()) {
+            return this;
+        }
+        Type keyType = columnTypes.get(keyChannel);
+        Set<Object> keys = new HashSet<>();
+        for (Page page : rows) {
+            Block block = page.getBlock(keyChannel);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                keys.add(JdbcCacheColumnIndex.getValue(keyType, block, position));
+            }
+        }
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        for (Page page : this.pages) {
+            page = removeRows(page, keys);
+            if (page.getPositionCount() > 0) {
+                pages.add(page);
+            }
+        }
+        pages.addAll(rows);
+        return new JdbcCacheTable(columnNames, columnTypes, pages.build(), keyChannel, fullLoadTime);
+    }
+
+    private Page removeRows(Page page, Set<Object> keys)
+    {
+        Type keyType = columnTypes.get(keyChannel);
+        Block keyBlock = page.getBlock(keyChannel);
+        boolean[] removed = new boolean[page.getPositionCount()];
+        boolean anyRemoved = false;
+        for (int position = 0; position < removed.length; position++) {
+            removed[position] = keys.contains(JdbcCacheColumnIndex.getValue(keyType, keyBlock, position));
+            anyRemoved |= removed[position];
+        }
+        if (!anyRemoved) {
+            return page;
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(columnTypes);
+        for (int position = 0; position < removed.length; position++) {
+            if (!removed[position]) {
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < columnTypes.size(); channel++) {
+                    columnTypes.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                }
+            }
+        }
+        return pageBuilder.build();
+    }
+
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    public long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    /**
+     * @return the channel holding the column, or -1 if the column is not cached
+     */
+    public int getChannel(String columnName)
+    {
+        return columnNames.indexOf(columnName.toLowerCase(ENGLISH));
+    }
+
+    public boolean containsColumns(List<JdbcColumnHandle> columns)
+    {
+        for (JdbcColumnHandle column : columns) {
+            int channel = getChannel(column.getColumnName());
+            if (channel < 0 || !columnTypes.get(channel).equals(column.getColumnType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the positions, in ascending order, of the rows that may satisfy the tuple domain.
+     * The most selective indexed domain is used to find the candidate rows and the remaining
+     * domains over cached columns are checked row by row.
+     *
+     * @return the matching positions, or null if no domain applies to the cached columns
+     */
+    public int[] getMatchingPositions(TupleDomain<ConnectorColumnHandle> tupleDomain)
+    {
+        if (tupleDomain.isNone()) {
+            return new int[0];
+        }
+
+        ImmutableList.Builder<Integer> channelsBuilder = ImmutableList.builder();
+        ImmutableList.Builder<Domain> domainsBuilder = ImmutableList.builder();
+        for (Map.Entry<ConnectorColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            if (!(entry.getKey() instanceof JdbcColumnHandle) || entry.getValue().isAll()) {
+                continue;
+            }
+            JdbcColumnHandle column = (JdbcColumnHandle) entry.getKey();
+            int channel = getChannel(column.getColumnName());
+            if (channel >= 0 && columnTypes.get(channel).equals(column.getColumnType()) && JdbcCacheColumnIndex.supports(columnTypes.get(channel), entry.getValue())) {
+                channelsBuilder.add(channel);
+                domainsBuilder.add(entry.getValue());
+            }
+        }
+        List<Integer> channels = channelsBuilder.build();
+        List<Domain> domains = domainsBuilder.build();
+        if (channels.isEmpty()) {
+            return null;
+        }
+
+        int best = 0;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = 0; i < channels.size(); i++) {
+            int count = getIndex(channels.get(i)).countMatches(domains.get(i));
+            if (count < bestCount) {
+                best = i;
+                bestCount = count;
+            }
+        }
+
+        int[] candidates = getIndex(channels.get(best)).getMatchingPositions(domains.get(best));
+        int count = 0;
+        for (int position : candidates) {
+            boolean matches = true;
+            for (int i = 0; i < channels.size() && matches; i++) {
+                matches = i == best || getIndex(channels.get(i)).matches(domains.get(i), position);
+            }
+            if (matches) {
+                candidates[count] = position;
+                count++;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    static int getPage(int[] pageOffsets, int position)
+    {
+        int page = Arrays.binarySearch(pageOffsets, position);
+        if (page < 0) {
+            return -page - 2;
+        }
+        // skip empty pages
+        while (pageOffsets[page + 1] == position) {
+            page++;
+        }
+        return page;
+    }
+}
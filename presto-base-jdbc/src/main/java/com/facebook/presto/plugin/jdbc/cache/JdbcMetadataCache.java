@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.cache.CacheLoader.asyncReloading;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the metadata read from the database during planning, like the caching metastore of the
+ * Hive connector. Entries expire after the TTL. Once they are older than the refresh interval
+ * they are reloaded in the background on the next lookup, and planning keeps using the previous
+ * value meanwhile. With a TTL of zero nothing is cached.
+ */
+@ThreadSafe
+public class JdbcMetadataCache
+{
+    private final long expiresAfterWriteMillis;
+    private final long refreshMillis;
+    private final long maximumSize;
+    private final JdbcMetadataCacheStats stats;
+    private final ExecutorService refreshExecutor;
+    private final List<CachedFunction<?, ?>> caches = new CopyOnWriteArrayList<>();
+
+    public JdbcMetadataCache(JdbcCacheConfig cacheConfig, JdbcMetadataCacheStats stats, String connectorId)
+    {
+        checkNotNull(cacheConfig, "cacheConfig is null");
+        this.stats = checkNotNull(stats, "stats is null");
+        this.expiresAfterWriteMillis = checkNotNull(cacheConfig.getMetadataCacheTtl(), "metadataCacheTtl is null").toMillis();
+        long refreshMillis = checkNotNull(cacheConfig.getMetadataRefreshInterval(), "metadataRefreshInterval is null").toMillis();
+        // a refresh is pointless once the entry has expired
+        this.refreshMillis = refreshMillis < expiresAfterWriteMillis ? refreshMillis : 0;
+        this.maximumSize = cacheConfig.getMetadataCacheMaximumSize();
+        this.refreshExecutor = newFixedThreadPool(cacheConfig.getMetadataRefreshThreads(), daemonThreadsNamed("jdbc-metadata-" + connectorId + "-%s"));
+    }
+
+    public boolean isEnabled()
+    {
+        return expiresAfterWriteMillis > 0;
+    }
+
+    /**
+     * @return a function that looks the key up in a new cache, which is filled by the loader
+     */
+    public <K, V> CachedFunction<K, V> newCache(Function<K, V> loader)
+    {
+        checkNotNull(loader, "loader is null");
+        CachedFunction<K, V> cache = new CachedFunction<>(isEnabled() ? buildCache(loader) : null, loader);
+        caches.add(cache);
+        return cache;
+    }
+
+    private <K, V> LoadingCache<K, V> buildCache(Function<K, V> loader)
+    {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
+                .maximumSize(maximumSize);
+        if (refreshMillis > 0) {
+            builder.refreshAfterWrite(refreshMillis, MILLISECONDS);
+        }
+        return builder.build(asyncReloading(new CacheLoader<K, V>()
+        {
+            @Override
+            public V load(K key)
+                    throws Exception
+            {
+                return timeLoad(stats.getLoad(), stats.getLoadFailures(), () -> loader.apply(key));
+            }
+
+            @Override
+            public ListenableFuture<V> reload(K key, V oldValue)
+                    throws Exception
+            {
+                return Futures.immediateFuture(timeLoad(stats.getRefresh(), stats.getRefreshFailures(), () -> loader.apply(key)));
+            }
+        }, refreshExecutor));
+    }
+
+    private static <V> V timeLoad(TimeStat time, CounterStat failures, Supplier<V> loader)
+    {
+        try (TimeStat.BlockTimer timer = time.time()) {
+            return loader.get();
+        }
+        catch (RuntimeException e) {
+            failures.update(1);
+            throw e;
+        }
+    }
+
+    public void flushCache()
+    {
+        for (CachedFunction<?, ?> cache : caches) {
+            cache.invalidateAll();
+        }
+    }
+
+    public long getCachedEntryCount()
+    {
+        long count = 0;
+        for (CachedFunction<?, ?> cache : caches) {
+            count += cache.size();
+        }
+        return count;
+    }
+
+    public void shutdown()
+    {
+        refreshExecutor.shutdownNow();
+    }
+
+    public class CachedFunction<K, V>
+            implements Function<K, V>
+    {
+        private final LoadingCache<K, V> cache;
+        private final Function<K, V> loader;
+
+        private CachedFunction(LoadingCache<K, V> cache, Function<K, V> loader)
+        {
+            this.cache = cache;
+            this.loader = loader;
+        }
+
+        @Override
+        public V apply(K key)
+        {
+            if (cache == null) {
+                return loader.apply(key);
+            }
+            long start = System.nanoTime();
+            V value = cache.getIfPresent(key);
+            if (value != null) {
+                stats.getHit().add(Duration.nanosSince(start));
+                return value;
+            }
+            try {
+                value = cache.getUnchecked(key);
+            }
+            catch (UncheckedExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+            stats.getMiss().add(Duration.nanosSince(start));
+            return value;
+        }
+
+        public void invalidate(K key)
+        {
+            if (cache != null) {
+                cache.invalidate(key);
+            }
+        }
+
+        public void invalidateAll()
+        {
+            if (cache != null) {
+                cache.invalidateAll();
+            }
+        }
+
+        private long size()
+        {
+            return cache == null ? 0 : cache.size();
+        }
+    }
+}
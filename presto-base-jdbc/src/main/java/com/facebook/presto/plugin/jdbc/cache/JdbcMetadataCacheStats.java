@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+@ThreadSafe
+public class JdbcMetadataCacheStats
+{
+    private final TimeStat load = new TimeStat();
+    private final TimeStat refresh = new TimeStat();
+    private final TimeStat hit = new TimeStat();
+    private final TimeStat miss = new TimeStat();
+    private final CounterStat loadFailures = new CounterStat();
+    private final CounterStat refreshFailures = new CounterStat();
+
+    @Managed
+    @Nested
+    public TimeStat getLoad()
+    {
+        return load;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getRefresh()
+    {
+        return refresh;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getHit()
+    {
+        return hit;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getMiss()
+    {
+        return miss;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getLoadFailures()
+    {
+        return loadFailures;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRefreshFailures()
+    {
+        return refreshFailures;
+    }
+}
@@ -18,145 +18,379 @@ import io.airlift.log.Logger;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.Date;
 import java.sql.Driver;
-import java.sql.Statement;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+import com.facebook.presto.plugin.jdbc.JdbcColumnReader;
+import com.facebook.presto.plugin.jdbc.cache.JdbcMetadataCache.CachedFunction;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
 import com.facebook.presto.plugin.jdbc.util.JdbcUtil;
-import com.facebook.presto.spi.type.BigintType;
-import com.facebook.presto.spi.type.BooleanType;
-import com.facebook.presto.spi.type.DateType;
-import com.facebook.presto.spi.type.DoubleType;
-import com.facebook.presto.spi.type.TimeType;
-import com.facebook.presto.spi.type.TimestampType;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.type.Type;
-import com.facebook.presto.spi.type.VarbinaryType;
-import com.facebook.presto.spi.type.VarcharType;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.joda.time.chrono.ISOChronology;
 
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.cache.CacheLoader.asyncReloading;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.joda.time.DateTimeZone.UTC;
 
 public class JdbcResultCache
 {
-    private final LoadingCache<JdbcCacheSplit, List<JdbcJavaBean>> jdbcResultCache;
+    private final LoadingCache<JdbcCacheSplit, JdbcCacheTable> jdbcResultCache;
     private final String identifierQuote;
     private final Driver driver;
     private final Properties connectionProperties;
+    private final JdbcConnectionPool connectionPool;
+    private final JdbcResultCacheStats stats;
+    private final ExecutorService refreshExecutor;
+    private final CachedFunction<JdbcCacheSplit, Map<String, Type>> columnTypesCache;
     private static final Logger log = Logger.get(JdbcResultCache.class);
+    private static final Set<Type> INCREMENTAL_COLUMN_TYPES = ImmutableSet.<Type>of(BIGINT, DATE, TIMESTAMP);
     private List<String> tableList = new ArrayList<String>();
     private HashMap<String, List<String>> fieldList = new HashMap<String, List<String>>();
     private LinkedHashMap<String, String> cacheTableClauseMap;
+    private LinkedHashMap<String, String> incrementalColumns;
+    private final long fullRefreshMillis;
 
     public JdbcResultCache(String identifierQuote,
             Driver driver,
             Properties connectionProperties,
-            JdbcCacheConfig cacheConfig)
+            JdbcCacheConfig cacheConfig,
+            JdbcConnectionPool connectionPool,
+            JdbcResultCacheStats stats,
+            String connectorId,
+            JdbcMetadataCache metadataCache)
+    {
+        // tables are reloaded in the background, queries keep reading the previous copy until the reload completes
+        this(identifierQuote,
+                driver,
+                connectionProperties,
+                cacheConfig,
+                connectionPool,
+                stats,
+                metadataCache,
+                Ticker.systemTicker(),
+                newFixedThreadPool(cacheConfig.getCacheRefreshThreads(), daemonThreadsNamed("jdbc-cache-" + connectorId + "-%s")));
+    }
+
+    @VisibleForTesting
+    JdbcResultCache(String identifierQuote,
+            Driver driver,
+            Properties connectionProperties,
+            JdbcCacheConfig cacheConfig,
+            JdbcConnectionPool connectionPool,
+            JdbcResultCacheStats stats,
+            JdbcMetadataCache metadataCache,
+            Ticker ticker,
+            ExecutorService refreshExecutor)
     {
         this.identifierQuote = identifierQuote;
         this.driver = driver;
         this.connectionProperties = connectionProperties;
+        this.connectionPool = checkNotNull(connectionPool, "connectionPool is null");
+        this.stats = checkNotNull(stats, "stats is null");
+        this.columnTypesCache = checkNotNull(metadataCache, "metadataCache is null").newCache(this::loadColumnTypes);
         long expiresAfterWrite = checkNotNull(cacheConfig.getCacheExpireInterval(), "cacheExpireInterval is null").toMillis();
         long refreshAfterWrite = checkNotNull(cacheConfig.getCacheRefreshInterval(), "cacheRefreshInterval is null").toMillis();
-        analyseCacheTableAndField(cacheConfig.getCacheTableConfig(), cacheConfig.getCacheTableClause());
+        this.fullRefreshMillis = checkNotNull(cacheConfig.getCacheFullRefreshInterval(), "cacheFullRefreshInterval is null").toMillis();
+        analyseCacheTableAndField(cacheConfig.getCacheTableConfig(), cacheConfig.getCacheTableClause(), cacheConfig.getCacheTableIncrementalConfig());
+        this.refreshExecutor = checkNotNull(refreshExecutor, "refreshExecutor is null");
         jdbcResultCache = CacheBuilder
                 .newBuilder()
+                .ticker(checkNotNull(ticker, "ticker is null"))
                 .expireAfterWrite(expiresAfterWrite, TimeUnit.MILLISECONDS)
                 .refreshAfterWrite(refreshAfterWrite, TimeUnit.MILLISECONDS)
-                .build(new CacheLoader<JdbcCacheSplit, List<JdbcJavaBean>>(){
+                .maximumWeight(cacheConfig.getCacheMaxSize().toBytes())
+                .<JdbcCacheSplit, JdbcCacheTable>weigher((key, table) -> Ints.saturatedCast(table.getSizeInBytes()))
+                .removalListener(notification -> {
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        stats.getEvictions().update(1);
+                    }
+                })
+                .build(asyncReloading(new CacheLoader<JdbcCacheSplit, JdbcCacheTable>()
+                {
                     @Override
-                    public List<JdbcJavaBean> load(JdbcCacheSplit key) throws Exception
+                    public JdbcCacheTable load(JdbcCacheSplit key)
+                            throws Exception
                     {
-                        return loadTableDataSet(key);
+                        return timeLoad(stats.getLoad(), stats.getLoadFailures(), () -> loadTableDataSet(key));
                     }
-                });
+
+                    @Override
+                    public ListenableFuture<JdbcCacheTable> reload(JdbcCacheSplit key, JdbcCacheTable oldValue)
+                            throws Exception
+                    {
+                        return Futures.immediateFuture(timeLoad(stats.getRefresh(), stats.getRefreshFailures(), () -> refreshTableDataSet(key, oldValue)));
+                    }
+                }, refreshExecutor));
     }
-    private List<JdbcJavaBean> loadTableDataSet(JdbcCacheSplit key)
+
+    private JdbcCacheTable timeLoad(TimeStat time, CounterStat failures, Supplier<JdbcCacheTable> loader)
+    {
+        try (TimeStat.BlockTimer timer = time.time()) {
+            return loader.get();
+        }
+        catch (RuntimeException e) {
+            failures.update(1);
+            throw e;
+        }
+    }
+
+    private JdbcCacheTable loadTableDataSet(JdbcCacheSplit key)
     {
         log.debug("loadTableDataSet key : " + key);
-        List<JdbcJavaBean> list = new ArrayList<JdbcJavaBean>();
-        try {
-            Connection connection = getConnection(key.getConnectionUrl());
-            HashMap<String, Type> types = getColumnTypes(key);
-            String tableName = key.getBaseTableName();
-            List<String> columns = fieldList.get(tableName);
-            String columnPart = Joiner.on(",").join(columns);
-            String sql = "SELECT " + columnPart + " FROM " +
-                    JdbcUtil.getTableName(identifierQuote, key.getCatalogName(), key.getSchemaName(), key.getTableName());
-            if (cacheTableClauseMap != null && !isNullOrEmpty(cacheTableClauseMap.get(tableName))) {
-                sql += " WHERE " + cacheTableClauseMap.get(tableName);
+        Map<String, Type> types = getColumnTypes(key);
+        String tableName = key.getBaseTableName();
+        ImmutableList.Builder<String> columnNames = ImmutableList.builder();
+        ImmutableList.Builder<Type> columnTypes = ImmutableList.builder();
+        for (String column : fieldList.get(tableName)) {
+            Type type = types.get(column);
+            // skip unknown or unsupported columns
+            if (type != null) {
+                columnNames.add(column);
+                columnTypes.add(type);
             }
-            Statement statement = connection.createStatement();
+        }
+        List<String> columns = columnNames.build();
+        List<Type> columnTypeList = columnTypes.build();
+        long loadTime = System.currentTimeMillis();
+        List<Page> pages = readPages(key, buildSql(key, columns), columnTypeList, null, null);
+
+        // the primary key is only needed to merge the rows of an incremental refresh
+        int keyChannel = -1;
+        if (getIncrementalColumn(key) != null) {
+            String primaryKey = getPrimaryKey(key);
+            keyChannel = primaryKey == null ? -1 : columns.indexOf(primaryKey);
+        }
+        return new JdbcCacheTable(columns, columnTypeList, pages, keyChannel, loadTime);
+    }
+
+    /**
+     * Reads only the rows added or updated since the previous load when the table has an
+     * incremental column and a key, and merges them into the cached copy. The whole table is read
+     * again once the full refresh interval has elapsed, so deleted rows are eventually dropped.
+     */
+    private JdbcCacheTable refreshTableDataSet(JdbcCacheSplit key, JdbcCacheTable oldTable)
+    {
+        String column = getIncrementalColumn(key);
+        if (column == null || System.currentTimeMillis() - oldTable.getFullLoadTime() >= fullRefreshMillis) {
+            return loadTableDataSet(key);
+        }
+        if (oldTable.getKeyChannel() < 0) {
+            // without a key the new version of an updated row can not replace the old one
+            log.warn("Cached table %s has no cached single column primary key, so it is reloaded in full", key.getBaseTableName());
+            return loadTableDataSet(key);
+        }
+        int channel = oldTable.getChannel(column);
+        if (channel < 0 || !INCREMENTAL_COLUMN_TYPES.contains(oldTable.getColumnTypes().get(channel))) {
+            log.warn("Incremental column %s of cached table %s must be a cached bigint, date or timestamp column", column, key.getBaseTableName());
+            return loadTableDataSet(key);
+        }
+        Comparable<?> maxValue = oldTable.getMaxValue(channel);
+        if (maxValue == null) {
+            return loadTableDataSet(key);
+        }
+
+        // rows updated at the same instant as the last seen row are read again and replace it
+        String sql = buildSql(key, oldTable.getColumnNames());
+        sql += (sql.contains(" WHERE ") ? " AND " : " WHERE ") + column + " >= ?";
+        List<Page> rows = readPages(key, sql, oldTable.getColumnTypes(), oldTable.getColumnTypes().get(channel), (Long) maxValue);
+        stats.getIncrementalRows().update(rows.stream().mapToLong(Page::getPositionCount).sum());
+        return oldTable.withRows(rows);
+    }
+
+    private String buildSql(JdbcCacheSplit key, List<String> columns)
+    {
+        String columnPart = Joiner.on(",").join(columns);
+        String sql = "SELECT " + columnPart + " FROM " +
+                JdbcUtil.getTableName(identifierQuote, key.getCatalogName(), key.getSchemaName(), key.getTableName());
+        String tableName = key.getBaseTableName();
+        if (cacheTableClauseMap != null && !isNullOrEmpty(cacheTableClauseMap.get(tableName))) {
+            sql += " WHERE " + cacheTableClauseMap.get(tableName);
+        }
+        return sql;
+    }
+
+    private List<Page> readPages(JdbcCacheSplit key, String sql, List<Type> columnTypes, Type parameterType, Long parameter)
+    {
+        JdbcColumnReader[] readers = new JdbcColumnReader[columnTypes.size()];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = JdbcColumnReader.forType(columnTypes.get(i));
+        }
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(columnTypes);
+        // the connection must be closed so that it is returned to the pool
+        try (Connection connection = getConnection(key.getConnectionUrl());
+                PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setFetchSize(10_000);
+            if (parameter != null) {
+                setParameter(statement, parameterType, parameter);
+            }
             long startTime = System.currentTimeMillis();
-            ResultSet resultSet = statement.executeQuery(sql);
+            ResultSet resultSet = statement.executeQuery();
             log.debug("The connection url: %s ,ExecuteQuery: %s ,spend time : %s , thread id : %s", key.getConnectionUrl(), sql, (System.currentTimeMillis() - startTime), Thread.currentThread().getId());
             while (resultSet.next()) {
-                JdbcJavaBean tableDataSet = new JdbcJavaBean(columns);
-                for (int i = 1; i <= columns.size(); i++) {
-                    Type type = types.get(columns.get(i - 1));
-                    if (type.equals(BooleanType.BOOLEAN)) {
-                        tableDataSet.setFieldObjectValue((i - 1), resultSet.getBoolean(i));
-                    }
-                    else if (type.equals(BigintType.BIGINT)) {
-                        tableDataSet.setFieldObjectValue((i - 1), resultSet.getLong(i));
-                    }
-                    else if (type.equals(DateType.DATE)) {
-                        tableDataSet.setFieldObjectValue((i - 1), resultSet.getDate(i));
-                    }
-                    else if (type.equals(TimeType.TIME)) {
-                        tableDataSet.setFieldObjectValue((i - 1), resultSet.getTime(i));
-                    }
-                    else if (type.equals(TimestampType.TIMESTAMP)) {
-                        tableDataSet.setFieldObjectValue((i - 1), resultSet.getTimestamp(i));
-                    }
-                    else if (type.equals(DoubleType.DOUBLE)) {
-                        tableDataSet.setFieldObjectValue((i - 1), resultSet.getDouble(i));
-                    }
-                    else if (type.equals(VarcharType.VARCHAR)) {
-                        tableDataSet.setFieldObjectValue((i - 1), resultSet.getString(i));
-                    }
-                    else if (type.equals(VarbinaryType.VARBINARY)) {
-                        tableDataSet.setFieldObjectValue((i - 1), resultSet.getBytes(i));
-                    }
+                pageBuilder.declarePosition();
+                for (int i = 0; i < readers.length; i++) {
+                    readers[i].read(resultSet, i + 1, pageBuilder.getBlockBuilder(i));
                 }
-                list.add(tableDataSet);
+                if (pageBuilder.isFull()) {
+                    pages.add(pageBuilder.build());
+                    pageBuilder.reset();
+                }
+            }
+            if (!pageBuilder.isEmpty()) {
+                pages.add(pageBuilder.build());
             }
             log.debug("The connection url: %s ,parse result: %s ,spend time : %s , thread id : %s", key.getConnectionUrl(), sql, (System.currentTimeMillis() - startTime), Thread.currentThread().getId());
         }
         catch (SQLException e) {
             throw Throwables.propagate(e);
         }
-        return list;
+        return pages.build();
+    }
+
+    private static void setParameter(PreparedStatement statement, Type type, long value)
+            throws SQLException
+    {
+        if (type.equals(BIGINT)) {
+            statement.setLong(1, value);
+        }
+        else if (type.equals(TIMESTAMP)) {
+            statement.setTimestamp(1, new Timestamp(value));
+        }
+        else if (type.equals(DATE)) {
+            // the reverse of the conversion done when the date was read
+            long utcMillis = TimeUnit.DAYS.toMillis(value);
+            statement.setDate(1, new Date(UTC.getMillisKeepLocal(ISOChronology.getInstance().getZone(), utcMillis)));
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported incremental column type: " + type.getTypeSignature());
+        }
     }
-    public List<JdbcJavaBean> getResult(JdbcCacheSplit key)
+
+    private String getIncrementalColumn(JdbcCacheSplit key)
     {
+        if (incrementalColumns == null || !incrementalColumns.containsKey(key.getBaseTableName())) {
+            return null;
+        }
+        String column = incrementalColumns.get(key.getBaseTableName());
+        if (isNullOrEmpty(column)) {
+            // fall back to the auto increment field of the sub table
+            column = isNullOrEmpty(key.getSplitField()) ? null : key.getSplitField().toLowerCase(ENGLISH);
+        }
+        return column;
+    }
+
+    private String getPrimaryKey(JdbcCacheSplit key)
+    {
+        try (Connection connection = getConnection(key.getConnectionUrl());
+                ResultSet resultSet = connection.getMetaData().getPrimaryKeys(key.getSchemaName(), key.getCatalogName(), key.getTableName())) {
+            String primaryKey = null;
+            while (resultSet.next()) {
+                if (primaryKey != null) {
+                    // rows can only be merged on a single column key
+                    return null;
+                }
+                primaryKey = resultSet.getString("COLUMN_NAME").toLowerCase(ENGLISH);
+            }
+            return primaryKey;
+        }
+        catch (SQLException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    public JdbcCacheTable getResult(JdbcCacheSplit key)
+    {
+        long start = System.nanoTime();
+        JdbcCacheTable table = jdbcResultCache.getIfPresent(key);
+        if (table != null) {
+            stats.getHit().add(Duration.nanosSince(start));
+            return table;
+        }
         try {
-            return jdbcResultCache.get(key);
+            table = jdbcResultCache.get(key);
         }
         catch (ExecutionException e) {
-            throw Throwables.propagate(e);
+            throw Throwables.propagate(e.getCause());
+        }
+        stats.getMiss().add(Duration.nanosSince(start));
+        return table;
+    }
+
+    public long getCachedTableCount()
+    {
+        return jdbcResultCache.size();
+    }
+
+    public long getCachedBytes()
+    {
+        long bytes = 0;
+        for (JdbcCacheTable table : jdbcResultCache.asMap().values()) {
+            bytes += table.getSizeInBytes();
         }
+        return bytes;
+    }
+
+    public void flushCache()
+    {
+        jdbcResultCache.invalidateAll();
     }
 
-    public HashMap<String, Type> getColumnTypes(JdbcCacheSplit key)
+    public void shutdown()
+    {
+        refreshExecutor.shutdownNow();
+    }
+
+    public Map<String, Type> getColumnTypes(JdbcCacheSplit key)
+    {
+        return columnTypesCache.apply(key);
+    }
+
+    private Map<String, Type> loadColumnTypes(JdbcCacheSplit key)
     {
         HashMap<String, Type> types = new HashMap<String, Type>();
         try (Connection connection = getConnection(key.getConnectionUrl())) {
@@ -174,13 +408,13 @@ public class JdbcResultCache
         catch (SQLException e) {
             throw Throwables.propagate(e);
         }
-        return types;
+        return ImmutableMap.copyOf(types);
     }
 
     public Connection getConnection(String connectionURL)
             throws SQLException
     {
-        Connection connection = driver.connect(connectionURL, connectionProperties);
+        Connection connection = connectionPool.getConnection(driver, connectionURL, connectionProperties);
         try {
             connection.setReadOnly(true);
         }
@@ -191,7 +425,7 @@ public class JdbcResultCache
         return connection;
     }
 
-    private void analyseCacheTableAndField(String cacheTableConfig, String cacheTableClause)
+    private void analyseCacheTableAndField(String cacheTableConfig, String cacheTableClause, String cacheTableIncrementalConfig)
     {
         ObjectMapper objectMapper = new ObjectMapper();
         try {
@@ -208,6 +442,10 @@ public class JdbcResultCache
                 // table where condition
                 cacheTableClauseMap = (LinkedHashMap<String, String>) objectMapper.readValue(cacheTableClause, Map.class);
             }
+            if (!isNullOrEmpty(cacheTableIncrementalConfig)) {
+                // table incremental column, an empty column uses the auto increment field of the sub table
+                incrementalColumns = (LinkedHashMap<String, String>) objectMapper.readValue(cacheTableIncrementalConfig.toLowerCase(ENGLISH), Map.class);
+            }
         }
         catch (JsonParseException e) {
             throw Throwables.propagate(e);
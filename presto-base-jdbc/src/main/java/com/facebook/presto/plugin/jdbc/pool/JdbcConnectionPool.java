@@ -0,0 +1,488 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.pool;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.fromProperties;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.lang.String.format;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Bounded pool of JDBC connections, partitioned by connection url and connection properties.
+ * Connections are validated when borrowed and closed once they have been idle for too long.
+ * Closing a borrowed connection returns it to the pool.
+ */
+@ThreadSafe
+public class JdbcConnectionPool
+{
+    private static final Logger log = Logger.get(JdbcConnectionPool.class);
+
+    private final boolean enabled;
+    private final int maxConnectionsPerUrl;
+    private final Duration maxWaitTime;
+    private final long maxIdleTimeNanos;
+    private final int validationTimeoutSeconds;
+
+    private final ConcurrentMap<PoolKey, Partition> partitions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictionExecutor;
+
+    private final TimeStat borrowWaitTime = new TimeStat(MILLISECONDS);
+    private final CounterStat borrowedConnections = new CounterStat();
+    private final CounterStat createdConnections = new CounterStat();
+    private final CounterStat closedConnections = new CounterStat();
+    private final CounterStat validationFailures = new CounterStat();
+    private final CounterStat saturatedBorrows = new CounterStat();
+    private final CounterStat borrowTimeouts = new CounterStat();
+
+    @Inject
+    public JdbcConnectionPool(JdbcConnectionPoolConfig config)
+    {
+        checkNotNull(config, "config is null");
+        this.enabled = config.getJdbcConnectionPoolEnable();
+        this.maxConnectionsPerUrl = config.getMaxConnectionsPerUrl();
+        this.maxWaitTime = checkNotNull(config.getMaxWaitTime(), "maxWaitTime is null");
+        this.maxIdleTimeNanos = checkNotNull(config.getMaxIdleTime(), "maxIdleTime is null").roundTo(NANOSECONDS);
+        this.validationTimeoutSeconds = (int) Math.max(1, checkNotNull(config.getValidationTimeout(), "validationTimeout is null").getValue(SECONDS));
+
+        this.evictionExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("jdbc-connection-pool-eviction-%s"));
+        if (enabled) {
+            long evictionIntervalMillis = config.getEvictionInterval().toMillis();
+            evictionExecutor.scheduleWithFixedDelay(this::evictIdleConnections, evictionIntervalMillis, evictionIntervalMillis, MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        evictionExecutor.shutdownNow();
+        for (Partition partition : partitions.values()) {
+            partition.closeIdleConnections();
+        }
+        partitions.clear();
+    }
+
+    /**
+     * Borrow a connection to the given url. The connection is returned to the pool when it is closed.
+     * Callers are responsible for setting the read only flag they need; the pool only restores auto commit.
+     */
+    public Connection getConnection(Driver driver, String connectionUrl, Properties connectionProperties)
+            throws SQLException
+    {
+        checkNotNull(driver, "driver is null");
+        checkNotNull(connectionUrl, "connectionUrl is null");
+        checkNotNull(connectionProperties, "connectionProperties is null");
+
+        if (!enabled) {
+            return driver.connect(connectionUrl, connectionProperties);
+        }
+
+        PoolKey key = new PoolKey(connectionUrl, fromProperties(connectionProperties));
+        Partition partition = partitions.computeIfAbsent(key, poolKey -> new Partition(driver, connectionUrl, connectionProperties));
+        return partition.borrow();
+    }
+
+    @Managed
+    public int getPartitionCount()
+    {
+        return partitions.size();
+    }
+
+    @Managed
+    public int getActiveConnections()
+    {
+        int active = 0;
+        for (Partition partition : partitions.values()) {
+            active += maxConnectionsPerUrl - partition.permits.availablePermits();
+        }
+        return active;
+    }
+
+    @Managed
+    public int getIdleConnections()
+    {
+        int idle = 0;
+        for (Partition partition : partitions.values()) {
+            idle += partition.idleConnections.size();
+        }
+        return idle;
+    }
+
+    @Managed
+    public int getWaitingThreads()
+    {
+        int waiting = 0;
+        for (Partition partition : partitions.values()) {
+            waiting += partition.permits.getQueueLength();
+        }
+        return waiting;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getBorrowWaitTime()
+    {
+        return borrowWaitTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBorrowedConnections()
+    {
+        return borrowedConnections;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getCreatedConnections()
+    {
+        return createdConnections;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getClosedConnections()
+    {
+        return closedConnections;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getValidationFailures()
+    {
+        return validationFailures;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSaturatedBorrows()
+    {
+        return saturatedBorrows;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBorrowTimeouts()
+    {
+        return borrowTimeouts;
+    }
+
+    @Managed
+    public void evictIdleConnections()
+    {
+        try {
+            for (Partition partition : partitions.values()) {
+                partition.evictIdleConnections();
+            }
+        }
+        catch (RuntimeException e) {
+            log.error(e, "Error evicting idle JDBC connections");
+        }
+    }
+
+    private void closeQuietly(Connection connection)
+    {
+        closedConnections.update(1);
+        try {
+            connection.close();
+        }
+        catch (SQLException e) {
+            log.debug("Error closing JDBC connection: %s", e.getMessage());
+        }
+    }
+
+    private final class Partition
+    {
+        private final Driver driver;
+        private final String connectionUrl;
+        private final Properties connectionProperties;
+        private final Semaphore permits = new Semaphore(maxConnectionsPerUrl, true);
+        private final BlockingDeque<IdleConnection> idleConnections = new LinkedBlockingDeque<>();
+
+        private Partition(Driver driver, String connectionUrl, Properties connectionProperties)
+        {
+            this.driver = driver;
+            this.connectionUrl = connectionUrl;
+            this.connectionProperties = (Properties) connectionProperties.clone();
+        }
+
+        private Connection borrow()
+                throws SQLException
+        {
+            long start = System.nanoTime();
+            if (!permits.tryAcquire()) {
+                saturatedBorrows.update(1);
+                boolean acquired;
+                try {
+                    acquired = permits.tryAcquire(maxWaitTime.roundTo(NANOSECONDS), NANOSECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a connection to " + connectionUrl, e);
+                }
+                if (!acquired) {
+                    borrowTimeouts.update(1);
+                    throw new SQLException(format("Timed out after %s waiting for a connection to %s (%s connections in use)", maxWaitTime, connectionUrl, maxConnectionsPerUrl));
+                }
+            }
+            borrowWaitTime.add(Duration.nanosSince(start));
+
+            try {
+                Connection connection = takeIdleConnection();
+                if (connection == null) {
+                    connection = driver.connect(connectionUrl, connectionProperties);
+                    if (connection == null) {
+                        throw new SQLException("Driver does not accept connection url: " + connectionUrl);
+                    }
+                    createdConnections.update(1);
+                }
+                borrowedConnections.update(1);
+                return (Connection) Proxy.newProxyInstance(
+                        JdbcConnectionPool.class.getClassLoader(),
+                        new Class<?>[] {Connection.class},
+                        new PooledConnectionHandler(this, connection));
+            }
+            catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private Connection takeIdleConnection()
+        {
+            IdleConnection idle;
+            while ((idle = idleConnections.pollFirst()) != null) {
+                if (System.nanoTime() - idle.getIdleSinceNanos() > maxIdleTimeNanos) {
+                    closeQuietly(idle.getConnection());
+                    continue;
+                }
+                if (isValid(idle.getConnection())) {
+                    return idle.getConnection();
+                }
+                validationFailures.update(1);
+                closeQuietly(idle.getConnection());
+            }
+            return null;
+        }
+
+        private boolean isValid(Connection connection)
+        {
+            try {
+                return connection.isValid(validationTimeoutSeconds);
+            }
+            catch (SQLException | AbstractMethodError e) {
+                return false;
+            }
+        }
+
+        private void release(Connection connection, boolean broken)
+        {
+            try {
+                if (broken || !resetConnection(connection)) {
+                    closeQuietly(connection);
+                }
+                else {
+                    idleConnections.offerFirst(new IdleConnection(connection, System.nanoTime()));
+                }
+            }
+            finally {
+                permits.release();
+            }
+        }
+
+        private boolean resetConnection(Connection connection)
+        {
+            try {
+                if (connection.isClosed()) {
+                    return false;
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                connection.clearWarnings();
+                return true;
+            }
+            catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void evictIdleConnections()
+        {
+            long now = System.nanoTime();
+            Iterator<IdleConnection> iterator = idleConnections.descendingIterator();
+            while (iterator.hasNext()) {
+                IdleConnection idle = iterator.next();
+                if (now - idle.getIdleSinceNanos() > maxIdleTimeNanos && idleConnections.removeFirstOccurrence(idle)) {
+                    closeQuietly(idle.getConnection());
+                }
+            }
+        }
+
+        private void closeIdleConnections()
+        {
+            IdleConnection idle;
+            while ((idle = idleConnections.pollFirst()) != null) {
+                closeQuietly(idle.getConnection());
+            }
+        }
+    }
+
+    private static final class PooledConnectionHandler
+            implements InvocationHandler
+    {
+        private final Partition partition;
+        private final Connection delegate;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean broken;
+
+        private PooledConnectionHandler(Partition partition, Connection delegate)
+        {
+            this.partition = partition;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable
+        {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        partition.release(delegate, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || delegate.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + delegate + "]";
+                default:
+                    break;
+            }
+            if (closed.get()) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(delegate, args);
+            }
+            catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException && isConnectionError((SQLException) cause)) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        private static boolean isConnectionError(SQLException e)
+        {
+            // SQL state class 08 is "connection exception"
+            String sqlState = e.getSQLState();
+            return sqlState != null && sqlState.startsWith("08");
+        }
+    }
+
+    private static final class IdleConnection
+    {
+        private final Connection connection;
+        private final long idleSinceNanos;
+
+        private IdleConnection(Connection connection, long idleSinceNanos)
+        {
+            this.connection = connection;
+            this.idleSinceNanos = idleSinceNanos;
+        }
+
+        public Connection getConnection()
+        {
+            return connection;
+        }
+
+        public long getIdleSinceNanos()
+        {
+            return idleSinceNanos;
+        }
+    }
+
+    private static final class PoolKey
+    {
+        private final String connectionUrl;
+        private final Map<String, String> connectionProperties;
+
+        private PoolKey(String connectionUrl, Map<String, String> connectionProperties)
+        {
+            this.connectionUrl = connectionUrl;
+            this.connectionProperties = ImmutableMap.copyOf(connectionProperties);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(connectionUrl, connectionProperties);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            PoolKey other = (PoolKey) obj;
+            return Objects.equals(this.connectionUrl, other.connectionUrl) &&
+                    Objects.equals(this.connectionProperties, other.connectionProperties);
+        }
+    }
+}
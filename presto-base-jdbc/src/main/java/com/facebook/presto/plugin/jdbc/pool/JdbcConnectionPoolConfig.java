@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.pool;
+
+import io.airlift.configuration.Config;
+import io.airlift.units.Duration;
+import io.airlift.units.MinDuration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+public class JdbcConnectionPoolConfig
+{
+    private boolean jdbcConnectionPoolEnable = true;
+    private int maxConnectionsPerUrl = 50;
+    private Duration maxIdleTime = new Duration(10, TimeUnit.MINUTES);
+    private Duration maxWaitTime = new Duration(30, TimeUnit.SECONDS);
+    private Duration validationTimeout = new Duration(5, TimeUnit.SECONDS);
+    private Duration evictionInterval = new Duration(1, TimeUnit.MINUTES);
+
+    public boolean getJdbcConnectionPoolEnable()
+    {
+        return jdbcConnectionPoolEnable;
+    }
+
+    @Config("jdbc-connection-pool-enable")
+    public JdbcConnectionPoolConfig setJdbcConnectionPoolEnable(boolean jdbcConnectionPoolEnable)
+    {
+        this.jdbcConnectionPoolEnable = jdbcConnectionPoolEnable;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxConnectionsPerUrl()
+    {
+        return maxConnectionsPerUrl;
+    }
+
+    @Config("jdbc-connection-pool-max-size")
+    public JdbcConnectionPoolConfig setMaxConnectionsPerUrl(int maxConnectionsPerUrl)
+    {
+        this.maxConnectionsPerUrl = maxConnectionsPerUrl;
+        return this;
+    }
+
+    @NotNull
+    public Duration getMaxIdleTime()
+    {
+        return maxIdleTime;
+    }
+
+    @Config("jdbc-connection-pool-max-idle-time")
+    public JdbcConnectionPoolConfig setMaxIdleTime(Duration maxIdleTime)
+    {
+        this.maxIdleTime = maxIdleTime;
+        return this;
+    }
+
+    @NotNull
+    public Duration getMaxWaitTime()
+    {
+        return maxWaitTime;
+    }
+
+    @Config("jdbc-connection-pool-max-wait-time")
+    public JdbcConnectionPoolConfig setMaxWaitTime(Duration maxWaitTime)
+    {
+        this.maxWaitTime = maxWaitTime;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getValidationTimeout()
+    {
+        return validationTimeout;
+    }
+
+    @Config("jdbc-connection-pool-validation-timeout")
+    public JdbcConnectionPoolConfig setValidationTimeout(Duration validationTimeout)
+    {
+        this.validationTimeout = validationTimeout;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getEvictionInterval()
+    {
+        return evictionInterval;
+    }
+
+    @Config("jdbc-connection-pool-eviction-interval")
+    public JdbcConnectionPoolConfig setEvictionInterval(Duration evictionInterval)
+    {
+        this.evictionInterval = evictionInterval;
+        return this;
+    }
+}
@@ -13,46 +13,85 @@
  */
 package com.facebook.presto.plugin.jdbc.subtable;
 
-import static java.util.Locale.ENGLISH;
+import com.facebook.presto.plugin.jdbc.util.JdbcUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 
 import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
-import com.facebook.presto.plugin.jdbc.util.JdbcUtil;
-import com.mysql.jdbc.Driver;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Locale.ENGLISH;
 
+/**
+ * Keeps the routing of the base tables to their sub-tables. Every reload builds its entries
+ * off to the side and swaps them in, so readers never see a partially loaded routing.
+ * <p>
+ * Without a version column the whole routing is reloaded every interval. With a version
+ * column the routes of a table are loaded on first access, and every interval only the tables
+ * with a route row changed since the last reload are read again. Deleting every route of a table
+ * bumps no version, so the whole routing is still rebuilt once per full reload interval.
+ */
 public class JdbcLoadTread implements Runnable
 {
     private static final Logger log = Logger.get(JdbcLoadTread.class);
 
+    private static final String SELECT_ROUTES = "SELECT " + JdbcSubTableInfo.COLUMN_NAME +
+            " FROM ROUTE_SCHEMA.TABLE_ROUTE" +
+            " as a LEFT JOIN ROUTE_SCHEMA.DB_INFO as b on a.uid = b.uid" +
+            " WHERE a.basecatalog = ?";
+
     protected final String connectionUrl;
     protected final Properties connectionProperties;
     protected final String connectorId;
     protected final Duration jdbcReloadSubtableInterval;
+    private final String versionColumn;
+    private final Duration fullReloadInterval;
     private long lastLoadSubTableTimeStamp = 0L;
+    private long lastFullLoadTimeStamp = 0L;
+    private Object lastVersion;
     protected final Driver driver;
 
-    private final ConcurrentMap<String, ArrayList<JdbcSubTableInfo>> allSubTables = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<String, List<JdbcSubTableInfo>> allSubTables = new ConcurrentHashMap<>();
 
     public JdbcLoadTread(String connectionUrl,
             Properties connectionProperties,
             String connectorId,
-            Duration jdbcReloadSubtableInterval) throws SQLException
+            Duration jdbcReloadSubtableInterval,
+            String versionColumn,
+            Duration fullReloadInterval) throws SQLException
+    {
+        this(connectionUrl, connectionProperties, connectorId, jdbcReloadSubtableInterval, versionColumn, fullReloadInterval, new com.mysql.jdbc.Driver());
+    }
+
+    @VisibleForTesting
+    JdbcLoadTread(String connectionUrl,
+            Properties connectionProperties,
+            String connectorId,
+            Duration jdbcReloadSubtableInterval,
+            String versionColumn,
+            Duration fullReloadInterval,
+            Driver driver)
     {
         this.connectionUrl = connectionUrl;
         this.connectionProperties = connectionProperties;
         this.connectorId = connectorId;
         this.jdbcReloadSubtableInterval = jdbcReloadSubtableInterval;
-        this.driver = new Driver();
+        this.versionColumn = versionColumn;
+        this.fullReloadInterval = checkNotNull(fullReloadInterval, "fullReloadInterval is null");
+        this.driver = checkNotNull(driver, "driver is null");
     }
 
     public void run()
@@ -60,16 +99,32 @@ public class JdbcLoadTread implements Runnable
         while (true) {
             try {
                 if (lastLoadSubTableTimeStamp == 0) {
-                    loadSubTable();
+                    if (versionColumn == null) {
+                        loadSubTable();
+                    }
+                    else {
+                        // routes are loaded lazily, only remember where the changes start
+                        lastVersion = loadMaxVersion();
+                        lastFullLoadTimeStamp = System.currentTimeMillis();
+                    }
                 }
                 else {
                     Thread.sleep(jdbcReloadSubtableInterval.toMillis());
                     long curTime = System.currentTimeMillis();
-                    loadSubTable();
+                    if (versionColumn == null || curTime - lastFullLoadTimeStamp >= fullReloadInterval.toMillis()) {
+                        loadSubTable();
+                    }
+                    else {
+                        loadChangedSubTables();
+                    }
                     log.debug(connectorId + " load sub-table info spend time : " + (System.currentTimeMillis() - curTime) + " ms ");
                 }
                 lastLoadSubTableTimeStamp = System.currentTimeMillis();
             }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
             catch (Exception e) {
                 lastLoadSubTableTimeStamp = System.currentTimeMillis();
                 log.error("Error reloading sub-table infomation", e);
@@ -77,20 +132,118 @@ public class JdbcLoadTread implements Runnable
         }
     }
 
+    /**
+     * Reloads the whole routing into a new map and swaps it in.
+     */
     public synchronized void loadSubTable()
     {
-        Connection connection = null;
-        ResultSet rs = null;
-        Statement stat = null;
-        String sql = "SELECT " + JdbcSubTableInfo.COLUMN_NAME +
-            " FROM ROUTE_SCHEMA.TABLE_ROUTE" +
-            " as a LEFT JOIN ROUTE_SCHEMA.DB_INFO as b on a.uid = b.uid" +
-            " WHERE basecatalog = '" + connectorId + "'";
-        try {
-            connection = driver.connect(connectionUrl, connectionProperties);
-            stat = connection.createStatement();
-            rs = stat.executeQuery(sql);
-            allSubTables.clear();
+        try (Connection connection = driver.connect(connectionUrl, connectionProperties)) {
+            // read the version before the routes, changes made during the load are picked up by the next reload
+            Object version = versionColumn == null ? null : loadMaxVersion(connection);
+            ConcurrentMap<String, List<JdbcSubTableInfo>> subTables = new ConcurrentHashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_ROUTES)) {
+                statement.setString(1, connectorId);
+                subTables.putAll(readSubTables(statement));
+            }
+            allSubTables = subTables;
+            lastVersion = version;
+            lastFullLoadTimeStamp = System.currentTimeMillis();
+        }
+        catch (SQLException e) {
+            log.error("SQL : " + SELECT_ROUTES + "Error reloading sub-table infomation : ", e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads the routes of the tables with a route row changed since the last reload.
+     * The entries are replaced one by one, the entries of unchanged tables are kept.
+     */
+    private synchronized void loadChangedSubTables()
+            throws SQLException
+    {
+        if (lastVersion == null) {
+            // nothing was versioned yet
+            lastVersion = loadMaxVersion();
+            return;
+        }
+        // >= so that rows committed late with the last seen version are not missed, reloading them again is harmless
+        String sql = SELECT_ROUTES + " AND EXISTS (SELECT 1 FROM ROUTE_SCHEMA.TABLE_ROUTE as c" +
+                " WHERE c.basecatalog = a.basecatalog AND c.baseschema = a.baseschema AND c.basetable = a.basetable" +
+                " AND c." + versionColumn + " >= ?)";
+        try (Connection connection = driver.connect(connectionUrl, connectionProperties)) {
+            Object version = loadMaxVersion(connection);
+            Map<String, List<JdbcSubTableInfo>> changed;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, connectorId);
+                statement.setObject(2, lastVersion);
+                changed = readSubTables(statement);
+            }
+            allSubTables.putAll(changed);
+            if (version != null) {
+                lastVersion = version;
+            }
+            log.debug("%s reloaded the routes of %s changed tables", connectorId, changed.size());
+        }
+    }
+
+    /**
+     * @return the sub-tables of the base table, an empty list if the table is not routed
+     */
+    public List<JdbcSubTableInfo> getSubTables(String schemaName, String tableName)
+    {
+        String key = connectorId + JdbcUtil.SEPARATOR + schemaName + JdbcUtil.SEPARATOR + tableName;
+        ConcurrentMap<String, List<JdbcSubTableInfo>> subTables = allSubTables;
+        List<JdbcSubTableInfo> tableSubTables = subTables.get(key);
+        if (tableSubTables != null) {
+            return tableSubTables;
+        }
+        if (versionColumn == null) {
+            return ImmutableList.of();
+        }
+
+        // load lazily, an empty entry remembers that the table is not routed
+        try (Connection connection = driver.connect(connectionUrl, connectionProperties);
+                PreparedStatement statement = connection.prepareStatement(SELECT_ROUTES + " AND LOWER(a.baseschema) = ? AND LOWER(a.basetable) = ?")) {
+            statement.setString(1, connectorId);
+            statement.setString(2, schemaName);
+            statement.setString(3, tableName);
+            tableSubTables = readSubTables(statement).get(key);
+        }
+        catch (SQLException e) {
+            // planning without the routes would silently read the base table only
+            throw new RuntimeException("Error loading sub-table infomation of " + key, e);
+        }
+        if (tableSubTables == null) {
+            tableSubTables = ImmutableList.of();
+        }
+        List<JdbcSubTableInfo> existing = subTables.putIfAbsent(key, tableSubTables);
+        return existing == null ? tableSubTables : existing;
+    }
+
+    private Object loadMaxVersion()
+            throws SQLException
+    {
+        try (Connection connection = driver.connect(connectionUrl, connectionProperties)) {
+            return loadMaxVersion(connection);
+        }
+    }
+
+    private Object loadMaxVersion(Connection connection)
+            throws SQLException
+    {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT MAX(" + versionColumn + ") FROM ROUTE_SCHEMA.TABLE_ROUTE WHERE basecatalog = ?")) {
+            statement.setString(1, connectorId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getObject(1) : null;
+            }
+        }
+    }
+
+    private static Map<String, List<JdbcSubTableInfo>> readSubTables(PreparedStatement statement)
+            throws SQLException
+    {
+        Map<String, List<JdbcSubTableInfo>> subTables = new HashMap<>();
+        try (ResultSet rs = statement.executeQuery()) {
             //table columns : connectionurl,schemaname,tablename,basecatalog,baseschema,basetable,host,remotelyaccessible,
             // scannodenumber,autoincrementfield,username,password,fieldmaxvalue,fieldminvalue,pdboenable
             while (rs.next()) {
@@ -111,77 +264,13 @@ public class JdbcLoadTread implements Runnable
                 info.setFieldMinValue(rs.getLong(14));
                 info.setPdboEnable(rs.getString(15));
                 String key = info.getBasecatalog() + JdbcUtil.SEPARATOR + info.getBaseschema() + JdbcUtil.SEPARATOR + info.getBasetable();
-                //log.info("allSubTables key : " + key);
-                ArrayList<JdbcSubTableInfo> arrayList = allSubTables.get(key);
-                if (arrayList == null) {
-                    arrayList = new ArrayList<JdbcSubTableInfo>();
-                }
-                arrayList.add(info);
-                allSubTables.put(key, arrayList);
-            }
-        }
-        catch (SQLException e) {
-            log.error("SQL : " + sql + "Error reloading sub-table infomation : ", e.getMessage());
-        }
-        finally {
-            JdbcUtil.closeJdbcConnection(connection, stat, rs);
-        }
-    }
-
-    public List<PdboTable> getPDBOLogs(String connectorId, String schemaName, String tableName)
-    {
-        Connection connection = null;
-        ResultSet rs = null;
-        Statement stat = null;
-        List<PdboTable> tables = new ArrayList<>();
-        String sql = "SELECT A.CONNECTORID,A.SCHEMANAME,A.TABLENAME,A.ROWS,A.BEGININDEX,A.ENDINDEX,B.SCANNODENUMBER,"
-                + " B.CONNECTIONURL,B.HOST,B.REMOTELYACCESSIBLE,B.AUTOINCREMENTFIELD,C.USERNAME,C.PASSWORD"
-                + " FROM ROUTE_SCHEMA.PDBO_LOG A LEFT JOIN ROUTE_SCHEMA.TABLE_ROUTE B"
-                + " ON A.CONNECTORID = B.BASECATALOG AND A.SCHEMANAME = B.BASESCHEMA AND A.TABLENAME = B.BASETABLE"
-                + " LEFT JOIN ROUTE_SCHEMA.DB_INFO C ON B.UID = C.UID"
-                + " WHERE A.CONNECTORID = '" + connectorId
-                + "' AND A.SCHEMANAME = '" + schemaName
-                + "' AND A.TABLENAME = '" + tableName
-                + "' AND A.RECORDFLAG = 'finish' "
-                + " AND B.PDBOENABLE = 'Y' "
-                + " ORDER BY A.BEGININDEX";
-        int scannodenumber = 0;
-        try {
-            connection = driver.connect(connectionUrl, connectionProperties);
-            stat = connection.createStatement();
-            rs = stat.executeQuery(sql);
-            while (rs.next()) {
-                scannodenumber = rs.getInt(7);
-                tables.add(new PdboTable().setConnectorId(rs.getString(1)).
-                        setSchemaName(rs.getString(2)).
-                        setTableName(rs.getString(3)).
-                        setRows(rs.getLong(4)).
-                        setBeginIndex(rs.getLong(5)).
-                        setEndIndex(rs.getLong(6)).
-                        setConnectionUrl(rs.getString(8)).
-                        setHost(rs.getString(9)).
-                        setRemotelyAccessible(rs.getString(10)).
-                        setAutoIncrementField(rs.getString(11)).
-                        setUsername(rs.getString(12)).
-                        setPassword(rs.getString(13))
-                );
+                subTables.computeIfAbsent(key, k -> new ArrayList<>()).add(info);
             }
-            if (scannodenumber != tables.size()) {
-                tables.clear();
-                loadSubTable();
-            }
-        }
-        catch (SQLException e) {
-            log.error("SQL : " + sql + "Error getPDBOLogs : ", e.getMessage());
         }
-        finally {
-            JdbcUtil.closeJdbcConnection(connection, stat, rs);
+        Map<String, List<JdbcSubTableInfo>> result = new HashMap<>();
+        for (Map.Entry<String, List<JdbcSubTableInfo>> entry : subTables.entrySet()) {
+            result.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
         }
-        return tables;
-    }
-
-    public ConcurrentMap<String, ArrayList<JdbcSubTableInfo>> getAllSubTables()
-    {
-        return allSubTables;
+        return result;
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.subtable;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Computes the key ranges of the splits of a table. A split covers the keys in
+ * (boundaries[i], boundaries[i + 1]], so the first boundary is one below the smallest key.
+ */
+public final class JdbcSplitBoundaries
+{
+    private JdbcSplitBoundaries() {}
+
+    /**
+     * @return the edges of count ranges of about the same width over (low, high]
+     */
+    public static long[] equalWidth(long low, long high, int count)
+    {
+        checkArgument(low <= high, "low is greater than high");
+        checkArgument(count > 0, "count must be positive");
+        long[] boundaries = new long[count + 1];
+        for (int i = 0; i <= count; i++) {
+            boundaries[i] = edge(low, high, i, count);
+        }
+        return distinct(boundaries);
+    }
+
+    /**
+     * Returns the edges of count ranges over (low, high] holding about the same number of rows.
+     * The histogram holds the estimated row count of each of the equal width buckets over
+     * (low, high], and rows are assumed to be spread evenly within a bucket.
+     */
+    public static long[] equiDepth(long low, long high, double[] histogram, int count)
+    {
+        checkArgument(low <= high, "low is greater than high");
+        checkArgument(count > 0, "count must be positive");
+        checkArgument(histogram.length > 0, "histogram is empty");
+
+        double total = 0;
+        for (double rows : histogram) {
+            total += Math.max(rows, 0);
+        }
+        if (total <= 0) {
+            return equalWidth(low, high, count);
+        }
+
+        long[] boundaries = new long[count + 1];
+        boundaries[0] = low;
+        boundaries[count] = high;
+        int bucket = 0;
+        double bucketStartRows = 0;
+        for (int i = 1; i < count; i++) {
+            double targetRows = total * i / count;
+            while (bucket < histogram.length - 1 && bucketStartRows + Math.max(histogram[bucket], 0) < targetRows) {
+                bucketStartRows += Math.max(histogram[bucket], 0);
+                bucket++;
+            }
+            long bucketLow = edge(low, high, bucket, histogram.length);
+            long bucketHigh = edge(low, high, bucket + 1, histogram.length);
+            double bucketRows = Math.max(histogram[bucket], 0);
+            double fraction = bucketRows == 0 ? 1 : Math.min(1, (targetRows - bucketStartRows) / bucketRows);
+            boundaries[i] = Math.max(boundaries[i - 1], bucketLow + (long) ((bucketHigh - bucketLow) * fraction));
+        }
+        return distinct(boundaries);
+    }
+
+    /**
+     * @return the lower edge of bucket index of count equal width buckets over (low, high], or high for index count
+     */
+    static long edge(long low, long high, int index, int count)
+    {
+        if (index >= count) {
+            return high;
+        }
+        // computed in floating point as the width of the range may not fit in a long times count
+        return low + (long) ((double) (high - low) * index / count);
+    }
+
+    private static long[] distinct(long[] boundaries)
+    {
+        int count = 1;
+        for (int i = 1; i < boundaries.length; i++) {
+            if (boundaries[i] > boundaries[count - 1]) {
+                boundaries[count] = boundaries[i];
+                count++;
+            }
+        }
+        if (count == 1) {
+            // an empty range is still covered by a single split
+            return new long[] {boundaries[0], boundaries[0]};
+        }
+        return Arrays.copyOf(boundaries, count);
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.subtable;
+
+import com.facebook.presto.plugin.jdbc.util.JdbcUtil;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Model of the key distribution of the tables read with key range splits, built from the
+ * row counts of the completed splits. Each table keeps disjoint key segments holding the
+ * estimated row count of the segment. A completed split is blended into the segments it
+ * covers, and the weight of the earlier splits decays exponentially with their age.
+ */
+@ThreadSafe
+public class JdbcSplitStatsModel
+{
+    private static final int MAX_SEGMENTS_PER_TABLE = 1024;
+
+    private final double halfLifeMillis;
+    private final ConcurrentMap<String, TableModel> tables = new ConcurrentHashMap<>();
+    private final TimeStat scanTime = new TimeStat();
+    private final CounterStat scannedRows = new CounterStat();
+
+    public JdbcSplitStatsModel(Duration halfLife)
+    {
+        checkNotNull(halfLife, "halfLife is null");
+        checkArgument(halfLife.toMillis() > 0, "halfLife must be positive");
+        this.halfLifeMillis = halfLife.toMillis();
+    }
+
+    /**
+     * Records that a split read rows keys in (begin, end].
+     */
+    public void record(String schemaName, String tableName, long begin, long end, long rows, long timeMillis)
+    {
+        if (end <= begin || rows < 0) {
+            return;
+        }
+        TableModel table = tables.computeIfAbsent(getKey(schemaName, tableName), key -> new TableModel());
+        table.record(begin, end, rows, timeMillis);
+    }
+
+    public void recordScan(long rows, long scanNanos)
+    {
+        scannedRows.update(rows);
+        scanTime.add(new Duration(scanNanos, NANOSECONDS).convertTo(MILLISECONDS));
+    }
+
+    /**
+     * Returns the estimated row count of each of the bucketCount equal width buckets over
+     * (low, high]. Parts of the range that no split has read are assumed to be as dense as
+     * the parts that have been read.
+     *
+     * @return the histogram, or null if no completed split of the table overlaps the range
+     */
+    public double[] getHistogram(String schemaName, String tableName, long low, long high, int bucketCount)
+    {
+        checkArgument(bucketCount > 0, "bucketCount must be positive");
+        TableModel table = tables.get(getKey(schemaName, tableName));
+        if (table == null || high <= low) {
+            return null;
+        }
+        return table.getHistogram(low, high, bucketCount);
+    }
+
+    public void flush()
+    {
+        tables.clear();
+    }
+
+    @Managed
+    public int getTableCount()
+    {
+        return tables.size();
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getScanTime()
+    {
+        return scanTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getScannedRows()
+    {
+        return scannedRows;
+    }
+
+    private static String getKey(String schemaName, String tableName)
+    {
+        return (String.valueOf(schemaName) + JdbcUtil.SEPARATOR + tableName).toLowerCase(ENGLISH);
+    }
+
+    private class TableModel
+    {
+        // segments by their exclusive lower key, a segment covers (start, end]
+        @GuardedBy("this")
+        private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+        public synchronized void record(long begin, long end, long rows, long timeMillis)
+        {
+            divide(begin);
+            divide(end);
+            double density = rows / ((double) end - begin);
+            long position = begin;
+            for (Segment segment : new ArrayList<>(segments.subMap(begin, true, end, false).values())) {
+                if (segment.start > position) {
+                    segments.put(position, new Segment(position, segment.start, density * (segment.start - position), timeMillis));
+                }
+                segment.blend(density * (segment.end - segment.start), timeMillis);
+                position = segment.end;
+            }
+            if (position < end) {
+                segments.put(position, new Segment(position, end, density * ((double) end - position), timeMillis));
+            }
+            if (segments.size() > MAX_SEGMENTS_PER_TABLE) {
+                compact();
+            }
+        }
+
+        public synchronized double[] getHistogram(long low, long high, int bucketCount)
+        {
+            double[] histogram = new double[bucketCount];
+            double[] coveredWidth = new double[bucketCount];
+            double totalRows = 0;
+            double totalWidth = 0;
+            Map.Entry<Long, Segment> first = segments.lowerEntry(low);
+            Long from = (first != null && first.getValue().end > low) ? first.getKey() : low;
+            for (Segment segment : segments.subMap(from, true, high, false).values()) {
+                for (int i = 0; i < bucketCount; i++) {
+                    long bucketLow = JdbcSplitBoundaries.edge(low, high, i, bucketCount);
+                    long bucketHigh = JdbcSplitBoundaries.edge(low, high, i + 1, bucketCount);
+                    double width = (double) Math.min(bucketHigh, segment.end) - Math.max(bucketLow, segment.start);
+                    if (width > 0) {
+                        double rows = segment.rows * width / ((double) segment.end - segment.start);
+                        histogram[i] += rows;
+                        coveredWidth[i] += width;
+                        totalRows += rows;
+                        totalWidth += width;
+                    }
+                }
+            }
+            if (totalWidth == 0) {
+                return null;
+            }
+            double density = totalRows / totalWidth;
+            for (int i = 0; i < bucketCount; i++) {
+                double bucketWidth = (double) JdbcSplitBoundaries.edge(low, high, i + 1, bucketCount) - JdbcSplitBoundaries.edge(low, high, i, bucketCount);
+                histogram[i] += density * Math.max(0, bucketWidth - coveredWidth[i]);
+            }
+            return histogram;
+        }
+
+        /**
+         * Makes sure no segment spans the key, the rows of a spanning segment are divided
+         * in proportion to the width of the two parts.
+         */
+        private void divide(long key)
+        {
+            Map.Entry<Long, Segment> entry = segments.lowerEntry(key);
+            if (entry == null || entry.getValue().end <= key) {
+                return;
+            }
+            Segment segment = entry.getValue();
+            double leftRows = segment.rows * ((double) key - segment.start) / ((double) segment.end - segment.start);
+            Segment right = new Segment(key, segment.end, segment.rows - leftRows, segment.updateTime);
+            right.weight = segment.weight;
+            segment.end = key;
+            segment.rows = leftRows;
+            segments.put(key, right);
+        }
+
+        /**
+         * Merges each pair of adjacent segments, halving the number of segments.
+         */
+        private void compact()
+        {
+            Iterator<Segment> iterator = segments.values().iterator();
+            Segment previous = null;
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                if (previous != null && previous.end == segment.start) {
+                    previous.end = segment.end;
+                    previous.rows += segment.rows;
+                    previous.weight = Math.max(previous.weight, segment.weight);
+                    previous.updateTime = Math.max(previous.updateTime, segment.updateTime);
+                    iterator.remove();
+                    previous = null;
+                }
+                else {
+                    previous = segment;
+                }
+            }
+        }
+    }
+
+    private class Segment
+    {
+        private final long start;
+        private long end;
+        private double rows;
+        private double weight;
+        private long updateTime;
+
+        private Segment(long start, long end, double rows, long updateTime)
+        {
+            this.start = start;
+            this.end = end;
+            this.rows = rows;
+            this.weight = 1;
+            this.updateTime = updateTime;
+        }
+
+        /**
+         * Blends the observed row count with the estimate, the earlier observations
+         * lose half of their weight every half life.
+         */
+        private void blend(double observedRows, long timeMillis)
+        {
+            double decayedWeight = weight * Math.pow(0.5, Math.max(0, timeMillis - updateTime) / halfLifeMillis);
+            rows = (rows * decayedWeight + observedRows) / (decayedWeight + 1);
+            weight = decayedWeight + 1;
+            updateTime = Math.max(updateTime, timeMillis);
+        }
+    }
+}
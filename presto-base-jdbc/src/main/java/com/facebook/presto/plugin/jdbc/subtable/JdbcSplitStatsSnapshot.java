@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.subtable;
+
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Ships the completed splits of this node to the allocator through ROUTE_SCHEMA.PDBO_LOG.
+ * The other nodes write their splits in batches, off the query path, and the allocator
+ * periodically moves the written splits into its {@link JdbcSplitStatsModel}.
+ */
+class JdbcSplitStatsSnapshot
+{
+    private static final Logger log = Logger.get(JdbcSplitStatsSnapshot.class);
+    private static final int MAX_PENDING_SPLITS = 100_000;
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO ROUTE_SCHEMA.PDBO_LOG "
+            + "(CONNECTORID,SCHEMANAME,TABLENAME,ROWS,BEGININDEX,ENDINDEX,RECORDFLAG,SCANNODES,TIMESTAMP) VALUES (?,?,?,?,?,?,'new',?,?)";
+    // the rows are claimed first, so rows written while the allocator reads them stay 'new' for the next load
+    private static final String CLAIM_SQL = "UPDATE ROUTE_SCHEMA.PDBO_LOG SET RECORDFLAG = 'loading' WHERE CONNECTORID = ? AND RECORDFLAG = 'new'";
+    private static final String SELECT_SQL = "SELECT SCHEMANAME,TABLENAME,ROWS,BEGININDEX,ENDINDEX,TIMESTAMP FROM ROUTE_SCHEMA.PDBO_LOG "
+            + "WHERE CONNECTORID = ? AND RECORDFLAG = 'loading'";
+    private static final String DELETE_SQL = "DELETE FROM ROUTE_SCHEMA.PDBO_LOG WHERE CONNECTORID = ? AND RECORDFLAG = 'loading'";
+
+    private final String connectorId;
+    private final Driver driver;
+    private final String connectionUrl;
+    private final Properties connectionProperties;
+    private final JdbcConnectionPool connectionPool;
+    private final JdbcSplitStatsModel model;
+    private final Queue<CompletedSplit> pendingSplits = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSplitCount = new AtomicInteger();
+    private final ScheduledExecutorService executor;
+
+    public JdbcSplitStatsSnapshot(String connectorId,
+            Driver driver,
+            String connectionUrl,
+            Properties connectionProperties,
+            JdbcConnectionPool connectionPool,
+            JdbcSplitStatsModel model,
+            boolean allocator,
+            Duration interval)
+    {
+        this.connectorId = checkNotNull(connectorId, "connectorId is null");
+        this.driver = checkNotNull(driver, "driver is null");
+        this.connectionUrl = checkNotNull(connectionUrl, "connectionUrl is null");
+        this.connectionProperties = checkNotNull(connectionProperties, "connectionProperties is null");
+        this.connectionPool = checkNotNull(connectionPool, "connectionPool is null");
+        this.model = checkNotNull(model, "model is null");
+
+        executor = newSingleThreadScheduledExecutor(daemonThreadsNamed("jdbc-split-stats-" + connectorId + "-%s"));
+        long intervalMillis = checkNotNull(interval, "interval is null").toMillis();
+        executor.scheduleWithFixedDelay(allocator ? this::load : this::flush, intervalMillis, intervalMillis, MILLISECONDS);
+    }
+
+    /**
+     * Queues a completed split of a node other than the allocator to be written with the
+     * next batch. Splits are dropped when the database has been unreachable for so long
+     * that the queue is full.
+     */
+    public void add(String schemaName, String tableName, long begin, long end, long rows, int scanNodes, long timeMillis)
+    {
+        if (pendingSplitCount.incrementAndGet() > MAX_PENDING_SPLITS) {
+            pendingSplitCount.decrementAndGet();
+            return;
+        }
+        pendingSplits.add(new CompletedSplit(schemaName, tableName, begin, end, rows, scanNodes, timeMillis));
+    }
+
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    private void flush()
+    {
+        while (!pendingSplits.isEmpty()) {
+            try (Connection connection = connectionPool.getConnection(driver, connectionUrl, connectionProperties);
+                    PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                int batchSize = 0;
+                CompletedSplit split;
+                while (batchSize < BATCH_SIZE && (split = pendingSplits.poll()) != null) {
+                    pendingSplitCount.decrementAndGet();
+                    statement.setString(1, connectorId);
+                    statement.setString(2, split.schemaName);
+                    statement.setString(3, split.tableName);
+                    statement.setLong(4, split.rows);
+                    statement.setLong(5, split.begin);
+                    statement.setLong(6, split.end);
+                    statement.setInt(7, split.scanNodes);
+                    statement.setLong(8, split.timeMillis);
+                    statement.addBatch();
+                    batchSize++;
+                }
+                statement.executeBatch();
+            }
+            catch (SQLException e) {
+                log.warn("Failed to write the completed splits of %s: %s", connectorId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void load()
+    {
+        try (Connection connection = connectionPool.getConnection(driver, connectionUrl, connectionProperties)) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = connection.prepareStatement(CLAIM_SQL)) {
+                    statement.setString(1, connectorId);
+                    statement.executeUpdate();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+                    statement.setString(1, connectorId);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            model.record(resultSet.getString(1), resultSet.getString(2), resultSet.getLong(4), resultSet.getLong(5),
+                                    resultSet.getLong(3), resultSet.getLong(6));
+                        }
+                    }
+                }
+                try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+                    statement.setString(1, connectorId);
+                    statement.executeUpdate();
+                }
+                connection.commit();
+            }
+            catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        catch (SQLException e) {
+            log.warn("Failed to read the completed splits of %s: %s", connectorId, e.getMessage());
+        }
+    }
+
+    private static class CompletedSplit
+    {
+        private final String schemaName;
+        private final String tableName;
+        private final long begin;
+        private final long end;
+        private final long rows;
+        private final int scanNodes;
+        private final long timeMillis;
+
+        private CompletedSplit(String schemaName, String tableName, long begin, long end, long rows, int scanNodes, long timeMillis)
+        {
+            this.schemaName = schemaName;
+            this.tableName = tableName;
+            this.begin = begin;
+            this.end = end;
+            this.rows = rows;
+            this.scanNodes = scanNodes;
+            this.timeMillis = timeMillis;
+        }
+    }
+}
@@ -15,6 +15,9 @@ package com.facebook.presto.plugin.jdbc.subtable;
 
 import io.airlift.configuration.Config;
 import io.airlift.units.Duration;
+import io.airlift.units.MinDuration;
+
+import javax.validation.constraints.Min;
 
 import java.util.concurrent.TimeUnit;
 
@@ -26,8 +29,16 @@ public class JdbcSubTableConfig
     private String jdbcSubTableConnectionUser;
     private String jdbcSubTableConnectionPassword;
     private Duration jdbcReloadSubtableInterval = new Duration(5, TimeUnit.MINUTES);
+    private String jdbcSubTableVersionColumn;
+    private Duration jdbcSubTableFullReloadInterval = new Duration(1, TimeUnit.HOURS);
     private boolean jdbcSubTableAllocator = false;
     private boolean jdbcSubTableEnable = false;
+    private int jdbcSplitEnumerationThreads = 16;
+    private int jdbcSplitHistogramBucketsPerSplit = 1;
+    private int jdbcSplitChunksPerRange = 8;
+    private Duration jdbcSplitStatsHalfLife = new Duration(1, TimeUnit.HOURS);
+    private boolean jdbcSplitStatsSnapshotEnable;
+    private Duration jdbcSplitStatsSnapshotInterval = new Duration(1, TimeUnit.MINUTES);
 
     public String getJdbcSubTableConnectionURL()
     {
@@ -77,6 +88,35 @@ public class JdbcSubTableConfig
         return this;
     }
 
+    public String getJdbcSubTableVersionColumn()
+    {
+        return jdbcSubTableVersionColumn;
+    }
+
+    /**
+     * Column of ROUTE_SCHEMA.TABLE_ROUTE that is bumped whenever a route row changes. When set,
+     * routes are loaded per table on first access and reloads only fetch the changed tables.
+     */
+    @Config("jdbc-sub-table-version-column")
+    public JdbcSubTableConfig setJdbcSubTableVersionColumn(String jdbcSubTableVersionColumn)
+    {
+        this.jdbcSubTableVersionColumn = jdbcSubTableVersionColumn;
+        return this;
+    }
+
+    @MinDuration("1s")
+    public Duration getJdbcSubTableFullReloadInterval()
+    {
+        return jdbcSubTableFullReloadInterval;
+    }
+
+    @Config("jdbc-sub-table-full-reload-interval")
+    public JdbcSubTableConfig setJdbcSubTableFullReloadInterval(Duration jdbcSubTableFullReloadInterval)
+    {
+        this.jdbcSubTableFullReloadInterval = jdbcSubTableFullReloadInterval;
+        return this;
+    }
+
     public boolean getJdbcSubTableAllocator()
     {
         return jdbcSubTableAllocator;
@@ -100,4 +140,90 @@ public class JdbcSubTableConfig
         this.jdbcSubTableEnable = jdbcSubTableEnable;
         return this;
     }
+
+    @Min(1)
+    public int getJdbcSplitEnumerationThreads()
+    {
+        return jdbcSplitEnumerationThreads;
+    }
+
+    @Config("jdbc-split-enumeration-threads")
+    public JdbcSubTableConfig setJdbcSplitEnumerationThreads(int jdbcSplitEnumerationThreads)
+    {
+        this.jdbcSplitEnumerationThreads = jdbcSplitEnumerationThreads;
+        return this;
+    }
+
+    @Min(1)
+    public int getJdbcSplitHistogramBucketsPerSplit()
+    {
+        return jdbcSplitHistogramBucketsPerSplit;
+    }
+
+    /**
+     * Number of histogram buckets probed per split to balance the splits of tables without PDBO.
+     * The probe scans the key range, so it is off (1) by default.
+     */
+    @Config("jdbc-split-histogram-buckets-per-split")
+    public JdbcSubTableConfig setJdbcSplitHistogramBucketsPerSplit(int jdbcSplitHistogramBucketsPerSplit)
+    {
+        this.jdbcSplitHistogramBucketsPerSplit = jdbcSplitHistogramBucketsPerSplit;
+        return this;
+    }
+
+    @Min(1)
+    public int getJdbcSplitChunksPerRange()
+    {
+        return jdbcSplitChunksPerRange;
+    }
+
+    @Config("jdbc-split-chunks-per-range")
+    public JdbcSubTableConfig setJdbcSplitChunksPerRange(int jdbcSplitChunksPerRange)
+    {
+        this.jdbcSplitChunksPerRange = jdbcSplitChunksPerRange;
+        return this;
+    }
+
+    @MinDuration("1s")
+    public Duration getJdbcSplitStatsHalfLife()
+    {
+        return jdbcSplitStatsHalfLife;
+    }
+
+    @Config("jdbc-split-stats-half-life")
+    public JdbcSubTableConfig setJdbcSplitStatsHalfLife(Duration jdbcSplitStatsHalfLife)
+    {
+        this.jdbcSplitStatsHalfLife = jdbcSplitStatsHalfLife;
+        return this;
+    }
+
+    public boolean getJdbcSplitStatsSnapshotEnable()
+    {
+        return jdbcSplitStatsSnapshotEnable;
+    }
+
+    /**
+     * Whether the nodes other than the allocator ship their completed splits to the allocator
+     * through ROUTE_SCHEMA.PDBO_LOG. Off by default, as it writes to the routing database; without it
+     * the allocator model only learns from the splits that complete on the allocator itself.
+     */
+    @Config("jdbc-split-stats-snapshot-enable")
+    public JdbcSubTableConfig setJdbcSplitStatsSnapshotEnable(boolean jdbcSplitStatsSnapshotEnable)
+    {
+        this.jdbcSplitStatsSnapshotEnable = jdbcSplitStatsSnapshotEnable;
+        return this;
+    }
+
+    @MinDuration("1s")
+    public Duration getJdbcSplitStatsSnapshotInterval()
+    {
+        return jdbcSplitStatsSnapshotInterval;
+    }
+
+    @Config("jdbc-split-stats-snapshot-interval")
+    public JdbcSubTableConfig setJdbcSplitStatsSnapshotInterval(Duration jdbcSplitStatsSnapshotInterval)
+    {
+        this.jdbcSplitStatsSnapshotInterval = jdbcSplitStatsSnapshotInterval;
+        return this;
+    }
 }
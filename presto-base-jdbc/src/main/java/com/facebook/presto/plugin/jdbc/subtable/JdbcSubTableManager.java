@@ -15,31 +15,51 @@ package com.facebook.presto.plugin.jdbc.subtable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.collect.Maps.fromProperties;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import io.airlift.log.Logger;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.Driver;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.facebook.presto.plugin.jdbc.JdbcKeyRange;
 import com.facebook.presto.plugin.jdbc.JdbcPartition;
 import com.facebook.presto.plugin.jdbc.JdbcSplit;
+import com.facebook.presto.plugin.jdbc.JdbcSplitSource;
 import com.facebook.presto.plugin.jdbc.JdbcTableHandle;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
 import com.facebook.presto.plugin.jdbc.util.JdbcUtil;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.FixedSplitSource;
 import com.facebook.presto.spi.HostAddress;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Longs;
 
 public class JdbcSubTableManager
 {
     private static final Logger log = Logger.get(JdbcSubTableManager.class);
+    // the model histogram costs no query, so it can be much finer than the probed one
+    private static final int STATS_BUCKETS_PER_SPLIT = 16;
+    private static final Set<Integer> INTEGER_TYPES = ImmutableSet.of(Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT);
 
     protected final String connectorId;
     protected final String identifierQuote;
@@ -49,6 +69,15 @@ public class JdbcSubTableManager
     protected final Properties defaultConnectionProperties;
     protected final String jdbcSubTableConnectionUrl;
     protected final Properties jdbcSubTableConnectionProperties;
+    protected final JdbcConnectionPool connectionPool;
+    private final ExecutorService splitExecutor;
+    private final int histogramBucketsPerSplit;
+    // probed histograms live as long as the sub-table metadata, so a table is probed once per reload
+    private final Cache<String, double[]> histogramCache;
+    private final int chunksPerRange;
+    private final JdbcSplitStatsModel statsModel;
+    private final boolean allocator;
+    private JdbcSplitStatsSnapshot statsSnapshot;
 
     private JdbcLoadTread loadTread;
 
@@ -57,25 +86,38 @@ public class JdbcSubTableManager
             Driver driver,
             String defaultConnectionUrl,
             Properties defaultConnectionProperties,
-            JdbcSubTableConfig config)
+            JdbcSubTableConfig config,
+            JdbcConnectionPool connectionPool,
+            JdbcSplitStatsModel statsModel)
     {
         this.connectorId = checkNotNull(connectorId, "connectorId is null").toString();
         this.identifierQuote = checkNotNull(identifierQuote, "identifierQuote is null");
         this.baseDriver = checkNotNull(driver, "driver is null");
         this.defaultConnectionUrl = defaultConnectionUrl;
         this.defaultConnectionProperties = defaultConnectionProperties;
+        this.connectionPool = checkNotNull(connectionPool, "connectionPool is null");
+        this.statsModel = checkNotNull(statsModel, "statsModel is null");
 
         checkNotNull(config, "config is null");
         jdbcSubTableConnectionUrl = config.getJdbcSubTableConnectionURL();
         jdbcSubTableConnectionProperties = new Properties();
         jdbcSubTableConnectionProperties.setProperty("user", config.getJdbcSubTableConnectionUser());
         jdbcSubTableConnectionProperties.setProperty("password", config.getJdbcSubTableConnectionPassword());
+        histogramBucketsPerSplit = config.getJdbcSplitHistogramBucketsPerSplit();
+        histogramCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(config.getJdbcReloadSubtableInterval().toMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(10_000)
+                .build();
+        chunksPerRange = config.getJdbcSplitChunksPerRange();
+        splitExecutor = newFixedThreadPool(config.getJdbcSplitEnumerationThreads(), daemonThreadsNamed("jdbc-split-enumeration-" + connectorId + "-%s"));
 
         // only the allocator should start the reload thread
-        if (config.getJdbcSubTableAllocator() && config.getJdbcSubTableEnable()) {
+        allocator = config.getJdbcSubTableAllocator();
+        if (allocator && config.getJdbcSubTableEnable()) {
             try {
                 loadTread = new JdbcLoadTread(config.getJdbcSubTableConnectionURL(), jdbcSubTableConnectionProperties,
-                        connectorId, config.getJdbcReloadSubtableInterval());
+                        connectorId, config.getJdbcReloadSubtableInterval(), config.getJdbcSubTableVersionColumn(),
+                        config.getJdbcSubTableFullReloadInterval());
             }
             catch (SQLException e) {
                 log.error("Init JdbcLoadTread error", e);
@@ -91,6 +133,10 @@ public class JdbcSubTableManager
         catch (SQLException e) {
             log.error("Init MySQL Driver error", e);
         }
+        if (config.getJdbcSplitStatsSnapshotEnable() && config.getJdbcSubTableEnable() && jdbcSubTableConnectionUrl != null && mySqlDriver != null) {
+            statsSnapshot = new JdbcSplitStatsSnapshot(connectorId, mySqlDriver, jdbcSubTableConnectionUrl, jdbcSubTableConnectionProperties,
+                    connectionPool, statsModel, allocator, config.getJdbcSplitStatsSnapshotInterval());
+        }
     }
 
     /**
@@ -104,12 +150,9 @@ public class JdbcSubTableManager
         List<JdbcSplit> jdbcSplitsList = new ArrayList<JdbcSplit>();
         String schemaName = getSchemaName(jdbcTableHandle);
         String key = connectorId + JdbcUtil.SEPARATOR + schemaName + JdbcUtil.SEPARATOR + jdbcTableHandle.getTableName().toLowerCase(ENGLISH);
-        ArrayList<JdbcSubTableInfo> subTableList = loadTread.getAllSubTables().get(key);
-        log.debug("key=" + key + ",subTableList size = " + (subTableList == null ? 0 : subTableList.size()));
+        List<JdbcSubTableInfo> subTableList = new ArrayList<>(loadTread.getSubTables(schemaName, jdbcTableHandle.getTableName().toLowerCase(ENGLISH)));
+        log.debug("key=" + key + ",subTableList size = " + subTableList.size());
         if (JdbcUtil.checkListNullOrEmpty(subTableList)) {
-            if (subTableList == null) {
-                subTableList = new ArrayList<JdbcSubTableInfo>();
-            }
             JdbcSubTableInfo config = new JdbcSubTableInfo();
             config.setConnectionURL(defaultConnectionUrl);
             config.setCatalogname(jdbcTableHandle.getCatalogName());
@@ -120,15 +163,59 @@ public class JdbcSubTableManager
             subTableList.add(config);
         }
         long timeStamp = System.nanoTime();
-        if (subTableList.get(0).isPdboEnable()) {
-            jdbcSplitsList = getTableSplitsFromPdboLog(connectorId, schemaName, jdbcTableHandle.getTableName().toLowerCase(ENGLISH), jdbcPartition, timeStamp);
+        if (subTableList.size() == 1 && subTableList.get(0).getScannodenumber() <= 1) {
+            // a single split needs no query against the shard
+            constructJdbcSplits(jdbcPartition, jdbcSplitsList, new ArrayList<>(), subTableList.get(0), timeStamp);
+            return new FixedSplitSource(connectorId, jdbcSplitsList);
         }
-        if (JdbcUtil.checkListNullOrEmpty(jdbcSplitsList)) {
-            for (JdbcSubTableInfo config : subTableList) {
-                constructJdbcSplits(jdbcPartition, jdbcSplitsList, config, timeStamp);
-            }
+        return enumerateSplits(jdbcPartition, subTableList, timeStamp);
+    }
+
+    /**
+     * @return the sub-tables of the base table, or an empty list if the routing metadata has none
+     */
+    public List<JdbcSubTableInfo> getSubTables(String schemaName, String tableName)
+    {
+        if (loadTread == null) {
+            return ImmutableList.of();
+        }
+        return loadTread.getSubTables(schemaName.toLowerCase(ENGLISH), tableName.toLowerCase(ENGLISH));
+    }
+
+    /**
+     * Probes the shards in parallel on the split executor, the splits of each shard
+     * are handed to the engine as soon as the shard has been probed.
+     */
+    private ConnectorSplitSource enumerateSplits(JdbcPartition jdbcPartition, List<JdbcSubTableInfo> subTableList, long timeStamp)
+    {
+        JdbcSplitSource splitSource = new JdbcSplitSource(connectorId);
+        AtomicInteger remainingShards = new AtomicInteger(subTableList.size());
+        for (JdbcSubTableInfo config : subTableList) {
+            splitSource.addProducerFuture(splitExecutor.submit(() -> {
+                try {
+                    List<JdbcSplit> splits = new ArrayList<>();
+                    List<JdbcKeyRange> ranges = new ArrayList<>();
+                    constructJdbcSplits(jdbcPartition, splits, ranges, config, timeStamp);
+                    splitSource.addToQueue(splits);
+                    splitSource.addRanges(ranges);
+                    if (remainingShards.decrementAndGet() == 0) {
+                        splitSource.finished();
+                    }
+                }
+                catch (Throwable e) {
+                    splitSource.fail(e);
+                }
+            }));
+        }
+        return splitSource;
+    }
+
+    public void shutdown()
+    {
+        splitExecutor.shutdownNow();
+        if (statsSnapshot != null) {
+            statsSnapshot.shutdown();
         }
-        return new FixedSplitSource(connectorId, jdbcSplitsList);
     }
 
     private String getSchemaName(JdbcTableHandle jdbcTableHandle)
@@ -144,7 +231,7 @@ public class JdbcSubTableManager
     }
 
     private void constructJdbcSplits(JdbcPartition jdbcPartition,
-            List<JdbcSplit> splits, JdbcSubTableInfo config, long timeStamp)
+            List<JdbcSplit> splits, List<JdbcKeyRange> ranges, JdbcSubTableInfo config, long timeStamp)
     {
         List<HostAddress> addresses = getSplitHost(config.getHost());
         Properties connectionProperties = resetConnectionProperties(config.getUsername(), config.getPassword());
@@ -155,79 +242,207 @@ public class JdbcSubTableManager
                     addresses, new String[]{"", "", ""}, connectionProperties, timeStamp, scanNodes, false);
         }
         else {
-            splitTable(jdbcPartition, splits, config, addresses,
+            splitTable(jdbcPartition, splits, ranges, config, addresses,
                     connectionProperties, scanNodes, timeStamp);
         }
     }
 
     /**
-     * Splitting table by field or limit
+     * Splitting table by key ranges, or by limit if the table has no key. The key ranges are
+     * cut into smaller splits while the query runs, unless jdbc-split-chunks-per-range is 1.
      */
     private void splitTable(JdbcPartition jdbcPartition,
-            List<JdbcSplit> splits, JdbcSubTableInfo config,
+            List<JdbcSplit> splits, List<JdbcKeyRange> ranges, JdbcSubTableInfo config,
             List<HostAddress> addresses, Properties connectionProperties,
             int scanNodes, long timeStamp)
     {
-        long tableTotalRecords = 0L;
-        Long[] autoIncrementFieldMinAndMaxValue = new Long[2];
-        boolean isSplitByField = isNullOrEmpty(config.getAutoincrementfield());
-        if (!isSplitByField) {
-            autoIncrementFieldMinAndMaxValue = getSplitFieldMinAndMaxValue(config, connectionProperties);
-            tableTotalRecords = autoIncrementFieldMinAndMaxValue[0] - autoIncrementFieldMinAndMaxValue[1];
-        }
-        else {
-            tableTotalRecords = getTableTotalRecords(config, connectionProperties);
+        String splitField = isNullOrEmpty(config.getAutoincrementfield())
+                ? getIntegerPrimaryKey(config, connectionProperties)
+                : config.getAutoincrementfield();
+        if (isNullOrEmpty(splitField)) {
+            splitTableByLimit(jdbcPartition, splits, config, addresses, connectionProperties, scanNodes, timeStamp);
+            return;
         }
-        long targetChunkSize = (long) Math.ceil(tableTotalRecords * 1.0 / scanNodes);
-        long chunkOffset = 0L;
-        long autoIncrementOffset = 0L;
-        while (chunkOffset < tableTotalRecords) {
-            long chunkLength = Math.min(targetChunkSize, tableTotalRecords - chunkOffset);
-            if (!isSplitByField && chunkOffset == 0) {
-                    autoIncrementOffset = autoIncrementFieldMinAndMaxValue[1] - 1;
-            }
-            String[] splitInfo = getSplitInfo(isSplitByField, chunkOffset, autoIncrementOffset,
-                    autoIncrementFieldMinAndMaxValue, chunkLength, tableTotalRecords, config.getAutoincrementfield());
+
+        Long[] minAndMaxValue = getSplitFieldMinAndMaxValue(config, splitField, connectionProperties);
+        if (minAndMaxValue == null) {
+            // the range of the key is unknown, read the table with a single split
             addJdbcSplit(jdbcPartition, splits, config.getCatalogname(), config.getSchemaname(), config.getTablename(),
-                    config.getConnectionURL(), config.getBasetable(), config.getRemotelyaccessible(), config.getAutoincrementfield(),
-                    addresses, splitInfo, connectionProperties, timeStamp, scanNodes, config.isPdboEnable());
-            chunkOffset += chunkLength;
-            autoIncrementOffset += chunkLength;
+                    config.getConnectionURL(), config.getBasetable(), config.getRemotelyaccessible(), splitField,
+                    addresses, new String[]{"", "", ""}, connectionProperties, timeStamp, 1, false);
+            return;
+        }
+        long max = minAndMaxValue[0];
+        long low = Math.min(minAndMaxValue[1], max) - 1;
+        long[] boundaries = getSplitBoundaries(config, splitField, connectionProperties, low, max, scanNodes);
+        int splitCount = boundaries.length - 1;
+        JdbcKeyRange.SplitFactory splitFactory = (begin, end) -> createJdbcSplit(jdbcPartition, config.getCatalogname(), config.getSchemaname(),
+                config.getTablename(), config.getConnectionURL(), config.getBasetable(), config.getRemotelyaccessible(), splitField, addresses,
+                new String[]{splitField + " > " + begin + " and " + splitField + " <= " + end, String.valueOf(begin), String.valueOf(end)},
+                connectionProperties, timeStamp, splitCount, config.isPdboEnable());
+        for (int i = 0; i < splitCount; i++) {
+            if (chunksPerRange > 1) {
+                ranges.add(new JdbcKeyRange(boundaries[i], boundaries[i + 1], chunksPerRange, scanNodes, splitFactory));
+            }
+            else {
+                splits.add(splitFactory.createSplit(boundaries[i], boundaries[i + 1]));
+            }
         }
-        fillLastRecord(jdbcPartition, config.getSchemaname(), config.getTablename(), splits, scanNodes,
+        // rows inserted after the range was read
+        fillLastRecord(jdbcPartition, config.getSchemaname(), config.getTablename(), splits, splitCount,
                 timeStamp, connectionProperties, config.getConnectionURL(), config.getHost(),
-                config.getRemotelyaccessible(), config.getAutoincrementfield(),
-                isSplitByField ? tableTotalRecords : config.getFieldMaxValue(), isSplitByField, false);
+                config.getRemotelyaccessible(), splitField, max, false);
     }
 
     /**
-     * If the table split by field,the filter conditions will follow like this :
-     *      field > offset and field <= offset + chunkLength.
-     * The limit condition only support MySQL connector
-     * @return splitInfo[0] : splitPart; splitInfo[1] : beginIndex; splitInfo[2] : endIndex;
+     * Returns split boundaries holding about the same number of rows, estimated from a histogram
+     * of the key. Tables with PDBO enabled take the histogram from the row counts of their earlier
+     * splits, the others and those without completed splits probe the database. Without a
+     * histogram the key range is cut into ranges of equal width.
      */
-    private String[] getSplitInfo(boolean isSplitByField, long chunkOffset, long autoIncrementOffset,
-            Long[] autoIncrementFieldMinAndMaxValue, long chunkLength, long tableTotalRecords, String splitField)
+    private long[] getSplitBoundaries(JdbcSubTableInfo config, String splitField, Properties connectionProperties,
+            long low, long high, int scanNodes)
     {
-        String[] splitInfo = new String[3];
-        String splitPart = "";
-        if (!isSplitByField) {
-            splitInfo[1] = String.valueOf(autoIncrementOffset);
-            splitPart = splitField + " > " + autoIncrementOffset + " and " + splitField + " <= ";
-            if ((chunkOffset + chunkLength) == tableTotalRecords) {
-                splitPart += autoIncrementFieldMinAndMaxValue[0];
-                splitInfo[2] = String.valueOf(autoIncrementFieldMinAndMaxValue[0]);
+        if (config.isPdboEnable()) {
+            int bucketCount = (int) Math.min((long) scanNodes * STATS_BUCKETS_PER_SPLIT, high - low);
+            double[] histogram = statsModel.getHistogram(config.getSchemaname(), config.getTablename(), low, high, Math.max(bucketCount, 1));
+            if (histogram != null) {
+                return JdbcSplitBoundaries.equiDepth(low, high, histogram, scanNodes);
+            }
+        }
+        long bucketCount = Math.min((long) scanNodes * histogramBucketsPerSplit, high - low);
+        if (histogramBucketsPerSplit <= 1 || bucketCount <= scanNodes) {
+            return JdbcSplitBoundaries.equalWidth(low, high, scanNodes);
+        }
+        double[] histogram = getCachedKeyHistogram(config, splitField, connectionProperties, low, high, (int) bucketCount);
+        if (histogram == null) {
+            return JdbcSplitBoundaries.equalWidth(low, high, scanNodes);
+        }
+        return JdbcSplitBoundaries.equiDepth(low, high, histogram, scanNodes);
+    }
+
+    /**
+     * Returns the histogram probed for the same table and key range during the last
+     * jdbc-reload-subtable-interval, or probes the database once for all concurrent plans.
+     */
+    private double[] getCachedKeyHistogram(JdbcSubTableInfo config, String splitField, Properties connectionProperties,
+            long low, long high, int bucketCount)
+    {
+        String key = config.getConnectionURL() + "|" + config.getSchemaname() + "." + config.getTablename() + "." + splitField
+                + "|" + low + "|" + high + "|" + bucketCount;
+        try {
+            double[] histogram = histogramCache.get(key, () -> {
+                double[] probed = getKeyHistogram(config, splitField, connectionProperties, low, high, bucketCount);
+                // failures are cached as well, so that a broken table is not probed by every plan
+                return probed == null ? new double[0] : probed;
+            });
+            return histogram.length == 0 ? null : histogram;
+        }
+        catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Estimates the number of rows in each of the equal width buckets over (low, high].
+     * MySQL estimates each bucket from the index statistics with an EXPLAIN of the range
+     * query, the other databases count the rows of all buckets with a single query.
+     *
+     * @return the histogram, or null if it could not be computed
+     */
+    private double[] getKeyHistogram(JdbcSubTableInfo config, String splitField, Properties connectionProperties,
+            long low, long high, int bucketCount)
+    {
+        String tableName = JdbcUtil.getTableName(identifierQuote, config.getCatalogname(), config.getSchemaname(), config.getTablename());
+        double[] histogram = new double[bucketCount];
+        try (Connection connection = connectionPool.getConnection(baseDriver, config.getConnectionURL(), connectionProperties);
+                Statement statement = connection.createStatement()) {
+            if (config.getConnectionURL().indexOf("mysql") != -1) {
+                for (int i = 0; i < bucketCount; i++) {
+                    String sql = "EXPLAIN SELECT 1 FROM " + tableName + " WHERE " + splitField + " > " + JdbcSplitBoundaries.edge(low, high, i, bucketCount)
+                            + " AND " + splitField + " <= " + JdbcSplitBoundaries.edge(low, high, i + 1, bucketCount);
+                    try (ResultSet resultSet = statement.executeQuery(sql)) {
+                        while (resultSet.next()) {
+                            histogram[i] += resultSet.getLong("rows");
+                        }
+                    }
+                }
             }
             else {
-                splitPart += (autoIncrementOffset + chunkLength);
-                splitInfo[2] = String.valueOf(autoIncrementOffset + chunkLength);
+                String sql = "SELECT FLOOR((" + splitField + " - " + low + " - 1) * " + bucketCount + " / " + (high - low) + "), COUNT(*) FROM " + tableName
+                        + " WHERE " + splitField + " > " + low + " AND " + splitField + " <= " + high
+                        + " GROUP BY FLOOR((" + splitField + " - " + low + " - 1) * " + bucketCount + " / " + (high - low) + ")";
+                try (ResultSet resultSet = statement.executeQuery(sql)) {
+                    while (resultSet.next()) {
+                        int bucket = (int) Math.max(0, Math.min(bucketCount - 1, resultSet.getLong(1)));
+                        histogram[bucket] += resultSet.getLong(2);
+                    }
+                }
             }
         }
-        else {
-            splitPart = " LIMIT " + chunkOffset + "," + chunkLength;
+        catch (SQLException e) {
+            log.warn("Failed to build the histogram of %s.%s: %s", config.getTablename(), splitField, e.getMessage());
+            return null;
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the name of the primary key of the table if it is a single integer column, or null
+     */
+    private String getIntegerPrimaryKey(JdbcSubTableInfo config, Properties connectionProperties)
+    {
+        try (Connection connection = connectionPool.getConnection(baseDriver, config.getConnectionURL(), connectionProperties)) {
+            DatabaseMetaData metadata = connection.getMetaData();
+            String primaryKey = null;
+            try (ResultSet resultSet = metadata.getPrimaryKeys(config.getCatalogname(), config.getSchemaname(), config.getTablename())) {
+                while (resultSet.next()) {
+                    if (primaryKey != null) {
+                        return null;
+                    }
+                    primaryKey = resultSet.getString("COLUMN_NAME");
+                }
+            }
+            if (primaryKey == null) {
+                return null;
+            }
+            try (ResultSet resultSet = metadata.getColumns(config.getCatalogname(), config.getSchemaname(), config.getTablename(), primaryKey)) {
+                while (resultSet.next()) {
+                    if (INTEGER_TYPES.contains(resultSet.getInt("DATA_TYPE"))) {
+                        return primaryKey;
+                    }
+                }
+            }
+        }
+        catch (SQLException e) {
+            log.warn("Failed to read the primary key of %s: %s", config.getTablename(), e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Splitting a table without a key by limit, only supported by MySQL
+     */
+    private void splitTableByLimit(JdbcPartition jdbcPartition,
+            List<JdbcSplit> splits, JdbcSubTableInfo config,
+            List<HostAddress> addresses, Properties connectionProperties,
+            int scanNodes, long timeStamp)
+    {
+        long tableTotalRecords = getTableTotalRecords(config, connectionProperties);
+        long targetChunkSize = (long) Math.ceil(tableTotalRecords * 1.0 / scanNodes);
+        long chunkOffset = 0L;
+        while (chunkOffset < tableTotalRecords) {
+            long chunkLength = Math.min(targetChunkSize, tableTotalRecords - chunkOffset);
+            String splitPart = " LIMIT " + chunkOffset + "," + chunkLength;
+            addJdbcSplit(jdbcPartition, splits, config.getCatalogname(), config.getSchemaname(), config.getTablename(),
+                    config.getConnectionURL(), config.getBasetable(), config.getRemotelyaccessible(), config.getAutoincrementfield(),
+                    addresses, new String[]{splitPart, null, null}, connectionProperties, timeStamp, scanNodes, config.isPdboEnable());
+            chunkOffset += chunkLength;
         }
-        splitInfo[0] = splitPart;
-        return splitInfo;
+        fillLastRecord(jdbcPartition, config.getSchemaname(), config.getTablename(), splits, scanNodes,
+                timeStamp, connectionProperties, config.getConnectionURL(), config.getHost(),
+                config.getRemotelyaccessible(), config.getAutoincrementfield(),
+                tableTotalRecords, true);
     }
 
     private void addJdbcSplit(JdbcPartition jdbcPartition,
@@ -237,10 +452,21 @@ public class JdbcSubTableManager
             List<HostAddress> addresses, String[] splitInfo,
             Properties connectionProperties, long timeStamp, int scanNodes, boolean pdboEnable)
     {
-        builder.add(new JdbcSplit(connectorId, catalogName, schemaName, tableName,
+        builder.add(createJdbcSplit(jdbcPartition, catalogName, schemaName, tableName, connectionUrl, baseTable,
+                remotelyAccessible, splitField, addresses, splitInfo, connectionProperties, timeStamp, scanNodes, pdboEnable));
+    }
+
+    private JdbcSplit createJdbcSplit(JdbcPartition jdbcPartition,
+            String catalogName, String schemaName,
+            String tableName, String connectionUrl, String baseTable,
+            boolean remotelyAccessible, String splitField,
+            List<HostAddress> addresses, String[] splitInfo,
+            Properties connectionProperties, long timeStamp, int scanNodes, boolean pdboEnable)
+    {
+        return new JdbcSplit(connectorId, catalogName, schemaName, tableName,
                 connectionUrl, fromProperties(connectionProperties), jdbcPartition.getTupleDomain(),
                 splitInfo[0], addresses, remotelyAccessible, baseTable,
-                splitField, splitInfo[1], splitInfo[2], timeStamp, scanNodes, pdboEnable));
+                splitField, splitInfo[1], splitInfo[2], timeStamp, scanNodes, pdboEnable, jdbcPartition.getJdbcTableHandle().getPushDown());
     }
 
     protected long getTableTotalRecords(JdbcSubTableInfo config, Properties connectionProperties)
@@ -268,7 +494,7 @@ public class JdbcSubTableManager
         ResultSet rs = null;
         long recordNum = 0L;
         try {
-            connection = baseDriver.connect(connectionUrl, connectionProperties);
+            connection = connectionPool.getConnection(baseDriver, connectionUrl, connectionProperties);
             stat = connection.createStatement();
             rs = stat.executeQuery(sql);
             while (rs.next()) {
@@ -284,21 +510,21 @@ public class JdbcSubTableManager
         return recordNum;
     }
 
-    protected Long[] getSplitFieldMinAndMaxValue(JdbcSubTableInfo conf, Properties connectionProperties)
+    protected Long[] getSplitFieldMinAndMaxValue(JdbcSubTableInfo conf, String splitField, Properties connectionProperties)
     {
         Long[] value = new Long[2];
-        if (conf.getFieldMaxValue() > 0) {
+        if (conf.getFieldMaxValue() > 0 && splitField.equals(conf.getAutoincrementfield())) {
             value[0] = conf.getFieldMaxValue();
             value[1] = conf.getFieldMinValue();
             return value;
         }
-        String sql = "SELECT MAX(" + conf.getAutoincrementfield() + "),MIN(" + conf.getAutoincrementfield() + ") FROM "
+        String sql = "SELECT MAX(" + splitField + "),MIN(" + splitField + ") FROM "
                     + JdbcUtil.getTableName(identifierQuote, conf.getCatalogname(), conf.getSchemaname(), conf.getTablename());
         Connection connection = null;
         Statement stat = null;
         ResultSet rs = null;
         try {
-            connection = baseDriver.connect(conf.getConnectionURL(), connectionProperties);
+            connection = connectionPool.getConnection(baseDriver, conf.getConnectionURL(), connectionProperties);
             stat = connection.createStatement();
             rs = stat.executeQuery(sql.toString());
             while (rs.next()) {
@@ -316,37 +542,10 @@ public class JdbcSubTableManager
         return value;
     }
 
-    public List<JdbcSplit> getTableSplitsFromPdboLog(String catalogName, String schemaName, String tableName,
-            JdbcPartition jdbcPartition, long timeStamp)
-    {
-        List<JdbcSplit> splits = new ArrayList<>();
-        List<PdboTable> pdboLogs = loadTread.getPDBOLogs(catalogName, schemaName, tableName);
-        if (JdbcUtil.checkListNullOrEmpty(pdboLogs)) {
-            return splits;
-        }
-        int scanNodes = pdboLogs.size();
-        for (PdboTable table : pdboLogs) {
-            List<HostAddress> addresses = getSplitHost(table.getHost());
-            Properties connectionProperties = resetConnectionProperties(table.getUsername(), table.getPassword());
-            String splitPart = table.getAutoIncrementField() + " > " + table.getBeginIndex() + " and "
-                    + table.getAutoIncrementField() + " <= " + table.getEndIndex();
-            addJdbcSplit(jdbcPartition, splits, null, schemaName, tableName, table.getConnectionUrl(),
-                    tableName, table.getRemotelyAccessible(), table.getAutoIncrementField(), addresses,
-                    new String[]{splitPart, String.valueOf(table.getBeginIndex()), String.valueOf(table.getEndIndex())},
-                    connectionProperties, timeStamp, scanNodes, true);
-        }
-        PdboTable lastRecord = pdboLogs.get(scanNodes - 1);
-        fillLastRecord(jdbcPartition, schemaName, tableName, splits, scanNodes,
-                timeStamp, resetConnectionProperties(lastRecord.getUsername(), lastRecord.getPassword()),
-                lastRecord.getConnectionUrl(), lastRecord.getHost(), lastRecord.getRemotelyAccessible(),
-                lastRecord.getAutoIncrementField(), lastRecord.getEndIndex(), false, true);
-        return splits;
-    }
-
     private void fillLastRecord(JdbcPartition jdbcPartition, String schemaName, String tableName,
             List<JdbcSplit> splits, int scanNodes, long timeStamp, Properties connectionProperties,
             String connectionURL, String host, boolean remotelyAccessible, String splitField,
-            long endIndex, boolean limitFlag, boolean pdboEnable)
+            long endIndex, boolean limitFlag)
     {
         String splitPart = "";
         if (limitFlag) {
@@ -357,7 +556,7 @@ public class JdbcSubTableManager
         }
         addJdbcSplit(jdbcPartition, splits, null, schemaName, tableName, connectionURL,
                 tableName, remotelyAccessible, null, getSplitHost(host),
-                new String[]{splitPart, "", ""}, connectionProperties, timeStamp, scanNodes, pdboEnable);
+                new String[]{splitPart, "", ""}, connectionProperties, timeStamp, scanNodes, false);
     }
 
     private Properties resetConnectionProperties(String username, String password)
@@ -375,37 +574,23 @@ public class JdbcSubTableManager
         return isNullOrEmpty(host) ? ImmutableList.of() : ImmutableList.of(HostAddress.fromString(host));
     }
 
-    public void commitPdboLogs(JdbcSplit split, long rowCount)
+    /**
+     * Records a completed key range split. The allocator plans the splits and adds it to its model
+     * right away, the other nodes ship it to the allocator with the next snapshot.
+     */
+    public void recordSplitCompletion(JdbcSplit split, long rowCount, long scanNanos)
     {
-        Connection connection = null;
-        Statement stat = null;
-        ResultSet rs = null;
-        StringBuilder insertSql = new StringBuilder().append("INSERT INTO ROUTE_SCHEMA.PDBO_LOG "
-                + " (CONNECTORID,SCHEMANAME,TABLENAME,ROWS,BEGININDEX,ENDINDEX,RECORDFLAG,SCANNODES,TIMESTAMP) VALUES ")
-            .append("('" + connectorId + "',")
-            .append("'" + split.getSchemaName() + "',")
-            .append("'" + split.getTableName() + "',")
-            .append(rowCount + ",")
-            .append(split.getBeginIndex() + ",")
-            .append(split.getEndIndex() + ",")
-            .append("'new',")
-            .append(split.getScanNodes() + ",")
-            .append(split.getTimeStamp() + ")");
-        String updateSql = "UPDATE ROUTE_SCHEMA.PDBO_LOG SET RECORDFLAG='runhistory' "
-                + "WHERE RECORDFLAG='new' AND CONNECTORID='" + connectorId
-                + "' AND SCHEMANAME='" + split.getSchemaName() + "' AND TABLENAME='"
-                + split.getTableName() + "'" + " AND timestamp < " + split.getTimeStamp();
-        try {
-            connection = mySqlDriver.connect(jdbcSubTableConnectionUrl, jdbcSubTableConnectionProperties);
-            stat = connection.createStatement();
-            stat.execute(updateSql);
-            stat.execute(insertSql.toString());
+        statsModel.recordScan(rowCount, scanNanos);
+        Long begin = Longs.tryParse(nullToEmpty(split.getBeginIndex()));
+        Long end = Longs.tryParse(nullToEmpty(split.getEndIndex()));
+        if (begin == null || end == null) {
+            return;
         }
-        catch (SQLException e) {
-            log.error("insert sql : " + insertSql + ",update sql : " + updateSql + "commitPdboLogs error : " + e.getMessage());
+        if (allocator) {
+            statsModel.record(split.getSchemaName(), split.getTableName(), begin, end, rowCount, System.currentTimeMillis());
         }
-        finally {
-            JdbcUtil.closeJdbcConnection(connection, stat, rs);
+        else if (statsSnapshot != null) {
+            statsSnapshot.add(split.getSchemaName(), split.getTableName(), begin, end, rowCount, split.getScanNodes(), System.currentTimeMillis());
         }
     }
 }
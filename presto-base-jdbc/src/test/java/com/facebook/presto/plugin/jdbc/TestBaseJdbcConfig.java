@@ -15,10 +15,14 @@ package com.facebook.presto.plugin.jdbc;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
 import java.util.Map;
 
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
 public class TestBaseJdbcConfig
 {
     @Test
@@ -27,7 +31,13 @@ public class TestBaseJdbcConfig
         ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(BaseJdbcConfig.class)
                 .setConnectionUrl(null)
                 .setConnectionUser(null)
-                .setConnectionPassword(null));
+                .setConnectionPassword(null)
+                .setWriteConnections(4)
+                .setWriteBatchSize(new DataSize(1, MEGABYTE))
+                .setWriteBulkLoadEnable(false)
+                .setSplitLocalityEnable(false)
+                .setMaxSplitsPerDatabase(0)
+                .setFetchBufferSize(new DataSize(4, MEGABYTE)));
     }
 
     @Test
@@ -37,12 +47,24 @@ public class TestBaseJdbcConfig
                 .put("connection-url", "jdbc:h2:mem:config")
                 .put("connection-user", "user")
                 .put("connection-password", "password")
+                .put("write-connections", "8")
+                .put("write-batch-size", "256kB")
+                .put("write-bulk-load-enable", "true")
+                .put("split-locality-enable", "true")
+                .put("max-splits-per-database", "16")
+                .put("fetch-buffer-size", "16MB")
                 .build();
 
         BaseJdbcConfig expected = new BaseJdbcConfig()
                 .setConnectionUrl("jdbc:h2:mem:config")
                 .setConnectionUser("user")
-                .setConnectionPassword("password");
+                .setConnectionPassword("password")
+                .setWriteConnections(8)
+                .setWriteBatchSize(new DataSize(256, KILOBYTE))
+                .setWriteBulkLoadEnable(true)
+                .setSplitLocalityEnable(true)
+                .setMaxSplitsPerDatabase(16)
+                .setFetchBufferSize(new DataSize(16, MEGABYTE));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -16,13 +16,18 @@ package com.facebook.presto.plugin.jdbc;
 import com.facebook.presto.spi.SchemaTableName;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.sql.Statement;
+import java.util.List;
+
 import static com.facebook.presto.plugin.jdbc.TestingDatabase.CONNECTOR_ID;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Locale.ENGLISH;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
@@ -72,4 +77,20 @@ public class TestJdbcClient
                 new JdbcColumnHandle(CONNECTOR_ID, "TEXT", VARCHAR, 0),
                 new JdbcColumnHandle(CONNECTOR_ID, "VALUE", BIGINT, 1)));
     }
+
+    @Test
+    public void testScanFetchSize()
+            throws Exception
+    {
+        List<JdbcColumnHandle> columns = ImmutableList.of(
+                new JdbcColumnHandle(CONNECTOR_ID, "TEXT", VARCHAR, 0),
+                new JdbcColumnHandle(CONNECTOR_ID, "VALUE", BIGINT, 1));
+        long rowSize = BaseJdbcClient.estimateRowSize(columns);
+        assertTrue(rowSize > BaseJdbcClient.estimateRowSize(columns.subList(1, 2)));
+
+        // the default fetch buffer is 4MB
+        try (Statement statement = jdbcClient.createScanStatement(null, database.getConnection(), columns)) {
+            assertEquals(statement.getFetchSize(), (int) (new DataSize(4, MEGABYTE).toBytes() / rowSize));
+        }
+    }
 }
@@ -56,6 +56,6 @@ public class TestJdbcHandleResolver
     {
         List<HostAddress> addresss = ImmutableList.of();
         return new JdbcSplit(connectorId, "catalog", "schema", "table", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all(), "", addresss, true,
-                "", "", "", "", System.nanoTime(), 1, false);
+                "", "", "", "", System.nanoTime(), 1, false, null);
     }
 }
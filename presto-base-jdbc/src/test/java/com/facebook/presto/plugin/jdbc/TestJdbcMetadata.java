@@ -14,11 +14,14 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregationPushDown;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TableNotFoundException;
+import com.facebook.presto.spi.block.SortOrder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -28,10 +31,12 @@ import org.testng.annotations.Test;
 
 import static com.facebook.presto.plugin.jdbc.TestingDatabase.CONNECTOR_ID;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static java.util.Locale.ENGLISH;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -167,4 +172,41 @@ public class TestJdbcMetadata
     {
         metadata.dropTable(tableHandle);
     }
+
+    @Test
+    public void testPushDownAggregation()
+    {
+        JdbcColumnHandle text = new JdbcColumnHandle(CONNECTOR_ID, "text", VARCHAR, 0);
+        JdbcColumnHandle value = new JdbcColumnHandle(CONNECTOR_ID, "value", BIGINT, 1);
+
+        ConnectorAggregationPushDown pushDown = metadata.pushDownAggregation(
+                tableHandle,
+                ImmutableList.of(value),
+                ImmutableList.of(new ConnectorAggregate("count", null, BIGINT), new ConnectorAggregate("sum", value, BIGINT)));
+        assertNotNull(pushDown);
+        assertEquals(pushDown.getAggregateColumns().size(), 2);
+        JdbcPushDown jdbcPushDown = ((JdbcTableHandle) pushDown.getTableHandle()).getPushDown();
+        assertEquals(jdbcPushDown.getGroupBy(), ImmutableList.of(value));
+        assertEquals(jdbcPushDown.getAggregate((JdbcColumnHandle) pushDown.getAggregateColumns().get(1)).getArgument(), value);
+
+        // text is compared with the collation of the database
+        assertNull(metadata.pushDownAggregation(tableHandle, ImmutableList.of(text), ImmutableList.of(new ConnectorAggregate("count", null, BIGINT))));
+        assertNull(metadata.pushDownAggregation(tableHandle, ImmutableList.of(), ImmutableList.of(new ConnectorAggregate("max", text, VARCHAR))));
+        assertNull(metadata.pushDownAggregation(tableHandle, ImmutableList.of(), ImmutableList.of(new ConnectorAggregate("avg", value, DOUBLE))));
+    }
+
+    @Test
+    public void testPushDownLimit()
+    {
+        JdbcTableHandle limited = (JdbcTableHandle) metadata.pushDownLimit(tableHandle, 10);
+        assertEquals(limited.getPushDown().getLimit(), Long.valueOf(10));
+        assertEquals(((JdbcTableHandle) metadata.pushDownLimit(limited, 20)).getPushDown().getLimit(), Long.valueOf(10));
+        assertEquals(((JdbcTableHandle) metadata.pushDownLimit(limited, 5)).getPushDown().getLimit(), Long.valueOf(5));
+
+        JdbcColumnHandle text = new JdbcColumnHandle(CONNECTOR_ID, "text", VARCHAR, 0);
+        JdbcColumnHandle value = new JdbcColumnHandle(CONNECTOR_ID, "value", BIGINT, 1);
+        assertNotNull(metadata.pushDownTopN(tableHandle, ImmutableList.of(value), ImmutableList.of(SortOrder.DESC_NULLS_LAST), 3));
+        assertNull(metadata.pushDownTopN(tableHandle, ImmutableList.of(text), ImmutableList.of(SortOrder.ASC_NULLS_LAST), 3));
+        assertNull(metadata.pushDownTopN(limited, ImmutableList.of(value), ImmutableList.of(SortOrder.ASC_NULLS_LAST), 3));
+    }
 }
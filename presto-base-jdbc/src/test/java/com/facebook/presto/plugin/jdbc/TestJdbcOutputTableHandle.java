@@ -20,6 +20,7 @@ import org.testng.annotations.Test;
 
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.OUTPUT_TABLE_CODEC;
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.assertJsonRoundTrip;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 
 public class TestJdbcOutputTableHandle
@@ -41,4 +42,26 @@ public class TestJdbcOutputTableHandle
 
         assertJsonRoundTrip(OUTPUT_TABLE_CODEC, handle);
     }
+
+    @Test
+    public void testShardedJsonRoundTrip()
+    {
+        JdbcOutputTableHandle handle = new JdbcOutputTableHandle(
+                "connectorId",
+                "catalog",
+                "schema",
+                "table",
+                ImmutableList.of("abc", "xyz"),
+                ImmutableList.<Type>of(VARCHAR, BIGINT),
+                "test",
+                "tmp_table",
+                "jdbc:junk",
+                ImmutableMap.of("user", "test"),
+                "xyz",
+                ImmutableList.of(
+                        new JdbcWriteShard("jdbc:shard0", ImmutableMap.of("user", "test"), null, "db0", "table_0", "tmp_table_0", 0L, 99L),
+                        new JdbcWriteShard("jdbc:shard1", ImmutableMap.of(), null, "db1", "table_1", "tmp_table_1", null, null)));
+
+        assertJsonRoundTrip(OUTPUT_TABLE_CODEC, handle);
+    }
 }
@@ -0,0 +1,351 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimeType.TIME;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test
+public class TestJdbcPageSink
+{
+    private static final List<Type> TYPES = ImmutableList.of(VARCHAR, BIGINT);
+
+    private TestingDatabase database;
+    private JdbcClient jdbcClient;
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        database = new TestingDatabase();
+        jdbcClient = database.getJdbcClient();
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass
+    public void tearDown()
+            throws Exception
+    {
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    public void testWrite()
+            throws Exception
+    {
+        JdbcOutputTableHandle handle = beginCreateTable("written");
+        JdbcWriteStats stats = new JdbcWriteStats();
+        // a tiny batch size flushes every page, so both writers are used
+        JdbcPageSink sink = createPageSink(handle, stats, 2, 1);
+        long expectedSum = 0;
+        for (int i = 0; i < 10; i++) {
+            // more rows than fit in one multi row insert
+            sink.appendPage(createPage(i * 1500, 1500), null);
+            for (int value = i * 1500; value < (i + 1) * 1500; value++) {
+                expectedSum += value;
+            }
+        }
+        sink.commit();
+        jdbcClient.commitCreateTable(handle, ImmutableList.of());
+
+        try (Statement statement = database.getConnection().createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT count(*), sum(value), count(DISTINCT text) FROM example.written")) {
+            assertTrue(resultSet.next());
+            assertEquals(resultSet.getLong(1), 15000);
+            assertEquals(resultSet.getLong(2), expectedSum);
+            assertEquals(resultSet.getLong(3), 15000);
+        }
+        assertEquals(stats.getWrittenRows().getTotalCount(), 15000);
+        assertEquals(stats.getBatchFailures().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testNullsAndRemainder()
+            throws Exception
+    {
+        JdbcOutputTableHandle handle = beginCreateTable("nulls");
+        JdbcPageSink sink = createPageSink(handle, new JdbcWriteStats(), 4, Long.MAX_VALUE);
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        for (int i = 0; i < 3; i++) {
+            pageBuilder.declarePosition();
+            pageBuilder.getBlockBuilder(0).appendNull();
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(1), i);
+        }
+        sink.appendPage(pageBuilder.build(), null);
+        sink.commit();
+        jdbcClient.commitCreateTable(handle, ImmutableList.of());
+
+        try (Statement statement = database.getConnection().createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT count(*), count(text) FROM example.nulls")) {
+            assertTrue(resultSet.next());
+            assertEquals(resultSet.getLong(1), 3);
+            assertEquals(resultSet.getLong(2), 0);
+        }
+    }
+
+    @Test
+    public void testShardedWrite()
+            throws Exception
+    {
+        database.getConnection().createStatement().execute("CREATE TABLE example.shard_low(text varchar, value bigint)");
+        database.getConnection().createStatement().execute("CREATE TABLE example.shard_high(text varchar, value bigint)");
+        database.getConnection().commit();
+
+        String connectionUrl = database.getConnection().getMetaData().getURL();
+        List<JdbcWriteShard> shards = ImmutableList.of(
+                new JdbcWriteShard(connectionUrl, ImmutableMap.of(), null, "EXAMPLE", "SHARD_HIGH", null, 1000L, 1999L),
+                new JdbcWriteShard(connectionUrl, ImmutableMap.of(), null, "EXAMPLE", "SHARD_LOW", null, 0L, 999L));
+        JdbcPageSink sink = new JdbcPageSink(jdbcClient, ImmutableList.of("TEXT", "VALUE"), TYPES, "value", shards,
+                executor, new JdbcWriteStats(), 2, 1);
+        // the first page spans both shards, the second only the high one
+        sink.appendPage(createPage(500, 1000), null);
+        sink.appendPage(createPage(1500, 1000), null);
+        sink.commit();
+
+        try (Statement statement = database.getConnection().createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT count(*), min(value), max(value) FROM example.shard_low")) {
+            assertTrue(resultSet.next());
+            assertEquals(resultSet.getLong(1), 500);
+            assertEquals(resultSet.getLong(2), 500);
+            assertEquals(resultSet.getLong(3), 999);
+        }
+        try (Statement statement = database.getConnection().createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT count(*), min(value), max(value) FROM example.shard_high")) {
+            assertTrue(resultSet.next());
+            // keys above the last range go to the last shard
+            assertEquals(resultSet.getLong(1), 1500);
+            assertEquals(resultSet.getLong(2), 1000);
+            assertEquals(resultSet.getLong(3), 2499);
+        }
+    }
+
+    @Test
+    public void testInsertIsStagedUntilCommit()
+            throws Exception
+    {
+        database.getConnection().createStatement().execute("CREATE TABLE example.inserted(text varchar, value bigint)");
+        database.getConnection().commit();
+
+        JdbcInsertTableHandle handle = jdbcClient.beginInsert(jdbcClient.getTableHandle(new SchemaTableName("example", "inserted")));
+        String stagingTable = getOnlyElement(handle.getShards()).getTemporaryTableName();
+        JdbcPageSink sink = new JdbcPageSink(jdbcClient, handle.getColumnNames(), handle.getColumnTypes(), handle.getShardColumn(), handle.getShards(),
+                executor, new JdbcWriteStats(), 2, 1);
+        sink.appendPage(createPage(0, 100), null);
+        sink.appendPage(createPage(100, 100), null);
+        sink.commit();
+
+        // the written rows are not visible before the insert is committed
+        assertEquals(countRows("example.inserted"), 0);
+        assertTrue(tableExists(stagingTable));
+
+        jdbcClient.commitInsert(handle);
+        assertEquals(countRows("example.inserted"), 200);
+        assertFalse(tableExists(stagingTable));
+    }
+
+    @Test
+    public void testRollbackDropsTemporaryTable()
+            throws Exception
+    {
+        JdbcOutputTableHandle handle = beginCreateTable("rolled_back");
+        JdbcPageSink sink = createPageSink(handle, new JdbcWriteStats(), 2, 1);
+        sink.appendPage(createPage(0, 100), null);
+        assertTrue(tableExists(handle.getTemporaryTableName()));
+
+        sink.rollback();
+        assertFalse(tableExists(handle.getTemporaryTableName()));
+    }
+
+    @Test
+    public void testTextEncoding()
+    {
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        pageBuilder.declarePosition();
+        VARCHAR.writeSlice(pageBuilder.getBlockBuilder(0), utf8Slice("a\tb\\c\nd"));
+        BIGINT.writeLong(pageBuilder.getBlockBuilder(1), -7);
+        pageBuilder.declarePosition();
+        pageBuilder.getBlockBuilder(0).appendNull();
+        pageBuilder.getBlockBuilder(1).appendNull();
+
+        String text = JdbcTextPageWriter.encode(TYPES, ImmutableList.of(pageBuilder.build())).toStringUtf8();
+        assertEquals(text, "a\\tb\\\\c\\nd\t-7\n\\N\t\\N\n");
+    }
+
+    @Test(expectedExceptions = SQLException.class, expectedExceptionsMessageRegExp = "Loaded 1 of 2 rows")
+    public void testTextWriterDetectsSkippedRows()
+            throws Exception
+    {
+        // a bulk load that skipped a bad row
+        JdbcTextPageWriter writer = new JdbcTextPageWriter(database.getConnection(), TYPES, (connection, rows) -> 1);
+        writer.write(ImmutableList.of(createPage(0, 2)));
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Cannot bulk load NaN into a DOUBLE column")
+    public void testTextEncodingRejectsNaN()
+    {
+        PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(DOUBLE));
+        pageBuilder.declarePosition();
+        DOUBLE.writeDouble(pageBuilder.getBlockBuilder(0), Double.NaN);
+        JdbcTextPageWriter.encode(ImmutableList.of(DOUBLE), ImmutableList.of(pageBuilder.build()));
+    }
+
+    @Test
+    public void testTimeBulkLoadMatchesInsert()
+            throws Exception
+    {
+        database.getConnection().createStatement().execute("CREATE TABLE example.time_inserted(value time)");
+        database.getConnection().createStatement().execute("CREATE TABLE example.time_loaded(value time)");
+        database.getConnection().commit();
+
+        List<Type> types = ImmutableList.of(TIME);
+        PageBuilder pageBuilder = new PageBuilder(types);
+        for (long millis : new long[] {0, TimeUnit.HOURS.toMillis(10) + TimeUnit.MINUTES.toMillis(15) + 30_000, TimeUnit.DAYS.toMillis(1) - 1000}) {
+            pageBuilder.declarePosition();
+            TIME.writeLong(pageBuilder.getBlockBuilder(0), millis);
+        }
+        List<Page> pages = ImmutableList.of(pageBuilder.build());
+
+        String connectionUrl = database.getConnection().getMetaData().getURL();
+        JdbcWriteShard shard = new JdbcWriteShard(connectionUrl, ImmutableMap.of(), null, "EXAMPLE", "TIME_INSERTED", null, null, null);
+        try (JdbcPageWriter insertWriter = jdbcClient.createPageWriter(shard, ImmutableList.of("VALUE"), types)) {
+            assertTrue(insertWriter instanceof JdbcInsertPageWriter);
+            insertWriter.write(pages);
+        }
+
+        // a bulk load hands the text to the database, which reads it in its own timezone like a bound parameter
+        JdbcTextPageWriter textWriter = new JdbcTextPageWriter(database.getConnection(), types, (connection, rows) -> {
+            long count = 0;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(rows, UTF_8));
+                    PreparedStatement statement = connection.prepareStatement("INSERT INTO example.time_loaded VALUES (?)")) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    statement.setString(1, line);
+                    count += statement.executeUpdate();
+                }
+            }
+            catch (IOException e) {
+                throw new SQLException(e);
+            }
+            return count;
+        });
+        textWriter.write(pages);
+
+        assertEquals(readTimes("example.time_loaded"), readTimes("example.time_inserted"));
+    }
+
+    private JdbcOutputTableHandle beginCreateTable(String tableName)
+    {
+        return jdbcClient.beginCreateTable(new ConnectorTableMetadata(
+                new SchemaTableName("example", tableName),
+                ImmutableList.of(
+                        new ColumnMetadata("text", VARCHAR, 0, false),
+                        new ColumnMetadata("value", BIGINT, 1, false))));
+    }
+
+    private JdbcPageSink createPageSink(JdbcOutputTableHandle handle, JdbcWriteStats stats, int maxWritersPerShard, long batchSizeInBytes)
+    {
+        JdbcWriteShard shard = new JdbcWriteShard(
+                handle.getConnectionUrl(),
+                handle.getConnectionProperties(),
+                handle.getCatalogName(),
+                handle.getSchemaName(),
+                handle.getTableName(),
+                handle.getTemporaryTableName(),
+                null,
+                null);
+        return new JdbcPageSink(jdbcClient, handle.getColumnNames(), handle.getColumnTypes(), null, ImmutableList.of(shard),
+                executor, stats, maxWritersPerShard, batchSizeInBytes);
+    }
+
+    private long countRows(String table)
+            throws Exception
+    {
+        try (Statement statement = database.getConnection().createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM " + table)) {
+            assertTrue(resultSet.next());
+            return resultSet.getLong(1);
+        }
+    }
+
+    private boolean tableExists(String table)
+            throws Exception
+    {
+        try (Statement statement = database.getConnection().createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = '" + table + "'")) {
+            assertTrue(resultSet.next());
+            return resultSet.getLong(1) > 0;
+        }
+    }
+
+    private List<String> readTimes(String table)
+            throws Exception
+    {
+        ImmutableList.Builder<String> times = ImmutableList.builder();
+        try (Statement statement = database.getConnection().createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT CAST(value AS varchar) FROM " + table + " ORDER BY value")) {
+            while (resultSet.next()) {
+                times.add(resultSet.getString(1));
+            }
+        }
+        List<String> result = times.build();
+        assertEquals(result.size(), 3);
+        return result;
+    }
+
+    private static Page createPage(int start, int count)
+    {
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        for (int value = start; value < start + count; value++) {
+            pageBuilder.declarePosition();
+            VARCHAR.writeSlice(pageBuilder.getBlockBuilder(0), utf8Slice(String.valueOf(value)));
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(1), value);
+        }
+        return pageBuilder.build();
+    }
+}
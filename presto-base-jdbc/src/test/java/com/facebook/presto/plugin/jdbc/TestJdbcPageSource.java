@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test
+public class TestJdbcPageSource
+{
+    private TestingDatabase database;
+    private JdbcClient jdbcClient;
+    private JdbcSplit split;
+    private Map<String, JdbcColumnHandle> columnHandles;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        database = new TestingDatabase();
+        jdbcClient = database.getJdbcClient();
+        split = database.getSplit("example", "numbers");
+        columnHandles = database.getColumnHandles("example", "numbers");
+    }
+
+    @AfterClass
+    public void tearDown()
+            throws Exception
+    {
+        database.close();
+    }
+
+    @Test
+    public void testReadPages()
+            throws Exception
+    {
+        JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, split, ImmutableList.of(
+                columnHandles.get("text"),
+                columnHandles.get("value"),
+                columnHandles.get("value")));
+
+        Map<String, Long> data = new LinkedHashMap<>();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+            assertEquals(page.getChannelCount(), 3);
+            Block text = page.getBlock(0);
+            Block value = page.getBlock(1);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertEquals(BIGINT.getLong(page.getBlock(2), position), BIGINT.getLong(value, position));
+                data.put(VARCHAR.getSlice(text, position).toStringUtf8(), BIGINT.getLong(value, position));
+            }
+        }
+        assertTrue(pageSource.getCompletedBytes() > 0);
+        assertNull(pageSource.getNextPage());
+
+        assertEquals(data, ImmutableMap.<String, Long>builder()
+                .put("one", 1L)
+                .put("two", 2L)
+                .put("three", 3L)
+                .put("ten", 10L)
+                .put("eleven", 11L)
+                .put("twelve", 12L)
+                .build());
+    }
+
+    @Test
+    public void testNoColumns()
+            throws Exception
+    {
+        JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, split, ImmutableList.<JdbcColumnHandle>of());
+        long rows = 0;
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                rows += page.getPositionCount();
+            }
+        }
+        assertEquals(rows, 6);
+    }
+
+    @Test
+    public void testClose()
+            throws Exception
+    {
+        JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, split, ImmutableList.of(columnHandles.get("value")));
+        assertFalse(pageSource.isFinished());
+        pageSource.close();
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+    }
+
+    @Test
+    public void testBlockedWhileDatabaseIsBusy()
+            throws Exception
+    {
+        JdbcScanLimiter scanLimiter = new JdbcScanLimiter("test", 1);
+        CompletableFuture<?> busy = scanLimiter.acquire(split);
+        JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, split, ImmutableList.of(columnHandles.get("value")), scanLimiter);
+
+        CompletableFuture<?> blocked = pageSource.isBlocked();
+        assertFalse(blocked.isDone());
+        assertNull(pageSource.getNextPage());
+
+        // the scan of the other split ends, so this one may run
+        scanLimiter.release(split, busy);
+        assertTrue(blocked.isDone());
+        long rows = 0;
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                rows += page.getPositionCount();
+            }
+        }
+        assertEquals(rows, 6);
+        // the finished page source gave the scan back
+        assertTrue(scanLimiter.acquire(split).isDone());
+    }
+}
@@ -13,8 +13,14 @@
  */
 package com.facebook.presto.plugin.jdbc;
 
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPartitionResult;
+import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordSet;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.SortOrder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.testng.annotations.AfterClass;
@@ -26,8 +32,10 @@ import java.util.Map;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test
 public class TestJdbcRecordSet
@@ -138,4 +146,48 @@ public class TestJdbcRecordSet
                     .build());
         }
     }
+
+    @Test
+    public void testCursorAggregationPushDown()
+            throws Exception
+    {
+        JdbcColumnHandle count = new JdbcColumnHandle("test", "$count_0", BIGINT, 0);
+        JdbcColumnHandle sum = new JdbcColumnHandle("test", "$sum_1", BIGINT, 1);
+        JdbcPushDown pushDown = JdbcPushDown.aggregation(ImmutableList.of(), ImmutableList.of(
+                new JdbcPushDown.Aggregate("count", null, count),
+                new JdbcPushDown.Aggregate("sum", columnHandles.get("value"), sum)));
+
+        RecordSet recordSet = new JdbcRecordSet(jdbcClient, getSplit(pushDown), ImmutableList.of(count, sum));
+        try (RecordCursor cursor = recordSet.cursor()) {
+            assertTrue(cursor.advanceNextPosition());
+            assertEquals(cursor.getLong(0), 6L);
+            assertEquals(cursor.getLong(1), 39L);
+            assertFalse(cursor.advanceNextPosition());
+        }
+    }
+
+    @Test
+    public void testCursorTopNPushDown()
+            throws Exception
+    {
+        JdbcPushDown pushDown = JdbcPushDown.topN(ImmutableList.of(new JdbcPushDown.SortItem(columnHandles.get("value"), SortOrder.DESC_NULLS_LAST)), 2);
+
+        RecordSet recordSet = new JdbcRecordSet(jdbcClient, getSplit(pushDown), ImmutableList.of(columnHandles.get("text")));
+        try (RecordCursor cursor = recordSet.cursor()) {
+            ImmutableList.Builder<String> texts = ImmutableList.builder();
+            while (cursor.advanceNextPosition()) {
+                texts.add(cursor.getSlice(0).toStringUtf8());
+            }
+            assertEquals(texts.build(), ImmutableList.of("twelve", "eleven"));
+        }
+    }
+
+    private JdbcSplit getSplit(JdbcPushDown pushDown)
+            throws InterruptedException
+    {
+        JdbcTableHandle tableHandle = jdbcClient.getTableHandle(new SchemaTableName("example", "numbers")).withPushDown(pushDown);
+        ConnectorPartitionResult partitions = jdbcClient.getPartitions(tableHandle, TupleDomain.<ConnectorColumnHandle>all());
+        ConnectorSplitSource splits = jdbcClient.getPartitionSplits((JdbcPartition) getOnlyElement(partitions.getPartitions()));
+        return (JdbcSplit) getOnlyElement(splits.getNextBatch(1000));
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+
+public class TestJdbcShardRouter
+{
+    private static final JdbcShardRouter ROUTER = new JdbcShardRouter(BIGINT, ImmutableList.of(
+            shard("b", 100L, 199L),
+            shard("a", 0L, 99L),
+            shard("c", 300L, 399L)));
+
+    @Test
+    public void testRangeRouting()
+    {
+        Block keys = bigintBlock(0, 99, 100, 199, 300, 399, 1000);
+        int[] expected = {1, 1, 0, 0, 2, 2, 2};
+        for (int position = 0; position < expected.length; position++) {
+            assertEquals(ROUTER.getShard(keys, position), expected[position]);
+        }
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Shard key -5 is below the range of sub-table a")
+    public void testKeyBelowRanges()
+    {
+        ROUTER.getShard(bigintBlock(-5), 0);
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Shard key 250 is between the ranges of sub-tables b and c")
+    public void testKeyBetweenRanges()
+    {
+        ROUTER.getShard(bigintBlock(250), 0);
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Shard key is null")
+    public void testNullKey()
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1);
+        builder.appendNull();
+        ROUTER.getShard(builder.build(), 0);
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Sub-table b has no key range to route rows by")
+    public void testShardWithoutRange()
+    {
+        new JdbcShardRouter(BIGINT, ImmutableList.of(
+                shard("a", 0L, 99L),
+                shard("b", null, null)));
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Shard key of type varchar cannot be routed to a sub-table")
+    public void testVarcharKey()
+    {
+        new JdbcShardRouter(VARCHAR, ImmutableList.of(
+                shard("a", 0L, 99L),
+                shard("b", 100L, 199L)));
+    }
+
+    private static JdbcWriteShard shard(String tableName, Long lowKey, Long highKey)
+    {
+        return new JdbcWriteShard("jdbc:junk", ImmutableMap.of(), null, "schema", tableName, null, lowKey, highKey);
+    }
+
+    private static Block bigintBlock(long... values)
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), values.length);
+        for (long value : values) {
+            BIGINT.writeLong(builder, value);
+        }
+        return builder.build();
+    }
+}
@@ -32,7 +32,7 @@ public class TestJdbcSplit
 {
     List<HostAddress> addresss = ImmutableList.of();
     private final JdbcSplit split = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all(), "", addresss, true,
-            "", "", "", "", System.nanoTime(), 1, false);
+            "", "", "", "", System.nanoTime(), 1, false, null);
 
     @Test
     public void testAddresses()
@@ -42,7 +42,7 @@ public class TestJdbcSplit
         assertEquals(split.isRemotelyAccessible(), true);
 
         JdbcSplit jdbcSplit = new JdbcSplit("connectorId", "catalog", "schemaName", "tableName", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all(), "", addresss, true,
-                "", "", "", "", System.nanoTime(), 1, false);
+                "", "", "", "", System.nanoTime(), 1, false, null);
         assertEquals(jdbcSplit.getAddresses(), ImmutableList.of());
     }
 
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.metadata.InMemoryNodeManager;
+import com.facebook.presto.metadata.NodeVersion;
+import com.facebook.presto.metadata.PrestoNode;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.FixedSplitSource;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestJdbcSplitPlacement
+{
+    @Test
+    public void testPinnedToLocalWorkers()
+            throws Exception
+    {
+        List<ConnectorSplit> splits = place(true, createSplit("10.0.0.1:3306"));
+        assertFalse(splits.get(0).isRemotelyAccessible());
+        assertEquals(splits.get(0).getAddresses(), ImmutableList.of(HostAddress.fromString("10.0.0.1:8080")));
+    }
+
+    @Test
+    public void testRemoteWithoutLocalWorkers()
+            throws Exception
+    {
+        List<ConnectorSplit> splits = place(true, createSplit("10.0.0.9:3306"));
+        assertTrue(splits.get(0).isRemotelyAccessible());
+        assertEquals(splits.get(0).getAddresses(), ImmutableList.of(HostAddress.fromString("10.0.0.9:3306")));
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        JdbcSplit split = createSplit("10.0.0.1:3306");
+        List<ConnectorSplit> splits = place(false, split);
+        assertSame(splits.get(0), split);
+    }
+
+    private static List<ConnectorSplit> place(boolean localityEnable, JdbcSplit split)
+            throws InterruptedException
+    {
+        InMemoryNodeManager nodeManager = new InMemoryNodeManager();
+        nodeManager.addNode("test",
+                new PrestoNode("local", URI.create("http://10.0.0.1:8080"), NodeVersion.UNKNOWN),
+                new PrestoNode("other", URI.create("http://10.0.0.2:8080"), NodeVersion.UNKNOWN));
+
+        JdbcSplitPlacement placement = new JdbcSplitPlacement(new JdbcConnectorId("test"), new BaseJdbcConfig().setSplitLocalityEnable(localityEnable));
+        placement.setNodeManager(nodeManager);
+        ConnectorSplitSource splitSource = placement.place(new FixedSplitSource("test", ImmutableList.of(split)));
+        return splitSource.getNextBatch(10);
+    }
+
+    private static JdbcSplit createSplit(String host)
+    {
+        return new JdbcSplit("test", "catalog", "schemaName", "tableName", "jdbc:mysql://" + host + "/db", ImmutableMap.<String, String>of(),
+                TupleDomain.<ConnectorColumnHandle>all(), "", ImmutableList.of(HostAddress.fromString(host)), false,
+                "", "", "", "", System.nanoTime(), 1, false, null);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestJdbcSplitSource
+{
+    @Test
+    public void testBatches()
+            throws Exception
+    {
+        JdbcSplitSource splitSource = new JdbcSplitSource("test");
+        splitSource.addToQueue(ImmutableList.of(createSplit(), createSplit(), createSplit()));
+        assertFalse(splitSource.isFinished());
+
+        assertEquals(splitSource.getNextBatch(2).size(), 2);
+        splitSource.addToQueue(ImmutableList.of(createSplit()));
+        splitSource.finished();
+
+        List<ConnectorSplit> splits = splitSource.getNextBatch(10);
+        assertEquals(splits.size(), 2);
+        assertTrue(splitSource.isFinished());
+        assertEquals(splitSource.getNextBatch(10).size(), 0);
+    }
+
+    @Test
+    public void testRanges()
+            throws Exception
+    {
+        JdbcSplitSource splitSource = new JdbcSplitSource("test");
+        splitSource.addRanges(ImmutableList.of(
+                new JdbcKeyRange(0, 80, 8, 3, TestJdbcSplitSource::createSplit),
+                new JdbcKeyRange(100, 110, 8, 3, TestJdbcSplitSource::createSplit)));
+        splitSource.finished();
+
+        // the ranges take turns and every split takes a third of what is left, down to 1/8 of the range
+        assertRanges(splitSource.getNextBatch(2), "0", "27", "100", "104");
+        assertFalse(splitSource.isFinished());
+        assertRanges(splitSource.getNextBatch(20),
+                "27", "45", "104", "106",
+                "45", "57", "106", "108",
+                "57", "67", "108", "110",
+                "67", "77",
+                "77", "80");
+        assertTrue(splitSource.isFinished());
+        assertEquals(splitSource.getNextBatch(10).size(), 0);
+    }
+
+    @Test
+    public void testFail()
+            throws Exception
+    {
+        JdbcSplitSource splitSource = new JdbcSplitSource("test");
+        splitSource.addToQueue(ImmutableList.of(createSplit()));
+        splitSource.fail(new RuntimeException("test"));
+
+        try {
+            splitSource.getNextBatch(10);
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getCause().getMessage(), "test");
+        }
+    }
+
+    private static void assertRanges(List<ConnectorSplit> splits, String... indexes)
+    {
+        assertEquals(splits.size() * 2, indexes.length);
+        for (int i = 0; i < splits.size(); i++) {
+            JdbcSplit split = (JdbcSplit) splits.get(i);
+            assertEquals(split.getBeginIndex(), indexes[i * 2]);
+            assertEquals(split.getEndIndex(), indexes[i * 2 + 1]);
+        }
+    }
+
+    private static JdbcSplit createSplit(long begin, long end)
+    {
+        return new JdbcSplit("test", "catalog", "schemaName", "tableName", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all(), "", ImmutableList.of(), true,
+                "", "", String.valueOf(begin), String.valueOf(end), System.nanoTime(), 1, false, null);
+    }
+
+    private static JdbcSplit createSplit()
+    {
+        return new JdbcSplit("test", "catalog", "schemaName", "tableName", "connectionUrl", ImmutableMap.<String, String>of(), TupleDomain.<ConnectorColumnHandle>all(), "", ImmutableList.of(), true,
+                "", "", "", "", System.nanoTime(), 1, false, null);
+    }
+}
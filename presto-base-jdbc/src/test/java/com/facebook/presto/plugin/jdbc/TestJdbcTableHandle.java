@@ -14,11 +14,14 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.block.SortOrder;
+import com.google.common.collect.ImmutableList;
 import io.airlift.testing.EquivalenceTester;
 import org.testng.annotations.Test;
 
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.TABLE_CODEC;
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.assertJsonRoundTrip;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 
 public class TestJdbcTableHandle
 {
@@ -26,6 +29,14 @@ public class TestJdbcTableHandle
     public void testJsonRoundTrip()
     {
         assertJsonRoundTrip(TABLE_CODEC, new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable"));
+
+        JdbcColumnHandle column = new JdbcColumnHandle("connectorId", "column", BIGINT, 0);
+        JdbcPushDown pushDown = JdbcPushDown.aggregation(
+                ImmutableList.of(column),
+                ImmutableList.of(new JdbcPushDown.Aggregate("count", null, new JdbcColumnHandle("connectorId", "$count_0", BIGINT, 0))));
+        assertJsonRoundTrip(TABLE_CODEC, new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable", pushDown));
+        assertJsonRoundTrip(TABLE_CODEC, new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable",
+                JdbcPushDown.topN(ImmutableList.of(new JdbcPushDown.SortItem(column, SortOrder.DESC_NULLS_LAST)), 10)));
     }
 
     @Test
@@ -47,6 +58,9 @@ public class TestJdbcTableHandle
                         new JdbcTableHandle("connectorId", new SchemaTableName("schemaX", "table"), "jdbcCatalogX", "jdbcSchema", "jdbcTable"),
                         new JdbcTableHandle("connectorId", new SchemaTableName("schemaX", "table"), "jdbcCatalog", "jdbcSchemaX", "jdbcTable"),
                         new JdbcTableHandle("connectorId", new SchemaTableName("schemaX", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTableX"))
+                .addEquivalentGroup(
+                        new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable", JdbcPushDown.limit(null, 10)),
+                        new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalogX", "jdbcSchema", "jdbcTable", JdbcPushDown.limit(null, 10)))
                 .check();
     }
 }
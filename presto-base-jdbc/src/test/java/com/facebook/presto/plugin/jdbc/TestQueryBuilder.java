@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+
+public class TestQueryBuilder
+{
+    private static final JdbcColumnHandle NUMBER = new JdbcColumnHandle("test", "number", BIGINT, 0);
+    private static final JdbcColumnHandle TEXT = new JdbcColumnHandle("test", "text", VARCHAR, 1);
+    private static final List<JdbcColumnHandle> COLUMNS = ImmutableList.of(NUMBER, TEXT);
+
+    @Test
+    public void testNumberRange()
+    {
+        Domain domain = Domain.create(SortedRangeSet.of(Range.range(1L, true, 5L, false)), true);
+        assertEquals(buildSql(new QueryBuilder("\""), NUMBER, domain),
+                "SELECT \"number\", \"text\" FROM \"table\" WHERE ((\"number\" >= 1 AND \"number\" < 5) OR \"number\" IS NULL)");
+    }
+
+    @Test
+    public void testNonFiniteDoublesAreNotPushed()
+    {
+        JdbcColumnHandle column = new JdbcColumnHandle("test", "number", DOUBLE, 0);
+        Domain values = Domain.create(SortedRangeSet.of(Range.equal(1.0), Range.equal(Double.NaN)), false);
+        assertEquals(buildSql(new QueryBuilder("\""), column, values), "SELECT \"number\", \"text\" FROM \"table\"");
+
+        Domain range = Domain.create(SortedRangeSet.of(Range.range(1.0, true, Double.POSITIVE_INFINITY, false)), false);
+        assertEquals(buildSql(new QueryBuilder("\""), column, range), "SELECT \"number\", \"text\" FROM \"table\"");
+    }
+
+    @Test
+    public void testTextValues()
+    {
+        Domain domain = Domain.create(SortedRangeSet.of(Range.equal(utf8Slice("b")), Range.equal(utf8Slice("a"))), false);
+        assertEquals(buildSql(new QueryBuilder("\""), TEXT, domain),
+                "SELECT \"number\", \"text\" FROM \"table\" WHERE (\"text\" IN ('a','b'))");
+    }
+
+    @Test
+    public void testTextRangesAreNotPushed()
+    {
+        // a LIKE prefix is a range, which is empty under a case insensitive collation
+        Domain prefix = Domain.create(SortedRangeSet.of(Range.range(utf8Slice("x`"), true, utf8Slice("xa"), false)), false);
+        assertEquals(buildSql(new QueryBuilder("\""), TEXT, prefix), "SELECT \"number\", \"text\" FROM \"table\"");
+
+        // NOT LIKE without wildcards is a pair of ranges, which drops 'ABC' and 'abc ' under some collations
+        Domain notEqual = Domain.singleValue(utf8Slice("abc")).complement();
+        assertEquals(buildSql(new QueryBuilder("\""), TEXT, notEqual), "SELECT \"number\", \"text\" FROM \"table\"");
+
+        assertEquals(buildSql(new QueryBuilder("\""), TEXT, Domain.notNull(VARCHAR.getJavaType())),
+                "SELECT \"number\", \"text\" FROM \"table\" WHERE \"text\" IS NOT NULL");
+    }
+
+    @Test
+    public void testEscaping()
+    {
+        Domain domain = Domain.singleValue(utf8Slice("it's a \\"));
+        assertEquals(buildSql(new QueryBuilder("\""), TEXT, domain),
+                "SELECT \"number\", \"text\" FROM \"table\" WHERE (\"text\" = 'it''s a \\')");
+        assertEquals(buildSql(new QueryBuilder("`", true), TEXT, domain),
+                "SELECT `number`, `text` FROM `table` WHERE (`text` = 'it''s a \\\\')");
+    }
+
+    private static String buildSql(QueryBuilder queryBuilder, JdbcColumnHandle column, Domain domain)
+    {
+        TupleDomain<ConnectorColumnHandle> tupleDomain = TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(column, domain));
+        return queryBuilder.buildSql(null, null, "table", COLUMNS, tupleDomain);
+    }
+}
@@ -14,6 +14,8 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.plugin.jdbc.cache.JdbcCacheConfig;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPoolConfig;
 import com.facebook.presto.plugin.jdbc.subtable.JdbcSubTableConfig;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorPartitionResult;
@@ -39,19 +41,22 @@ final class TestingDatabase
     public static final String CONNECTOR_ID = "test";
 
     private final Connection connection;
+    private final JdbcConnectionPool connectionPool;
     private final JdbcClient jdbcClient;
 
     public TestingDatabase()
             throws SQLException
     {
         String connectionUrl = "jdbc:h2:mem:test" + System.nanoTime();
+        connectionPool = new JdbcConnectionPool(new JdbcConnectionPoolConfig());
         jdbcClient = new BaseJdbcClient(
                 new JdbcConnectorId(CONNECTOR_ID),
                 new BaseJdbcConfig().setConnectionUrl(connectionUrl),
                 "\"",
                 new Driver(),
                 new JdbcSubTableConfig(),
-                new JdbcCacheConfig());
+                new JdbcCacheConfig(),
+                connectionPool);
 
         connection = DriverManager.getConnection(connectionUrl);
         connection.createStatement().execute("CREATE SCHEMA example");
@@ -76,6 +81,7 @@ final class TestingDatabase
     public void close()
             throws SQLException
     {
+        connectionPool.destroy();
         connection.close();
     }
 
@@ -14,6 +14,7 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.plugin.jdbc.cache.JdbcCacheConfig;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
 import com.facebook.presto.plugin.jdbc.subtable.JdbcSubTableConfig;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Binder;
@@ -22,6 +23,8 @@ import com.google.inject.Provides;
 
 import org.h2.Driver;
 
+import javax.inject.Singleton;
+
 import java.util.Map;
 
 import static io.airlift.configuration.ConfigurationModule.bindConfig;
@@ -37,9 +40,10 @@ class TestingH2JdbcModule
     }
 
     @Provides
-    public JdbcClient provideJdbcClient(JdbcConnectorId id, BaseJdbcConfig config)
+    @Singleton
+    public JdbcClient provideJdbcClient(JdbcConnectorId id, BaseJdbcConfig config, JdbcConnectionPool connectionPool)
     {
-        return new BaseJdbcClient(id, config, "\"", new Driver(), new JdbcSubTableConfig(), new JdbcCacheConfig());
+        return new BaseJdbcClient(id, config, "\"", new Driver(), new JdbcSubTableConfig(), new JdbcCacheConfig(), connectionPool);
     }
 
     public static Map<String, String> createProperties()
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+public class TestJdbcCacheConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(JdbcCacheConfig.class)
+                .setCacheTableConfig(JdbcCacheConfig.DEFAULT_VALUE)
+                .setCacheTableClause(null)
+                .setCacheTableIncrementalConfig(null)
+                .setCacheFullRefreshInterval(new Duration(1, TimeUnit.HOURS))
+                .setCacheRefreshInterval(new Duration(5, TimeUnit.MINUTES))
+                .setCacheExpireInterval(new Duration(30, TimeUnit.MINUTES))
+                .setJdbcCacheEnable(false)
+                .setCacheMaxSize(new DataSize(1, GIGABYTE))
+                .setCacheRefreshThreads(2)
+                .setMetadataCacheTtl(new Duration(0, TimeUnit.SECONDS))
+                .setMetadataRefreshInterval(new Duration(1, TimeUnit.MINUTES))
+                .setMetadataCacheMaximumSize(10000)
+                .setMetadataRefreshThreads(2));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("jdbc-cache-table-config", "[{\"dim_city\":[\"id\",\"name\"]}]")
+                .put("jdbc-cache-table-clause", "{\"dim_city\":\"id > 0\"}")
+                .put("jdbc-cache-table-incremental-config", "{\"dim_city\":\"updated_at\"}")
+                .put("jdbc-cache-full-refresh-interval", "6h")
+                .put("jdbc-cache-refresh-interval", "1m")
+                .put("jdbc-cache-expire-interval", "2h")
+                .put("jdbc-cache-enable", "true")
+                .put("jdbc-cache-max-size", "256MB")
+                .put("jdbc-cache-refresh-threads", "4")
+                .put("jdbc-metadata-cache-ttl", "10m")
+                .put("jdbc-metadata-refresh-interval", "30s")
+                .put("jdbc-metadata-cache-maximum-size", "500")
+                .put("jdbc-metadata-refresh-threads", "8")
+                .build();
+
+        JdbcCacheConfig expected = new JdbcCacheConfig()
+                .setCacheTableConfig("[{\"dim_city\":[\"id\",\"name\"]}]")
+                .setCacheTableClause("{\"dim_city\":\"id > 0\"}")
+                .setCacheTableIncrementalConfig("{\"dim_city\":\"updated_at\"}")
+                .setCacheFullRefreshInterval(new Duration(6, TimeUnit.HOURS))
+                .setCacheRefreshInterval(new Duration(1, TimeUnit.MINUTES))
+                .setCacheExpireInterval(new Duration(2, TimeUnit.HOURS))
+                .setJdbcCacheEnable(true)
+                .setCacheMaxSize(new DataSize(256, MEGABYTE))
+                .setCacheRefreshThreads(4)
+                .setMetadataCacheTtl(new Duration(10, TimeUnit.MINUTES))
+                .setMetadataRefreshInterval(new Duration(30, TimeUnit.SECONDS))
+                .setMetadataCacheMaximumSize(500)
+                .setMetadataRefreshThreads(8);
+
+        ConfigAssertions.assertFullMapping(properties, expected);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import com.facebook.presto.plugin.jdbc.JdbcColumnHandle;
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestJdbcCachePageSource
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT, VARCHAR);
+
+    private final JdbcColumnHandle idColumn = new JdbcColumnHandle("test", "ID", BIGINT, 0);
+    private final JdbcColumnHandle nameColumn = new JdbcColumnHandle("test", "name", VARCHAR, 1);
+
+    @Test
+    public void testProjection()
+    {
+        JdbcCacheTable table = new JdbcCacheTable(ImmutableList.of("id", "name"), TYPES, ImmutableList.of(createPage(0, 3), createPage(3, 2)));
+        assertEquals(table.getPositionCount(), 5);
+
+        JdbcCachePageSource pageSource = new JdbcCachePageSource(table, ImmutableList.of(nameColumn, idColumn), TupleDomain.<ConnectorColumnHandle>all());
+        long totalBytes = 0;
+        for (Page cachedPage : table.getPages()) {
+            totalBytes += cachedPage.getSizeInBytes();
+        }
+        assertEquals(pageSource.getTotalBytes(), totalBytes);
+
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getChannelCount(), 2);
+        assertEquals(page.getPositionCount(), 3);
+        assertEquals(VARCHAR.getSlice(page.getBlock(0), 1).toStringUtf8(), "name1");
+        assertEquals(BIGINT.getLong(page.getBlock(1), 1), 1);
+
+        page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), 2);
+        assertEquals(BIGINT.getLong(page.getBlock(1), 0), 3);
+        assertTrue(page.getBlock(0).isNull(1));
+
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+        assertEquals(pageSource.getCompletedBytes(), totalBytes);
+    }
+
+    @Test
+    public void testFilter()
+    {
+        JdbcCacheTable table = new JdbcCacheTable(ImmutableList.of("id", "name"), TYPES, ImmutableList.of(createPage(0, 3), createPage(3, 3)));
+
+        // range over the id column
+        assertFilter(table, TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(
+                idColumn, Domain.create(SortedRangeSet.of(Range.range(1L, true, 3L, false), Range.greaterThan(4L)), false))),
+                1, 2, 5);
+
+        // single value on one column and a range on the other
+        assertFilter(table, TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(
+                nameColumn, Domain.singleValue(utf8Slice("name3")),
+                idColumn, Domain.create(SortedRangeSet.of(Range.lessThanOrEqual(3L)), false))),
+                3);
+
+        // null values
+        assertFilter(table, TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(
+                nameColumn, Domain.onlyNull(Slice.class))),
+                4);
+        assertFilter(table, TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(
+                nameColumn, Domain.union(ImmutableList.of(Domain.singleValue(utf8Slice("name0")), Domain.onlyNull(Slice.class))))),
+                0, 4);
+
+        assertFilter(table, TupleDomain.<ConnectorColumnHandle>none());
+        assertNull(table.getMatchingPositions(TupleDomain.<ConnectorColumnHandle>all()));
+    }
+
+    @Test
+    public void testContainsColumns()
+    {
+        JdbcCacheTable table = new JdbcCacheTable(ImmutableList.of("id", "name"), TYPES, ImmutableList.of(createPage(0, 1)));
+        assertTrue(table.containsColumns(ImmutableList.of(idColumn, nameColumn)));
+        assertFalse(table.containsColumns(ImmutableList.of(new JdbcColumnHandle("test", "id", DOUBLE, 0))));
+        assertFalse(table.containsColumns(ImmutableList.of(new JdbcColumnHandle("test", "missing", BIGINT, 2))));
+    }
+
+    @Test
+    public void testWithRows()
+    {
+        Page firstPage = createPage(0, 3);
+        Page secondPage = createPage(3, 3);
+
+        // without a key an updated row can not replace its previous version
+        JdbcCacheTable table = new JdbcCacheTable(ImmutableList.of("id", "name"), TYPES, ImmutableList.of(firstPage));
+        try {
+            table.withRows(ImmutableList.of(secondPage));
+            fail("expected IllegalStateException");
+        }
+        catch (IllegalStateException expected) {
+        }
+
+        // with a key the rows with the same key are replaced
+        table = new JdbcCacheTable(ImmutableList.of("id", "name"), TYPES, ImmutableList.of(firstPage, secondPage), 0, 0);
+        assertSame(table.withRows(ImmutableList.of()), table);
+        JdbcCacheTable merged = table.withRows(ImmutableList.of(createPage(5, 2)));
+        assertEquals(merged.getPositionCount(), 7);
+        assertSame(merged.getPages().get(0), firstPage);
+        assertEquals(merged.getFullLoadTime(), 0);
+        assertEquals(merged.getMaxValue(0), 6L);
+        assertEquals(merged.getMaxValue(1), utf8Slice("name6"));
+        assertFilter(merged, TupleDomain.<ConnectorColumnHandle>withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(
+                idColumn, Domain.create(SortedRangeSet.of(Range.greaterThanOrEqual(4L)), false))),
+                4, 5, 6);
+    }
+
+    private void assertFilter(JdbcCacheTable table, TupleDomain<ConnectorColumnHandle> tupleDomain, long... expectedIds)
+    {
+        JdbcCachePageSource pageSource = new JdbcCachePageSource(table, ImmutableList.of(idColumn), tupleDomain);
+        ImmutableList.Builder<Long> ids = ImmutableList.builder();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                ids.add(BIGINT.getLong(page.getBlock(0), position));
+            }
+        }
+        ImmutableList.Builder<Long> expected = ImmutableList.builder();
+        for (long id : expectedIds) {
+            expected.add(id);
+        }
+        assertEquals(ids.build(), expected.build());
+    }
+
+    private static Page createPage(int start, int count)
+    {
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        for (int i = start; i < start + count; i++) {
+            pageBuilder.declarePosition();
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(0), i);
+            if (i == 4) {
+                pageBuilder.getBlockBuilder(1).appendNull();
+            }
+            else {
+                VARCHAR.writeSlice(pageBuilder.getBlockBuilder(1), utf8Slice("name" + i));
+            }
+        }
+        return pageBuilder.build();
+    }
+}
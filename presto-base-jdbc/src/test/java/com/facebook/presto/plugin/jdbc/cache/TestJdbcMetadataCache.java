@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import com.facebook.presto.plugin.jdbc.cache.JdbcMetadataCache.CachedFunction;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.TableNotFoundException;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class TestJdbcMetadataCache
+{
+    @Test
+    public void testCached()
+    {
+        JdbcMetadataCacheStats stats = new JdbcMetadataCacheStats();
+        JdbcMetadataCache metadataCache = createCache(new Duration(1, TimeUnit.HOURS), stats);
+        AtomicInteger loads = new AtomicInteger();
+        CachedFunction<String, String> cache = metadataCache.newCache(key -> key + loads.incrementAndGet());
+
+        assertEquals(cache.apply("a"), "a1");
+        assertEquals(cache.apply("a"), "a1");
+        assertEquals(cache.apply("b"), "b2");
+        assertEquals(loads.get(), 2);
+        assertEquals(stats.getMiss().getAllTime().getCount(), 2.0);
+        assertEquals(stats.getHit().getAllTime().getCount(), 1.0);
+        assertEquals(stats.getLoad().getAllTime().getCount(), 2.0);
+        assertEquals(metadataCache.getCachedEntryCount(), 2);
+
+        cache.invalidate("a");
+        assertEquals(cache.apply("a"), "a3");
+        assertEquals(cache.apply("b"), "b2");
+
+        metadataCache.flushCache();
+        assertEquals(cache.apply("b"), "b4");
+        metadataCache.shutdown();
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        JdbcMetadataCache metadataCache = createCache(new Duration(0, TimeUnit.SECONDS), new JdbcMetadataCacheStats());
+        AtomicInteger loads = new AtomicInteger();
+        CachedFunction<String, Integer> cache = metadataCache.newCache(key -> loads.incrementAndGet());
+
+        assertEquals(cache.apply("a").intValue(), 1);
+        assertEquals(cache.apply("a").intValue(), 2);
+        assertEquals(metadataCache.getCachedEntryCount(), 0);
+        metadataCache.shutdown();
+    }
+
+    @Test
+    public void testLoadFailure()
+    {
+        JdbcMetadataCacheStats stats = new JdbcMetadataCacheStats();
+        JdbcMetadataCache metadataCache = createCache(new Duration(1, TimeUnit.HOURS), stats);
+        CachedFunction<SchemaTableName, String> cache = metadataCache.newCache(name -> {
+            throw new TableNotFoundException(name);
+        });
+
+        try {
+            cache.apply(new SchemaTableName("example", "missing"));
+            fail("expected TableNotFoundException");
+        }
+        catch (TableNotFoundException e) {
+            assertEquals(e.getTableName(), new SchemaTableName("example", "missing"));
+        }
+        assertEquals(stats.getLoadFailures().getTotalCount(), 1);
+        metadataCache.shutdown();
+    }
+
+    private static JdbcMetadataCache createCache(Duration ttl, JdbcMetadataCacheStats stats)
+    {
+        return new JdbcMetadataCache(new JdbcCacheConfig().setMetadataCacheTtl(ttl), stats, "test");
+    }
+}
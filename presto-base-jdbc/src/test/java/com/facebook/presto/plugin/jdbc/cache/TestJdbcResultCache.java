@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.cache;
+
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPoolConfig;
+import com.google.common.base.Ticker;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.h2.Driver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestJdbcResultCache
+{
+    private static final String CACHE_TABLE_CONFIG = "[{\"cached\":[\"id\",\"name\"]}]";
+
+    private String connectionUrl;
+    private Connection connection;
+    private JdbcConnectionPool connectionPool;
+    private ExecutorService refreshExecutor;
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker()
+    {
+        @Override
+        public long read()
+        {
+            return nanos.get();
+        }
+    };
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        connectionUrl = "jdbc:h2:mem:test" + System.nanoTime();
+        connection = DriverManager.getConnection(connectionUrl);
+        connection.createStatement().execute("CREATE SCHEMA example");
+        connection.createStatement().execute("CREATE TABLE example.cached(id bigint primary key, name varchar)");
+        connection.createStatement().execute("CREATE TABLE example.other(id bigint primary key, name varchar)");
+        connection.createStatement().execute("INSERT INTO example.cached VALUES (1, 'one'), (2, 'two')");
+        connection.createStatement().execute("INSERT INTO example.other VALUES (1, 'one')");
+        connection.commit();
+
+        connectionPool = new JdbcConnectionPool(new JdbcConnectionPoolConfig());
+        refreshExecutor = newSingleThreadExecutor(daemonThreadsNamed("test-jdbc-cache-%s"));
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        refreshExecutor.shutdownNow();
+        connectionPool.destroy();
+        connection.close();
+    }
+
+    @Test
+    public void testAsyncRefreshServesStaleValue()
+            throws Exception
+    {
+        JdbcResultCacheStats stats = new JdbcResultCacheStats();
+        JdbcResultCache cache = createCache(new JdbcCacheConfig()
+                .setCacheTableConfig(CACHE_TABLE_CONFIG)
+                .setCacheRefreshInterval(new Duration(1, TimeUnit.MINUTES))
+                .setCacheExpireInterval(new Duration(1, TimeUnit.HOURS)), stats);
+        JdbcCacheSplit key = createKey("CACHED", "cached");
+
+        JdbcCacheTable table = cache.getResult(key);
+        assertEquals(table.getPositionCount(), 2);
+
+        // hold the refresh thread, so the refresh can not complete
+        CountDownLatch release = new CountDownLatch(1);
+        refreshExecutor.submit(() -> {
+            release.await();
+            return null;
+        });
+
+        connection.createStatement().execute("INSERT INTO example.cached VALUES (3, 'three')");
+        connection.commit();
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        // the refresh is started, and the previous copy is served while it runs
+        assertSame(cache.getResult(key), table);
+        assertSame(cache.getResult(key), table);
+
+        release.countDown();
+        refreshExecutor.shutdown();
+        assertTrue(refreshExecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(cache.getResult(key).getPositionCount(), 3);
+        assertEquals(stats.getRefresh().getAllTime().getCount(), 1.0);
+        assertEquals(stats.getLoad().getAllTime().getCount(), 1.0);
+    }
+
+    @Test
+    public void testIncrementalRefreshWithoutKey()
+            throws Exception
+    {
+        connection.createStatement().execute("CREATE TABLE example.nokey(id bigint, name varchar)");
+        connection.createStatement().execute("INSERT INTO example.nokey VALUES (1, 'one'), (2, 'two')");
+        connection.commit();
+
+        JdbcResultCacheStats stats = new JdbcResultCacheStats();
+        JdbcResultCache cache = createCache(new JdbcCacheConfig()
+                .setCacheTableConfig("[{\"nokey\":[\"id\",\"name\"]}]")
+                .setCacheTableIncrementalConfig("{\"nokey\":\"id\"}")
+                .setCacheRefreshInterval(new Duration(1, TimeUnit.MINUTES))
+                .setCacheExpireInterval(new Duration(1, TimeUnit.HOURS)), stats);
+        JdbcCacheSplit key = createKey("NOKEY", "nokey");
+        assertEquals(cache.getResult(key).getPositionCount(), 2);
+
+        // an updated row must not be added next to its previous version
+        connection.createStatement().execute("UPDATE example.nokey SET name = 'two again' WHERE id = 2");
+        connection.createStatement().execute("INSERT INTO example.nokey VALUES (3, 'three')");
+        connection.commit();
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        cache.getResult(key);
+        refreshExecutor.shutdown();
+        assertTrue(refreshExecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(cache.getResult(key).getPositionCount(), 3);
+        assertEquals(stats.getIncrementalRows().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testWeightEviction()
+    {
+        JdbcCacheConfig config = new JdbcCacheConfig().setCacheTableConfig("[{\"cached\":[\"id\",\"name\"]},{\"other\":[\"id\",\"name\"]}]");
+
+        JdbcResultCacheStats stats = new JdbcResultCacheStats();
+        JdbcResultCache cache = createCache(config.setCacheMaxSize(new DataSize(1, MEGABYTE)), stats);
+        cache.getResult(createKey("CACHED", "cached"));
+        cache.getResult(createKey("OTHER", "other"));
+        assertEquals(cache.getCachedTableCount(), 2);
+        assertTrue(cache.getCachedBytes() > 0);
+        assertEquals(stats.getEvictions().getTotalCount(), 0);
+
+        // a table heavier than the cache is served, but not kept
+        stats = new JdbcResultCacheStats();
+        cache = createCache(config.setCacheMaxSize(new DataSize(1, BYTE)), stats);
+        assertEquals(cache.getResult(createKey("CACHED", "cached")).getPositionCount(), 2);
+        assertEquals(cache.getCachedTableCount(), 0);
+        assertEquals(cache.getCachedBytes(), 0);
+        assertEquals(stats.getEvictions().getTotalCount(), 1);
+    }
+
+    private JdbcResultCache createCache(JdbcCacheConfig config, JdbcResultCacheStats stats)
+    {
+        return new JdbcResultCache(
+                "\"",
+                new Driver(),
+                new Properties(),
+                config,
+                connectionPool,
+                stats,
+                new JdbcMetadataCache(config, new JdbcMetadataCacheStats(), "test"),
+                ticker,
+                refreshExecutor);
+    }
+
+    private JdbcCacheSplit createKey(String tableName, String baseTableName)
+    {
+        // column metadata is looked up with the schema as the catalog, as for MySQL databases
+        return new JdbcCacheSplit("test", "EXAMPLE", null, tableName, connectionUrl, baseTableName, null);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.pool;
+
+import io.airlift.units.Duration;
+import org.h2.Driver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class TestJdbcConnectionPool
+{
+    private final Driver driver = new Driver();
+    private String connectionUrl;
+    private JdbcConnectionPool pool;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        connectionUrl = "jdbc:h2:mem:pool" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        pool = new JdbcConnectionPool(new JdbcConnectionPoolConfig()
+                .setMaxConnectionsPerUrl(2)
+                .setMaxWaitTime(new Duration(100, TimeUnit.MILLISECONDS)));
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        pool.destroy();
+    }
+
+    @Test
+    public void testConnectionIsReused()
+            throws Exception
+    {
+        Connection first = pool.getConnection(driver, connectionUrl, new Properties());
+        first.close();
+        assertTrue(first.isClosed());
+        assertEquals(pool.getIdleConnections(), 1);
+
+        try (Connection second = pool.getConnection(driver, connectionUrl, new Properties())) {
+            assertFalse(second.isClosed());
+            assertEquals(pool.getActiveConnections(), 1);
+            assertEquals(pool.getIdleConnections(), 0);
+        }
+        assertEquals(pool.getCreatedConnections().getTotalCount(), 1);
+        assertEquals(pool.getBorrowedConnections().getTotalCount(), 2);
+        assertEquals(pool.getActiveConnections(), 0);
+    }
+
+    @Test
+    public void testAutoCommitRestored()
+            throws Exception
+    {
+        try (Connection connection = pool.getConnection(driver, connectionUrl, new Properties())) {
+            connection.setAutoCommit(false);
+        }
+        try (Connection connection = pool.getConnection(driver, connectionUrl, new Properties())) {
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void testPoolSizeIsBounded()
+            throws Exception
+    {
+        Connection first = pool.getConnection(driver, connectionUrl, new Properties());
+        Connection second = pool.getConnection(driver, connectionUrl, new Properties());
+        try {
+            pool.getConnection(driver, connectionUrl, new Properties());
+            fail("expected SQLException");
+        }
+        catch (SQLException e) {
+            assertTrue(e.getMessage().startsWith("Timed out"));
+        }
+        assertEquals(pool.getBorrowTimeouts().getTotalCount(), 1);
+        assertEquals(pool.getSaturatedBorrows().getTotalCount(), 1);
+
+        first.close();
+        pool.getConnection(driver, connectionUrl, new Properties()).close();
+        second.close();
+    }
+
+    @Test
+    public void testInvalidConnectionIsDiscarded()
+            throws Exception
+    {
+        Connection connection = pool.getConnection(driver, connectionUrl, new Properties());
+        connection.unwrap(Connection.class).close();
+        connection.close();
+
+        try (Connection replacement = pool.getConnection(driver, connectionUrl, new Properties())) {
+            assertFalse(replacement.isClosed());
+        }
+        assertEquals(pool.getCreatedConnections().getTotalCount(), 2);
+    }
+
+    @Test
+    public void testDisabledPool()
+            throws Exception
+    {
+        JdbcConnectionPool disabled = new JdbcConnectionPool(new JdbcConnectionPoolConfig().setJdbcConnectionPoolEnable(false));
+        try {
+            disabled.getConnection(driver, connectionUrl, new Properties()).close();
+            assertEquals(disabled.getPartitionCount(), 0);
+            assertEquals(disabled.getIdleConnections(), 0);
+        }
+        finally {
+            disabled.destroy();
+        }
+    }
+}
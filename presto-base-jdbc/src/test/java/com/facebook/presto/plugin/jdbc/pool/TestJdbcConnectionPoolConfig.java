@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.pool;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class TestJdbcConnectionPoolConfig
+{
+    @Test
+    public void testDefaults()
+    {
+        ConfigAssertions.assertRecordedDefaults(ConfigAssertions.recordDefaults(JdbcConnectionPoolConfig.class)
+                .setJdbcConnectionPoolEnable(true)
+                .setMaxConnectionsPerUrl(50)
+                .setMaxIdleTime(new Duration(10, TimeUnit.MINUTES))
+                .setMaxWaitTime(new Duration(30, TimeUnit.SECONDS))
+                .setValidationTimeout(new Duration(5, TimeUnit.SECONDS))
+                .setEvictionInterval(new Duration(1, TimeUnit.MINUTES)));
+    }
+
+    @Test
+    public void testExplicitPropertyMappings()
+    {
+        Map<String, String> properties = new ImmutableMap.Builder<String, String>()
+                .put("jdbc-connection-pool-enable", "false")
+                .put("jdbc-connection-pool-max-size", "8")
+                .put("jdbc-connection-pool-max-idle-time", "2m")
+                .put("jdbc-connection-pool-max-wait-time", "3s")
+                .put("jdbc-connection-pool-validation-timeout", "2s")
+                .put("jdbc-connection-pool-eviction-interval", "20s")
+                .build();
+
+        JdbcConnectionPoolConfig expected = new JdbcConnectionPoolConfig()
+                .setJdbcConnectionPoolEnable(false)
+                .setMaxConnectionsPerUrl(8)
+                .setMaxIdleTime(new Duration(2, TimeUnit.MINUTES))
+                .setMaxWaitTime(new Duration(3, TimeUnit.SECONDS))
+                .setValidationTimeout(new Duration(2, TimeUnit.SECONDS))
+                .setEvictionInterval(new Duration(20, TimeUnit.SECONDS));
+
+        ConfigAssertions.assertFullMapping(properties, expected);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.subtable;
+
+import io.airlift.units.Duration;
+import org.h2.Driver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestJdbcLoadTread
+{
+    private static final int READERS = 4;
+    private static final int RELOADS = 50;
+
+    private String connectionUrl;
+    private Connection connection;
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        connectionUrl = "jdbc:h2:mem:test" + System.nanoTime();
+        // the in-memory database lives as long as this connection
+        connection = DriverManager.getConnection(connectionUrl);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA route_schema");
+            statement.execute("CREATE TABLE route_schema.db_info(uid int, connectionurl varchar, host varchar, username varchar, password varchar)");
+            statement.execute("CREATE TABLE route_schema.table_route(uid int, schemaname varchar, tablename varchar, " +
+                    "basecatalog varchar, baseschema varchar, basetable varchar, remotelyaccessible varchar, scannodenumber int, " +
+                    "autoincrementfield varchar, fieldmaxvalue bigint, fieldminvalue bigint, pdboenable varchar, version bigint)");
+            statement.execute("INSERT INTO route_schema.db_info VALUES (1, 'jdbc:mysql://db1', 'db1', 'user', 'password')");
+            statement.execute("INSERT INTO route_schema.db_info VALUES (2, 'jdbc:mysql://db2', 'db2', 'user', 'password')");
+        }
+        addRoute(1, "orders", "orders_0", 1);
+        addRoute(2, "orders", "orders_1", 1);
+        addRoute(1, "lineitem", "lineitem_0", 1);
+        executor = newFixedThreadPool(READERS, daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        executor.shutdownNow();
+        connection.close();
+    }
+
+    @Test
+    public void testFullReload()
+            throws Exception
+    {
+        JdbcLoadTread loadTread = createLoadTread(null);
+        loadTread.loadSubTable();
+        assertReloadsAreAtomic(loadTread);
+    }
+
+    @Test
+    public void testVersionedReload()
+            throws Exception
+    {
+        // the routes are loaded lazily by the readers while the full reloads swap the routing
+        JdbcLoadTread loadTread = createLoadTread("version");
+        assertReloadsAreAtomic(loadTread);
+    }
+
+    private void assertReloadsAreAtomic(JdbcLoadTread loadTread)
+            throws Exception
+    {
+        AtomicBoolean done = new AtomicBoolean();
+        Future<?>[] readers = new Future<?>[READERS];
+        for (int i = 0; i < READERS; i++) {
+            readers[i] = executor.submit(() -> {
+                while (!done.get()) {
+                    assertEquals(loadTread.getSubTables("tpch", "orders").size(), 2);
+                    assertEquals(loadTread.getSubTables("tpch", "lineitem").size(), 1);
+                }
+                return null;
+            });
+        }
+
+        for (int i = 0; i < RELOADS; i++) {
+            // routes of other tables come and go while the reloads run
+            addRoute(2, "customer", "customer_" + i, i + 2);
+            loadTread.loadSubTable();
+        }
+        done.set(true);
+        for (Future<?> reader : readers) {
+            // rethrows the first failed assertion of the reader
+            reader.get();
+        }
+
+        List<JdbcSubTableInfo> customers = loadTread.getSubTables("tpch", "customer");
+        assertEquals(customers.size(), RELOADS);
+        assertTrue(customers.stream().allMatch(subTable -> subTable.getConnectionURL().equals("jdbc:mysql://db2")));
+    }
+
+    private JdbcLoadTread createLoadTread(String versionColumn)
+    {
+        return new JdbcLoadTread(connectionUrl, new Properties(), "test", new Duration(1, MINUTES), versionColumn, new Duration(1, HOURS), new Driver());
+    }
+
+    private void addRoute(int uid, String baseTable, String table, long version)
+            throws SQLException
+    {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format("INSERT INTO route_schema.table_route VALUES (%s, 'tpch', '%s', 'test', 'tpch', '%s', 'false', 1, 'id', 0, 0, 'false', %s)",
+                    uid, table, baseTable, version));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.subtable;
+
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.plugin.jdbc.subtable.JdbcSplitBoundaries.equalWidth;
+import static com.facebook.presto.plugin.jdbc.subtable.JdbcSplitBoundaries.equiDepth;
+import static org.testng.Assert.assertEquals;
+
+public class TestJdbcSplitBoundaries
+{
+    @Test
+    public void testEqualWidth()
+    {
+        assertEquals(equalWidth(0, 100, 4), new long[] {0, 25, 50, 75, 100});
+        assertEquals(equalWidth(-1, 9, 2), new long[] {-1, 4, 9});
+        // more splits than keys
+        assertEquals(equalWidth(0, 3, 10), new long[] {0, 1, 2, 3});
+        assertEquals(equalWidth(5, 5, 4), new long[] {5, 5});
+    }
+
+    @Test
+    public void testEquiDepthUniform()
+    {
+        assertEquals(equiDepth(0, 100, new double[] {10, 10, 10, 10}, 2), new long[] {0, 50, 100});
+        assertEquals(equiDepth(0, 100, new double[] {0, 0, 0, 0}, 4), equalWidth(0, 100, 4));
+    }
+
+    @Test
+    public void testEquiDepthSkewed()
+    {
+        // all rows are in the first quarter of the key range
+        assertEquals(equiDepth(0, 1000, new double[] {100, 0, 0, 0}, 4), new long[] {0, 62, 125, 187, 1000});
+        // half of the rows are in the last bucket
+        assertEquals(equiDepth(0, 400, new double[] {10, 10, 10, 30}, 2), new long[] {0, 300, 400});
+    }
+
+    @Test
+    public void testEquiDepthCollapsedRanges()
+    {
+        // a single key holds all rows
+        assertEquals(equiDepth(0, 4, new double[] {0, 100, 0, 0}, 4), new long[] {0, 1, 4});
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc.subtable;
+
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestJdbcSplitStatsModel
+{
+    private static final double EPSILON = 0.000001;
+
+    @Test
+    public void testUnknownTable()
+    {
+        JdbcSplitStatsModel model = new JdbcSplitStatsModel(new Duration(1000, MILLISECONDS));
+        assertNull(model.getHistogram("schema", "table", 0, 100, 4));
+
+        model.record("schema", "table", 0, 100, 100, 0);
+        assertNull(model.getHistogram("schema", "other", 0, 100, 4));
+        assertNull(model.getHistogram("schema", "table", 100, 200, 4));
+    }
+
+    @Test
+    public void testHistogram()
+    {
+        JdbcSplitStatsModel model = new JdbcSplitStatsModel(new Duration(1000, MILLISECONDS));
+        model.record("schema", "table", 0, 50, 90, 0);
+        model.record("schema", "table", 50, 100, 10, 0);
+        assertHistogram(model.getHistogram("SCHEMA", "TABLE", 0, 100, 4), 45, 45, 5, 5);
+        assertEquals(JdbcSplitBoundaries.equiDepth(0, 100, model.getHistogram("schema", "table", 0, 100, 4), 2), new long[] {0, 27, 100});
+    }
+
+    @Test
+    public void testUnreadRange()
+    {
+        JdbcSplitStatsModel model = new JdbcSplitStatsModel(new Duration(1000, MILLISECONDS));
+        model.record("schema", "table", 0, 50, 50, 0);
+        // rows inserted above the keys read so far are assumed to be as dense as the others
+        assertHistogram(model.getHistogram("schema", "table", 0, 100, 2), 50, 50);
+    }
+
+    @Test
+    public void testOverlappingSplits()
+    {
+        JdbcSplitStatsModel model = new JdbcSplitStatsModel(new Duration(1000, MILLISECONDS));
+        model.record("schema", "table", 0, 100, 100, 0);
+        model.record("schema", "table", 50, 100, 150, 0);
+        // the second split is averaged with the estimate of the first one for (50, 100]
+        assertHistogram(model.getHistogram("schema", "table", 0, 100, 2), 50, 100);
+    }
+
+    @Test
+    public void testDecay()
+    {
+        JdbcSplitStatsModel model = new JdbcSplitStatsModel(new Duration(1000, MILLISECONDS));
+        model.record("schema", "table", 0, 100, 100, 0);
+        model.record("schema", "table", 0, 100, 400, 1000);
+        // the first split has lost half of its weight
+        assertHistogram(model.getHistogram("schema", "table", 0, 100, 1), (100 * 0.5 + 400) / 1.5);
+    }
+
+    @Test
+    public void testCompaction()
+    {
+        JdbcSplitStatsModel model = new JdbcSplitStatsModel(new Duration(1000, MILLISECONDS));
+        for (int i = 0; i < 5000; i++) {
+            model.record("schema", "table", i * 10, i * 10 + 10, 10, 0);
+        }
+        double[] histogram = model.getHistogram("schema", "table", 0, 50000, 5);
+        assertHistogram(histogram, 10000, 10000, 10000, 10000, 10000);
+    }
+
+    private static void assertHistogram(double[] actual, double... expected)
+    {
+        assertEquals(actual.length, expected.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(actual[i], expected[i], EPSILON);
+        }
+    }
+}
@@ -18,6 +18,8 @@ import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
@@ -31,10 +33,12 @@ import org.joda.time.DateTimeZone;
 import javax.inject.Inject;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 
+import static com.facebook.presto.hive.HiveUtil.parsePartitionValue;
 import static com.facebook.presto.hive.util.Types.checkType;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.transform;
@@ -69,7 +73,37 @@ public class HivePageSourceProvider
     public ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns)
     {
         HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
+        return createHivePageSource(hiveSplit, columns, hiveSplit.getEffectivePredicate());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns, TupleDomain<ConnectorColumnHandle> dynamicFilter)
+    {
+        HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
+        TupleDomain<HiveColumnHandle> filter = dynamicFilter.transform(HiveColumnHandle::toHiveColumnHandle);
+
+        // skip the whole split when its partition falls outside of the filter
+        for (HivePartitionKey partitionKey : hiveSplit.getPartitionKeys()) {
+            for (Map.Entry<HiveColumnHandle, Domain> entry : filter.getDomains().entrySet()) {
+                if (entry.getKey().getName().equals(partitionKey.getName())) {
+                    Comparable<?> value = parsePartitionValue(hiveSplit.getPartitionName(), partitionKey.getValue(), partitionKey.getHiveType(), hiveStorageTimeZone).getValue();
+                    if (!entry.getValue().includesValue(value)) {
+                        return new FixedPageSource(ImmutableList.of());
+                    }
+                }
+            }
+        }
+
+        // the readers use the combined predicate to skip stripes and row groups
+        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate().intersect(filter);
+        if (effectivePredicate.isNone()) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+        return createHivePageSource(hiveSplit, columns, effectivePredicate);
+    }
 
+    private ConnectorPageSource createHivePageSource(HiveSplit hiveSplit, List<ConnectorColumnHandle> columns, TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
         String clientId = hiveSplit.getClientId();
         ConnectorSession session = hiveSplit.getSession();
 
@@ -79,8 +113,6 @@ public class HivePageSourceProvider
 
         Configuration configuration = hdfsEnvironment.getConfiguration(path);
 
-        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate();
-
         Properties schema = hiveSplit.getSchema();
 
         List<HivePartitionKey> partitionKeys = hiveSplit.getPartitionKeys();
@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.HiveTestUtils.DEFAULT_HIVE_RECORD_CURSOR_PROVIDER;
+import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
+import static java.util.Locale.ENGLISH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestHivePageSourceProvider
+{
+    private static final ConnectorSession SESSION = new ConnectorSession("user", UTC_KEY, ENGLISH, System.currentTimeMillis(), null);
+
+    private static final HiveColumnHandle DS_COLUMN = new HiveColumnHandle("test", "ds", 0, HIVE_LONG, parseTypeSignature(StandardTypes.BIGINT), -1, true);
+    private static final HiveColumnHandle VALUE_COLUMN = new HiveColumnHandle("test", "value", 1, HIVE_LONG, parseTypeSignature(StandardTypes.BIGINT), 0, false);
+    private static final List<ConnectorColumnHandle> COLUMNS = ImmutableList.of(DS_COLUMN, VALUE_COLUMN);
+
+    @Test
+    public void testSkipsPartitionOutsideDynamicFilter()
+    {
+        TestingPageSourceFactory pageSourceFactory = new TestingPageSourceFactory();
+        ConnectorPageSource pageSource = createPageSourceProvider(pageSourceFactory).createPageSource(
+                createSplit(TupleDomain.<HiveColumnHandle>all()),
+                COLUMNS,
+                dynamicFilter(DS_COLUMN, Domain.singleValue(20150102L)));
+
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSourceFactory.getEffectivePredicate());
+    }
+
+    @Test
+    public void testReadsPartitionInsideDynamicFilter()
+    {
+        TestingPageSourceFactory pageSourceFactory = new TestingPageSourceFactory();
+        TupleDomain<HiveColumnHandle> splitPredicate = TupleDomain.withColumnDomains(ImmutableMap.of(VALUE_COLUMN, Domain.singleValue(7L)));
+        createPageSourceProvider(pageSourceFactory).createPageSource(
+                createSplit(splitPredicate),
+                COLUMNS,
+                dynamicFilter(DS_COLUMN, Domain.singleValue(20150101L)));
+
+        // the file readers see the dynamic filter together with the predicate of the split
+        assertEquals(pageSourceFactory.getEffectivePredicate(), TupleDomain.withColumnDomains(ImmutableMap.of(
+                DS_COLUMN, Domain.singleValue(20150101L),
+                VALUE_COLUMN, Domain.singleValue(7L))));
+    }
+
+    @Test
+    public void testSkipsSplitOutsideEffectivePredicate()
+    {
+        TestingPageSourceFactory pageSourceFactory = new TestingPageSourceFactory();
+        TupleDomain<HiveColumnHandle> splitPredicate = TupleDomain.withColumnDomains(ImmutableMap.of(VALUE_COLUMN, Domain.singleValue(7L)));
+        ConnectorPageSource pageSource = createPageSourceProvider(pageSourceFactory).createPageSource(
+                createSplit(splitPredicate),
+                COLUMNS,
+                dynamicFilter(VALUE_COLUMN, Domain.singleValue(8L)));
+
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSourceFactory.getEffectivePredicate());
+    }
+
+    private static HivePageSourceProvider createPageSourceProvider(HivePageSourceFactory pageSourceFactory)
+    {
+        HiveClientConfig hiveClientConfig = new HiveClientConfig();
+        HdfsEnvironment hdfsEnvironment = new HdfsEnvironment(new HiveHdfsConfiguration(new HdfsConfigurationUpdater(hiveClientConfig)), hiveClientConfig);
+        return new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, DEFAULT_HIVE_RECORD_CURSOR_PROVIDER, ImmutableSet.of(pageSourceFactory), TYPE_MANAGER);
+    }
+
+    private static HiveSplit createSplit(TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+        return new HiveSplit(
+                "test",
+                "db",
+                "table",
+                "ds=20150101",
+                "file:///tmp/table/ds=20150101/file",
+                0,
+                100,
+                new Properties(),
+                ImmutableList.of(new HivePartitionKey("ds", HIVE_LONG, "20150101")),
+                ImmutableList.<HostAddress>of(),
+                false,
+                SESSION,
+                effectivePredicate);
+    }
+
+    private static TupleDomain<ConnectorColumnHandle> dynamicFilter(HiveColumnHandle column, Domain domain)
+    {
+        return TupleDomain.withColumnDomains(ImmutableMap.<ConnectorColumnHandle, Domain>of(column, domain));
+    }
+
+    private static class TestingPageSourceFactory
+            implements HivePageSourceFactory
+    {
+        private TupleDomain<HiveColumnHandle> effectivePredicate;
+
+        public TupleDomain<HiveColumnHandle> getEffectivePredicate()
+        {
+            return effectivePredicate;
+        }
+
+        @Override
+        public Optional<? extends ConnectorPageSource> createPageSource(
+                Configuration configuration,
+                ConnectorSession session,
+                Path path,
+                long start,
+                long length,
+                Properties schema,
+                List<HiveColumnHandle> columns,
+                List<HivePartitionKey> partitionKeys,
+                TupleDomain<HiveColumnHandle> effectivePredicate,
+                DateTimeZone hiveStorageTimeZone)
+        {
+            this.effectivePredicate = effectivePredicate;
+            return Optional.of(new FixedPageSource(ImmutableList.of()));
+        }
+    }
+}
@@ -25,4 +25,14 @@ public class ExceededMemoryLimitException
     {
         super(EXCEEDED_MEMORY_LIMIT, String.format("Task exceeded max memory size of %s", maxMemory));
     }
+
+    private ExceededMemoryLimitException(String message)
+    {
+        super(EXCEEDED_MEMORY_LIMIT, message);
+    }
+
+    public static ExceededMemoryLimitException exceededGlobalLimit(DataSize maxMemory)
+    {
+        return new ExceededMemoryLimitException(String.format("Query exceeded max memory size of %s", maxMemory));
+    }
 }
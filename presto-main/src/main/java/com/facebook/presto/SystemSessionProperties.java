@@ -22,6 +22,7 @@ public final class SystemSessionProperties
     private static final String DISTRIBUTED_JOIN = "distributed_join";
     private static final String TASK_WRITER_COUNT = "task_writer_count";
     private static final String TASK_MAX_MEMORY = "task_max_memory";
+    public static final String DYNAMIC_FILTERING = "dynamic_filtering";
 
     private SystemSessionProperties() {}
 
@@ -78,6 +79,11 @@ public final class SystemSessionProperties
         return isEnabled(DISTRIBUTED_JOIN, session, defaultValue);
     }
 
+    public static boolean isDynamicFilteringEnabled(Session session, boolean defaultValue)
+    {
+        return isEnabled(DYNAMIC_FILTERING, session, defaultValue);
+    }
+
     public static int getTaskWriterCount(Session session, int defaultValue)
     {
         return getNumber(TASK_WRITER_COUNT, session, defaultValue);
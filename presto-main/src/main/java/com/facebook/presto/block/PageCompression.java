@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import javax.annotation.Nullable;
+
+/**
+ * Codec used for the page frames of an exchange response. The client names the
+ * codec it accepts in the {@code X-Presto-Page-Compression} request header, and
+ * the server echoes it back only when the response body uses it, so clients and
+ * servers that do not know the header keep exchanging raw pages.
+ */
+public enum PageCompression
+{
+    NONE,
+    SNAPPY;
+
+    public static PageCompression fromHeader(@Nullable String value)
+    {
+        if (value != null) {
+            for (PageCompression compression : values()) {
+                if (compression.name().equalsIgnoreCase(value.trim())) {
+                    return compression;
+                }
+            }
+        }
+        return NONE;
+    }
+}
@@ -18,9 +18,15 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncoding;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.collect.AbstractIterator;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import org.iq80.snappy.Snappy;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Iterator;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -32,8 +38,15 @@ import static java.util.Arrays.asList;
 //   - sequence of:
 //       - block encoding
 //       - block
+//
+// compressed layout is a sequence of frames, one per page:
+//   - uncompressed size (int)
+//   - compressed size (int), equal to the uncompressed size if the page did not compress
+//   - the page in the layout above, compressed with snappy
 public final class PagesSerde
 {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
     private PagesSerde() {}
 
     public static void writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Page... pages)
@@ -59,6 +72,34 @@ public final class PagesSerde
         return new PagesReader(blockEncodingSerde, sliceInput);
     }
 
+    public static void writeCompressedPages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Iterable<Page> pages)
+    {
+        CompressedPagesWriter pagesWriter = new CompressedPagesWriter(blockEncodingSerde, sliceOutput);
+        for (Page page : pages) {
+            pagesWriter.append(page);
+        }
+    }
+
+    public static CompressedPagesReader readCompressedPages(BlockEncodingSerde blockEncodingSerde, SliceInput sliceInput)
+    {
+        return new CompressedPagesReader(blockEncodingSerde, sliceInput);
+    }
+
+    private static Page readPage(BlockEncodingSerde serde, SliceInput input)
+    {
+        int positions = input.readInt();
+        int numberOfBlocks = input.readInt();
+        Block[] blocks = new Block[numberOfBlocks];
+        for (int i = 0; i < blocks.length; i++) {
+            BlockEncoding encoding = serde.readBlockEncoding(input);
+            blocks[i] = encoding.readBlock(input);
+        }
+
+        @SuppressWarnings("UnnecessaryLocalVariable")
+        Page page = new Page(positions, blocks);
+        return page;
+    }
+
     private static class PagesWriter
     {
         private final BlockEncodingSerde serde;
@@ -107,17 +148,109 @@ public final class PagesSerde
                 return endOfData();
             }
 
-            int positions = input.readInt();
-            int numberOfBlocks = input.readInt();
-            Block[] blocks = new Block[numberOfBlocks];
-            for (int i = 0; i < blocks.length; i++) {
-                BlockEncoding encoding = serde.readBlockEncoding(input);
-                blocks[i] = encoding.readBlock(input);
+            return readPage(serde, input);
+        }
+    }
+
+    private static class CompressedPagesWriter
+    {
+        private final PagesWriter pageWriter;
+        private final DynamicSliceOutput buffer = new DynamicSliceOutput(64 * 1024);
+        private final SliceOutput output;
+        private byte[] compressed = new byte[0];
+
+        private CompressedPagesWriter(BlockEncodingSerde serde, SliceOutput output)
+        {
+            this.pageWriter = new PagesWriter(serde, buffer);
+            this.output = checkNotNull(output, "output is null");
+        }
+
+        public CompressedPagesWriter append(Page page)
+        {
+            checkNotNull(page, "page is null");
+
+            buffer.reset();
+            pageWriter.append(page);
+            Slice serialized = buffer.slice();
+            byte[] uncompressed = serialized.getBytes();
+
+            int maxCompressedLength = Snappy.maxCompressedLength(uncompressed.length);
+            if (compressed.length < maxCompressedLength) {
+                compressed = new byte[maxCompressedLength];
             }
+            int compressedLength = Snappy.compress(uncompressed, 0, uncompressed.length, compressed, 0);
 
-            @SuppressWarnings("UnnecessaryLocalVariable")
-            Page page = new Page(positions, blocks);
-            return page;
+            output.writeInt(uncompressed.length);
+            if (compressedLength < uncompressed.length) {
+                output.writeInt(compressedLength);
+                output.writeBytes(compressed, 0, compressedLength);
+            }
+            else {
+                output.writeInt(uncompressed.length);
+                output.writeBytes(uncompressed);
+            }
+            return this;
+        }
+    }
+
+    public static class CompressedPagesReader
+            extends AbstractIterator<Page>
+    {
+        private final BlockEncodingSerde serde;
+        private final SliceInput input;
+
+        private long compressedBytes;
+        private long uncompressedBytes;
+        private long decompressionCpuNanos;
+
+        private CompressedPagesReader(BlockEncodingSerde serde, SliceInput input)
+        {
+            this.serde = checkNotNull(serde, "serde is null");
+            this.input = checkNotNull(input, "input is null");
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            if (!input.isReadable()) {
+                return endOfData();
+            }
+
+            int uncompressedSize = input.readInt();
+            int compressedSize = input.readInt();
+            byte[] frame = new byte[compressedSize];
+            input.readBytes(frame);
+
+            compressedBytes += compressedSize;
+            uncompressedBytes += uncompressedSize;
+
+            Slice page;
+            if (compressedSize == uncompressedSize) {
+                page = Slices.wrappedBuffer(frame);
+            }
+            else {
+                long start = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+                byte[] uncompressed = new byte[uncompressedSize];
+                Snappy.uncompress(frame, 0, compressedSize, uncompressed, 0);
+                decompressionCpuNanos += THREAD_MX_BEAN.getCurrentThreadCpuTime() - start;
+                page = Slices.wrappedBuffer(uncompressed);
+            }
+            return readPage(serde, page.getInput());
+        }
+
+        public long getCompressedBytes()
+        {
+            return compressedBytes;
+        }
+
+        public long getUncompressedBytes()
+        {
+            return uncompressedBytes;
+        }
+
+        public long getDecompressionCpuNanos()
+        {
+            return decompressionCpuNanos;
         }
     }
 }
@@ -16,6 +16,7 @@ package com.facebook.presto.execution;
 import com.facebook.presto.Session;
 import com.facebook.presto.event.query.QueryMonitor;
 import com.facebook.presto.execution.QueryExecution.QueryExecutionFactory;
+import com.facebook.presto.memory.ClusterMemoryManager;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.sql.parser.ParsingException;
 import com.facebook.presto.sql.parser.SqlParser;
@@ -84,6 +85,7 @@ public class SqlQueryManager
     private final QueryMonitor queryMonitor;
     private final LocationFactory locationFactory;
     private final QueryIdGenerator queryIdGenerator;
+    private final ClusterMemoryManager memoryManager;
 
     private final Map<Class<? extends Statement>, QueryExecutionFactory<?>> executionFactories;
 
@@ -97,6 +99,7 @@ public class SqlQueryManager
             QueryQueueManager queueManager,
             QueryIdGenerator queryIdGenerator,
             LocationFactory locationFactory,
+            ClusterMemoryManager memoryManager,
             Map<Class<? extends Statement>, QueryExecutionFactory<?>> executionFactories)
     {
         this.sqlParser = checkNotNull(sqlParser, "sqlParser is null");
@@ -112,6 +115,7 @@ public class SqlQueryManager
         this.queryMonitor = checkNotNull(queryMonitor, "queryMonitor is null");
         this.locationFactory = checkNotNull(locationFactory, "locationFactory is null");
         this.queryIdGenerator = checkNotNull(queryIdGenerator, "queryIdGenerator is null");
+        this.memoryManager = checkNotNull(memoryManager, "memoryManager is null");
 
         this.maxQueryAge = config.getMaxQueryAge();
         this.maxQueryHistory = config.getMaxQueryHistory();
@@ -131,6 +135,13 @@ public class SqlQueryManager
                     log.warn(e, "Error cancelling abandoned queries");
                 }
 
+                try {
+                    enforceMemoryLimits();
+                }
+                catch (Throwable e) {
+                    log.error(e, "Error enforcing memory limits");
+                }
+
                 try {
                     removeExpiredQueries();
                 }
@@ -370,6 +381,13 @@ public class SqlQueryManager
         }
     }
 
+    private void enforceMemoryLimits()
+    {
+        memoryManager.process(queries.values().stream()
+                .filter(query -> !query.getQueryInfo().getState().isDone())
+                .collect(toImmutableList()));
+    }
+
     private boolean isAbandoned(QueryExecution query)
     {
         DateTime oldestAllowedHeartbeat = DateTime.now().minus(clientTimeout.toMillis());
@@ -16,6 +16,7 @@ package com.facebook.presto.execution;
 import com.facebook.presto.Session;
 import com.facebook.presto.TaskSource;
 import com.facebook.presto.event.query.QueryMonitor;
+import com.facebook.presto.memory.MemoryPool;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.sql.planner.LocalExecutionPlanner;
@@ -40,6 +41,7 @@ public class SqlTaskExecutionFactory
 
     private final LocalExecutionPlanner planner;
     private final QueryMonitor queryMonitor;
+    private final MemoryPool memoryPool;
     private final DataSize maxTaskMemoryUsage;
     private final DataSize bigQueryMaxTaskMemoryUsage;
     private final DataSize operatorPreAllocatedMemory;
@@ -51,6 +53,7 @@ public class SqlTaskExecutionFactory
             TaskExecutor taskExecutor,
             LocalExecutionPlanner planner,
             QueryMonitor queryMonitor,
+            MemoryPool memoryPool,
             TaskManagerConfig config)
     {
         this(
@@ -58,6 +61,7 @@ public class SqlTaskExecutionFactory
                 taskExecutor,
                 planner,
                 queryMonitor,
+                memoryPool,
                 config.getMaxTaskMemoryUsage(),
                 config.getBigQueryMaxTaskMemoryUsage(),
                 config.getOperatorPreAllocatedMemory(),
@@ -70,6 +74,7 @@ public class SqlTaskExecutionFactory
             TaskExecutor taskExecutor,
             LocalExecutionPlanner planner,
             QueryMonitor queryMonitor,
+            MemoryPool memoryPool,
             DataSize maxTaskMemoryUsage,
             DataSize bigQueryMaxTaskMemoryUsage,
             DataSize operatorPreAllocatedMemory,
@@ -80,6 +85,7 @@ public class SqlTaskExecutionFactory
         this.taskExecutor = checkNotNull(taskExecutor, "taskExecutor is null");
         this.planner = checkNotNull(planner, "planner is null");
         this.queryMonitor = checkNotNull(queryMonitor, "queryMonitor is null");
+        this.memoryPool = checkNotNull(memoryPool, "memoryPool is null");
         this.maxTaskMemoryUsage = checkNotNull(maxTaskMemoryUsage, "maxTaskMemoryUsage is null");
         this.bigQueryMaxTaskMemoryUsage = checkNotNull(bigQueryMaxTaskMemoryUsage, "bigQueryMaxTaskMemoryUsage is null");
         this.operatorPreAllocatedMemory = checkNotNull(operatorPreAllocatedMemory, "operatorPreAllocatedMemory is null");
@@ -94,6 +100,7 @@ public class SqlTaskExecutionFactory
                 taskStateMachine,
                 taskNotificationExecutor,
                 session,
+                memoryPool,
                 isBigQueryEnabled(session, false) ? bigQueryMaxTaskMemoryUsage : getTaskMaxMemory(session, maxTaskMemoryUsage),
                 checkNotNull(operatorPreAllocatedMemory, "operatorPreAllocatedMemory is null"),
                 verboseStats,
@@ -24,6 +24,7 @@ import io.airlift.units.MinDuration;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
 
 public class TaskManagerConfig
@@ -44,6 +45,11 @@ public class TaskManagerConfig
     private Duration infoMaxAge = new Duration(15, TimeUnit.MINUTES);
     private int writerCount = 1;
     private int httpNotificationThreads = 25;
+    private boolean dynamicFilteringEnabled = true;
+
+    private boolean spillEnabled;
+    private String spillPath = Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString();
+    private DataSize maxSpillPerNode = new DataSize(100, Unit.GIGABYTE);
 
     public boolean isVerboseStats()
     {
@@ -232,4 +238,58 @@ public class TaskManagerConfig
         this.httpNotificationThreads = httpNotificationThreads;
         return this;
     }
+
+    public boolean isDynamicFilteringEnabled()
+    {
+        return dynamicFilteringEnabled;
+    }
+
+    @Config("task.dynamic-filtering-enabled")
+    @ConfigDescription("Skip probe side data of inner joins that can not match the join keys on the build side")
+    public TaskManagerConfig setDynamicFilteringEnabled(boolean dynamicFilteringEnabled)
+    {
+        this.dynamicFilteringEnabled = dynamicFilteringEnabled;
+        return this;
+    }
+
+    public boolean isSpillEnabled()
+    {
+        return spillEnabled;
+    }
+
+    @Config("experimental.spill-enabled")
+    @ConfigDescription("Spill aggregation, sort and window state to local disk when task memory is exhausted")
+    public TaskManagerConfig setSpillEnabled(boolean spillEnabled)
+    {
+        this.spillEnabled = spillEnabled;
+        return this;
+    }
+
+    @NotNull
+    public String getSpillPath()
+    {
+        return spillPath;
+    }
+
+    @Config("experimental.spill-path")
+    @ConfigDescription("Comma-separated list of local directories for spill files")
+    public TaskManagerConfig setSpillPath(String spillPath)
+    {
+        this.spillPath = spillPath;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxSpillPerNode()
+    {
+        return maxSpillPerNode;
+    }
+
+    @Config("experimental.max-spill-per-node")
+    @ConfigDescription("Maximum amount of spilled data that may be on local disk at once across all queries")
+    public TaskManagerConfig setMaxSpillPerNode(DataSize maxSpillPerNode)
+    {
+        this.maxSpillPerNode = maxSpillPerNode;
+        return this;
+    }
 }
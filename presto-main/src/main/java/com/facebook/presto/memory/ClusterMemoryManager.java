@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.execution.QueryExecution;
+import com.facebook.presto.execution.QueryId;
+import com.facebook.presto.metadata.InternalNodeManager;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import io.airlift.http.client.HttpClient;
+import io.airlift.json.JsonCodec;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.spi.StandardErrorCode.CLUSTER_OUT_OF_MEMORY;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Sets.difference;
+import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Collects the memory pools of all nodes on the coordinator, fails queries that
+ * use more memory across the cluster than they are allowed to, and kills the
+ * query using the most memory when a node has been out of memory for too long.
+ */
+@ThreadSafe
+public class ClusterMemoryManager
+{
+    private static final Logger log = Logger.get(ClusterMemoryManager.class);
+
+    private final InternalNodeManager nodeManager;
+    private final Function<Node, RemoteNodeMemory> remoteNodeMemoryFactory;
+    private final Ticker ticker;
+    private final DataSize maxQueryMemory;
+    private final boolean killOnOutOfMemory;
+    private final Duration killOnOutOfMemoryDelay;
+
+    @GuardedBy("this")
+    private final Map<String, RemoteNodeMemory> nodes = new HashMap<>();
+
+    @GuardedBy("this")
+    private long lastTimeNotOutOfMemory;
+
+    private final AtomicLong clusterMemoryUsageBytes = new AtomicLong();
+    private final AtomicLong clusterMemoryBytes = new AtomicLong();
+    private final AtomicLong blockedNodes = new AtomicLong();
+    private final AtomicLong queriesKilledDueToOutOfMemory = new AtomicLong();
+
+    @Inject
+    public ClusterMemoryManager(
+            @ForMemoryManager HttpClient httpClient,
+            InternalNodeManager nodeManager,
+            JsonCodec<MemoryInfo> memoryInfoCodec,
+            MemoryManagerConfig config)
+    {
+        this(nodeManager, remoteNodeMemoryFactory(httpClient, memoryInfoCodec), config, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    ClusterMemoryManager(
+            InternalNodeManager nodeManager,
+            Function<Node, RemoteNodeMemory> remoteNodeMemoryFactory,
+            MemoryManagerConfig config,
+            Ticker ticker)
+    {
+        this.nodeManager = checkNotNull(nodeManager, "nodeManager is null");
+        this.remoteNodeMemoryFactory = checkNotNull(remoteNodeMemoryFactory, "remoteNodeMemoryFactory is null");
+        this.ticker = checkNotNull(ticker, "ticker is null");
+        checkNotNull(config, "config is null");
+        this.maxQueryMemory = config.getMaxQueryMemory();
+        this.killOnOutOfMemory = config.isKillOnOutOfMemory();
+        this.killOnOutOfMemoryDelay = config.getKillOnOutOfMemoryDelay();
+        this.lastTimeNotOutOfMemory = ticker.read();
+    }
+
+    private static Function<Node, RemoteNodeMemory> remoteNodeMemoryFactory(HttpClient httpClient, JsonCodec<MemoryInfo> memoryInfoCodec)
+    {
+        checkNotNull(httpClient, "httpClient is null");
+        checkNotNull(memoryInfoCodec, "memoryInfoCodec is null");
+        return node -> new RemoteNodeMemory(httpClient, uriBuilderFrom(node.getHttpUri()).appendPath("/v1/memory").build(), memoryInfoCodec);
+    }
+
+    /**
+     * Enforces the memory limits on the running queries, using the pools most
+     * recently reported by the nodes, and requests fresh pools from the nodes.
+     */
+    public synchronized void process(Iterable<QueryExecution> queries)
+    {
+        Map<QueryId, Long> queryMemoryReservations = new HashMap<>();
+        long totalBytes = 0;
+        long freeBytes = 0;
+        int outOfMemoryNodes = 0;
+        for (RemoteNodeMemory node : nodes.values()) {
+            Optional<MemoryInfo> info = node.getInfo();
+            if (!info.isPresent()) {
+                continue;
+            }
+            for (MemoryPoolInfo pool : info.get().getPools().values()) {
+                totalBytes += pool.getMaxBytes();
+                freeBytes += pool.getFreeBytes();
+                if (pool.getFreeBytes() < 0) {
+                    outOfMemoryNodes++;
+                }
+                pool.getQueryMemoryReservations().forEach((queryId, bytes) -> queryMemoryReservations.merge(queryId, bytes, Long::sum));
+            }
+        }
+        clusterMemoryBytes.set(totalBytes);
+        clusterMemoryUsageBytes.set(totalBytes - freeBytes);
+        blockedNodes.set(outOfMemoryNodes);
+
+        QueryExecution biggestQuery = null;
+        long biggestQueryBytes = 0;
+        for (QueryExecution query : queries) {
+            long bytes = queryMemoryReservations.getOrDefault(query.getQueryId(), 0L);
+            if (bytes > maxQueryMemory.toBytes()) {
+                query.fail(ExceededMemoryLimitException.exceededGlobalLimit(maxQueryMemory));
+                continue;
+            }
+            if (bytes > biggestQueryBytes) {
+                biggestQuery = query;
+                biggestQueryBytes = bytes;
+            }
+        }
+
+        if (outOfMemoryNodes == 0) {
+            lastTimeNotOutOfMemory = ticker.read();
+        }
+        else if (killOnOutOfMemory && biggestQuery != null && ticker.read() - lastTimeNotOutOfMemory > killOnOutOfMemoryDelay.roundTo(NANOSECONDS)) {
+            log.info("%s nodes are out of memory, killing query %s which is using %s bytes", outOfMemoryNodes, biggestQuery.getQueryId(), biggestQueryBytes);
+            biggestQuery.fail(new PrestoException(CLUSTER_OUT_OF_MEMORY, "Query killed because the cluster is out of memory. Please try again in a few minutes."));
+            queriesKilledDueToOutOfMemory.incrementAndGet();
+
+            // give the nodes time to free the memory of the killed query
+            lastTimeNotOutOfMemory = ticker.read();
+        }
+
+        updateNodes();
+    }
+
+    @GuardedBy("this")
+    private void updateNodes()
+    {
+        Set<Node> activeNodes = nodeManager.getAllNodes().getActiveNodes();
+        Set<String> activeNodeIds = activeNodes.stream()
+                .map(Node::getNodeIdentifier)
+                .collect(toSet());
+
+        // remove nodes that are no longer active
+        nodes.keySet().removeAll(difference(nodes.keySet(), activeNodeIds).immutableCopy());
+
+        for (Node node : activeNodes) {
+            RemoteNodeMemory remoteNode = nodes.computeIfAbsent(node.getNodeIdentifier(), id -> remoteNodeMemoryFactory.apply(node));
+            remoteNode.asyncRefresh();
+        }
+    }
+
+    @Managed
+    public long getClusterMemoryBytes()
+    {
+        return clusterMemoryBytes.get();
+    }
+
+    @Managed
+    public long getClusterMemoryUsageBytes()
+    {
+        return clusterMemoryUsageBytes.get();
+    }
+
+    @Managed
+    public long getBlockedNodes()
+    {
+        return blockedNodes.get();
+    }
+
+    @Managed
+    public long getQueriesKilledDueToOutOfMemory()
+    {
+        return queriesKilledDueToOutOfMemory.get();
+    }
+}
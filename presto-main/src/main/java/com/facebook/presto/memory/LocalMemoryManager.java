@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+
+import javax.inject.Inject;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.units.DataSize.Unit.BYTE;
+
+public class LocalMemoryManager
+{
+    public static final String GENERAL_POOL = "general";
+
+    private final DataSize maxMemory;
+    private final MemoryPool generalPool;
+
+    @Inject
+    public LocalMemoryManager(ReservedSystemMemoryConfig config)
+    {
+        this(checkNotNull(config, "config is null").getReservedSystemMemory(), Runtime.getRuntime().maxMemory());
+    }
+
+    public LocalMemoryManager(DataSize reservedSystemMemory, long availableMemory)
+    {
+        checkNotNull(reservedSystemMemory, "reservedSystemMemory is null");
+        long maxMemory = availableMemory - reservedSystemMemory.toBytes();
+        checkArgument(maxMemory > 0, "Max memory %s is less than reserved system memory %s", new DataSize(availableMemory, BYTE), reservedSystemMemory);
+
+        this.maxMemory = new DataSize(maxMemory, BYTE).convertToMostSuccinctDataSize();
+        this.generalPool = new MemoryPool(GENERAL_POOL, new DataSize(maxMemory, BYTE));
+    }
+
+    public MemoryPool getGeneralPool()
+    {
+        return generalPool;
+    }
+
+    public MemoryInfo getInfo()
+    {
+        return new MemoryInfo(maxMemory, ImmutableMap.of(GENERAL_POOL, generalPool.getInfo()));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class MemoryInfo
+{
+    private final DataSize totalNodeMemory;
+    private final Map<String, MemoryPoolInfo> pools;
+
+    @JsonCreator
+    public MemoryInfo(
+            @JsonProperty("totalNodeMemory") DataSize totalNodeMemory,
+            @JsonProperty("pools") Map<String, MemoryPoolInfo> pools)
+    {
+        this.totalNodeMemory = checkNotNull(totalNodeMemory, "totalNodeMemory is null");
+        this.pools = ImmutableMap.copyOf(checkNotNull(pools, "pools is null"));
+    }
+
+    @JsonProperty
+    public DataSize getTotalNodeMemory()
+    {
+        return totalNodeMemory;
+    }
+
+    @JsonProperty
+    public Map<String, MemoryPoolInfo> getPools()
+    {
+        return pools;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("totalNodeMemory", totalNodeMemory)
+                .add("pools", pools)
+                .toString();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import javax.validation.constraints.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+
+public class MemoryManagerConfig
+{
+    private DataSize maxQueryMemory = new DataSize(20, GIGABYTE);
+    private boolean killOnOutOfMemory = true;
+    private Duration killOnOutOfMemoryDelay = new Duration(5, TimeUnit.MINUTES);
+
+    @NotNull
+    public DataSize getMaxQueryMemory()
+    {
+        return maxQueryMemory;
+    }
+
+    @Config("query.max-memory")
+    @ConfigDescription("Maximum memory a query may use across all nodes")
+    public MemoryManagerConfig setMaxQueryMemory(DataSize maxQueryMemory)
+    {
+        this.maxQueryMemory = maxQueryMemory;
+        return this;
+    }
+
+    public boolean isKillOnOutOfMemory()
+    {
+        return killOnOutOfMemory;
+    }
+
+    @Config("query.low-memory-killer.enabled")
+    @ConfigDescription("Kill the query using the most memory when a node has been out of memory for too long")
+    public MemoryManagerConfig setKillOnOutOfMemory(boolean killOnOutOfMemory)
+    {
+        this.killOnOutOfMemory = killOnOutOfMemory;
+        return this;
+    }
+
+    @NotNull
+    public Duration getKillOnOutOfMemoryDelay()
+    {
+        return killOnOutOfMemoryDelay;
+    }
+
+    @Config("query.low-memory-killer.delay")
+    @ConfigDescription("How long a node must be out of memory before a query is killed")
+    public MemoryManagerConfig setKillOnOutOfMemoryDelay(Duration killOnOutOfMemoryDelay)
+    {
+        this.killOnOutOfMemoryDelay = killOnOutOfMemoryDelay;
+        return this;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.execution.QueryId;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Memory shared by all queries running on this node. Reservations are always
+ * granted, but once the pool is over-committed the returned future does not
+ * complete until enough memory is freed, so drivers stop making progress
+ * instead of running the JVM out of memory.
+ */
+@ThreadSafe
+public class MemoryPool
+{
+    private static final ListenableFuture<?> NOT_BLOCKED = Futures.immediateFuture(null);
+
+    private final String id;
+    private final long maxBytes;
+
+    @GuardedBy("this")
+    private long freeBytes;
+
+    @GuardedBy("this")
+    private final Map<QueryId, Long> queryMemoryReservations = new HashMap<>();
+
+    // null when the pool is not over-committed
+    @GuardedBy("this")
+    private SettableFuture<?> future;
+
+    public MemoryPool(String id, DataSize size)
+    {
+        this.id = checkNotNull(id, "id is null");
+        this.maxBytes = checkNotNull(size, "size is null").toBytes();
+        this.freeBytes = maxBytes;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    public synchronized long getFreeBytes()
+    {
+        return freeBytes;
+    }
+
+    /**
+     * Reserves memory for the query, and returns a future that completes when
+     * the pool is no longer over-committed.
+     */
+    public synchronized ListenableFuture<?> reserve(QueryId queryId, long bytes)
+    {
+        checkNotNull(queryId, "queryId is null");
+        checkArgument(bytes >= 0, "bytes is negative");
+
+        if (bytes != 0) {
+            queryMemoryReservations.merge(queryId, bytes, Long::sum);
+        }
+        freeBytes -= bytes;
+        return isBlocked();
+    }
+
+    public void free(QueryId queryId, long bytes)
+    {
+        checkNotNull(queryId, "queryId is null");
+        checkArgument(bytes >= 0, "bytes is negative");
+
+        SettableFuture<?> unblocked = null;
+        synchronized (this) {
+            Long reservation = queryMemoryReservations.get(queryId);
+            checkArgument(reservation != null && reservation >= bytes, "tried to free more memory than is reserved by %s", queryId);
+            if (reservation == bytes) {
+                queryMemoryReservations.remove(queryId);
+            }
+            else {
+                queryMemoryReservations.put(queryId, reservation - bytes);
+            }
+            freeBytes += bytes;
+
+            if (freeBytes >= 0 && future != null) {
+                unblocked = future;
+                future = null;
+            }
+        }
+
+        // complete the future outside of the lock, since listeners run inline
+        if (unblocked != null) {
+            unblocked.set(null);
+        }
+    }
+
+    /**
+     * Returns a future that completes when the pool is no longer over-committed.
+     */
+    public synchronized ListenableFuture<?> isBlocked()
+    {
+        if (freeBytes >= 0) {
+            return NOT_BLOCKED;
+        }
+        if (future == null) {
+            future = SettableFuture.create();
+        }
+        return future;
+    }
+
+    public synchronized MemoryPoolInfo getInfo()
+    {
+        return new MemoryPoolInfo(maxBytes, freeBytes, ImmutableMap.copyOf(queryMemoryReservations));
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return toStringHelper(this)
+                .add("id", id)
+                .add("maxBytes", maxBytes)
+                .add("freeBytes", freeBytes)
+                .toString();
+    }
+}
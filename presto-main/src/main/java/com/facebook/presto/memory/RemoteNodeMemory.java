@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.net.MediaType;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.HttpStatus;
+import io.airlift.http.client.Request;
+import io.airlift.json.JsonCodec;
+import io.airlift.log.Logger;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * The most recent memory info reported by a node.
+ */
+@ThreadSafe
+public class RemoteNodeMemory
+{
+    private static final Logger log = Logger.get(RemoteNodeMemory.class);
+
+    // info older than this is ignored, since the node may have stopped responding
+    private static final long MAX_INFO_AGE_NANOS = SECONDS.toNanos(10);
+
+    private final HttpClient httpClient;
+    private final URI memoryInfoUri;
+    private final JsonCodec<MemoryInfo> memoryInfoCodec;
+    private final Ticker ticker;
+
+    private final AtomicReference<Optional<MemoryInfo>> memoryInfo = new AtomicReference<>(Optional.empty());
+    private final AtomicReference<ListenableFuture<JsonResponse<MemoryInfo>>> future = new AtomicReference<>();
+    private final AtomicLong lastUpdateNanos = new AtomicLong();
+
+    public RemoteNodeMemory(HttpClient httpClient, URI memoryInfoUri, JsonCodec<MemoryInfo> memoryInfoCodec)
+    {
+        this(httpClient, memoryInfoUri, memoryInfoCodec, Ticker.systemTicker());
+    }
+
+    public RemoteNodeMemory(HttpClient httpClient, URI memoryInfoUri, JsonCodec<MemoryInfo> memoryInfoCodec, Ticker ticker)
+    {
+        this.httpClient = checkNotNull(httpClient, "httpClient is null");
+        this.memoryInfoUri = checkNotNull(memoryInfoUri, "memoryInfoUri is null");
+        this.memoryInfoCodec = checkNotNull(memoryInfoCodec, "memoryInfoCodec is null");
+        this.ticker = checkNotNull(ticker, "ticker is null");
+    }
+
+    public Optional<MemoryInfo> getInfo()
+    {
+        if (ticker.read() - lastUpdateNanos.get() > MAX_INFO_AGE_NANOS) {
+            return Optional.empty();
+        }
+        return memoryInfo.get();
+    }
+
+    public void asyncRefresh()
+    {
+        ListenableFuture<JsonResponse<MemoryInfo>> current = future.get();
+        if (current != null && !current.isDone()) {
+            // previous request is still outstanding
+            return;
+        }
+
+        Request request = prepareGet()
+                .setUri(memoryInfoUri)
+                .setHeader(CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
+                .build();
+        ListenableFuture<JsonResponse<MemoryInfo>> responseFuture = httpClient.executeAsync(request, createFullJsonResponseHandler(memoryInfoCodec));
+        future.set(responseFuture);
+
+        Futures.addCallback(responseFuture, new FutureCallback<JsonResponse<MemoryInfo>>()
+        {
+            @Override
+            public void onSuccess(@Nullable JsonResponse<MemoryInfo> result)
+            {
+                if (result == null || result.getStatusCode() != HttpStatus.OK.code() || !result.hasValue()) {
+                    log.debug("Error fetching memory info from %s: %s", memoryInfoUri, result == null ? null : result.getStatusMessage());
+                    return;
+                }
+                updateMemoryInfo(result.getValue());
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                log.debug(t, "Error fetching memory info from %s", memoryInfoUri);
+            }
+        });
+    }
+
+    @VisibleForTesting
+    void updateMemoryInfo(MemoryInfo info)
+    {
+        memoryInfo.set(Optional.of(info));
+        lastUpdateNanos.set(ticker.read());
+    }
+}
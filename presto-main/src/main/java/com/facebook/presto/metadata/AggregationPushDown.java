@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.spi.ConnectorAggregationPushDown;
+
+import java.util.List;
+
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class AggregationPushDown
+{
+    private final TableHandle tableHandle;
+    private final List<ColumnHandle> aggregateColumns;
+
+    public AggregationPushDown(String connectorId, ConnectorAggregationPushDown pushDown)
+    {
+        checkNotNull(connectorId, "connectorId is null");
+        checkNotNull(pushDown, "pushDown is null");
+
+        tableHandle = new TableHandle(connectorId, pushDown.getTableHandle());
+        aggregateColumns = pushDown.getAggregateColumns().stream()
+                .map(handle -> new ColumnHandle(connectorId, handle))
+                .collect(toImmutableList());
+    }
+
+    public TableHandle getTableHandle()
+    {
+        return tableHandle;
+    }
+
+    public List<ColumnHandle> getAggregateColumns()
+    {
+        return aggregateColumns;
+    }
+}
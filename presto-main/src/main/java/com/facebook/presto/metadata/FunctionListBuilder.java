@@ -26,7 +26,9 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
+import com.facebook.presto.type.LikePattern;
 import com.facebook.presto.type.SqlType;
+import com.facebook.presto.util.regex.SliceRegex;
 import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
@@ -34,7 +36,6 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Primitives;
 import io.airlift.slice.Slice;
-import org.joni.Regex;
 
 import javax.annotation.Nullable;
 
@@ -47,7 +48,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 import static com.facebook.presto.metadata.FunctionRegistry.operatorInfo;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -72,8 +72,8 @@ public class FunctionListBuilder
             Slice.class,
             boolean.class,
             Boolean.class,
-            Pattern.class,
-            Regex.class,
+            SliceRegex.class,
+            LikePattern.class,
             JsonPath.class);
 
     private static final Set<Class<?>> SUPPORTED_RETURN_TYPES = ImmutableSet.of(
@@ -82,8 +82,8 @@ public class FunctionListBuilder
             Slice.class,
             boolean.class,
             int.class,
-            Pattern.class,
-            Regex.class,
+            SliceRegex.class,
+            LikePattern.class,
             JsonPath.class);
 
     private final List<ParametricFunction> functions = new ArrayList<>();
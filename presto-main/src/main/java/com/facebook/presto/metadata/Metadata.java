@@ -15,7 +15,9 @@ package com.facebook.presto.metadata;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
 import com.facebook.presto.spi.InsertOption;
+import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
@@ -181,6 +183,24 @@ public interface Metadata
      */
     void dropView(Session session, QualifiedTableName viewName);
 
+    /**
+     * Returns a handle for the table that returns at most the specified number of rows per split,
+     * if the connector supports it.
+     */
+    Optional<TableHandle> pushDownLimit(TableHandle tableHandle, long limit);
+
+    /**
+     * Returns a handle for the table that returns the first rows of each split in the specified order,
+     * if the connector supports it.
+     */
+    Optional<TableHandle> pushDownTopN(TableHandle tableHandle, List<ColumnHandle> sortColumns, List<SortOrder> sortOrders, long limit);
+
+    /**
+     * Pushes a grouped aggregation into the table, if the connector supports it. The aggregates must
+     * reference columns of the same connector.
+     */
+    Optional<AggregationPushDown> pushDownAggregation(TableHandle tableHandle, List<ColumnHandle> groupBy, List<ConnectorAggregate> aggregates);
+
     FunctionRegistry getFunctionRegistry();
 
     TypeManager getTypeManager();
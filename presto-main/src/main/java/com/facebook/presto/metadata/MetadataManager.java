@@ -16,6 +16,8 @@ package com.facebook.presto.metadata;
 import com.facebook.presto.Session;
 import com.facebook.presto.connector.informationSchema.InformationSchemaMetadata;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregationPushDown;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
@@ -27,6 +29,7 @@ import com.facebook.presto.spi.InsertOption;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
@@ -67,6 +70,7 @@ import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
 import static com.facebook.presto.spi.StandardErrorCode.SYNTAX_ERROR;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.transform;
 import static java.lang.String.format;
 
@@ -449,6 +453,43 @@ public class MetadataManager
         connectorMetadata.getMetadata().dropView(session.toConnectorSession(connectorMetadata.getCatalog()), viewName.asSchemaTableName());
     }
 
+    @Override
+    public Optional<TableHandle> pushDownLimit(TableHandle tableHandle, long limit)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        ConnectorTableHandle handle = lookupConnectorFor(tableHandle).pushDownLimit(tableHandle.getConnectorHandle(), limit);
+        if (handle == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new TableHandle(tableHandle.getConnectorId(), handle));
+    }
+
+    @Override
+    public Optional<TableHandle> pushDownTopN(TableHandle tableHandle, List<ColumnHandle> sortColumns, List<SortOrder> sortOrders, long limit)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        checkArgument(sortColumns.size() == sortOrders.size(), "sortColumns and sortOrders sizes don't match");
+        List<ConnectorColumnHandle> columns = ImmutableList.copyOf(transform(sortColumns, ColumnHandle::getConnectorHandle));
+        ConnectorTableHandle handle = lookupConnectorFor(tableHandle).pushDownTopN(tableHandle.getConnectorHandle(), columns, sortOrders, limit);
+        if (handle == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new TableHandle(tableHandle.getConnectorId(), handle));
+    }
+
+    @Override
+    public Optional<AggregationPushDown> pushDownAggregation(TableHandle tableHandle, List<ColumnHandle> groupBy, List<ConnectorAggregate> aggregates)
+    {
+        checkNotNull(tableHandle, "tableHandle is null");
+        List<ConnectorColumnHandle> columns = ImmutableList.copyOf(transform(groupBy, ColumnHandle::getConnectorHandle));
+        ConnectorAggregationPushDown pushDown = lookupConnectorFor(tableHandle).pushDownAggregation(tableHandle.getConnectorHandle(), columns, aggregates);
+        if (pushDown == null) {
+            return Optional.empty();
+        }
+        checkState(pushDown.getAggregateColumns().size() == aggregates.size(), "Connector returned %s aggregate columns for %s aggregates", pushDown.getAggregateColumns().size(), aggregates.size());
+        return Optional.of(new AggregationPushDown(tableHandle.getConnectorId(), pushDown));
+    }
+
     @Override
     public FunctionRegistry getFunctionRegistry()
     {
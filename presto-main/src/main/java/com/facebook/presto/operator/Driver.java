@@ -319,6 +319,12 @@ public class Driver
                 processNewSources();
             }
 
+            // stop making progress while the memory pool of the node is over-committed
+            ListenableFuture<?> waitingForMemory = driverContext.isWaitingForMemory();
+            if (!waitingForMemory.isDone()) {
+                return waitingForMemory;
+            }
+
             for (int i = 0; i < operators.size() - 1 && !driverContext.isDone(); i++) {
                 // check if current operator is blocked
                 Operator current = operators.get(i);
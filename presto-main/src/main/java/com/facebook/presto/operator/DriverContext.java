@@ -205,6 +205,11 @@ public class DriverContext
         memoryReservation.getAndAdd(-bytes);
     }
 
+    public ListenableFuture<?> isWaitingForMemory()
+    {
+        return pipelineContext.getTaskContext().isWaitingForMemory();
+    }
+
     public boolean isVerboseStats()
     {
         return pipelineContext.isVerboseStats();
@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.type.TypeUtils.castValue;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.primitives.Primitives.wrap;
+
+/**
+ * Summary of the join keys on the build side of an inner join. Once the build side
+ * is complete, the summary is used to skip probe side data that can not match.
+ * <p>
+ * Large key sets are summarized as a min/max range only for fixed-width numeric keys.
+ * A range of varchar keys is not pushed down, since a connector may compare strings
+ * with a collation that orders them differently and would drop rows that match.
+ * Neither is a summary of double keys that include NaN or infinity, which have no
+ * literal in the SQL of most databases.
+ */
+@ThreadSafe
+public class DynamicFilter
+{
+    // above this number of distinct values the summary is a range, or nothing for types
+    // whose order may differ from the order of the collation of a connector
+    private static final int MAX_DISTINCT_VALUES = 1000;
+
+    private final List<Type> types;
+    private volatile List<Domain> domains;
+
+    public DynamicFilter(List<Type> types)
+    {
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+    }
+
+    public static boolean isSupported(Type type)
+    {
+        Class<?> javaType = type.getJavaType();
+        return type.isOrderable() && (javaType == boolean.class || javaType == long.class || javaType == double.class || javaType == Slice.class);
+    }
+
+    private static boolean isRangeSupported(Type type)
+    {
+        Class<?> javaType = type.getJavaType();
+        return javaType == long.class || javaType == double.class;
+    }
+
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    /**
+     * Returns the filter on the column of the probe side that is joined to the specified
+     * join channel, or all if the build side is not complete yet.
+     */
+    public TupleDomain<ColumnHandle> getTupleDomain(int joinChannel, ColumnHandle column)
+    {
+        List<Domain> domains = this.domains;
+        if (domains == null || domains.get(joinChannel) == null) {
+            return TupleDomain.all();
+        }
+        return TupleDomain.withColumnDomains(ImmutableMap.of(column, domains.get(joinChannel)));
+    }
+
+    public Collector createCollector()
+    {
+        return new Collector();
+    }
+
+    private void setDomains(List<Domain> domains)
+    {
+        checkState(this.domains == null, "domains already set");
+        this.domains = domains;
+    }
+
+    public class Collector
+    {
+        private final List<Set<Comparable<?>>> values = new ArrayList<>();
+        private final List<Comparable<?>> minValues = new ArrayList<>();
+        private final List<Comparable<?>> maxValues = new ArrayList<>();
+        private final boolean[] nonFinite;
+
+        private Collector()
+        {
+            nonFinite = new boolean[types.size()];
+            for (int i = 0; i < types.size(); i++) {
+                values.add(new HashSet<>());
+                minValues.add(null);
+                maxValues.add(null);
+            }
+        }
+
+        public void add(Page page, List<Integer> joinChannels)
+        {
+            for (int i = 0; i < types.size(); i++) {
+                Type type = types.get(i);
+                if (!isSupported(type) || nonFinite[i] || (values.get(i) == null && !isRangeSupported(type))) {
+                    // the summary of this key is already known to be everything
+                    continue;
+                }
+
+                Block block = page.getBlock(joinChannels.get(i));
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    // null keys never match, so they are not part of the summary
+                    Comparable<?> value = (Comparable<?>) castValue(type, block, position);
+                    if (value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite())) {
+                        nonFinite[i] = true;
+                        break;
+                    }
+                    if (value != null) {
+                        add(i, value);
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void add(int joinChannel, Comparable<?> value)
+        {
+            Set<Comparable<?>> distinctValues = values.get(joinChannel);
+            if (distinctValues != null) {
+                distinctValues.add(value);
+                if (distinctValues.size() > MAX_DISTINCT_VALUES) {
+                    values.set(joinChannel, null);
+                }
+            }
+
+            Comparable min = minValues.get(joinChannel);
+            if (min == null || min.compareTo(value) > 0) {
+                minValues.set(joinChannel, value);
+            }
+            Comparable max = maxValues.get(joinChannel);
+            if (max == null || max.compareTo(value) < 0) {
+                maxValues.set(joinChannel, value);
+            }
+        }
+
+        /**
+         * Publishes the summary of the values added to the probe side.
+         */
+        public void publish()
+        {
+            List<Domain> domains = new ArrayList<>();
+            for (int i = 0; i < types.size(); i++) {
+                Type type = types.get(i);
+                if (!isSupported(type) || nonFinite[i]) {
+                    domains.add(null);
+                }
+                else if (minValues.get(i) == null) {
+                    domains.add(Domain.none(wrap(type.getJavaType())));
+                }
+                else if (values.get(i) != null) {
+                    SortedRangeSet.Builder ranges = SortedRangeSet.builder(wrap(type.getJavaType()));
+                    for (Comparable<?> value : values.get(i)) {
+                        ranges.add(Range.equal(value));
+                    }
+                    domains.add(Domain.create(ranges.build(), false));
+                }
+                else if (isRangeSupported(type)) {
+                    domains.add(Domain.create(SortedRangeSet.of(Range.range(minValues.get(i), true, maxValues.get(i), true)), false));
+                }
+                else {
+                    domains.add(null);
+                }
+            }
+            setDomains(domains);
+        }
+    }
+}
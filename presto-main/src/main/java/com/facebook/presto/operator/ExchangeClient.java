@@ -62,6 +62,7 @@ public class ExchangeClient
     private final Duration minErrorDuration;
     private final HttpClient httpClient;
     private final ScheduledExecutorService executor;
+    private final boolean compressionEnabled;
 
     @GuardedBy("this")
     private final Set<URI> locations = new HashSet<>();
@@ -98,6 +99,19 @@ public class ExchangeClient
             Duration minErrorDuration,
             HttpClient httpClient,
             ScheduledExecutorService executor)
+    {
+        this(blockEncodingSerde, maxBufferedBytes, maxResponseSize, concurrentRequestMultiplier, minErrorDuration, httpClient, executor, false);
+    }
+
+    public ExchangeClient(
+            BlockEncodingSerde blockEncodingSerde,
+            DataSize maxBufferedBytes,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration minErrorDuration,
+            HttpClient httpClient,
+            ScheduledExecutorService executor,
+            boolean compressionEnabled)
     {
         this.blockEncodingSerde = blockEncodingSerde;
         this.maxBufferedBytes = maxBufferedBytes.toBytes();
@@ -106,6 +120,7 @@ public class ExchangeClient
         this.minErrorDuration = minErrorDuration;
         this.httpClient = httpClient;
         this.executor = executor;
+        this.compressionEnabled = compressionEnabled;
     }
 
     public synchronized ExchangeClientStatus getStatus()
@@ -115,11 +130,26 @@ public class ExchangeClient
             bufferedPages--;
         }
 
+        long compressedBytes = 0;
+        long uncompressedBytes = 0;
+        long decompressionCpuNanos = 0;
         ImmutableList.Builder<PageBufferClientStatus> exchangeStatus = ImmutableList.builder();
         for (HttpPageBufferClient client : allClients.values()) {
-            exchangeStatus.add(client.getStatus());
+            PageBufferClientStatus status = client.getStatus();
+            compressedBytes += status.getCompressedBytesReceived();
+            uncompressedBytes += status.getUncompressedBytesReceived();
+            decompressionCpuNanos += status.getDecompressionCpu().roundTo(TimeUnit.NANOSECONDS);
+            exchangeStatus.add(status);
         }
-        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, noMoreLocations, exchangeStatus.build());
+        return new ExchangeClientStatus(
+                bufferBytes,
+                averageBytesPerRequest,
+                bufferedPages,
+                noMoreLocations,
+                compressedBytes,
+                uncompressedBytes,
+                new Duration(decompressionCpuNanos, TimeUnit.NANOSECONDS).convertToMostSuccinctTimeUnit(),
+                exchangeStatus.build());
     }
 
     public synchronized void addLocation(URI location)
@@ -255,7 +285,8 @@ public class ExchangeClient
                         location,
                         new ExchangeClientCallback(),
                         blockEncodingSerde,
-                        executor);
+                        executor,
+                        compressionEnabled);
                 allClients.put(location, client);
                 queuedClients.add(client);
             }
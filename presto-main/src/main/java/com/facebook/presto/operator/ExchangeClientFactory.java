@@ -36,6 +36,7 @@ public class ExchangeClientFactory
     private final HttpClient httpClient;
     private final DataSize maxResponseSize;
     private final ScheduledExecutorService executor;
+    private final boolean compressionEnabled;
 
     @Inject
     public ExchangeClientFactory(BlockEncodingSerde blockEncodingSerde,
@@ -49,7 +50,8 @@ public class ExchangeClientFactory
                 config.getConcurrentRequestMultiplier(),
                 config.getMinErrorDuration(),
                 httpClient,
-                executor);
+                executor,
+                config.isCompressionEnabled());
     }
 
     public ExchangeClientFactory(
@@ -59,7 +61,8 @@ public class ExchangeClientFactory
             int concurrentRequestMultiplier,
             Duration minErrorDuration,
             HttpClient httpClient,
-            ScheduledExecutorService executor)
+            ScheduledExecutorService executor,
+            boolean compressionEnabled)
     {
         this.blockEncodingSerde = blockEncodingSerde;
         this.maxBufferedBytes = checkNotNull(maxBufferedBytes, "maxBufferedBytes is null");
@@ -68,6 +71,7 @@ public class ExchangeClientFactory
         this.httpClient = checkNotNull(httpClient, "httpClient is null");
         this.maxResponseSize = checkNotNull(maxResponseSize, "maxResponseSize is null");
         this.executor = checkNotNull(executor, "executor is null");
+        this.compressionEnabled = compressionEnabled;
 
         checkArgument(maxBufferedBytes.toBytes() > 0, "maxBufferSize must be at least 1 byte: %s", maxBufferedBytes);
         checkArgument(maxResponseSize.toBytes() > 0, "maxResponseSize must be at least 1 byte: %s", maxResponseSize);
@@ -84,6 +88,7 @@ public class ExchangeClientFactory
                 concurrentRequestMultiplier,
                 minErrorDuration,
                 httpClient,
-                executor);
+                executor,
+                compressionEnabled);
     }
 }
@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import io.airlift.units.Duration;
 
 import java.util.List;
 
@@ -28,6 +29,9 @@ public class ExchangeClientStatus
     private final long averageBytesPerRequest;
     private final int bufferedPages;
     private final boolean noMoreLocations;
+    private final long compressedBytes;
+    private final long uncompressedBytes;
+    private final Duration decompressionCpu;
     private final List<PageBufferClientStatus> pageBufferClientStatuses;
 
     @JsonCreator
@@ -36,12 +40,18 @@ public class ExchangeClientStatus
             @JsonProperty("averageBytesPerRequest") long averageBytesPerRequest,
             @JsonProperty("bufferedPages") int bufferedPages,
             @JsonProperty("noMoreLocations") boolean noMoreLocations,
+            @JsonProperty("compressedBytes") long compressedBytes,
+            @JsonProperty("uncompressedBytes") long uncompressedBytes,
+            @JsonProperty("decompressionCpu") Duration decompressionCpu,
             @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses)
     {
         this.bufferedBytes = bufferedBytes;
         this.averageBytesPerRequest = averageBytesPerRequest;
         this.bufferedPages = bufferedPages;
         this.noMoreLocations = noMoreLocations;
+        this.compressedBytes = compressedBytes;
+        this.uncompressedBytes = uncompressedBytes;
+        this.decompressionCpu = checkNotNull(decompressionCpu, "decompressionCpu is null");
         this.pageBufferClientStatuses = ImmutableList.copyOf(checkNotNull(pageBufferClientStatuses, "pageBufferClientStatuses is null"));
     }
 
@@ -69,6 +79,39 @@ public class ExchangeClientStatus
         return noMoreLocations;
     }
 
+    /**
+     * Bytes of compressed page frames received, as sent over the wire.
+     */
+    @JsonProperty
+    public long getCompressedBytes()
+    {
+        return compressedBytes;
+    }
+
+    /**
+     * Bytes of compressed page frames received, after decompression.
+     */
+    @JsonProperty
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes;
+    }
+
+    @JsonProperty
+    public Duration getDecompressionCpu()
+    {
+        return decompressionCpu;
+    }
+
+    @JsonProperty
+    public double getCompressionRatio()
+    {
+        if (compressedBytes == 0) {
+            return 1.0;
+        }
+        return 1.0 * uncompressedBytes / compressedBytes;
+    }
+
     @JsonProperty
 
     public List<PageBufferClientStatus> getPageBufferClientStatuses()
@@ -84,6 +127,8 @@ public class ExchangeClientStatus
                 .add("averageBytesPerRequest", averageBytesPerRequest)
                 .add("bufferedPages", bufferedPages)
                 .add("noMoreLocations", noMoreLocations)
+                .add("compressionRatio", getCompressionRatio())
+                .add("decompressionCpu", decompressionCpu)
                 .add("pageBufferClientStatuses", pageBufferClientStatuses)
                 .toString();
     }
@@ -133,6 +133,11 @@ public class GroupByHash
         return nextGroupId;
     }
 
+    public int getHash(int groupId)
+    {
+        return hashPosition(groupAddress.get(groupId));
+    }
+
     public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
     {
         long address = groupAddress.get(groupId);
@@ -18,6 +18,7 @@ import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.GroupedAccumulator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
@@ -27,9 +28,11 @@ import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.PriorityQueue;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -53,6 +56,7 @@ public class HashAggregationOperator
         private final List<Type> types;
         private boolean closed;
         private final long maxPartialMemory;
+        private final Optional<SpillerFactory> spillerFactory;
 
         public HashAggregationOperatorFactory(
                 int operatorId,
@@ -63,6 +67,20 @@ public class HashAggregationOperator
                 Optional<Integer> hashChannel,
                 int expectedGroups,
                 DataSize maxPartialMemory)
+        {
+            this(operatorId, groupByTypes, groupByChannels, step, accumulatorFactories, hashChannel, expectedGroups, maxPartialMemory, Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
@@ -72,6 +90,7 @@ public class HashAggregationOperator
             this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
             this.expectedGroups = expectedGroups;
             this.maxPartialMemory = checkNotNull(maxPartialMemory, "maxPartialMemory is null").toBytes();
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
             this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
         }
@@ -88,11 +107,14 @@ public class HashAggregationOperator
             checkState(!closed, "Factory is already closed");
 
             OperatorContext operatorContext;
+            Optional<Spiller> spiller = Optional.empty();
             if (step == Step.PARTIAL) {
                 operatorContext = driverContext.addOperatorContext(operatorId, HashAggregationOperator.class.getSimpleName(), maxPartialMemory);
             }
             else {
                 operatorContext = driverContext.addOperatorContext(operatorId, HashAggregationOperator.class.getSimpleName());
+                // partial aggregations flush early instead of spilling
+                spiller = spillerFactory.map(factory -> factory.create(operatorContext));
             }
             return new HashAggregationOperator(
                     operatorContext,
@@ -101,7 +123,8 @@ public class HashAggregationOperator
                     step,
                     accumulatorFactories,
                     hashChannel,
-                    expectedGroups);
+                    expectedGroups,
+                    spiller);
         }
 
         @Override
@@ -121,6 +144,7 @@ public class HashAggregationOperator
 
     private final List<Type> types;
     private final MemoryManager memoryManager;
+    private final Optional<Spiller> spiller;
 
     private GroupByHashAggregationBuilder aggregationBuilder;
     private Iterator<Page> outputIterator;
@@ -134,6 +158,19 @@ public class HashAggregationOperator
             List<AccumulatorFactory> accumulatorFactories,
             Optional<Integer> hashChannel,
             int expectedGroups)
+    {
+        this(operatorContext, groupByTypes, groupByChannels, step, accumulatorFactories, hashChannel, expectedGroups, Optional.empty());
+    }
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Step step,
+            List<AccumulatorFactory> accumulatorFactories,
+            Optional<Integer> hashChannel,
+            int expectedGroups,
+            Optional<Spiller> spiller)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         checkNotNull(step, "step is null");
@@ -148,6 +185,8 @@ public class HashAggregationOperator
 
         this.expectedGroups = expectedGroups;
         this.memoryManager = new MemoryManager(operatorContext);
+        this.spiller = checkNotNull(spiller, "spiller is null");
+        checkArgument(step != Step.PARTIAL || !spiller.isPresent(), "partial aggregation does not spill");
 
         this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
     }
@@ -188,14 +227,7 @@ public class HashAggregationOperator
         checkState(!finishing, "Operator is already finishing");
         checkNotNull(page, "page is null");
         if (aggregationBuilder == null) {
-            aggregationBuilder = new GroupByHashAggregationBuilder(
-                    accumulatorFactories,
-                    step,
-                    expectedGroups,
-                    groupByTypes,
-                    groupByChannels,
-                    hashChannel,
-                    memoryManager);
+            aggregationBuilder = createAggregationBuilder();
 
             // assume initial aggregationBuilder is not full
         }
@@ -224,10 +256,23 @@ public class HashAggregationOperator
 
             // Only partial aggregation can flush early. Also, check that we are not flushing tiny bits at a time
             if (!finishing && step != Step.PARTIAL) {
-                throw new ExceededMemoryLimitException(memoryManager.getMaxMemorySize());
+                if (!spiller.isPresent()) {
+                    throw new ExceededMemoryLimitException(memoryManager.getMaxMemorySize());
+                }
+                // write the partial state to disk and start over with an empty builder
+                // that reuses the memory reservation of this one
+                spiller.get().spill(aggregationBuilder.buildSortedIntermediate());
+                aggregationBuilder = createAggregationBuilder();
+                return null;
             }
 
-            outputIterator = aggregationBuilder.build();
+            if (spiller.isPresent() && spiller.get().getSpillCount() > 0) {
+                spiller.get().spill(aggregationBuilder.buildSortedIntermediate());
+                outputIterator = new SpillMerger(spiller.get().getSpills());
+            }
+            else {
+                outputIterator = aggregationBuilder.build();
+            }
             aggregationBuilder = null;
 
             if (!outputIterator.hasNext()) {
@@ -240,6 +285,34 @@ public class HashAggregationOperator
         return outputIterator.next();
     }
 
+    private GroupByHashAggregationBuilder createAggregationBuilder()
+    {
+        return new GroupByHashAggregationBuilder(
+                createAggregators(accumulatorFactories, step),
+                expectedGroups,
+                groupByTypes,
+                groupByChannels,
+                hashChannel,
+                memoryManager);
+    }
+
+    @Override
+    public void close()
+    {
+        aggregationBuilder = null;
+        outputIterator = null;
+        spiller.ifPresent(Spiller::close);
+    }
+
+    private static List<Aggregator> createAggregators(List<AccumulatorFactory> accumulatorFactories, Step step)
+    {
+        ImmutableList.Builder<Aggregator> aggregators = ImmutableList.builder();
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            aggregators.add(new Aggregator(accumulatorFactory, step));
+        }
+        return aggregators.build();
+    }
+
     private static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories, Optional<Integer> hashChannel)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -258,10 +331,11 @@ public class HashAggregationOperator
         private final GroupByHash groupByHash;
         private final List<Aggregator> aggregators;
         private final MemoryManager memoryManager;
+        private final int groupByChannelCount;
+        private final boolean precomputedHash;
 
         private GroupByHashAggregationBuilder(
-                List<AccumulatorFactory> accumulatorFactories,
-                Step step,
+                List<Aggregator> aggregators,
                 int expectedGroups,
                 List<Type> groupByTypes,
                 List<Integer> groupByChannels,
@@ -270,15 +344,9 @@ public class HashAggregationOperator
         {
             this.groupByHash = new GroupByHash(groupByTypes, Ints.toArray(groupByChannels), hashChannel, expectedGroups);
             this.memoryManager = memoryManager;
-
-            // wrapper each function with an aggregator
-            ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
-            checkNotNull(accumulatorFactories, "accumulatorFactories is null");
-            for (int i = 0; i < accumulatorFactories.size(); i++) {
-                AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
-                builder.add(new Aggregator(accumulatorFactory, step));
-            }
-            aggregators = builder.build();
+            this.aggregators = checkNotNull(aggregators, "aggregators is null");
+            this.groupByChannelCount = groupByChannels.size();
+            this.precomputedHash = hashChannel.isPresent();
         }
 
         private void processPage(Page page)
@@ -339,6 +407,230 @@ public class HashAggregationOperator
                 }
             };
         }
+
+        /**
+         * Produces the groups ordered by hash, with the hash in the channel after the
+         * group by values and the intermediate state of each aggregation after that.
+         */
+        public Iterator<Page> buildSortedIntermediate()
+        {
+            // the precomputed hash, if any, is already appended by the group by hash
+            ImmutableList.Builder<Type> types = ImmutableList.builder();
+            types.addAll(groupByHash.getTypes());
+            if (!precomputedHash) {
+                types.add(BIGINT);
+            }
+            for (Aggregator aggregator : aggregators) {
+                types.add(aggregator.getIntermediateType());
+            }
+            int aggregationChannelOffset = groupByChannelCount + 1;
+
+            // sort by hash, then group id, packed into one long
+            int groupCount = groupByHash.getGroupCount();
+            long[] sortedGroups = new long[groupCount];
+            for (int groupId = 0; groupId < groupCount; groupId++) {
+                sortedGroups[groupId] = (((long) groupByHash.getHash(groupId)) << 32) | groupId;
+            }
+            Arrays.sort(sortedGroups);
+
+            final PageBuilder pageBuilder = new PageBuilder(types.build());
+            return new AbstractIterator<Page>()
+            {
+                private int index;
+
+                @Override
+                protected Page computeNext()
+                {
+                    if (index >= groupCount) {
+                        return endOfData();
+                    }
+
+                    pageBuilder.reset();
+
+                    while (!pageBuilder.isFull() && index < groupCount) {
+                        int groupId = (int) sortedGroups[index];
+                        groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+                        if (!precomputedHash) {
+                            BIGINT.writeLong(pageBuilder.getBlockBuilder(groupByChannelCount), groupByHash.getHash(groupId));
+                        }
+
+                        pageBuilder.declarePosition();
+                        for (int i = 0; i < aggregators.size(); i++) {
+                            Aggregator aggregator = aggregators.get(i);
+                            BlockBuilder output = pageBuilder.getBlockBuilder(aggregationChannelOffset + i);
+                            aggregator.evaluateIntermediate(groupId, output);
+                        }
+
+                        index++;
+                    }
+
+                    return pageBuilder.build();
+                }
+            };
+        }
+    }
+
+    /**
+     * Merges runs produced by {@link GroupByHashAggregationBuilder#buildSortedIntermediate()}
+     * in hash order. Since equal groups have equal hashes, all rows of a group arrive
+     * together, so the merge builder is only flushed between two different hash values.
+     */
+    private class SpillMerger
+            extends AbstractIterator<Page>
+    {
+        private final int spillHashChannel;
+        private final List<Type> spillTypes;
+        private final PriorityQueue<SpillCursor> cursors = new PriorityQueue<>((left, right) -> Integer.compare(left.getHash(), right.getHash()));
+        private final PageBuilder pageBuilder;
+
+        private GroupByHashAggregationBuilder mergeBuilder;
+        private Iterator<Page> mergedPages;
+
+        private SpillMerger(List<Iterator<Page>> spills)
+        {
+            this.spillHashChannel = groupByTypes.size();
+
+            ImmutableList.Builder<Type> spillTypes = ImmutableList.builder();
+            spillTypes.addAll(groupByTypes);
+            spillTypes.add(BIGINT);
+            for (Aggregator aggregator : createAggregators(accumulatorFactories, step)) {
+                spillTypes.add(aggregator.getIntermediateType());
+            }
+            this.spillTypes = spillTypes.build();
+            this.pageBuilder = new PageBuilder(this.spillTypes);
+
+            for (Iterator<Page> spill : spills) {
+                SpillCursor cursor = new SpillCursor(spill, spillHashChannel);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            while (true) {
+                if (mergedPages != null && mergedPages.hasNext()) {
+                    return removeHashIfNotRequested(mergedPages.next());
+                }
+                mergedPages = null;
+
+                if (cursors.isEmpty()) {
+                    if (mergeBuilder == null) {
+                        return endOfData();
+                    }
+                    flush();
+                    continue;
+                }
+
+                if (mergeBuilder == null) {
+                    mergeBuilder = createMergeBuilder();
+                }
+                else if (mergeBuilder.isFull()) {
+                    // the last hash value is complete, so every group in the builder is final
+                    flush();
+                    continue;
+                }
+
+                int hash = cursors.peek().getHash();
+                while (!cursors.isEmpty() && cursors.peek().getHash() == hash) {
+                    SpillCursor cursor = cursors.poll();
+                    cursor.appendTo(pageBuilder, spillTypes);
+                    if (pageBuilder.isFull()) {
+                        mergeBuilder.processPage(pageBuilder.build());
+                        pageBuilder.reset();
+                    }
+                    if (cursor.advance()) {
+                        cursors.add(cursor);
+                    }
+                }
+            }
+        }
+
+        private void flush()
+        {
+            if (!pageBuilder.isEmpty()) {
+                mergeBuilder.processPage(pageBuilder.build());
+                pageBuilder.reset();
+            }
+            mergedPages = mergeBuilder.build();
+            mergeBuilder = null;
+        }
+
+        private GroupByHashAggregationBuilder createMergeBuilder()
+        {
+            ImmutableList.Builder<Aggregator> aggregators = ImmutableList.builder();
+            for (int i = 0; i < accumulatorFactories.size(); i++) {
+                aggregators.add(new Aggregator(accumulatorFactories.get(i), step, spillHashChannel + 1 + i));
+            }
+
+            ImmutableList.Builder<Integer> groupByChannels = ImmutableList.builder();
+            for (int i = 0; i < groupByTypes.size(); i++) {
+                groupByChannels.add(i);
+            }
+
+            return new GroupByHashAggregationBuilder(
+                    aggregators.build(),
+                    expectedGroups,
+                    groupByTypes,
+                    groupByChannels.build(),
+                    Optional.of(spillHashChannel),
+                    memoryManager);
+        }
+
+        private Page removeHashIfNotRequested(Page page)
+        {
+            if (hashChannel.isPresent()) {
+                return page;
+            }
+            Block[] blocks = new Block[page.getChannelCount() - 1];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = page.getBlock(i < spillHashChannel ? i : i + 1);
+            }
+            return new Page(page.getPositionCount(), blocks);
+        }
+    }
+
+    private static class SpillCursor
+    {
+        private final Iterator<Page> pages;
+        private final int hashChannel;
+        private Page page;
+        private int position;
+
+        private SpillCursor(Iterator<Page> pages, int hashChannel)
+        {
+            this.pages = pages;
+            this.hashChannel = hashChannel;
+        }
+
+        public boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    page = null;
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            return true;
+        }
+
+        public int getHash()
+        {
+            return (int) BIGINT.getLong(page.getBlock(hashChannel), position);
+        }
+
+        public void appendTo(PageBuilder pageBuilder, List<Type> types)
+        {
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < types.size(); channel++) {
+                types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+        }
     }
 
     private static class Aggregator
@@ -349,13 +641,24 @@ public class HashAggregationOperator
 
         private Aggregator(AccumulatorFactory accumulatorFactory, Step step)
         {
-            if (step == Step.FINAL) {
+            this(accumulatorFactory, step, -1);
+        }
+
+        /**
+         * Creates an aggregator that combines intermediate state read from the given
+         * channel, and produces output for the given step.
+         */
+        private Aggregator(AccumulatorFactory accumulatorFactory, Step step, int intermediateChannel)
+        {
+            if (intermediateChannel < 0 && step == Step.FINAL) {
                 checkArgument(accumulatorFactory.getInputChannels().size() == 1, "expected 1 input channel for intermediate aggregation");
                 intermediateChannel = accumulatorFactory.getInputChannels().get(0);
+            }
+            this.intermediateChannel = intermediateChannel;
+            if (intermediateChannel >= 0) {
                 aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
             }
             else {
-                intermediateChannel = -1;
                 aggregation = accumulatorFactory.createGroupedAccumulator();
             }
             this.step = step;
@@ -376,9 +679,14 @@ public class HashAggregationOperator
             }
         }
 
+        public Type getIntermediateType()
+        {
+            return aggregation.getIntermediateType();
+        }
+
         public void processPage(GroupByIdBlock groupIds, Page page)
         {
-            if (step == Step.FINAL) {
+            if (intermediateChannel >= 0) {
                 aggregation.addIntermediate(groupIds, page.getBlock(intermediateChannel));
             }
             else {
@@ -386,6 +694,11 @@ public class HashAggregationOperator
             }
         }
 
+        public void evaluateIntermediate(int groupId, BlockBuilder output)
+        {
+            aggregation.evaluateIntermediate(groupId, output);
+        }
+
         public void evaluate(int groupId, BlockBuilder output)
         {
             if (step == Step.PARTIAL) {
@@ -13,23 +13,33 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterators.singletonIterator;
 
 @ThreadSafe
 public class HashBuilderOperator
         implements Operator
 {
+    // number of partitions of a build side that does not fit in memory
+    private static final int SPILL_PARTITIONS = 16;
+
     public static class HashBuilderOperatorFactory
             implements OperatorFactory
     {
@@ -39,6 +49,8 @@ public class HashBuilderOperator
         private final Optional<Integer> hashChannel;
 
         private final int expectedPositions;
+        private final Optional<SpillerFactory> spillerFactory;
+        private final Optional<DynamicFilter> dynamicFilter;
         private boolean closed;
 
         public HashBuilderOperatorFactory(
@@ -47,6 +59,29 @@ public class HashBuilderOperator
                 List<Integer> hashChannels,
                 Optional<Integer> hashChannel,
                 int expectedPositions)
+        {
+            this(operatorId, types, hashChannels, hashChannel, expectedPositions, Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
+        {
+            this(operatorId, types, hashChannels, hashChannel, expectedPositions, spillerFactory, Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory,
+                Optional<DynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.lookupSourceSupplier = new SettableLookupSourceSupplier(checkNotNull(types, "types is null"));
@@ -56,6 +91,8 @@ public class HashBuilderOperator
             this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
 
             this.expectedPositions = checkNotNull(expectedPositions, "expectedPositions is null");
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
         }
 
         public LookupSourceSupplier getLookupSourceSupplier()
@@ -79,7 +116,9 @@ public class HashBuilderOperator
                     lookupSourceSupplier,
                     hashChannels,
                     hashChannel,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory,
+                    dynamicFilter);
         }
 
         @Override
@@ -96,6 +135,15 @@ public class HashBuilderOperator
 
     private final PagesIndex pagesIndex;
 
+    private final Optional<SpillerFactory> spillerFactory;
+    private final HashGenerator hashGenerator;
+    private final Optional<DynamicFilter.Collector> dynamicFilterCollector;
+
+    // the first spillers.size() partitions are spilled, and their rows are buffered in
+    // spillBuffers until the buffer is full or the memory is needed
+    private final List<Spiller> spillers = new ArrayList<>();
+    private final List<PageBuilder> spillBuffers = new ArrayList<>();
+
     private boolean finished;
 
     public HashBuilderOperator(
@@ -104,6 +152,29 @@ public class HashBuilderOperator
             List<Integer> hashChannels,
             Optional<Integer> hashChannel,
             int expectedPositions)
+    {
+        this(operatorContext, lookupSourceSupplier, hashChannels, hashChannel, expectedPositions, Optional.empty());
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            SettableLookupSourceSupplier lookupSourceSupplier,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            Optional<SpillerFactory> spillerFactory)
+    {
+        this(operatorContext, lookupSourceSupplier, hashChannels, hashChannel, expectedPositions, spillerFactory, Optional.empty());
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            SettableLookupSourceSupplier lookupSourceSupplier,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            Optional<SpillerFactory> spillerFactory,
+            Optional<DynamicFilter> dynamicFilter)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
@@ -114,6 +185,18 @@ public class HashBuilderOperator
         this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
 
         this.pagesIndex = new PagesIndex(lookupSourceSupplier.getTypes(), expectedPositions);
+
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+        if (hashChannel.isPresent()) {
+            this.hashGenerator = new PrecomputedHashGenerator(hashChannel.get());
+        }
+        else {
+            List<Type> types = lookupSourceSupplier.getTypes();
+            this.hashGenerator = new InterpretedHashGenerator(
+                    this.hashChannels.stream().map(types::get).collect(toImmutableList()),
+                    Ints.toArray(this.hashChannels));
+        }
+        this.dynamicFilterCollector = checkNotNull(dynamicFilter, "dynamicFilter is null").map(DynamicFilter::createCollector);
     }
 
     @Override
@@ -136,6 +219,21 @@ public class HashBuilderOperator
         }
 
         LookupSource lookupSource = pagesIndex.createLookupSource(hashChannels, operatorContext, hashChannel);
+        if (!spillers.isEmpty()) {
+            flushSpillBuffers();
+            lookupSource = new SpilledLookupSource(
+                    lookupSource,
+                    lookupSourceSupplier.getTypes(),
+                    hashChannels,
+                    hashChannel,
+                    SPILL_PARTITIONS,
+                    spillers,
+                    spillerFactory.get());
+
+            // the lookup source owns the spilled partitions from now on
+            spillers.clear();
+        }
+        dynamicFilterCollector.ifPresent(DynamicFilter.Collector::publish);
         lookupSourceSupplier.setLookupSource(lookupSource);
         finished = true;
     }
@@ -158,8 +256,19 @@ public class HashBuilderOperator
         checkNotNull(page, "page is null");
         checkState(!isFinished(), "Operator is already finished");
 
-        pagesIndex.addPage(page);
-        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        // the summary covers all rows, including the rows of spilled partitions
+        dynamicFilterCollector.ifPresent(collector -> collector.add(page, hashChannels));
+
+        if (spillers.isEmpty()) {
+            pagesIndex.addPage(page);
+        }
+        else {
+            Page unspilled = spillRows(page);
+            if (unspilled.getPositionCount() > 0) {
+                pagesIndex.addPage(unspilled);
+            }
+        }
+        updateMemoryReservation();
         operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
     }
 
@@ -168,4 +277,105 @@ public class HashBuilderOperator
     {
         return null;
     }
+
+    @Override
+    public void close()
+    {
+        // after finish the spilled partitions belong to the lookup source
+        spillers.forEach(Spiller::close);
+        spillers.clear();
+    }
+
+    private void updateMemoryReservation()
+    {
+        if (!spillerFactory.isPresent()) {
+            operatorContext.setMemoryReservation(getEstimatedSize());
+            return;
+        }
+
+        while (!operatorContext.trySetMemoryReservation(getEstimatedSize())) {
+            if (spillers.size() < SPILL_PARTITIONS) {
+                spillPartitions();
+            }
+            else if (getEstimatedSize() > pagesIndex.getEstimatedSize().toBytes()) {
+                flushSpillBuffers();
+            }
+            else {
+                throw new ExceededMemoryLimitException(operatorContext.getMaxMemorySize());
+            }
+        }
+    }
+
+    private long getEstimatedSize()
+    {
+        long size = pagesIndex.getEstimatedSize().toBytes();
+        for (PageBuilder spillBuffer : spillBuffers) {
+            size += spillBuffer.getSizeInBytes();
+        }
+        return size;
+    }
+
+    /**
+     * Spills half of the partitions that are still in memory, and rebuilds the
+     * index from the rows of the remaining partitions.
+     */
+    private void spillPartitions()
+    {
+        int partitionsToSpill = Math.max(1, (SPILL_PARTITIONS - spillers.size()) / 2);
+        for (int i = 0; i < partitionsToSpill; i++) {
+            spillers.add(spillerFactory.get().create(operatorContext));
+            spillBuffers.add(new PageBuilder(lookupSourceSupplier.getTypes()));
+        }
+
+        List<Page> unspilledPages = new ArrayList<>();
+        Iterator<Page> pages = pagesIndex.getSortedPages();
+        while (pages.hasNext()) {
+            Page unspilled = spillRows(pages.next());
+            if (unspilled.getPositionCount() > 0) {
+                unspilledPages.add(unspilled);
+            }
+        }
+
+        pagesIndex.clear();
+        unspilledPages.forEach(pagesIndex::addPage);
+    }
+
+    /**
+     * Moves the rows of spilled partitions to the spill buffers, and returns the other rows.
+     */
+    private Page spillRows(Page page)
+    {
+        List<Type> types = lookupSourceSupplier.getTypes();
+        PageBuilder unspilled = new PageBuilder(types);
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int partition = SpilledLookupSource.getPartition(hashGenerator.hashPosition(position, page), SPILL_PARTITIONS);
+            PageBuilder target = partition < spillers.size() ? spillBuffers.get(partition) : unspilled;
+            appendRow(types, page, position, target);
+
+            if (target != unspilled && target.isFull()) {
+                spillers.get(partition).spill(singletonIterator(target.build()));
+                target.reset();
+            }
+        }
+        return unspilled.build();
+    }
+
+    private void flushSpillBuffers()
+    {
+        for (int partition = 0; partition < spillers.size(); partition++) {
+            PageBuilder spillBuffer = spillBuffers.get(partition);
+            if (!spillBuffer.isEmpty()) {
+                spillers.get(partition).spill(singletonIterator(spillBuffer.build()));
+                spillBuffer.reset();
+            }
+        }
+    }
+
+    private static void appendRow(List<Type> types, Page page, int position, PageBuilder pageBuilder)
+    {
+        pageBuilder.declarePosition();
+        for (int channel = 0; channel < types.size(); channel++) {
+            types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+        }
+    }
 }
@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompression;
+import com.facebook.presto.block.PagesSerde.CompressedPagesReader;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -48,10 +50,13 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_TYPE;
+import static com.facebook.presto.block.PagesSerde.readCompressedPages;
 import static com.facebook.presto.block.PagesSerde.readPages;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.operator.HttpPageBufferClient.PagesResponse.createClosedResponse;
@@ -103,6 +108,7 @@ public final class HttpPageBufferClient
     private final ClientCallback clientCallback;
     private final BlockEncodingSerde blockEncodingSerde;
     private final ScheduledExecutorService executor;
+    private final boolean compressionEnabled;
 
     @GuardedBy("this")
     private final Stopwatch errorStopwatch;
@@ -126,6 +132,10 @@ public final class HttpPageBufferClient
     private final AtomicInteger requestsCompleted = new AtomicInteger();
     private final AtomicInteger requestsFailed = new AtomicInteger();
 
+    private final AtomicLong compressedBytesReceived = new AtomicLong();
+    private final AtomicLong uncompressedBytesReceived = new AtomicLong();
+    private final AtomicLong decompressionCpuNanos = new AtomicLong();
+
     public HttpPageBufferClient(
             HttpClient httpClient,
             DataSize maxResponseSize,
@@ -133,9 +143,10 @@ public final class HttpPageBufferClient
             URI location,
             ClientCallback clientCallback,
             BlockEncodingSerde blockEncodingSerde,
-            ScheduledExecutorService executor)
+            ScheduledExecutorService executor,
+            boolean compressionEnabled)
     {
-        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, executor, Stopwatch.createUnstarted());
+        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, executor, compressionEnabled, Stopwatch.createUnstarted());
     }
 
     public HttpPageBufferClient(
@@ -147,6 +158,20 @@ public final class HttpPageBufferClient
             BlockEncodingSerde blockEncodingSerde,
             ScheduledExecutorService executor,
             Stopwatch errorStopwatch)
+    {
+        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, executor, false, errorStopwatch);
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration minErrorDuration,
+            URI location,
+            ClientCallback clientCallback,
+            BlockEncodingSerde blockEncodingSerde,
+            ScheduledExecutorService executor,
+            boolean compressionEnabled,
+            Stopwatch errorStopwatch)
     {
         this.httpClient = checkNotNull(httpClient, "httpClient is null");
         this.maxResponseSize = checkNotNull(maxResponseSize, "maxResponseSize is null");
@@ -155,6 +180,7 @@ public final class HttpPageBufferClient
         this.clientCallback = checkNotNull(clientCallback, "clientCallback is null");
         this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingManager is null");
         this.executor = checkNotNull(executor, "executor is null");
+        this.compressionEnabled = compressionEnabled;
         this.errorStopwatch = checkNotNull(errorStopwatch, "errorStopwatch is null").reset();
     }
 
@@ -185,7 +211,10 @@ public final class HttpPageBufferClient
                 requestsScheduled.get(),
                 requestsCompleted.get(),
                 requestsFailed.get(),
-                httpRequestState);
+                httpRequestState,
+                compressedBytesReceived.get(),
+                uncompressedBytesReceived.get(),
+                new Duration(decompressionCpuNanos.get(), TimeUnit.NANOSECONDS).convertToMostSuccinctTimeUnit());
     }
 
     public synchronized boolean isRunning()
@@ -251,11 +280,13 @@ public final class HttpPageBufferClient
         }
 
         final URI uri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(token)).build();
-        future = httpClient.executeAsync(
-                prepareGet()
-                        .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
-                        .setUri(uri).build(),
-                new PageResponseHandler(blockEncodingSerde));
+        Request.Builder request = prepareGet()
+                .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
+                .setUri(uri);
+        if (compressionEnabled) {
+            request.setHeader(PRESTO_PAGE_COMPRESSION, PageCompression.SNAPPY.name());
+        }
+        future = httpClient.executeAsync(request.build(), new PageResponseHandler(blockEncodingSerde));
 
         Futures.addCallback(future, new FutureCallback<PagesResponse>()
         {
@@ -270,6 +301,10 @@ public final class HttpPageBufferClient
 
                 requestsCompleted.incrementAndGet();
 
+                compressedBytesReceived.addAndGet(result.getCompressedBytes());
+                uncompressedBytesReceived.addAndGet(result.getUncompressedBytes());
+                decompressionCpuNanos.addAndGet(result.getDecompressionCpuNanos());
+
                 List<Page> pages;
                 synchronized (HttpPageBufferClient.this) {
                     if (result.getToken() == token) {
@@ -462,6 +497,12 @@ public final class HttpPageBufferClient
             long nextToken = getNextToken(response);
 
             try (SliceInput input = new InputStreamSliceInput(response.getInputStream())) {
+                // the server only sets the header when it compressed the response
+                if (PageCompression.fromHeader(response.getHeader(PRESTO_PAGE_COMPRESSION)) == PageCompression.SNAPPY) {
+                    CompressedPagesReader reader = readCompressedPages(blockEncodingSerde, input);
+                    List<Page> pages = ImmutableList.copyOf(reader);
+                    return createPagesResponse(token, nextToken, pages, reader.getCompressedBytes(), reader.getUncompressedBytes(), reader.getDecompressionCpuNanos());
+                }
                 List<Page> pages = ImmutableList.copyOf(readPages(blockEncodingSerde, input));
                 return createPagesResponse(token, nextToken, pages);
             }
@@ -503,30 +544,41 @@ public final class HttpPageBufferClient
     {
         public static PagesResponse createPagesResponse(long token, long nextToken, Iterable<Page> pages)
         {
-            return new PagesResponse(token, nextToken, pages, false);
+            return new PagesResponse(token, nextToken, pages, false, 0, 0, 0);
+        }
+
+        public static PagesResponse createPagesResponse(long token, long nextToken, Iterable<Page> pages, long compressedBytes, long uncompressedBytes, long decompressionCpuNanos)
+        {
+            return new PagesResponse(token, nextToken, pages, false, compressedBytes, uncompressedBytes, decompressionCpuNanos);
         }
 
         public static PagesResponse createEmptyPagesResponse(long token, long nextToken)
         {
-            return new PagesResponse(token, nextToken, ImmutableList.<Page>of(), false);
+            return new PagesResponse(token, nextToken, ImmutableList.<Page>of(), false, 0, 0, 0);
         }
 
         public static PagesResponse createClosedResponse(long token)
         {
-            return new PagesResponse(token, -1, ImmutableList.<Page>of(), true);
+            return new PagesResponse(token, -1, ImmutableList.<Page>of(), true, 0, 0, 0);
         }
 
         private final long token;
         private final long nextToken;
         private final List<Page> pages;
         private final boolean clientClosed;
+        private final long compressedBytes;
+        private final long uncompressedBytes;
+        private final long decompressionCpuNanos;
 
-        private PagesResponse(long token, long nextToken, Iterable<Page> pages, boolean clientClosed)
+        private PagesResponse(long token, long nextToken, Iterable<Page> pages, boolean clientClosed, long compressedBytes, long uncompressedBytes, long decompressionCpuNanos)
         {
             this.token = token;
             this.nextToken = nextToken;
             this.pages = ImmutableList.copyOf(pages);
             this.clientClosed = clientClosed;
+            this.compressedBytes = compressedBytes;
+            this.uncompressedBytes = uncompressedBytes;
+            this.decompressionCpuNanos = decompressionCpuNanos;
         }
 
         public long getToken()
@@ -549,6 +601,21 @@ public final class HttpPageBufferClient
             return clientClosed;
         }
 
+        public long getCompressedBytes()
+        {
+            return compressedBytes;
+        }
+
+        public long getUncompressedBytes()
+        {
+            return uncompressedBytes;
+        }
+
+        public long getDecompressionCpuNanos()
+        {
+            return decompressionCpuNanos;
+        }
+
         @Override
         public String toString()
         {
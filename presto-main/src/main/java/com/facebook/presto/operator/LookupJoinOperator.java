@@ -18,18 +18,28 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.facebook.presto.util.MoreFutures.tryGetUnchecked;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterators.singletonIterator;
+import static java.util.Collections.emptyIterator;
 
 public class LookupJoinOperator
         implements Operator, Closeable
 {
+    private final LookupSourceSupplier lookupSourceSupplier;
     private final ListenableFuture<LookupSource> lookupSourceFuture;
 
     private final OperatorContext operatorContext;
@@ -38,10 +48,21 @@ public class LookupJoinOperator
     private final List<Type> types;
     private final List<Type> probeTypes;
     private final PageBuilder pageBuilder;
+    private final HashGenerator probeHashGenerator;
 
     private LookupSource lookupSource;
     private JoinProbe probe;
 
+    // set when the build side was spilled; probe rows of spilled partitions are
+    // spilled as well, and joined partition by partition after the input is finished
+    private SpilledLookupSource spilledLookupSource;
+    private final Map<Integer, Spiller> probeSpillers = new HashMap<>();
+    private final Map<Integer, PageBuilder> probeSpillBuffers = new HashMap<>();
+    private int spilledPartition = -1;
+    private Iterator<Page> spilledProbePages = emptyIterator();
+    private boolean spilledPartitionsJoined;
+    private boolean closed;
+
     private boolean finishing;
     private long joinPosition = -1;
 
@@ -52,14 +73,18 @@ public class LookupJoinOperator
             OperatorContext operatorContext,
             LookupSourceSupplier lookupSourceSupplier,
             List<Type> probeTypes,
+            List<Integer> probeJoinChannels,
+            Optional<Integer> probeHashChannel,
             JoinType joinType,
             JoinProbeFactory joinProbeFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
         // todo pass in desired projection
-        checkNotNull(lookupSourceSupplier, "lookupSourceSupplier is null");
+        this.lookupSourceSupplier = checkNotNull(lookupSourceSupplier, "lookupSourceSupplier is null");
         checkNotNull(probeTypes, "probeTypes is null");
+        checkNotNull(probeJoinChannels, "probeJoinChannels is null");
+        checkNotNull(probeHashChannel, "probeHashChannel is null");
 
         this.lookupSourceFuture = lookupSourceSupplier.getLookupSource(operatorContext);
         this.joinProbeFactory = joinProbeFactory;
@@ -71,6 +96,15 @@ public class LookupJoinOperator
                 .build();
         this.probeTypes = probeTypes;
         this.pageBuilder = new PageBuilder(types);
+
+        if (probeHashChannel.isPresent()) {
+            this.probeHashGenerator = new PrecomputedHashGenerator(probeHashChannel.get());
+        }
+        else {
+            this.probeHashGenerator = new InterpretedHashGenerator(
+                    probeJoinChannels.stream().map(probeTypes::get).collect(toImmutableList()),
+                    Ints.toArray(probeJoinChannels));
+        }
     }
 
     @Override
@@ -95,7 +129,8 @@ public class LookupJoinOperator
     public boolean isFinished()
     {
         boolean finished = finishing && probe == null && pageBuilder.isEmpty() &&
-                (joinType != JoinType.PROBE_LOOKUP_OUTER || buildSideNextUnvisitedKeyId == LookupSource.NO_MORE_BUILD_SIDE_OUTER_JOIN_POSITIONS);
+                (joinType != JoinType.PROBE_LOOKUP_OUTER || buildSideNextUnvisitedKeyId == LookupSource.NO_MORE_BUILD_SIDE_OUTER_JOIN_POSITIONS) &&
+                (spilledLookupSource == null || spilledPartitionsJoined);
 
         // if finished drop references so memory is freed early
         if (finished) {
@@ -105,6 +140,7 @@ public class LookupJoinOperator
             }
             probe = null;
             pageBuilder.reset();
+            closeProbeSpillers();
         }
         return finished;
     }
@@ -123,7 +159,7 @@ public class LookupJoinOperator
         }
 
         if (lookupSource == null) {
-            lookupSource = tryGetUnchecked(lookupSourceFuture);
+            setLookupSource(tryGetUnchecked(lookupSourceFuture));
         }
         return lookupSource != null && probe == null;
     }
@@ -136,8 +172,16 @@ public class LookupJoinOperator
         checkState(lookupSource != null, "Lookup source has not been built yet");
         checkState(probe == null, "Current page has not been completely processed yet");
 
+        Page probePage = page;
+        if (spilledLookupSource != null) {
+            probePage = spillProbeRows(page);
+            if (probePage.getPositionCount() == 0) {
+                return;
+            }
+        }
+
         // create probe
-        probe = joinProbeFactory.createJoinProbe(lookupSource, page);
+        probe = joinProbeFactory.createJoinProbe(lookupSource, probePage);
 
         // initialize to invalid join position to force output code to advance the cursors
         joinPosition = -1;
@@ -148,7 +192,12 @@ public class LookupJoinOperator
     {
         // If needsInput was never called, lookupSource has not been initialized so far.
         if (lookupSource == null) {
-            lookupSource = tryGetUnchecked(lookupSourceFuture);
+            setLookupSource(tryGetUnchecked(lookupSourceFuture));
+        }
+
+        // once the input is finished, join the spilled probe rows partition by partition
+        if (finishing && probe == null && spilledLookupSource != null && !spilledPartitionsJoined) {
+            advanceSpilledProbe();
         }
 
         // join probe page with the lookup source
@@ -172,7 +221,7 @@ public class LookupJoinOperator
         }
 
         // only flush full pages unless we are done
-        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null)) {
+        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null && (spilledLookupSource == null || spilledPartitionsJoined))) {
             Page page = pageBuilder.build();
             pageBuilder.reset();
             return page;
@@ -184,10 +233,119 @@ public class LookupJoinOperator
     @Override
     public void close()
     {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
         if (lookupSource != null) {
             lookupSource.close();
             lookupSource = null;
         }
+        closeProbeSpillers();
+        lookupSourceSupplier.release();
+    }
+
+    private void setLookupSource(LookupSource lookupSource)
+    {
+        this.lookupSource = lookupSource;
+        if (lookupSource instanceof SpilledLookupSource) {
+            checkState(joinType != JoinType.PROBE_LOOKUP_OUTER, "Build side of a full outer join can not be spilled");
+            spilledLookupSource = (SpilledLookupSource) lookupSource;
+        }
+    }
+
+    /**
+     * Moves the rows of spilled partitions to the probe spill buffers, and returns the other rows.
+     */
+    private Page spillProbeRows(Page page)
+    {
+        PageBuilder unspilled = null;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int partition = spilledLookupSource.getSpilledPartition(probeHashGenerator.hashPosition(position, page));
+            if (partition < 0) {
+                if (unspilled != null) {
+                    appendRow(page, position, unspilled);
+                }
+                continue;
+            }
+
+            if (unspilled == null) {
+                // copy the rows before this one, which all belong to in-memory partitions
+                unspilled = new PageBuilder(probeTypes);
+                for (int i = 0; i < position; i++) {
+                    appendRow(page, i, unspilled);
+                }
+            }
+
+            PageBuilder spillBuffer = probeSpillBuffers.computeIfAbsent(partition, ignored -> new PageBuilder(probeTypes));
+            appendRow(page, position, spillBuffer);
+            if (spillBuffer.isFull()) {
+                spillProbeBuffer(partition);
+            }
+        }
+        return unspilled == null ? page : unspilled.build();
+    }
+
+    private void appendRow(Page page, int position, PageBuilder pageBuilder)
+    {
+        pageBuilder.declarePosition();
+        for (int channel = 0; channel < probeTypes.size(); channel++) {
+            probeTypes.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+        }
+    }
+
+    private void spillProbeBuffer(int partition)
+    {
+        PageBuilder spillBuffer = probeSpillBuffers.get(partition);
+        if (spillBuffer.isEmpty()) {
+            return;
+        }
+        Spiller spiller = probeSpillers.computeIfAbsent(partition, ignored -> spilledLookupSource.createProbeSpiller(operatorContext));
+        spiller.spill(singletonIterator(spillBuffer.build()));
+        spillBuffer.reset();
+    }
+
+    /**
+     * Creates a probe for the next spilled probe page, loading the build rows of
+     * the next spilled partition when the current one is exhausted.
+     */
+    private void advanceSpilledProbe()
+    {
+        if (spilledPartition < 0) {
+            probeSpillBuffers.keySet().forEach(this::spillProbeBuffer);
+            probeSpillBuffers.clear();
+        }
+
+        while (!spilledProbePages.hasNext()) {
+            do {
+                spilledPartition++;
+            }
+            while (spilledPartition < spilledLookupSource.getSpilledPartitionCount() && !probeSpillers.containsKey(spilledPartition));
+
+            if (lookupSource != spilledLookupSource) {
+                lookupSource.close();
+            }
+
+            if (spilledPartition >= spilledLookupSource.getSpilledPartitionCount()) {
+                lookupSource = spilledLookupSource;
+                spilledPartitionsJoined = true;
+                return;
+            }
+
+            lookupSource = spilledLookupSource.createPartitionLookupSource(spilledPartition, operatorContext);
+            spilledProbePages = Iterators.concat(probeSpillers.get(spilledPartition).getSpills().iterator());
+        }
+
+        probe = joinProbeFactory.createJoinProbe(lookupSource, spilledProbePages.next());
+        joinPosition = -1;
+    }
+
+    private void closeProbeSpillers()
+    {
+        probeSpillers.values().forEach(Spiller::close);
+        probeSpillers.clear();
+        probeSpillBuffers.clear();
     }
 
     private boolean joinCurrentPosition()
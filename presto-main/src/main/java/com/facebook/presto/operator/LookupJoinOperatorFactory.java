@@ -18,6 +18,7 @@ import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
+import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkState;
 
@@ -27,6 +28,8 @@ public class LookupJoinOperatorFactory
     private final int operatorId;
     private final LookupSourceSupplier lookupSourceSupplier;
     private final List<Type> probeTypes;
+    private final List<Integer> probeJoinChannels;
+    private final Optional<Integer> probeHashChannel;
     private final JoinType joinType;
     private final List<Type> types;
     private final JoinProbeFactory joinProbeFactory;
@@ -35,12 +38,16 @@ public class LookupJoinOperatorFactory
     public LookupJoinOperatorFactory(int operatorId,
             LookupSourceSupplier lookupSourceSupplier,
             List<Type> probeTypes,
+            List<Integer> probeJoinChannels,
+            Optional<Integer> probeHashChannel,
             JoinType joinType,
             JoinProbeFactory joinProbeFactory)
     {
         this.operatorId = operatorId;
         this.lookupSourceSupplier = lookupSourceSupplier;
         this.probeTypes = probeTypes;
+        this.probeJoinChannels = probeJoinChannels;
+        this.probeHashChannel = probeHashChannel;
         this.joinType = joinType;
 
         this.joinProbeFactory = joinProbeFactory;
@@ -49,6 +56,9 @@ public class LookupJoinOperatorFactory
                 .addAll(probeTypes)
                 .addAll(lookupSourceSupplier.getTypes())
                 .build();
+
+        // released when the factory is closed
+        lookupSourceSupplier.retain();
     }
 
     @Override
@@ -62,12 +72,17 @@ public class LookupJoinOperatorFactory
     {
         checkState(!closed, "Factory is already closed");
         OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, LookupJoinOperator.class.getSimpleName());
-        return new LookupJoinOperator(operatorContext, lookupSourceSupplier, probeTypes, joinType, joinProbeFactory);
+        lookupSourceSupplier.retain();
+        return new LookupJoinOperator(operatorContext, lookupSourceSupplier, probeTypes, probeJoinChannels, probeHashChannel, joinType, joinProbeFactory);
     }
 
     @Override
     public void close()
     {
+        if (closed) {
+            return;
+        }
         closed = true;
+        lookupSourceSupplier.release();
     }
 }
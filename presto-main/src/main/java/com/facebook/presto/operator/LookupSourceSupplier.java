@@ -23,4 +23,12 @@ public interface LookupSourceSupplier
     List<Type> getTypes();
 
     ListenableFuture<LookupSource> getLookupSource(OperatorContext operatorContext);
+
+    /**
+     * Adds a user of the lookup source. Resources shared by all users, such as
+     * spilled build partitions, are released when the last user calls {@link #release}.
+     */
+    void retain();
+
+    void release();
 }
@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Merges runs of pages, each already sorted on the same channels, into a single
+ * sorted stream of pages with the same layout as the runs.
+ */
+public class MergingPageIterator
+        extends AbstractIterator<Page>
+{
+    private final List<Type> types;
+    private final List<Integer> sortChannels;
+    private final List<SortOrder> sortOrders;
+    private final PageBuilder pageBuilder;
+    private final PriorityQueue<PageCursor> cursors;
+
+    public MergingPageIterator(List<Iterator<Page>> runs, List<Type> types, List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        checkNotNull(runs, "runs is null");
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
+        this.sortOrders = ImmutableList.copyOf(checkNotNull(sortOrders, "sortOrders is null"));
+        checkArgument(sortChannels.size() == sortOrders.size(), "sortChannels and sortOrders must be the same size");
+
+        this.pageBuilder = new PageBuilder(this.types);
+        this.cursors = new PriorityQueue<>(Math.max(runs.size(), 1), this::compare);
+        for (Iterator<Page> run : runs) {
+            PageCursor cursor = new PageCursor(run);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+    }
+
+    @Override
+    protected Page computeNext()
+    {
+        while (!pageBuilder.isFull() && !cursors.isEmpty()) {
+            PageCursor cursor = cursors.poll();
+            cursor.appendTo(pageBuilder);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        if (pageBuilder.isEmpty()) {
+            return endOfData();
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        return page;
+    }
+
+    private int compare(PageCursor left, PageCursor right)
+    {
+        for (int i = 0; i < sortChannels.size(); i++) {
+            int channel = sortChannels.get(i);
+            int result = sortOrders.get(i).compareBlockValue(
+                    types.get(channel),
+                    left.page.getBlock(channel),
+                    left.position,
+                    right.page.getBlock(channel),
+                    right.position);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private class PageCursor
+    {
+        private final Iterator<Page> pages;
+        private Page page;
+        private int position;
+
+        private PageCursor(Iterator<Page> pages)
+        {
+            this.pages = pages;
+        }
+
+        public boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    page = null;
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            return true;
+        }
+
+        public void appendTo(PageBuilder pageBuilder)
+        {
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < types.size(); channel++) {
+                types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+        }
+    }
+}
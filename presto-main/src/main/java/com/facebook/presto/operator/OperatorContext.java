@@ -74,6 +74,9 @@ public class OperatorContext
     private final AtomicLong memoryReservation = new AtomicLong();
     private final long maxMemoryReservation;
 
+    private final CounterStat spilledDataSize = new CounterStat();
+    private final AtomicLong spillWallNanos = new AtomicLong();
+
     private final AtomicReference<Supplier<Object>> infoSupplier = new AtomicReference<>();
     private final boolean collectTimings;
 
@@ -193,6 +196,12 @@ public class OperatorContext
         finishUserNanos.getAndAdd(nanosBetween(intervalUserStart.get(), currentThreadUserTime()));
     }
 
+    public void recordSpill(long sizeInBytes, long spillNanos)
+    {
+        spilledDataSize.update(sizeInBytes);
+        spillWallNanos.getAndAdd(spillNanos);
+    }
+
     public DataSize getMaxMemorySize()
     {
         return driverContext.getMaxMemorySize();
@@ -224,17 +233,26 @@ public class OperatorContext
     }
 
     public synchronized long setMemoryReservation(long newMemoryReservation)
+    {
+        if (!trySetMemoryReservation(newMemoryReservation)) {
+            throw new ExceededMemoryLimitException(getMaxMemorySize());
+        }
+
+        return newMemoryReservation;
+    }
+
+    /**
+     * Like {@link #setMemoryReservation} but returns false instead of failing
+     * when the reservation cannot be granted.
+     */
+    public synchronized boolean trySetMemoryReservation(long newMemoryReservation)
     {
         checkArgument(newMemoryReservation >= 0, "newMemoryReservation is negative");
 
         long delta = newMemoryReservation - memoryReservation.get();
 
         // currently, operator memory is not be released
-        if (delta > 0 && !reserveMemory(delta)) {
-            throw new ExceededMemoryLimitException(getMaxMemorySize());
-        }
-
-        return newMemoryReservation;
+        return delta <= 0 || reserveMemory(delta);
     }
 
     public void setInfoSupplier(Supplier<Object> infoSupplier)
@@ -297,6 +315,10 @@ public class OperatorContext
                 new Duration(finishUserNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
                 new DataSize(memoryReservation.get(), BYTE).convertToMostSuccinctDataSize(),
+
+                new DataSize(spilledDataSize.getTotalCount(), BYTE).convertToMostSuccinctDataSize(),
+                new Duration(spillWallNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
+
                 info);
     }
 
@@ -56,6 +56,9 @@ public class OperatorStats
 
     private final DataSize memoryReservation;
 
+    private final DataSize spilledDataSize;
+    private final Duration spillWall;
+
     private final Object info;
 
     @JsonCreator
@@ -86,6 +89,9 @@ public class OperatorStats
 
             @JsonProperty("memoryReservation") DataSize memoryReservation,
 
+            @JsonProperty("spilledDataSize") DataSize spilledDataSize,
+            @JsonProperty("spillWall") Duration spillWall,
+
             @JsonProperty("info") Object info)
     {
         checkArgument(operatorId >= 0, "operatorId is negative");
@@ -117,6 +123,9 @@ public class OperatorStats
 
         this.memoryReservation = checkNotNull(memoryReservation, "memoryReservation is null");
 
+        this.spilledDataSize = checkNotNull(spilledDataSize, "spilledDataSize is null");
+        this.spillWall = checkNotNull(spillWall, "spillWall is null");
+
         this.info = info;
     }
 
@@ -240,6 +249,18 @@ public class OperatorStats
         return memoryReservation;
     }
 
+    @JsonProperty
+    public DataSize getSpilledDataSize()
+    {
+        return spilledDataSize;
+    }
+
+    @JsonProperty
+    public Duration getSpillWall()
+    {
+        return spillWall;
+    }
+
     @Nullable
     @JsonProperty
     public Object getInfo()
@@ -277,6 +298,9 @@ public class OperatorStats
 
         long memoryReservation = this.memoryReservation.toBytes();
 
+        long spilledDataSize = this.spilledDataSize.toBytes();
+        long spillWall = this.spillWall.roundTo(NANOSECONDS);
+
         Mergeable<?> base = null;
         if (info instanceof Mergeable) {
             base = (Mergeable<?>) info;
@@ -307,6 +331,9 @@ public class OperatorStats
 
             memoryReservation += operator.getMemoryReservation().toBytes();
 
+            spilledDataSize += operator.getSpilledDataSize().toBytes();
+            spillWall += operator.getSpillWall().roundTo(NANOSECONDS);
+
             Object info = operator.getInfo();
             if (base != null && info != null && base.getClass() == info.getClass()) {
                 base = mergeInfo(base, info);
@@ -340,6 +367,9 @@ public class OperatorStats
 
                 new DataSize(memoryReservation, BYTE).convertToMostSuccinctDataSize(),
 
+                new DataSize(spilledDataSize, BYTE).convertToMostSuccinctDataSize(),
+                new Duration(spillWall, NANOSECONDS).convertToMostSuccinctTimeUnit(),
+
                 base);
     }
 
@@ -15,12 +15,15 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -39,6 +42,7 @@ public class OrderByOperator
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
         private final List<Type> types;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public OrderByOperatorFactory(
@@ -48,6 +52,18 @@ public class OrderByOperator
                 int expectedPositions,
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder)
+        {
+            this(operatorId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, Optional.empty());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
@@ -62,6 +78,7 @@ public class OrderByOperator
             this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
 
             this.types = toTypes(sourceTypes, outputChannels);
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
         }
 
         @Override
@@ -83,7 +100,8 @@ public class OrderByOperator
                     expectedPositions,
                     sortTypes,
                     sortChannels,
-                    sortOrder);
+                    sortOrder,
+                    spillerFactory.map(factory -> factory.create(operatorContext)));
         }
 
         @Override
@@ -101,6 +119,7 @@ public class OrderByOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final List<Type> sortTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
@@ -108,10 +127,13 @@ public class OrderByOperator
     private final List<Type> types;
 
     private final PagesIndex pageIndex;
+    private final Optional<Spiller> spiller;
 
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    private Iterator<Page> mergedPages;
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -122,8 +144,22 @@ public class OrderByOperator
             List<Type> sortTypes,
             List<Integer> sortChannels,
             List<SortOrder> sortOrder)
+    {
+        this(operatorContext, sourceTypes, outputChannels, expectedPositions, sortTypes, sortChannels, sortOrder, Optional.empty());
+    }
+
+    public OrderByOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            int expectedPositions,
+            List<Type> sortTypes,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            Optional<Spiller> spiller)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(checkNotNull(outputChannels, "outputChannels is null"));
         this.types = toTypes(sourceTypes, outputChannels);
         this.sortTypes = ImmutableList.copyOf(checkNotNull(sortTypes, "sortTypes is null"));
@@ -131,6 +167,7 @@ public class OrderByOperator
         this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
 
         this.pageIndex = new PagesIndex(sourceTypes, expectedPositions);
+        this.spiller = checkNotNull(spiller, "spiller is null");
 
         this.pageBuilder = new PageBuilder(this.types);
     }
@@ -155,6 +192,15 @@ public class OrderByOperator
 
             // sort the index
             pageIndex.sort(sortTypes, sortChannels, sortOrder);
+
+            if (spiller.isPresent() && spiller.get().getSpillCount() > 0) {
+                // merge the spilled runs with the rows still in memory
+                List<Iterator<Page>> runs = ImmutableList.<Iterator<Page>>builder()
+                        .addAll(spiller.get().getSpills())
+                        .add(pageIndex.getSortedPages())
+                        .build();
+                mergedPages = new MergingPageIterator(runs, sourceTypes, sortChannels, sortOrder);
+            }
         }
     }
 
@@ -177,7 +223,17 @@ public class OrderByOperator
         checkNotNull(page, "page is null");
 
         pageIndex.addPage(page);
-        operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+        long estimatedSize = pageIndex.getEstimatedSize().toBytes();
+        if (!spiller.isPresent()) {
+            operatorContext.setMemoryReservation(estimatedSize);
+        }
+        else if (!operatorContext.trySetMemoryReservation(estimatedSize)) {
+            // write the index out as a sorted run and start over with an empty
+            // index that reuses the memory reservation of this one
+            pageIndex.sort(sortTypes, sortChannels, sortOrder);
+            spiller.get().spill(pageIndex.getSortedPages());
+            pageIndex.clear();
+        }
     }
 
     @Override
@@ -187,6 +243,10 @@ public class OrderByOperator
             return null;
         }
 
+        if (mergedPages != null) {
+            return getMergedOutput();
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -206,6 +266,28 @@ public class OrderByOperator
         return page;
     }
 
+    private Page getMergedOutput()
+    {
+        if (!mergedPages.hasNext()) {
+            state = State.FINISHED;
+            return null;
+        }
+
+        Page page = mergedPages.next();
+        Block[] blocks = new Block[outputChannels.length];
+        for (int i = 0; i < outputChannels.length; i++) {
+            blocks[i] = page.getBlock(outputChannels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    @Override
+    public void close()
+    {
+        mergedPages = null;
+        spiller.ifPresent(Spiller::close);
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
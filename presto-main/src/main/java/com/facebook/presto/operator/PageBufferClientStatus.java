@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.airlift.units.Duration;
 import org.joda.time.DateTime;
 
 import java.net.URI;
@@ -31,6 +32,9 @@ public class PageBufferClientStatus
     private final int requestsCompleted;
     private final int requestsFailed;
     private final String httpRequestState;
+    private final long compressedBytesReceived;
+    private final long uncompressedBytesReceived;
+    private final Duration decompressionCpu;
 
     @JsonCreator
     public PageBufferClientStatus(@JsonProperty("uri") URI uri,
@@ -40,7 +44,10 @@ public class PageBufferClientStatus
             @JsonProperty("requestsScheduled") int requestsScheduled,
             @JsonProperty("requestsCompleted") int requestsCompleted,
             @JsonProperty("requestsFailed") int requestsFailed,
-            @JsonProperty("httpRequestState") String httpRequestState)
+            @JsonProperty("httpRequestState") String httpRequestState,
+            @JsonProperty("compressedBytesReceived") long compressedBytesReceived,
+            @JsonProperty("uncompressedBytesReceived") long uncompressedBytesReceived,
+            @JsonProperty("decompressionCpu") Duration decompressionCpu)
     {
         this.uri = uri;
         this.state = state;
@@ -50,6 +57,9 @@ public class PageBufferClientStatus
         this.requestsCompleted = requestsCompleted;
         this.requestsFailed = requestsFailed;
         this.httpRequestState = httpRequestState;
+        this.compressedBytesReceived = compressedBytesReceived;
+        this.uncompressedBytesReceived = uncompressedBytesReceived;
+        this.decompressionCpu = decompressionCpu;
     }
 
     @JsonProperty
@@ -100,6 +110,24 @@ public class PageBufferClientStatus
         return httpRequestState;
     }
 
+    @JsonProperty
+    public long getCompressedBytesReceived()
+    {
+        return compressedBytesReceived;
+    }
+
+    @JsonProperty
+    public long getUncompressedBytesReceived()
+    {
+        return uncompressedBytesReceived;
+    }
+
+    @JsonProperty
+    public Duration getDecompressionCpu()
+    {
+        return decompressionCpu;
+    }
+
     @Override
     public String toString()
     {
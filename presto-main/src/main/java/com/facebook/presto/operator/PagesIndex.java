@@ -21,6 +21,7 @@ import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -32,8 +33,10 @@ import it.unimi.dsi.fastutil.ints.IntComparator;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
@@ -121,6 +124,46 @@ public class PagesIndex
         estimatedSize = calculateEstimatedSize();
     }
 
+    /**
+     * Removes all pages from the index so it can be reused after its contents were spilled.
+     */
+    public void clear()
+    {
+        for (ObjectArrayList<Block> channel : channels) {
+            channel.clear();
+        }
+        valueAddresses.clear();
+        positionCount = 0;
+        pagesMemorySize = 0;
+
+        estimatedSize = calculateEstimatedSize();
+    }
+
+    /**
+     * Returns all rows, with every channel, in the current position order of the index.
+     */
+    public Iterator<Page> getSortedPages()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private final int[] allChannels = IntStream.range(0, types.size()).toArray();
+            private final PageBuilder pageBuilder = new PageBuilder(types);
+            private int currentPosition;
+
+            @Override
+            protected Page computeNext()
+            {
+                currentPosition = buildPage(currentPosition, allChannels, pageBuilder);
+                if (pageBuilder.isEmpty()) {
+                    return endOfData();
+                }
+                Page page = pageBuilder.build();
+                pageBuilder.reset();
+                return page;
+            }
+        };
+    }
+
     public DataSize getEstimatedSize()
     {
         return new DataSize(estimatedSize, Unit.BYTE);
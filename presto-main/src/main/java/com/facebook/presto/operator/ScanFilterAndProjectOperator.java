@@ -16,23 +16,29 @@ package com.facebook.presto.operator;
 import com.facebook.presto.metadata.ColumnHandle;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import javax.annotation.concurrent.GuardedBy;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static com.facebook.presto.util.MoreFutures.toListenableFuture;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -46,10 +52,14 @@ public class ScanFilterAndProjectOperator
     private final PageSourceProvider pageSourceProvider;
     private final List<Type> types;
     private final List<ColumnHandle> columns;
+    private final List<Supplier<TupleDomain<ColumnHandle>>> dynamicFilters;
     private final PageBuilder pageBuilder;
     private final CursorProcessor cursorProcessor;
     private final PageProcessor pageProcessor;
 
+    @GuardedBy("this")
+    private Split split;
+
     @GuardedBy("this")
     private RecordCursor cursor;
 
@@ -71,7 +81,8 @@ public class ScanFilterAndProjectOperator
             CursorProcessor cursorProcessor,
             PageProcessor pageProcessor,
             Iterable<ColumnHandle> columns,
-            Iterable<Type> types)
+            Iterable<Type> types,
+            List<Supplier<TupleDomain<ColumnHandle>>> dynamicFilters)
     {
         this.cursorProcessor = checkNotNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = checkNotNull(pageProcessor, "pageProcessor is null");
@@ -80,6 +91,7 @@ public class ScanFilterAndProjectOperator
         this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceManager is null");
         this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
         this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+        this.dynamicFilters = ImmutableList.copyOf(checkNotNull(dynamicFilters, "dynamicFilters is null"));
 
         this.pageBuilder = new PageBuilder(getTypes());
     }
@@ -100,26 +112,54 @@ public class ScanFilterAndProjectOperator
     public synchronized void addSplit(Split split)
     {
         checkNotNull(split, "split is null");
-        checkState(cursor == null && pageSource == null, "split already set");
+        checkState(this.split == null && cursor == null && pageSource == null, "split already set");
+
+        // the page source is created when the first output is requested, so that it sees the
+        // dynamic filters of joins whose build side completes in the meantime
+        this.split = split;
+
+        Object splitInfo = split.getInfo();
+        if (splitInfo != null) {
+            operatorContext.setInfoSupplier(Suppliers.ofInstance(splitInfo));
+        }
+    }
+
+    private synchronized void createSourceIfNecessary()
+    {
+        if (split == null) {
+            return;
+        }
+
+        TupleDomain<ColumnHandle> dynamicFilter = TupleDomain.all();
+        for (Supplier<TupleDomain<ColumnHandle>> filter : dynamicFilters) {
+            dynamicFilter = dynamicFilter.intersect(filter.get());
+        }
+
+        ConnectorPageSource pageSource;
+        if (dynamicFilter.isNone()) {
+            // no row of the split can match the build side of the join
+            pageSource = new FixedPageSource(ImmutableList.of());
+        }
+        else if (dynamicFilter.isAll()) {
+            pageSource = pageSourceProvider.createPageSource(split, columns);
+        }
+        else {
+            pageSource = pageSourceProvider.createPageSource(split, columns, dynamicFilter);
+        }
+        split = null;
 
-        ConnectorPageSource pageSource = pageSourceProvider.createPageSource(split, columns);
         if (pageSource instanceof RecordPageSource) {
             cursor = ((RecordPageSource) pageSource).getCursor();
         }
         else {
             this.pageSource = pageSource;
         }
-
-        Object splitInfo = split.getInfo();
-        if (splitInfo != null) {
-            operatorContext.setInfoSupplier(Suppliers.ofInstance(splitInfo));
-        }
     }
 
     @Override
     public synchronized void noMoreSplits()
     {
-        if (cursor == null && pageSource == null) {
+        if (split == null && cursor == null && pageSource == null) {
             finishing = true;
         }
     }
@@ -139,6 +179,9 @@ public class ScanFilterAndProjectOperator
     @Override
     public void close()
     {
+        synchronized (this) {
+            split = null;
+        }
         if (pageSource != null) {
             try {
                 pageSource.close();
@@ -163,6 +206,16 @@ public class ScanFilterAndProjectOperator
         return finishing && pageBuilder.isEmpty();
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (pageSource == null || currentPage != null) {
+            return NOT_BLOCKED;
+        }
+        CompletableFuture<?> sourceBlocked = pageSource.isBlocked();
+        return sourceBlocked.isDone() ? NOT_BLOCKED : toListenableFuture(sourceBlocked);
+    }
+
     @Override
     public final boolean needsInput()
     {
@@ -179,6 +232,7 @@ public class ScanFilterAndProjectOperator
     public Page getOutput()
     {
         if (!finishing) {
+            createSourceIfNecessary();
             if (cursor != null) {
                 int rowsProcessed = cursorProcessor.process(operatorContext.getSession().toConnectorSession(), cursor, ROWS_PER_PAGE, pageBuilder);
                 long bytesProcessed = cursor.getCompletedBytes() - completedBytes;
@@ -194,6 +248,7 @@ public class ScanFilterAndProjectOperator
             else {
                 if (currentPage == null) {
                     currentPage = pageSource.getNextPage();
+                    operatorContext.setMemoryReservation(pageSource.getSystemMemoryUsage());
 
                     if (currentPage != null) {
                         // update operator stats
@@ -237,6 +292,7 @@ public class ScanFilterAndProjectOperator
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
         private final List<Type> types;
+        private final List<Supplier<TupleDomain<ColumnHandle>>> dynamicFilters;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -247,6 +303,19 @@ public class ScanFilterAndProjectOperator
                 PageProcessor pageProcessor,
                 Iterable<ColumnHandle> columns,
                 List<Type> types)
+        {
+            this(operatorId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, types, ImmutableList.of());
+        }
+
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                CursorProcessor cursorProcessor,
+                PageProcessor pageProcessor,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                List<Supplier<TupleDomain<ColumnHandle>>> dynamicFilters)
         {
             this.operatorId = operatorId;
             this.cursorProcessor = checkNotNull(cursorProcessor, "cursorProcessor is null");
@@ -255,6 +324,7 @@ public class ScanFilterAndProjectOperator
             this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
             this.types = checkNotNull(types, "types is null");
+            this.dynamicFilters = ImmutableList.copyOf(checkNotNull(dynamicFilters, "dynamicFilters is null"));
         }
 
         @Override
@@ -281,7 +351,8 @@ public class ScanFilterAndProjectOperator
                     cursorProcessor,
                     pageProcessor,
                     columns,
-                    types);
+                    types,
+                    dynamicFilters);
         }
 
         @Override
@@ -18,8 +18,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
+import javax.annotation.concurrent.GuardedBy;
+
 import java.util.List;
 
+import static com.facebook.presto.util.MoreFutures.tryGetUnchecked;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -29,6 +32,12 @@ public final class SettableLookupSourceSupplier
     private final List<Type> types;
     private final SettableFuture<LookupSource> lookupSourceFuture = SettableFuture.create();
 
+    @GuardedBy("this")
+    private int referenceCount;
+
+    @GuardedBy("this")
+    private boolean released;
+
     public SettableLookupSourceSupplier(List<Type> types)
     {
         this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
@@ -51,5 +60,38 @@ public final class SettableLookupSourceSupplier
         checkNotNull(lookupSource, "lookupSource is null");
         boolean wasSet = lookupSourceFuture.set(lookupSource);
         checkState(wasSet, "Lookup source already set");
+
+        synchronized (this) {
+            if (released) {
+                destroy(lookupSource);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void retain()
+    {
+        checkState(!released, "Lookup source supplier has already been released");
+        referenceCount++;
+    }
+
+    @Override
+    public synchronized void release()
+    {
+        checkState(referenceCount > 0, "Lookup source supplier is not retained");
+        referenceCount--;
+        if (referenceCount == 0) {
+            released = true;
+            if (lookupSourceFuture.isDone()) {
+                destroy(tryGetUnchecked(lookupSourceFuture));
+            }
+        }
+    }
+
+    private static void destroy(LookupSource lookupSource)
+    {
+        if (lookupSource instanceof SpilledLookupSource) {
+            ((SpilledLookupSource) lookupSource).destroy();
+        }
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Lookup source of a grace hash join. The build rows are split into partitions
+ * by the hash of the join channels, and the first {@code spilledPartitionCount}
+ * partitions were written to disk instead of being added to the in-memory lookup
+ * source. Probe rows of those partitions must be spilled by the probe and joined
+ * against {@link #createPartitionLookupSource} once the probe input is finished.
+ * The spilled build pages are shared by all probes and are deleted by
+ * {@link #destroy} once the last probe has released the lookup source supplier.
+ */
+@ThreadSafe
+public final class SpilledLookupSource
+        implements LookupSource
+{
+    private final LookupSource inMemoryLookupSource;
+    private final List<Type> types;
+    private final List<Integer> hashChannels;
+    private final Optional<Integer> hashChannel;
+    private final int partitionCount;
+    private final SpillerFactory spillerFactory;
+
+    @GuardedBy("this")
+    private final List<Spiller> buildSpillers;
+
+    @GuardedBy("this")
+    private boolean destroyed;
+
+    public SpilledLookupSource(
+            LookupSource inMemoryLookupSource,
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int partitionCount,
+            List<Spiller> buildSpillers,
+            SpillerFactory spillerFactory)
+    {
+        this.inMemoryLookupSource = checkNotNull(inMemoryLookupSource, "inMemoryLookupSource is null");
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.hashChannels = ImmutableList.copyOf(checkNotNull(hashChannels, "hashChannels is null"));
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        this.partitionCount = partitionCount;
+        this.buildSpillers = ImmutableList.copyOf(checkNotNull(buildSpillers, "buildSpillers is null"));
+        checkArgument(!this.buildSpillers.isEmpty() && this.buildSpillers.size() <= partitionCount, "invalid number of spilled partitions");
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+    }
+
+    public static int getPartition(int rawHash, int partitionCount)
+    {
+        return (rawHash & Integer.MAX_VALUE) % partitionCount;
+    }
+
+    public int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    public int getSpilledPartitionCount()
+    {
+        return buildSpillers.size();
+    }
+
+    /**
+     * Returns the partition of a row with the given raw hash, if that partition
+     * was spilled, or -1 if the row can be joined against this lookup source.
+     */
+    public int getSpilledPartition(int rawHash)
+    {
+        int partition = getPartition(rawHash, partitionCount);
+        return partition < buildSpillers.size() ? partition : -1;
+    }
+
+    public Spiller createProbeSpiller(OperatorContext operatorContext)
+    {
+        return spillerFactory.create(operatorContext);
+    }
+
+    /**
+     * Reads the build rows of a spilled partition back from disk and builds a lookup
+     * source over them. The memory of the lookup source is charged to the operator.
+     */
+    public LookupSource createPartitionLookupSource(int partition, OperatorContext operatorContext)
+    {
+        PagesIndex pagesIndex = new PagesIndex(types, 10_000);
+        Iterator<Page> pages = getSpilledPages(partition);
+        while (pages.hasNext()) {
+            pagesIndex.addPage(pages.next());
+            operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        }
+        return pagesIndex.createLookupSource(hashChannels, operatorContext, hashChannel);
+    }
+
+    private synchronized Iterator<Page> getSpilledPages(int partition)
+    {
+        checkState(!destroyed, "Spilled partitions have already been deleted");
+        return Iterators.concat(buildSpillers.get(partition).getSpills().iterator());
+    }
+
+    /**
+     * Deletes the spilled build partitions.
+     */
+    public synchronized void destroy()
+    {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+        buildSpillers.forEach(Spiller::close);
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return inMemoryLookupSource.getChannelCount();
+    }
+
+    @Override
+    public long getJoinPosition(int position, Page page, int rawHash)
+    {
+        return inMemoryLookupSource.getJoinPosition(position, page, rawHash);
+    }
+
+    @Override
+    public long getJoinPosition(int position, Page page)
+    {
+        return inMemoryLookupSource.getJoinPosition(position, page);
+    }
+
+    @Override
+    public long getNextJoinPosition(long currentPosition)
+    {
+        return inMemoryLookupSource.getNextJoinPosition(currentPosition);
+    }
+
+    @Override
+    public int getNextUnvisitedKeyId(int currentKeyId)
+    {
+        return inMemoryLookupSource.getNextUnvisitedKeyId(currentKeyId);
+    }
+
+    @Override
+    public long getJoinPositionForKeyId(int currentKeyId)
+    {
+        return inMemoryLookupSource.getJoinPositionForKeyId(currentKeyId);
+    }
+
+    @Override
+    public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        inMemoryLookupSource.appendTo(position, pageBuilder, outputChannelOffset);
+    }
+
+    @Override
+    public void close()
+    {
+        // the spilled partitions are shared by all probes, see destroy()
+        inMemoryLookupSource.close();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.PagesSerde;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Writes runs of pages to local files with {@link PagesSerde} so an operator can
+ * release memory and read the runs back later. Spilled bytes and time are recorded
+ * in the operator stats, and the bytes written to disk are charged to the node-wide
+ * {@link SpillSpaceTracker} as they are written. All files are deleted when the spiller is closed.
+ */
+@NotThreadSafe
+public class Spiller
+        implements Closeable
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final Path spillPath;
+    private final SpillSpaceTracker spillSpaceTracker;
+    private final OperatorContext operatorContext;
+
+    private final List<Path> files = new ArrayList<>();
+    private final List<InputStream> inputs = new ArrayList<>();
+    private long reservedBytes;
+    private boolean closed;
+
+    public Spiller(BlockEncodingSerde blockEncodingSerde, Path spillPath, SpillSpaceTracker spillSpaceTracker, OperatorContext operatorContext)
+    {
+        this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.spillPath = checkNotNull(spillPath, "spillPath is null");
+        this.spillSpaceTracker = checkNotNull(spillSpaceTracker, "spillSpaceTracker is null");
+        this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+    }
+
+    /**
+     * Writes the pages to a new run file. Disk space is reserved before each
+     * buffer is written, so a run that would exceed the node-wide spill limit
+     * fails before it fills the disk.
+     */
+    public void spill(Iterator<Page> pages)
+    {
+        checkState(!closed, "Spiller is closed");
+
+        long start = System.nanoTime();
+        Path file;
+        try {
+            Files.createDirectories(spillPath);
+            file = Files.createTempFile(spillPath, "spill-", ".bin");
+            files.add(file);
+            long reservedBefore = reservedBytes;
+            try (SliceOutput output = new OutputStreamSliceOutput(new BufferedOutputStream(new ReservingOutputStream(Files.newOutputStream(file)), BUFFER_SIZE))) {
+                PagesSerde.writePages(blockEncodingSerde, output, pages);
+            }
+            operatorContext.recordSpill(reservedBytes - reservedBefore, System.nanoTime() - start);
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR, "Failed to spill pages to " + spillPath, e);
+        }
+    }
+
+    public int getSpillCount()
+    {
+        return files.size();
+    }
+
+    /**
+     * Returns one iterator per run, in the order the runs were written.
+     */
+    public List<Iterator<Page>> getSpills()
+    {
+        checkState(!closed, "Spiller is closed");
+
+        ImmutableList.Builder<Iterator<Page>> spills = ImmutableList.builder();
+        try {
+            for (Path file : files) {
+                InputStream input = Files.newInputStream(file);
+                inputs.add(input);
+                spills.add(PagesSerde.readPages(blockEncodingSerde, new InputStreamSliceInput(input)));
+            }
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR, "Failed to read spilled pages from " + spillPath, e);
+        }
+        return spills.build();
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (InputStream input : inputs) {
+            try {
+                input.close();
+            }
+            catch (IOException ignored) {
+            }
+        }
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException ignored) {
+            }
+        }
+        spillSpaceTracker.free(reservedBytes);
+        reservedBytes = 0;
+    }
+
+    private class ReservingOutputStream
+            extends FilterOutputStream
+    {
+        public ReservingOutputStream(OutputStream out)
+        {
+            super(out);
+        }
+
+        @Override
+        public void write(int b)
+                throws IOException
+        {
+            reserve(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+                throws IOException
+        {
+            reserve(len);
+            out.write(b, off, len);
+        }
+
+        private void reserve(long bytes)
+        {
+            spillSpaceTracker.reserve(bytes);
+            reservedBytes += bytes;
+        }
+    }
+}
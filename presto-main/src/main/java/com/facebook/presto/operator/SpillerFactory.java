@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.ImmutableList;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class SpillerFactory
+{
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final List<Path> spillPaths;
+    private final SpillSpaceTracker spillSpaceTracker;
+    private final AtomicInteger nextSpillPath = new AtomicInteger();
+
+    public SpillerFactory(BlockEncodingSerde blockEncodingSerde, List<Path> spillPaths, SpillSpaceTracker spillSpaceTracker)
+    {
+        this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.spillPaths = ImmutableList.copyOf(checkNotNull(spillPaths, "spillPaths is null"));
+        checkArgument(!this.spillPaths.isEmpty(), "spillPaths is empty");
+        this.spillSpaceTracker = checkNotNull(spillSpaceTracker, "spillSpaceTracker is null");
+    }
+
+    public Spiller create(OperatorContext operatorContext)
+    {
+        // spread spillers over the configured directories
+        Path spillPath = spillPaths.get(Math.abs(nextSpillPath.getAndIncrement() % spillPaths.size()));
+        return new Spiller(blockEncodingSerde, spillPath, spillSpaceTracker, operatorContext);
+    }
+}
@@ -31,8 +31,10 @@ import javax.annotation.concurrent.GuardedBy;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static com.facebook.presto.operator.FinishedPageSource.FINISHED_PAGE_SOURCE;
+import static com.facebook.presto.util.MoreFutures.toListenableFuture;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -202,7 +204,8 @@ public class TableScanOperator
     {
         ConnectorPageSource delegate = getSource();
         if (delegate != null) {
-            return NOT_BLOCKED;
+            CompletableFuture<?> sourceBlocked = delegate.isBlocked();
+            return sourceBlocked.isDone() ? NOT_BLOCKED : toListenableFuture(sourceBlocked);
         }
         return blocked;
     }
@@ -228,6 +231,7 @@ public class TableScanOperator
         }
 
         Page page = delegate.getNextPage();
+        operatorContext.setMemoryReservation(delegate.getSystemMemoryUsage());
         if (page != null) {
             // assure the page is in memory before handing to another operator
             page.assureLoaded();
@@ -18,12 +18,15 @@ import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskState;
 import com.facebook.presto.execution.TaskStateMachine;
+import com.facebook.presto.memory.MemoryPool;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.stats.CounterStat;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.joda.time.DateTime;
 
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.List;
@@ -32,6 +35,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
 import static com.facebook.presto.util.Threads.checkNotSameThreadExecutor;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -50,8 +54,13 @@ public class TaskContext
     private final long maxMemory;
     private final DataSize operatorPreAllocatedMemory;
 
+    private final MemoryPool memoryPool;
     private final AtomicLong memoryReservation = new AtomicLong();
 
+    // set once the task is done and its reservation has been returned to the pool
+    @GuardedBy("this")
+    private boolean memoryReleased;
+
     private final long createNanos = System.nanoTime();
 
     private final AtomicLong startNanos = new AtomicLong();
@@ -104,10 +113,31 @@ public class TaskContext
             DataSize operatorPreAllocatedMemory,
             boolean verboseStats,
             boolean cpuTimerEnabled)
+    {
+        this(
+                taskStateMachine,
+                executor,
+                session,
+                new MemoryPool(GENERAL_POOL, checkNotNull(maxMemory, "maxMemory is null")),
+                maxMemory,
+                operatorPreAllocatedMemory,
+                verboseStats,
+                cpuTimerEnabled);
+    }
+
+    public TaskContext(TaskStateMachine taskStateMachine,
+            Executor executor,
+            Session session,
+            MemoryPool memoryPool,
+            DataSize maxMemory,
+            DataSize operatorPreAllocatedMemory,
+            boolean verboseStats,
+            boolean cpuTimerEnabled)
     {
         this.taskStateMachine = checkNotNull(taskStateMachine, "taskStateMachine is null");
         this.executor = checkNotNull(executor, "executor is null");
         this.session = session;
+        this.memoryPool = checkNotNull(memoryPool, "memoryPool is null");
         this.maxMemory = checkNotNull(maxMemory, "maxMemory is null").toBytes();
         this.operatorPreAllocatedMemory = checkNotNull(operatorPreAllocatedMemory, "operatorPreAllocatedMemory is null");
 
@@ -119,6 +149,7 @@ public class TaskContext
                 if (newValue.isDone()) {
                     executionEndTime.set(DateTime.now());
                     endNanos.set(System.nanoTime());
+                    releaseMemory();
                 }
             }
         });
@@ -188,6 +219,9 @@ public class TaskContext
             return false;
         }
         memoryReservation.getAndAdd(bytes);
+        if (!memoryReleased) {
+            memoryPool.reserve(getTaskId().getQueryId(), bytes);
+        }
         return true;
     }
 
@@ -195,6 +229,27 @@ public class TaskContext
     {
         checkArgument(bytes <= memoryReservation.get(), "tried to free more memory than is reserved");
         memoryReservation.getAndAdd(-bytes);
+        if (!memoryReleased) {
+            memoryPool.free(getTaskId().getQueryId(), bytes);
+        }
+    }
+
+    /**
+     * Returns a future that completes when the memory pool of this task is no
+     * longer over-committed.
+     */
+    public ListenableFuture<?> isWaitingForMemory()
+    {
+        return memoryPool.isBlocked();
+    }
+
+    private synchronized void releaseMemory()
+    {
+        if (memoryReleased) {
+            return;
+        }
+        memoryReleased = true;
+        memoryPool.free(getTaskId().getQueryId(), memoryReservation.get());
     }
 
     public boolean isVerboseStats()
@@ -26,8 +26,10 @@ import com.google.common.primitives.Ints;
 import it.unimi.dsi.fastutil.ints.IntComparator;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_WINDOW_FRAME;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
@@ -62,6 +64,7 @@ public class WindowOperator
         private final Optional<Integer> frameEndChannel;
         private final int expectedPositions;
         private final List<Type> types;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public WindowOperatorFactory(
@@ -78,6 +81,38 @@ public class WindowOperator
                 FrameBound.Type frameEndType,
                 Optional<Integer> frameEndChannel,
                 int expectedPositions)
+        {
+            this(operatorId,
+                    sourceTypes,
+                    outputChannels,
+                    windowFunctionDefinitions,
+                    partitionChannels,
+                    sortChannels,
+                    sortOrder,
+                    frameType,
+                    frameStartType,
+                    frameStartChannel,
+                    frameEndType,
+                    frameEndChannel,
+                    expectedPositions,
+                    Optional.empty());
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                WindowFrame.Type frameType,
+                FrameBound.Type frameStartType,
+                Optional<Integer> frameStartChannel,
+                FrameBound.Type frameEndType,
+                Optional<Integer> frameEndChannel,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(sourceTypes);
@@ -106,6 +141,7 @@ public class WindowOperator
             this.expectedPositions = expectedPositions;
 
             this.types = toTypes(sourceTypes, outputChannels, toWindowFunctions(windowFunctionDefinitions));
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
         }
 
         @Override
@@ -135,7 +171,8 @@ public class WindowOperator
                     frameStartChannel,
                     frameEndType,
                     frameEndChannel,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory.map(factory -> factory.create(operatorContext)));
         }
 
         @Override
@@ -153,7 +190,9 @@ public class WindowOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
+    private final int[] allChannels;
     private final List<WindowFunction> windowFunctions;
     private final List<Type> partitionTypes;
     private final List<Integer> partitionChannels;
@@ -162,18 +201,32 @@ public class WindowOperator
     private final List<SortOrder> sortOrder;
     private final List<Type> types;
 
+    private final List<SortOrder> partitionOrder;
+    private final List<Integer> orderChannels;
+    private final List<SortOrder> ordering;
+    private final List<Type> orderingTypes;
+
     private final boolean frameRange;
     private final FrameBound.Type frameStartType;
     private final int frameStartChannel;
     private final FrameBound.Type frameEndType;
     private final int frameEndChannel;
 
-    private final PagesIndex pagesIndex;
+    private final int expectedPositions;
+    private final Optional<Spiller> spiller;
+
+    private PagesIndex pagesIndex;
 
     private final PageBuilder pageBuilder;
 
     private State state = State.NEEDS_INPUT;
 
+    // rows of the merged spilled runs that have not been loaded into the index yet
+    private Iterator<Page> mergedPages;
+
+    // rows at and after this position belong to a partition that is not complete yet
+    private int positionLimit;
+
     private int currentPosition;
 
     private IntComparator partitionComparator;
@@ -200,9 +253,45 @@ public class WindowOperator
             FrameBound.Type frameEndType,
             Optional<Integer> frameEndChannel,
             int expectedPositions)
+    {
+        this(operatorContext,
+                sourceTypes,
+                outputChannels,
+                windowFunctionDefinitions,
+                partitionTypes,
+                partitionChannels,
+                sortTypes,
+                sortChannels,
+                sortOrder,
+                frameType,
+                frameStartType,
+                frameStartChannel,
+                frameEndType,
+                frameEndChannel,
+                expectedPositions,
+                Optional.empty());
+    }
+
+    public WindowOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> windowFunctionDefinitions,
+            List<Type> partitionTypes, List<Integer> partitionChannels,
+            List<Type> sortTypes, List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            WindowFrame.Type frameType,
+            FrameBound.Type frameStartType,
+            Optional<Integer> frameStartChannel,
+            FrameBound.Type frameEndType,
+            Optional<Integer> frameEndChannel,
+            int expectedPositions,
+            Optional<Spiller> spiller)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(checkNotNull(outputChannels, "outputChannels is null"));
+        this.allChannels = IntStream.range(0, sourceTypes.size()).toArray();
         this.windowFunctions = toWindowFunctions(checkNotNull(windowFunctionDefinitions, "windowFunctionDefinitions is null"));
         this.partitionTypes = ImmutableList.copyOf(checkNotNull(partitionTypes, "partitionTypes is null"));
         this.partitionChannels = ImmutableList.copyOf(checkNotNull(partitionChannels, "partitionChannels is null"));
@@ -210,6 +299,14 @@ public class WindowOperator
         this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
 
+        // we partition by ordering the values so partitions are sequential values
+        this.partitionOrder = Collections.nCopies(partitionChannels.size(), ASC_NULLS_LAST);
+
+        // sort everything by partition channels, then sort channels
+        this.orderChannels = ImmutableList.copyOf(concat(partitionChannels, sortChannels));
+        this.ordering = ImmutableList.copyOf(concat(partitionOrder, sortOrder));
+        this.orderingTypes = ImmutableList.copyOf(concat(partitionTypes, sortTypes));
+
         this.frameRange = (checkNotNull(frameType, "frameType is null") == WindowFrame.Type.RANGE);
         this.frameStartType = checkNotNull(frameStartType, "frameStartType is null");
         this.frameStartChannel = checkNotNull(frameStartChannel, "frameStartChannel is null").orElse(-1);
@@ -218,6 +315,8 @@ public class WindowOperator
 
         this.types = toTypes(sourceTypes, outputChannels, windowFunctions);
 
+        this.expectedPositions = expectedPositions;
+        this.spiller = checkNotNull(spiller, "spiller is null");
         this.pagesIndex = new PagesIndex(sourceTypes, expectedPositions);
         this.pageBuilder = new PageBuilder(this.types);
     }
@@ -240,17 +339,23 @@ public class WindowOperator
         if (state == State.NEEDS_INPUT) {
             state = State.HAS_OUTPUT;
 
-            // we partition by ordering the values so partitions are sequential values
-            List<SortOrder> partitionOrder = Collections.nCopies(partitionChannels.size(), ASC_NULLS_LAST);
-
-            // sort everything by partition channels, then sort channels
-            List<Integer> orderChannels = ImmutableList.copyOf(concat(partitionChannels, sortChannels));
-            List<SortOrder> ordering = ImmutableList.copyOf(concat(partitionOrder, sortOrder));
-            List<Type> orderingTypes = ImmutableList.copyOf(concat(partitionTypes, sortTypes));
-
             // sort the index
             pagesIndex.sort(orderingTypes, orderChannels, ordering);
 
+            if (spiller.isPresent() && spiller.get().getSpillCount() > 0) {
+                // merge the spilled runs with the rows still in memory, and
+                // process the merged rows a batch of complete partitions at a time
+                List<Iterator<Page>> runs = ImmutableList.<Iterator<Page>>builder()
+                        .addAll(spiller.get().getSpills())
+                        .add(pagesIndex.getSortedPages())
+                        .build();
+                mergedPages = new MergingPageIterator(runs, sourceTypes, orderChannels, ordering);
+                pagesIndex = new PagesIndex(sourceTypes, expectedPositions);
+                positionLimit = 0;
+                return;
+            }
+            positionLimit = pagesIndex.getPositionCount();
+
             // create partition comparator
             partitionComparator = pagesIndex.createComparator(orderingTypes, partitionChannels, partitionOrder);
 
@@ -278,7 +383,17 @@ public class WindowOperator
         checkNotNull(page, "page is null");
 
         pagesIndex.addPage(page);
-        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        long estimatedSize = pagesIndex.getEstimatedSize().toBytes();
+        if (!spiller.isPresent()) {
+            operatorContext.setMemoryReservation(estimatedSize);
+        }
+        else if (!operatorContext.trySetMemoryReservation(estimatedSize)) {
+            // write the index out as a sorted run and start over with an empty
+            // index that reuses the memory reservation of this one
+            pagesIndex.sort(orderingTypes, orderChannels, ordering);
+            spiller.get().spill(pagesIndex.getSortedPages());
+            pagesIndex.clear();
+        }
     }
 
     @Override
@@ -288,21 +403,23 @@ public class WindowOperator
             return null;
         }
 
-        if (currentPosition >= pagesIndex.getPositionCount()) {
-            state = State.FINISHED;
-            return null;
+        if (currentPosition >= positionLimit) {
+            if (mergedPages == null || !loadPartitions()) {
+                state = State.FINISHED;
+                return null;
+            }
         }
 
         // iterate through the positions sequentially until we have one full page
         pageBuilder.reset();
-        while (!pageBuilder.isFull() && currentPosition < pagesIndex.getPositionCount()) {
+        while (!pageBuilder.isFull() && currentPosition < positionLimit) {
             // check for new partition
             boolean newPartition = (currentPosition == 0) || (currentPosition == partitionEnd);
             if (newPartition) {
                 partitionStart = currentPosition;
                 // find end of partition
                 partitionEnd++;
-                while ((partitionEnd < pagesIndex.getPositionCount()) &&
+                while ((partitionEnd < positionLimit) &&
                         (partitionComparator.compare(partitionEnd - 1, partitionEnd) == 0)) {
                     partitionEnd++;
                 }
@@ -361,6 +478,63 @@ public class WindowOperator
         return page;
     }
 
+    /**
+     * Replaces the index with the next batch of complete partitions from the merged
+     * runs. The rows of the last partition of the previous batch are carried over,
+     * since that partition may continue in the next merged page.
+     */
+    private boolean loadPartitions()
+    {
+        PagesIndex partitions = new PagesIndex(sourceTypes, expectedPositions);
+
+        PageBuilder carryOver = new PageBuilder(sourceTypes);
+        int position = positionLimit;
+        while (position < pagesIndex.getPositionCount()) {
+            position = pagesIndex.buildPage(position, allChannels, carryOver);
+            partitions.addPage(carryOver.build());
+            carryOver.reset();
+        }
+
+        IntComparator comparator = partitions.createComparator(orderingTypes, partitionChannels, partitionOrder);
+        int limit = 0;
+        while (limit == 0 && mergedPages.hasNext()) {
+            int start = partitions.getPositionCount();
+            partitions.addPage(mergedPages.next());
+
+            // find the last partition boundary in the new rows
+            for (int i = partitions.getPositionCount() - 1; i > 0 && i >= start; i--) {
+                if (comparator.compare(i - 1, i) != 0) {
+                    limit = i;
+                    break;
+                }
+            }
+        }
+        if (!mergedPages.hasNext()) {
+            limit = partitions.getPositionCount();
+        }
+        if (limit == 0) {
+            return false;
+        }
+        operatorContext.setMemoryReservation(partitions.getEstimatedSize().toBytes());
+
+        pagesIndex = partitions;
+        positionLimit = limit;
+        partitionComparator = comparator;
+        orderComparator = partitions.createComparator(orderingTypes, sortChannels, sortOrder);
+
+        currentPosition = 0;
+        partitionEnd = 0;
+        peerGroupEnd = 0;
+        return true;
+    }
+
+    @Override
+    public void close()
+    {
+        mergedPages = null;
+        spiller.ifPresent(Spiller::close);
+    }
+
     private void updateFrame()
     {
         int rowPosition = currentPosition - partitionStart;
@@ -54,4 +54,15 @@ public class IndexLookupSourceSupplier
         indexLoader.setContext(operatorContext.getDriverContext().getPipelineContext().getTaskContext());
         return Futures.<LookupSource>immediateFuture(new IndexLookupSource(indexLoader));
     }
+
+    @Override
+    public void retain()
+    {
+        // every operator gets its own lookup source
+    }
+
+    @Override
+    public void release()
+    {
+    }
 }
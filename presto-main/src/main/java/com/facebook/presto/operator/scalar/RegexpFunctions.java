@@ -23,20 +23,19 @@ import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.VarcharType;
 import com.facebook.presto.type.RegexpType;
 import com.facebook.presto.type.SqlType;
+import com.facebook.presto.util.regex.SliceMatcher;
+import com.facebook.presto.util.regex.SliceRegex;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 
 import javax.annotation.Nullable;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
 import static com.facebook.presto.type.TypeUtils.buildStructuralSlice;
 import static java.lang.String.format;
-import static java.nio.charset.StandardCharsets.UTF_8;
 
 public final class RegexpFunctions
 {
@@ -46,10 +45,10 @@ public final class RegexpFunctions
 
     @ScalarOperator(OperatorType.CAST)
     @SqlType(RegexpType.NAME)
-    public static Pattern castToRegexp(@SqlType(StandardTypes.VARCHAR) Slice pattern)
+    public static SliceRegex castToRegexp(@SqlType(StandardTypes.VARCHAR) Slice pattern)
     {
         try {
-            return Pattern.compile(pattern.toString(UTF_8));
+            return SliceRegex.compile(pattern);
         }
         catch (PatternSyntaxException e) {
             throw new PrestoException(INVALID_FUNCTION_ARGUMENT, e);
@@ -59,15 +58,15 @@ public final class RegexpFunctions
     @Description("returns substrings matching a regular expression")
     @ScalarFunction
     @SqlType(StandardTypes.BOOLEAN)
-    public static boolean regexpLike(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) Pattern pattern)
+    public static boolean regexpLike(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) SliceRegex pattern)
     {
-        return pattern.matcher(source.toString(UTF_8)).find();
+        return pattern.find(source);
     }
 
     @Description("removes substrings matching a regular expression")
     @ScalarFunction
     @SqlType(StandardTypes.VARCHAR)
-    public static Slice regexpReplace(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) Pattern pattern)
+    public static Slice regexpReplace(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) SliceRegex pattern)
     {
         return regexpReplace(source, pattern, Slices.EMPTY_SLICE);
     }
@@ -75,17 +74,15 @@ public final class RegexpFunctions
     @Description("replaces substrings matching a regular expression by given string")
     @ScalarFunction
     @SqlType(StandardTypes.VARCHAR)
-    public static Slice regexpReplace(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) Pattern pattern, @SqlType(StandardTypes.VARCHAR) Slice replacement)
+    public static Slice regexpReplace(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) SliceRegex pattern, @SqlType(StandardTypes.VARCHAR) Slice replacement)
     {
-        Matcher matcher = pattern.matcher(source.toString(UTF_8));
-        String replaced = matcher.replaceAll(replacement.toString(UTF_8));
-        return Slices.copiedBuffer(replaced, UTF_8);
+        return pattern.replaceAll(source, replacement);
     }
 
     @Description("string(s) extracted using the given pattern")
     @ScalarFunction
     @SqlType("array<varchar>")
-    public static Slice regexpExtractAll(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) Pattern pattern)
+    public static Slice regexpExtractAll(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) SliceRegex pattern)
     {
         return regexpExtractAll(source, pattern, 0);
     }
@@ -93,18 +90,18 @@ public final class RegexpFunctions
     @Description("group(s) extracted using the given pattern")
     @ScalarFunction
     @SqlType("array<varchar>")
-    public static Slice regexpExtractAll(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) Pattern pattern, @SqlType(StandardTypes.BIGINT) long group)
+    public static Slice regexpExtractAll(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) SliceRegex pattern, @SqlType(StandardTypes.BIGINT) long group)
     {
-        Matcher matcher = pattern.matcher(source.toString(UTF_8));
-        validateGroup(group, matcher);
+        validateGroup(group, pattern);
+        SliceMatcher matcher = pattern.matcher(source);
         BlockBuilder blockBuilder = new VariableWidthBlockBuilder(new BlockBuilderStatus(), 1024);
         while (matcher.find()) {
-            String string = matcher.group(Ints.checkedCast(group));
-            if (string == null) {
+            Slice extracted = matcher.group(Ints.checkedCast(group));
+            if (extracted == null) {
                 blockBuilder.appendNull();
             }
             else {
-                VarcharType.VARCHAR.writeString(blockBuilder, string);
+                VarcharType.VARCHAR.writeSlice(blockBuilder, extracted);
             }
         }
         return buildStructuralSlice(blockBuilder);
@@ -114,7 +111,7 @@ public final class RegexpFunctions
     @Description("string extracted using the given pattern")
     @ScalarFunction
     @SqlType(StandardTypes.VARCHAR)
-    public static Slice regexpExtract(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) Pattern pattern)
+    public static Slice regexpExtract(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) SliceRegex pattern)
     {
         return regexpExtract(source, pattern, 0);
     }
@@ -123,27 +120,23 @@ public final class RegexpFunctions
     @Description("returns regex group of extracted string with a pattern")
     @ScalarFunction
     @SqlType(StandardTypes.VARCHAR)
-    public static Slice regexpExtract(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) Pattern pattern, @SqlType(StandardTypes.BIGINT) long group)
+    public static Slice regexpExtract(@SqlType(StandardTypes.VARCHAR) Slice source, @SqlType(RegexpType.NAME) SliceRegex pattern, @SqlType(StandardTypes.BIGINT) long group)
     {
-        Matcher matcher = pattern.matcher(source.toString(UTF_8));
-        validateGroup(group, matcher);
+        validateGroup(group, pattern);
+        SliceMatcher matcher = pattern.matcher(source);
         if (!matcher.find()) {
             return null;
         }
-        String extracted = matcher.group(Ints.checkedCast(group));
-        if (extracted == null) {
-            return null;
-        }
-        return Slices.utf8Slice(extracted);
+        return matcher.group(Ints.checkedCast(group));
     }
 
-    private static void validateGroup(long group, Matcher matcher)
+    private static void validateGroup(long group, SliceRegex pattern)
     {
         if (group < 0) {
             throw new PrestoException(INVALID_FUNCTION_ARGUMENT, "Group cannot be negative");
         }
-        if (group > matcher.groupCount()) {
-            throw new PrestoException(INVALID_FUNCTION_ARGUMENT, format("Pattern has %d groups. Cannot access group %d", matcher.groupCount(), group));
+        if (group > pattern.groupCount()) {
+            throw new PrestoException(INVALID_FUNCTION_ARGUMENT, format("Pattern has %d groups. Cannot access group %d", pattern.groupCount(), group));
         }
     }
 }
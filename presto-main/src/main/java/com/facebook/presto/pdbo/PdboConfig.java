@@ -14,99 +14,125 @@
 package com.facebook.presto.pdbo;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.units.Duration;
 
 import java.util.concurrent.TimeUnit;
 
+/**
+ * The PDBO statistics are kept by the JDBC connectors now (see jdbc-split-stats-*), so the
+ * coordinator ignores these properties. They are still accepted so that the config files of
+ * older installations load.
+ */
 public class PdboConfig
 {
-    public static final String DEFAULT_VALUE = "NA";
     private Duration pdboRefreshInterval = new Duration(3, TimeUnit.MINUTES);
     private Duration pdboCleanHistoryInterval = new Duration(6, TimeUnit.HOURS);
-    private boolean pdboExecuteEnable = false;
-    private String pdboConnectionURL = DEFAULT_VALUE;
-    private String pdboConnectionUser = DEFAULT_VALUE;
-    private String pdboConnectionPassword = DEFAULT_VALUE;
+    private boolean pdboExecuteEnable;
+    private String pdboConnectionURL;
+    private String pdboConnectionUser;
+    private String pdboConnectionPassword;
     private int pdboCalcThreads = 4;
 
+    @Deprecated
     public Duration getPdboRefreshInterval()
     {
         return pdboRefreshInterval;
     }
 
+    @Deprecated
     @Config("pdbo-refresh-interval")
+    @ConfigDescription("Ignored")
     public PdboConfig setPdboRefreshInterval(Duration pdboRefreshInterval)
     {
         this.pdboRefreshInterval = pdboRefreshInterval;
         return this;
     }
 
+    @Deprecated
     public Duration getPdboCleanHistoryInterval()
     {
         return pdboCleanHistoryInterval;
     }
 
+    @Deprecated
     @Config("pdbo-clean-history-interval")
+    @ConfigDescription("Ignored")
     public PdboConfig setPdboCleanHistoryInterval(Duration pdboCleanHistoryInterval)
     {
         this.pdboCleanHistoryInterval = pdboCleanHistoryInterval;
         return this;
     }
 
+    @Deprecated
     public boolean getPdboExecuteEnable()
     {
         return pdboExecuteEnable;
     }
 
+    @Deprecated
     @Config("pdbo-execute-enable")
+    @ConfigDescription("Ignored")
     public PdboConfig setPdboExecuteEnable(boolean pdboExecuteEnable)
     {
         this.pdboExecuteEnable = pdboExecuteEnable;
         return this;
     }
 
+    @Deprecated
     public String getPdboConnectionURL()
     {
         return pdboConnectionURL;
     }
 
+    @Deprecated
     @Config("pdbo-connection-url")
+    @ConfigDescription("Ignored")
     public PdboConfig setPdboConnectionURL(String pdboConnectionURL)
     {
         this.pdboConnectionURL = pdboConnectionURL;
         return this;
     }
 
+    @Deprecated
     public String getPdboConnectionUser()
     {
         return pdboConnectionUser;
     }
 
+    @Deprecated
     @Config("pdbo-connection-user")
+    @ConfigDescription("Ignored")
     public PdboConfig setPdboConnectionUser(String pdboConnectionUser)
     {
         this.pdboConnectionUser = pdboConnectionUser;
         return this;
     }
 
+    @Deprecated
     public String getPdboConnectionPassword()
     {
         return pdboConnectionPassword;
     }
 
+    @Deprecated
     @Config("pdbo-connection-password")
+    @ConfigDescription("Ignored")
     public PdboConfig setPdboConnectionPassword(String pdboConnectionPassword)
     {
         this.pdboConnectionPassword = pdboConnectionPassword;
         return this;
     }
 
+    @Deprecated
     public int getPdboCalcThreads()
     {
         return pdboCalcThreads;
     }
 
+    @Deprecated
     @Config("pdbo-calc-threads")
+    @ConfigDescription("Ignored")
     public PdboConfig setPdboCalcThreads(int pdboCalcThreads)
     {
         this.pdboCalcThreads = pdboCalcThreads;
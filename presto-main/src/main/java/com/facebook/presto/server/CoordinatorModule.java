@@ -33,11 +33,13 @@ import com.facebook.presto.execution.ResetSessionTask;
 import com.facebook.presto.execution.SetSessionTask;
 import com.facebook.presto.execution.SqlQueryManager;
 import com.facebook.presto.execution.SqlQueryQueueManager;
+import com.facebook.presto.memory.ClusterMemoryManager;
+import com.facebook.presto.memory.ForMemoryManager;
+import com.facebook.presto.memory.MemoryManagerConfig;
 import com.facebook.presto.metadata.DiscoveryNodeManager;
 import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.metadata.ViewDefinition;
 import com.facebook.presto.pdbo.PdboConfig;
-import com.facebook.presto.pdbo.PdboManager;
 import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.split.SplitManager;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
@@ -77,6 +79,7 @@ import static com.google.inject.multibindings.MapBinder.newMapBinder;
 import static io.airlift.concurrent.Threads.threadsNamed;
 import static io.airlift.configuration.ConfigurationModule.bindConfig;
 import static io.airlift.discovery.client.DiscoveryBinder.discoveryBinder;
+import static io.airlift.http.client.HttpClientBinder.httpClientBinder;
 import static io.airlift.http.server.HttpServerBinder.httpServerBinder;
 import static io.airlift.jaxrs.JaxrsBinder.jaxrsBinder;
 import static io.airlift.json.JsonCodecBinder.jsonCodecBinder;
@@ -105,15 +108,20 @@ public class CoordinatorModule
         newExporter(binder).export(QueryManager.class).withGeneratedName();
         bindConfig(binder).to(QueryManagerConfig.class);
 
+        // cluster memory manager
+        binder.bind(ClusterMemoryManager.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ClusterMemoryManager.class).withGeneratedName();
+        bindConfig(binder).to(MemoryManagerConfig.class);
+        httpClientBinder(binder).bindHttpClient("memoryManager", ForMemoryManager.class);
+
         // analyzer
         bindConfig(binder).to(FeaturesConfig.class);
 
         // split manager
         binder.bind(SplitManager.class).in(Scopes.SINGLETON);
 
-        // presto for database optimizer(PDBO)
+        // the PDBO properties, which are ignored
         bindConfig(binder).to(PdboConfig.class);
-        binder.bind(PdboManager.class).in(Scopes.SINGLETON);
 
         // node scheduler
         binder.bind(InternalNodeManager.class).to(DiscoveryNodeManager.class).in(Scopes.SINGLETON);
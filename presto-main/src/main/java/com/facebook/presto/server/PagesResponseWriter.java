@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.server;
 
+import com.facebook.presto.block.PageCompression;
 import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -37,6 +38,8 @@ import java.lang.reflect.Type;
 import java.util.List;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.block.PageCompression.SNAPPY;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 
 @Provider
 @Produces(PRESTO_PAGES)
@@ -88,7 +91,13 @@ public class PagesResponseWriter
             throws IOException, WebApplicationException
     {
         try {
-            PagesSerde.writePages(blockEncodingSerde, new OutputStreamSliceOutput(output), pages);
+            Object compression = httpHeaders.getFirst(PRESTO_PAGE_COMPRESSION);
+            if (compression != null && PageCompression.fromHeader(compression.toString()) == SNAPPY) {
+                PagesSerde.writeCompressedPages(blockEncodingSerde, new OutputStreamSliceOutput(output), pages);
+            }
+            else {
+                PagesSerde.writePages(blockEncodingSerde, new OutputStreamSliceOutput(output), pages);
+            }
         }
         catch (RuntimeIOException e) {
             // EOF exception occurs when the client disconnects while writing data
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.server;
 
+import com.facebook.presto.block.PageCompression;
 import com.facebook.presto.execution.BufferResult;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
@@ -45,6 +46,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
@@ -54,6 +56,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -178,6 +181,7 @@ public class TaskResource
     public void getResults(@PathParam("taskId") TaskId taskId,
             @PathParam("outputId") TaskId outputId,
             @PathParam("token") final long token,
+            @HeaderParam(PRESTO_PAGE_COMPRESSION) String compressionHeader,
             @Suspended AsyncResponse asyncResponse)
             throws InterruptedException
     {
@@ -191,6 +195,7 @@ public class TaskResource
                 DEFAULT_MAX_WAIT_TIME,
                 executor);
 
+        PageCompression compression = PageCompression.fromHeader(compressionHeader);
         ListenableFuture<Response> responseFuture = Futures.transform(bufferResultFuture, (BufferResult result) -> {
             List<Page> pages = result.getPages();
 
@@ -207,11 +212,15 @@ public class TaskResource
                 status = Status.NO_CONTENT;
             }
 
-            return Response.status(status)
+            ResponseBuilder response = Response.status(status)
                     .entity(entity)
                     .header(PRESTO_PAGE_TOKEN, result.getToken())
-                    .header(PRESTO_PAGE_NEXT_TOKEN, result.getNextToken())
-                    .build();
+                    .header(PRESTO_PAGE_NEXT_TOKEN, result.getNextToken());
+            if (compression != PageCompression.NONE) {
+                // tells both the client and PagesResponseWriter to use compressed frames
+                response.header(PRESTO_PAGE_COMPRESSION, compression);
+            }
+            return response.build();
         });
 
         // For hard timeout, add an additional 5 seconds to max wait for thread scheduling contention and GC
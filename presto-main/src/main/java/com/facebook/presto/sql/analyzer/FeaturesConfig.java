@@ -23,6 +23,7 @@ public class FeaturesConfig
     private boolean distributedJoinsEnabled;
     private boolean optimizeMetadataQueries;
     private boolean optimizeHashGeneration;
+    private boolean connectorPushDown = true;
 
     @LegacyConfig("analyzer.experimental-syntax-enabled")
     @Config("experimental-syntax-enabled")
@@ -84,4 +85,16 @@ public class FeaturesConfig
         this.optimizeHashGeneration = optimizeHashGeneration;
         return this;
     }
+
+    public boolean isConnectorPushDown()
+    {
+        return connectorPushDown;
+    }
+
+    @Config("optimizer.connector-pushdown")
+    public FeaturesConfig setConnectorPushDown(boolean connectorPushDown)
+    {
+        this.connectorPushDown = connectorPushDown;
+        return this;
+    }
 }
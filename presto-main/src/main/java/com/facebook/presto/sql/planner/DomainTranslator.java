@@ -35,15 +35,21 @@ import com.facebook.presto.sql.tree.InListExpression;
 import com.facebook.presto.sql.tree.InPredicate;
 import com.facebook.presto.sql.tree.IsNotNullPredicate;
 import com.facebook.presto.sql.tree.IsNullPredicate;
+import com.facebook.presto.sql.tree.LikePredicate;
 import com.facebook.presto.sql.tree.Literal;
 import com.facebook.presto.sql.tree.LogicalBinaryExpression;
 import com.facebook.presto.sql.tree.LongLiteral;
 import com.facebook.presto.sql.tree.NotExpression;
 import com.facebook.presto.sql.tree.NullLiteral;
 import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.facebook.presto.sql.tree.StringLiteral;
+import com.facebook.presto.type.LikeFunctions;
+import com.facebook.presto.type.LikePattern;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.math.DoubleMath;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -438,6 +444,68 @@ public final class DomainTranslator
                     new ComparisonExpression(LESS_THAN_OR_EQUAL, node.getValue(), node.getMax())), complement);
         }
 
+        @Override
+        protected ExtractionResult visitLikePredicate(LikePredicate node, Boolean complement)
+        {
+            if (!(node.getValue() instanceof QualifiedNameReference) ||
+                    !(node.getPattern() instanceof StringLiteral) ||
+                    !(node.getEscape() == null || node.getEscape() instanceof StringLiteral)) {
+                return super.visitLikePredicate(node, complement);
+            }
+
+            Symbol symbol = Symbol.fromQualifiedName(((QualifiedNameReference) node.getValue()).getName());
+            Type columnType = checkedTypeLookup(symbol);
+            ColumnHandle columnHandle = checkedColumnHandleLookup(symbol);
+
+            LikePattern pattern;
+            try {
+                Slice patternValue = ((StringLiteral) node.getPattern()).getSlice();
+                if (node.getEscape() == null) {
+                    pattern = LikeFunctions.likePattern(patternValue);
+                }
+                else {
+                    pattern = LikeFunctions.likePattern(patternValue, ((StringLiteral) node.getEscape()).getSlice());
+                }
+            }
+            catch (IllegalArgumentException e) {
+                // an invalid escape fails when the predicate is evaluated
+                return super.visitLikePredicate(node, complement);
+            }
+            verifyType(columnType, pattern.getPrefix());
+
+            if (pattern.isExact()) {
+                return createComparisonExtractionResult(EQUAL, columnHandle, columnType, pattern.getPrefix(), complement);
+            }
+
+            // values that do not start with the prefix can still be NOT LIKE the pattern, so only LIKE narrows the domain
+            if (complement || pattern.getPrefix().length() == 0) {
+                return super.visitLikePredicate(node, complement);
+            }
+
+            // the range admits every value with the prefix, so the predicate is still needed to check the rest of the pattern
+            Domain domain = Domain.create(SortedRangeSet.of(prefixRange(pattern.getPrefix())), false);
+            return new ExtractionResult(
+                    TupleDomain.withColumnDomains(ImmutableMap.<ColumnHandle, Domain>of(columnHandle, domain)),
+                    node);
+        }
+
+        /**
+         * Varchars compare as unsigned bytes, so the values starting with the prefix range from the prefix up to, but
+         * excluding, the prefix cut after its last byte below 0xFF with that byte incremented.
+         */
+        private static Range prefixRange(Slice prefix)
+        {
+            for (int i = prefix.length() - 1; i >= 0; i--) {
+                int value = prefix.getUnsignedByte(i);
+                if (value != 0xFF) {
+                    Slice upper = Slices.copyOf(prefix, 0, i + 1);
+                    upper.setByte(i, value + 1);
+                    return Range.range(prefix, true, upper, false);
+                }
+            }
+            return Range.greaterThanOrEqual(prefix);
+        }
+
         @Override
         protected ExtractionResult visitIsNullPredicate(IsNullPredicate node, Boolean complement)
         {
@@ -55,13 +55,13 @@ import com.facebook.presto.sql.tree.StringLiteral;
 import com.facebook.presto.sql.tree.SubscriptExpression;
 import com.facebook.presto.sql.tree.WhenClause;
 import com.facebook.presto.type.LikeFunctions;
+import com.facebook.presto.type.LikePattern;
 import com.google.common.base.Functions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import io.airlift.slice.Slice;
-import org.joni.Regex;
 
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
@@ -91,7 +91,7 @@ public class ExpressionInterpreter
     private final Visitor visitor;
 
     // identity-based cache for LIKE expressions with constant pattern and escape char
-    private final IdentityHashMap<LikePredicate, Regex> likePatternCache = new IdentityHashMap<>();
+    private final IdentityHashMap<LikePredicate, LikePattern> likePatternCache = new IdentityHashMap<>();
     private final IdentityHashMap<InListExpression, Set<Object>> inListCache = new IdentityHashMap<>();
 
     public static ExpressionInterpreter expressionInterpreter(Expression expression, Metadata metadata, Session session, IdentityHashMap<Expression, Type> expressionTypes)
@@ -678,15 +678,15 @@ public class ExpressionInterpreter
             if (value instanceof Slice &&
                     pattern instanceof Slice &&
                     (escape == null || escape instanceof Slice)) {
-                Regex regex;
+                LikePattern likePattern;
                 if (escape == null) {
-                    regex = LikeFunctions.likePattern((Slice) pattern);
+                    likePattern = LikeFunctions.likePattern((Slice) pattern);
                 }
                 else {
-                    regex = LikeFunctions.likePattern((Slice) pattern, (Slice) escape);
+                    likePattern = LikeFunctions.likePattern((Slice) pattern, (Slice) escape);
                 }
 
-                return LikeFunctions.like((Slice) value, regex);
+                return LikeFunctions.like((Slice) value, likePattern);
             }
 
             // if pattern is a constant without % or _ replace with a comparison
@@ -710,9 +710,9 @@ public class ExpressionInterpreter
                     optimizedEscape);
         }
 
-        private Regex getConstantPattern(LikePredicate node)
+        private LikePattern getConstantPattern(LikePredicate node)
         {
-            Regex result = likePatternCache.get(node);
+            LikePattern result = likePatternCache.get(node);
 
             if (result == null) {
                 StringLiteral pattern = (StringLiteral) node.getPattern();
@@ -23,6 +23,7 @@ import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.AggregationOperator.AggregationOperatorFactory;
 import com.facebook.presto.operator.CursorProcessor;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicFilter;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
 import com.facebook.presto.operator.FilterAndProjectOperator;
@@ -51,6 +52,8 @@ import com.facebook.presto.operator.ScanFilterAndProjectOperator;
 import com.facebook.presto.operator.SetBuilderOperator.SetBuilderOperatorFactory;
 import com.facebook.presto.operator.SetBuilderOperator.SetSupplier;
 import com.facebook.presto.operator.SourceOperatorFactory;
+import com.facebook.presto.operator.SpillSpaceTracker;
+import com.facebook.presto.operator.SpillerFactory;
 import com.facebook.presto.operator.TableScanOperator.TableScanOperatorFactory;
 import com.facebook.presto.operator.TopNOperator.TopNOperatorFactory;
 import com.facebook.presto.operator.TopNRowNumberOperator;
@@ -68,6 +71,8 @@ import com.facebook.presto.spi.ConnectorIndex;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.BigintType;
 import com.facebook.presto.spi.type.Type;
@@ -87,6 +92,7 @@ import com.facebook.presto.sql.planner.plan.LimitNode;
 import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.PlanVisitor;
 import com.facebook.presto.sql.planner.plan.ProjectNode;
 import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
@@ -110,9 +116,12 @@ import com.facebook.presto.sql.tree.Expression;
 import com.facebook.presto.sql.tree.ExpressionTreeRewriter;
 import com.facebook.presto.sql.tree.FunctionCall;
 import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Functions;
 import com.google.common.base.Predicates;
+import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
@@ -133,6 +142,8 @@ import io.airlift.units.DataSize;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -156,6 +167,7 @@ import static com.facebook.presto.sql.planner.plan.TableWriterNode.CreateHandle;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.InsertHandle;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.WriterTarget;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isDynamicFilteringEnabled;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Functions.forMap;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -164,6 +176,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.in;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.collect.Maps.immutableEntry;
 import static java.util.Collections.singleton;
 
 public class LocalExecutionPlanner
@@ -183,6 +196,8 @@ public class LocalExecutionPlanner
     private final IndexJoinLookupStats indexJoinLookupStats;
     private final DataSize maxPartialAggregationMemorySize;
     private final int writerCount;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final boolean dynamicFilteringEnabled;
 
     @Inject
     public LocalExecutionPlanner(
@@ -195,7 +210,8 @@ public class LocalExecutionPlanner
             ExpressionCompiler compiler,
             IndexJoinLookupStats indexJoinLookupStats,
             CompilerConfig compilerConfig,
-            TaskManagerConfig taskManagerConfig)
+            TaskManagerConfig taskManagerConfig,
+            BlockEncodingSerde blockEncodingSerde)
     {
         checkNotNull(compilerConfig, "compilerConfig is null");
         this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
@@ -209,6 +225,18 @@ public class LocalExecutionPlanner
         this.maxIndexMemorySize = checkNotNull(taskManagerConfig, "taskManagerConfig is null").getMaxTaskIndexMemoryUsage();
         this.maxPartialAggregationMemorySize = taskManagerConfig.getMaxPartialAggregationMemoryUsage();
         this.writerCount = taskManagerConfig.getWriterCount();
+        this.dynamicFilteringEnabled = taskManagerConfig.isDynamicFilteringEnabled();
+        if (taskManagerConfig.isSpillEnabled()) {
+            checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+            List<Path> spillPaths = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(taskManagerConfig.getSpillPath()).stream()
+                    .map(Paths::get)
+                    .collect(toImmutableList());
+            SpillSpaceTracker spillSpaceTracker = new SpillSpaceTracker(taskManagerConfig.getMaxSpillPerNode());
+            this.spillerFactory = Optional.of(new SpillerFactory(blockEncodingSerde, spillPaths, spillSpaceTracker));
+        }
+        else {
+            this.spillerFactory = Optional.empty();
+        }
 
         interpreterEnabled = compilerConfig.isInterpreterEnabled();
     }
@@ -266,6 +294,7 @@ public class LocalExecutionPlanner
         private final Map<Symbol, Type> types;
         private final List<DriverFactory> driverFactories;
         private final Optional<IndexSourceContext> indexSourceContext;
+        private final Multimap<PlanNodeId, Supplier<TupleDomain<ColumnHandle>>> dynamicFilters;
 
         private int nextOperatorId;
         private boolean inputDriver = true;
@@ -273,15 +302,21 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(Session session, Map<Symbol, Type> types)
         {
-            this(session, types, new ArrayList<>(), Optional.empty());
+            this(session, types, new ArrayList<>(), Optional.empty(), ArrayListMultimap.create());
         }
 
-        private LocalExecutionPlanContext(Session session, Map<Symbol, Type> types, List<DriverFactory> driverFactories, Optional<IndexSourceContext> indexSourceContext)
+        private LocalExecutionPlanContext(
+                Session session,
+                Map<Symbol, Type> types,
+                List<DriverFactory> driverFactories,
+                Optional<IndexSourceContext> indexSourceContext,
+                Multimap<PlanNodeId, Supplier<TupleDomain<ColumnHandle>>> dynamicFilters)
         {
             this.session = session;
             this.types = types;
             this.driverFactories = driverFactories;
             this.indexSourceContext = indexSourceContext;
+            this.dynamicFilters = dynamicFilters;
         }
 
         public void addDriverFactory(DriverFactory driverFactory)
@@ -327,12 +362,22 @@ public class LocalExecutionPlanner
         public LocalExecutionPlanContext createSubContext()
         {
             checkState(!indexSourceContext.isPresent(), "index build plan can not have sub-contexts");
-            return new LocalExecutionPlanContext(session, types, driverFactories, indexSourceContext);
+            return new LocalExecutionPlanContext(session, types, driverFactories, indexSourceContext, dynamicFilters);
         }
 
         public LocalExecutionPlanContext createIndexSourceSubContext(IndexSourceContext indexSourceContext)
         {
-            return new LocalExecutionPlanContext(session, types, driverFactories, Optional.of(indexSourceContext));
+            return new LocalExecutionPlanContext(session, types, driverFactories, Optional.of(indexSourceContext), dynamicFilters);
+        }
+
+        private void addDynamicFilter(PlanNodeId tableScanId, Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
+        {
+            dynamicFilters.put(tableScanId, dynamicFilter);
+        }
+
+        private List<Supplier<TupleDomain<ColumnHandle>>> getDynamicFilters(PlanNodeId tableScanId)
+        {
+            return ImmutableList.copyOf(dynamicFilters.get(tableScanId));
         }
 
         public int getDriverInstanceCount()
@@ -559,7 +604,8 @@ public class LocalExecutionPlanner
                     node.getFrame().getType(),
                     node.getFrame().getStartType(), frameStartChannel,
                     node.getFrame().getEndType(), frameEndChannel,
-                    1_000_000);
+                    1_000_000,
+                    spillerFactory);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -614,7 +660,8 @@ public class LocalExecutionPlanner
                     outputChannels.build(),
                     10_000,
                     orderByChannels,
-                    sortOrder.build());
+                    sortOrder.build(),
+                    spillerFactory);
 
             return new PhysicalOperation(operator, source.getLayout(), source);
         }
@@ -805,7 +852,8 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            Lists.transform(rewrittenProjections, forMap(expressionTypes)),
+                            context.getDynamicFilters(sourceNode.getId()));
 
                     return new PhysicalOperation(operatorFactory, outputMappings);
                 }
@@ -866,7 +914,8 @@ public class LocalExecutionPlanner
                         new GenericCursorProcessor(filterFunction, projectionFunctions),
                         new GenericPageProcessor(filterFunction, projectionFunctions),
                         columns,
-                        toTypes(projectionFunctions));
+                        toTypes(projectionFunctions),
+                        context.getDynamicFilters(sourceNode.getId()));
 
                 return new PhysicalOperation(operatorFactory, outputMappings);
             }
@@ -892,6 +941,14 @@ public class LocalExecutionPlanner
         @Override
         public PhysicalOperation visitTableScan(TableScanNode node, LocalExecutionPlanContext context)
         {
+            if (!context.getDynamicFilters(node.getId()).isEmpty()) {
+                // only the scan, filter and project operator applies dynamic filters
+                List<Expression> projectionExpressions = node.getOutputSymbols().stream()
+                        .map(symbol -> new QualifiedNameReference(symbol.toQualifiedName()))
+                        .collect(toImmutableList());
+                return visitScanFilterAndProject(context, node, BooleanLiteral.TRUE_LITERAL, projectionExpressions, node.getOutputSymbols());
+            }
+
             List<ColumnHandle> columns = new ArrayList<>();
             for (Symbol symbol : node.getOutputSymbols()) {
                 columns.add(node.getAssignments().get(symbol));
@@ -1193,6 +1250,31 @@ public class LocalExecutionPlanner
                 Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // the keys on the build side of an inner join are summarized and pushed into the table
+            // scans of the probe side, which must be registered before the probe is planned
+            Optional<DynamicFilter> dynamicFilter = Optional.empty();
+            if (node.getType() == JoinNode.Type.INNER && isDynamicFilteringEnabled(context.getSession(), dynamicFilteringEnabled)) {
+                List<Type> buildTypes = buildSymbols.stream()
+                        .map(symbol -> context.getTypes().get(symbol))
+                        .collect(toImmutableList());
+                DynamicFilter filter = new DynamicFilter(buildTypes);
+                boolean pushedDown = false;
+                for (int i = 0; i < probeSymbols.size(); i++) {
+                    if (DynamicFilter.isSupported(buildTypes.get(i))) {
+                        Optional<Map.Entry<PlanNodeId, ColumnHandle>> scan = findDynamicFilterScan(probeNode, probeSymbols.get(i));
+                        if (scan.isPresent()) {
+                            int joinChannel = i;
+                            ColumnHandle column = scan.get().getValue();
+                            context.addDynamicFilter(scan.get().getKey(), () -> filter.getTupleDomain(joinChannel, column));
+                            pushedDown = true;
+                        }
+                    }
+                }
+                if (pushedDown) {
+                    dynamicFilter = Optional.of(filter);
+                }
+            }
+
             // Plan probe and introduce a projection to put all fields from the probe side into a single channel if necessary
             PhysicalOperation probeSource = probeNode.accept(this, context);
             List<Integer> probeChannels = ImmutableList.copyOf(getChannelsForSymbols(probeSymbols, probeSource.getLayout()));
@@ -1204,12 +1286,16 @@ public class LocalExecutionPlanner
             List<Integer> buildChannels = ImmutableList.copyOf(getChannelsForSymbols(buildSymbols, buildSource.getLayout()));
             Optional<Integer> buildHashChannel = buildHashSymbol.map(channelGetter(buildSource));
 
+            // the build side of a full outer join is not spilled, since its unmatched rows
+            // are emitted from the in-memory lookup source
             HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
                     buildContext.getNextOperatorId(),
                     buildSource.getTypes(),
                     buildChannels,
                     buildHashChannel,
-                    100_000);
+                    100_000,
+                    node.getType() == JoinNode.Type.FULL ? Optional.empty() : spillerFactory,
+                    dynamicFilter);
             LookupSourceSupplier lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
             DriverFactory buildDriverFactory = new DriverFactory(
                     buildContext.isInputDriver(),
@@ -1501,12 +1587,58 @@ public class LocalExecutionPlanner
                     accumulatorFactories,
                     hashChannel,
                     10_000,
-                    maxPartialAggregationMemorySize);
+                    maxPartialAggregationMemorySize,
+                    spillerFactory);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
     }
 
+    /**
+     * Finds the table scan that produces the symbol, following only nodes that pass the rows of
+     * the scan through unchanged or drop some of them, so that the rows skipped by a dynamic filter
+     * on the symbol could not have been joined. Returns the scan and the column of the symbol.
+     */
+    @VisibleForTesting
+    static Optional<Map.Entry<PlanNodeId, ColumnHandle>> findDynamicFilterScan(PlanNode node, Symbol symbol)
+    {
+        if (node instanceof TableScanNode) {
+            ColumnHandle column = ((TableScanNode) node).getAssignments().get(symbol);
+            if (column == null) {
+                return Optional.empty();
+            }
+            return Optional.of(immutableEntry(node.getId(), column));
+        }
+        if (node instanceof FilterNode) {
+            return findDynamicFilterScan(((FilterNode) node).getSource(), symbol);
+        }
+        if (node instanceof ProjectNode) {
+            ProjectNode projectNode = (ProjectNode) node;
+            Expression expression = projectNode.getAssignments().get(symbol);
+            if (!(expression instanceof QualifiedNameReference)) {
+                return Optional.empty();
+            }
+            Symbol reference = Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName());
+            return findDynamicFilterScan(projectNode.getSource(), reference);
+        }
+        if (node instanceof SemiJoinNode) {
+            return findDynamicFilterScan(((SemiJoinNode) node).getSource(), symbol);
+        }
+        if (node instanceof JoinNode) {
+            // the rows of either side of an inner join, and of the outer side of an outer join,
+            // are only dropped or emitted with their values unchanged
+            JoinNode joinNode = (JoinNode) node;
+            JoinNode.Type type = joinNode.getType();
+            if ((type == JoinNode.Type.INNER || type == JoinNode.Type.LEFT) && joinNode.getLeft().getOutputSymbols().contains(symbol)) {
+                return findDynamicFilterScan(joinNode.getLeft(), symbol);
+            }
+            if ((type == JoinNode.Type.INNER || type == JoinNode.Type.RIGHT) && joinNode.getRight().getOutputSymbols().contains(symbol)) {
+                return findDynamicFilterScan(joinNode.getRight(), symbol);
+            }
+        }
+        return Optional.empty();
+    }
+
     public static List<Type> toTypes(List<ProjectionFunction> projections)
     {
         ImmutableList.Builder<Type> builder = ImmutableList.builder();
@@ -0,0 +1,348 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.AggregationPushDown;
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.SplitManager;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanRewriter;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.tree.CoalesceExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Offers limits, TopN and aggregations that sit directly on top of a table scan to the
+ * connector. The connector applies them per split, so the original node is kept (for
+ * aggregations, replaced by one that combines the partial results) and only the number
+ * of rows leaving the connector changes.
+ * <p>
+ * Only plain column renames are allowed between the node and the scan: any filter left
+ * above the scan means the connector does not fully enforce the predicate, so a limit or
+ * an aggregation computed inside the connector would be wrong.
+ */
+public class TableScanPushDown
+        extends PlanOptimizer
+{
+    private static final Set<String> PUSHABLE_AGGREGATES = ImmutableSet.of("count", "sum", "min", "max");
+
+    private final Metadata metadata;
+    private final SplitManager splitManager;
+
+    public TableScanPushDown(Metadata metadata, SplitManager splitManager)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.splitManager = checkNotNull(splitManager, "splitManager is null");
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        checkNotNull(plan, "plan is null");
+        checkNotNull(symbolAllocator, "symbolAllocator is null");
+        checkNotNull(idAllocator, "idAllocator is null");
+
+        return PlanRewriter.rewriteWith(new Rewriter(metadata, splitManager, symbolAllocator, idAllocator), plan);
+    }
+
+    private static class Rewriter
+            extends PlanRewriter<Void>
+    {
+        private final Metadata metadata;
+        private final SplitManager splitManager;
+        private final SymbolAllocator symbolAllocator;
+        private final PlanNodeIdAllocator idAllocator;
+
+        private Rewriter(Metadata metadata, SplitManager splitManager, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+        {
+            this.metadata = metadata;
+            this.splitManager = splitManager;
+            this.symbolAllocator = symbolAllocator;
+            this.idAllocator = idAllocator;
+        }
+
+        @Override
+        public PlanNode visitLimit(LimitNode node, RewriteContext<Void> context)
+        {
+            PlanNode source = context.rewrite(node.getSource());
+
+            Optional<TableScanNode> tableScan = findTableScan(source);
+            if (tableScan.isPresent()) {
+                Optional<TableHandle> table = metadata.pushDownLimit(tableScan.get().getTable(), node.getCount());
+                if (table.isPresent()) {
+                    source = replaceTable(source, tableScan.get(), table.get());
+                }
+            }
+            return new LimitNode(node.getId(), source, node.getCount());
+        }
+
+        @Override
+        public PlanNode visitTopN(TopNNode node, RewriteContext<Void> context)
+        {
+            PlanNode source = context.rewrite(node.getSource());
+
+            Optional<TableScanNode> tableScan = findTableScan(source);
+            if (tableScan.isPresent()) {
+                ImmutableList.Builder<ColumnHandle> columns = ImmutableList.builder();
+                ImmutableList.Builder<SortOrder> sortOrders = ImmutableList.builder();
+                boolean resolved = true;
+                for (Symbol symbol : node.getOrderBy()) {
+                    Optional<ColumnHandle> column = resolveColumn(source, symbol);
+                    if (!column.isPresent()) {
+                        resolved = false;
+                        break;
+                    }
+                    columns.add(column.get());
+                    sortOrders.add(node.getOrderings().get(symbol));
+                }
+                if (resolved) {
+                    Optional<TableHandle> table = metadata.pushDownTopN(tableScan.get().getTable(), columns.build(), sortOrders.build(), node.getCount());
+                    if (table.isPresent()) {
+                        source = replaceTable(source, tableScan.get(), table.get());
+                    }
+                }
+            }
+            return new TopNNode(node.getId(), source, node.getCount(), node.getOrderBy(), node.getOrderings(), node.isPartial());
+        }
+
+        @Override
+        public PlanNode visitAggregation(AggregationNode node, RewriteContext<Void> context)
+        {
+            PlanNode source = context.rewrite(node.getSource());
+            AggregationNode rewritten = new AggregationNode(
+                    node.getId(),
+                    source,
+                    node.getGroupBy(),
+                    node.getAggregations(),
+                    node.getFunctions(),
+                    node.getMasks(),
+                    node.getStep(),
+                    node.getSampleWeight(),
+                    node.getConfidence(),
+                    node.getHashSymbol());
+
+            if (node.getStep() != SINGLE ||
+                    !node.getMasks().isEmpty() ||
+                    node.getSampleWeight().isPresent() ||
+                    node.getHashSymbol().isPresent() ||
+                    node.getConfidence() != 1.0) {
+                return rewritten;
+            }
+
+            Optional<TableScanNode> tableScan = findTableScan(source);
+            if (!tableScan.isPresent()) {
+                return rewritten;
+            }
+
+            // the group by keys become outputs of the scan, so they must map to distinct columns
+            Map<Symbol, ColumnHandle> assignments = new LinkedHashMap<>();
+            for (Symbol symbol : node.getGroupBy()) {
+                Optional<ColumnHandle> column = resolveColumn(source, symbol);
+                if (!column.isPresent() || assignments.containsValue(column.get())) {
+                    return rewritten;
+                }
+                assignments.put(symbol, column.get());
+            }
+            List<ColumnHandle> groupBy = ImmutableList.copyOf(assignments.values());
+
+            ImmutableList.Builder<ConnectorAggregate> aggregates = ImmutableList.builder();
+            for (Map.Entry<Symbol, FunctionCall> entry : node.getAggregations().entrySet()) {
+                FunctionCall call = entry.getValue();
+                Signature signature = node.getFunctions().get(entry.getKey());
+                if (!PUSHABLE_AGGREGATES.contains(signature.getName()) || call.isDistinct() || call.getWindow().isPresent() || call.getArguments().size() > 1) {
+                    return rewritten;
+                }
+
+                ColumnHandle argument = null;
+                if (!call.getArguments().isEmpty()) {
+                    Expression expression = Iterables.getOnlyElement(call.getArguments());
+                    if (!(expression instanceof QualifiedNameReference)) {
+                        return rewritten;
+                    }
+                    Optional<ColumnHandle> column = resolveColumn(source, Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName()));
+                    if (!column.isPresent()) {
+                        return rewritten;
+                    }
+                    argument = column.get();
+                }
+                Type type = metadata.getType(signature.getReturnType());
+                aggregates.add(new ConnectorAggregate(signature.getName(), argument == null ? null : argument.getConnectorHandle(), type));
+            }
+
+            Optional<AggregationPushDown> pushDown = metadata.pushDownAggregation(tableScan.get().getTable(), groupBy, aggregates.build());
+            if (!pushDown.isPresent()) {
+                return rewritten;
+            }
+
+            // combine the partial aggregates of the splits: counts are summed, the other functions are applied again
+            Map<Symbol, FunctionCall> aggregations = new LinkedHashMap<>();
+            Map<Symbol, Signature> functions = new LinkedHashMap<>();
+            Map<Symbol, Expression> projections = new LinkedHashMap<>();
+            for (Symbol symbol : node.getGroupBy()) {
+                projections.put(symbol, symbol.toQualifiedNameReference());
+            }
+            int index = 0;
+            for (Map.Entry<Symbol, FunctionCall> entry : node.getAggregations().entrySet()) {
+                Symbol output = entry.getKey();
+                Signature signature = node.getFunctions().get(output);
+                Type type = metadata.getType(signature.getReturnType());
+                Symbol partial = symbolAllocator.newSymbol(signature.getName(), type, "partial");
+                assignments.put(partial, pushDown.get().getAggregateColumns().get(index));
+                index++;
+
+                List<Expression> arguments = ImmutableList.of(partial.toQualifiedNameReference());
+                if (signature.getName().equals("count")) {
+                    // a global count over no splits at all must still be zero
+                    Symbol sum = node.getGroupBy().isEmpty() ? symbolAllocator.newSymbol("count", type) : output;
+                    aggregations.put(sum, new FunctionCall(QualifiedName.of("sum"), arguments));
+                    functions.put(sum, new Signature("sum", StandardTypes.BIGINT, StandardTypes.BIGINT));
+                    projections.put(output, new CoalesceExpression(sum.toQualifiedNameReference(), new LongLiteral("0")));
+                }
+                else {
+                    aggregations.put(output, new FunctionCall(QualifiedName.of(signature.getName()), arguments));
+                    functions.put(output, signature);
+                    projections.put(output, output.toQualifiedNameReference());
+                }
+            }
+
+            TableScanNode scan = tableScan.get();
+            TableScanNode pushedScan = new TableScanNode(
+                    idAllocator.getNextId(),
+                    pushDown.get().getTableHandle(),
+                    ImmutableList.copyOf(assignments.keySet()),
+                    assignments,
+                    scan.getOriginalConstraint(),
+                    generatePartitions(scan, pushDown.get().getTableHandle()));
+
+            AggregationNode aggregation = new AggregationNode(
+                    node.getId(),
+                    pushedScan,
+                    node.getGroupBy(),
+                    aggregations,
+                    functions,
+                    ImmutableMap.<Symbol, Symbol>of(),
+                    SINGLE,
+                    Optional.empty(),
+                    1.0,
+                    Optional.empty());
+            if (aggregation.getOutputSymbols().equals(node.getOutputSymbols())) {
+                return aggregation;
+            }
+            return new ProjectNode(idAllocator.getNextId(), aggregation, projections);
+        }
+
+        private PlanNode replaceTable(PlanNode source, TableScanNode scan, TableHandle table)
+        {
+            TableScanNode replacement = new TableScanNode(
+                    scan.getId(),
+                    table,
+                    scan.getOutputSymbols(),
+                    scan.getAssignments(),
+                    scan.getOriginalConstraint(),
+                    generatePartitions(scan, table));
+            return PlanRewriter.rewriteWith(new Replacer(replacement), source);
+        }
+
+        /**
+         * The partitions of a table are bound to its handle, so they are generated again
+         * for the new handle from the same tuple domain.
+         */
+        private Optional<GeneratedPartitions> generatePartitions(TableScanNode scan, TableHandle table)
+        {
+            return scan.getGeneratedPartitions().map(partitions -> new GeneratedPartitions(
+                    partitions.getTupleDomainInput(),
+                    splitManager.getPartitions(table, Optional.of(partitions.getTupleDomainInput())).getPartitions()));
+        }
+
+        private static Optional<TableScanNode> findTableScan(PlanNode source)
+        {
+            while (source instanceof ProjectNode) {
+                if (!Iterables.all(((ProjectNode) source).getExpressions(), QualifiedNameReference.class::isInstance)) {
+                    return Optional.empty();
+                }
+                source = ((ProjectNode) source).getSource();
+            }
+            if (source instanceof TableScanNode) {
+                return Optional.of((TableScanNode) source);
+            }
+            return Optional.empty();
+        }
+
+        private static Optional<ColumnHandle> resolveColumn(PlanNode source, Symbol symbol)
+        {
+            while (source instanceof ProjectNode) {
+                Expression expression = ((ProjectNode) source).getAssignments().get(symbol);
+                if (!(expression instanceof QualifiedNameReference)) {
+                    return Optional.empty();
+                }
+                symbol = Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName());
+                source = ((ProjectNode) source).getSource();
+            }
+            if (source instanceof TableScanNode) {
+                return Optional.ofNullable(((TableScanNode) source).getAssignments().get(symbol));
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static class Replacer
+            extends PlanRewriter<Void>
+    {
+        private final TableScanNode replacement;
+
+        private Replacer(TableScanNode replacement)
+        {
+            this.replacement = replacement;
+        }
+
+        @Override
+        public PlanNode visitTableScan(TableScanNode node, RewriteContext<Void> context)
+        {
+            return replacement;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.type;
+
+import com.facebook.presto.util.regex.SliceRegex;
+import io.airlift.slice.Slice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * A compiled LIKE pattern. The common shapes, 'abc', 'abc%', '%abc' and '%abc%', compare
+ * bytes directly; anything else, including every pattern with a '_', runs as a regex.
+ */
+public abstract class LikePattern
+{
+    private final Slice prefix;
+
+    private LikePattern(Slice prefix)
+    {
+        this.prefix = checkNotNull(prefix, "prefix is null");
+    }
+
+    public abstract boolean matches(Slice value);
+
+    /**
+     * @return the bytes that every matching value starts with
+     */
+    public Slice getPrefix()
+    {
+        return prefix;
+    }
+
+    /**
+     * @return true if only the prefix itself matches
+     */
+    public boolean isExact()
+    {
+        return false;
+    }
+
+    public static LikePattern compile(String pattern, char escapeChar, boolean shouldEscape)
+    {
+        // split on the unescaped '%', so the pattern is segments[0]%segments[1]%...
+        List<String> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        String prefix = null;
+        boolean anyChar = false;
+        boolean escaped = false;
+        for (char currentChar : pattern.toCharArray()) {
+            if (shouldEscape && !escaped && (currentChar == escapeChar)) {
+                escaped = true;
+            }
+            else if (!escaped && (currentChar == '%' || currentChar == '_')) {
+                if (prefix == null) {
+                    prefix = segment.toString();
+                }
+                if (currentChar == '_') {
+                    anyChar = true;
+                    segment.append(currentChar);
+                }
+                else if (segment.length() > 0 || segments.isEmpty()) {
+                    // a run of '%' is a single one
+                    segments.add(segment.toString());
+                    segment.setLength(0);
+                }
+            }
+            else {
+                segment.append(currentChar);
+                escaped = false;
+            }
+        }
+        segments.add(segment.toString());
+
+        if (anyChar) {
+            return new RegexPattern(utf8Slice(prefix), likeToRegex(pattern, escapeChar, shouldEscape));
+        }
+        if (segments.size() == 1) {
+            return new ExactPattern(utf8Slice(segments.get(0)));
+        }
+        if (segments.size() == 2) {
+            String first = segments.get(0);
+            String last = segments.get(1);
+            if (last.isEmpty()) {
+                return first.isEmpty() ? new AnyPattern() : new PrefixPattern(utf8Slice(first));
+            }
+            if (first.isEmpty()) {
+                return new SuffixPattern(utf8Slice(last));
+            }
+        }
+        if (segments.size() == 3 && segments.get(0).isEmpty() && segments.get(2).isEmpty()) {
+            return new ContainsPattern(utf8Slice(segments.get(1)));
+        }
+        return new RegexPattern(utf8Slice(prefix), likeToRegex(pattern, escapeChar, shouldEscape));
+    }
+
+    private static SliceRegex likeToRegex(String patternString, char escapeChar, boolean shouldEscape)
+    {
+        StringBuilder regex = new StringBuilder(patternString.length() * 2);
+
+        // anchor on the whole value, not on a line, and let wildcards match line terminators
+        regex.append("\\A");
+        boolean escaped = false;
+        for (char currentChar : patternString.toCharArray()) {
+            if (shouldEscape && !escaped && (currentChar == escapeChar)) {
+                escaped = true;
+            }
+            else {
+                switch (currentChar) {
+                    case '%':
+                        regex.append(escaped ? "%" : ".*");
+                        escaped = false;
+                        break;
+                    case '_':
+                        regex.append(escaped ? "_" : ".");
+                        escaped = false;
+                        break;
+                    default:
+                        // escape every ASCII character that is not a letter or digit, all of which are literals when escaped
+                        if (currentChar < 0x80 && !Character.isLetterOrDigit(currentChar)) {
+                            regex.append('\\');
+                        }
+                        regex.append(currentChar);
+                        escaped = false;
+                }
+            }
+        }
+        regex.append("\\z");
+
+        return SliceRegex.compile(regex.toString(), SliceRegex.DOTALL);
+    }
+
+    private static final class ExactPattern
+            extends LikePattern
+    {
+        private ExactPattern(Slice value)
+        {
+            super(value);
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            return getPrefix().equals(value);
+        }
+
+        @Override
+        public boolean isExact()
+        {
+            return true;
+        }
+    }
+
+    private static final class AnyPattern
+            extends LikePattern
+    {
+        private AnyPattern()
+        {
+            super(EMPTY_SLICE);
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            return true;
+        }
+    }
+
+    private static final class PrefixPattern
+            extends LikePattern
+    {
+        private PrefixPattern(Slice prefix)
+        {
+            super(prefix);
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            Slice prefix = getPrefix();
+            return value.length() >= prefix.length() && value.equals(0, prefix.length(), prefix, 0, prefix.length());
+        }
+    }
+
+    private static final class SuffixPattern
+            extends LikePattern
+    {
+        private final Slice suffix;
+
+        private SuffixPattern(Slice suffix)
+        {
+            super(EMPTY_SLICE);
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            int offset = value.length() - suffix.length();
+            return offset >= 0 && value.equals(offset, suffix.length(), suffix, 0, suffix.length());
+        }
+    }
+
+    /**
+     * Searches with Boyer-Moore-Horspool: after a mismatch the window moves by the distance
+     * from the byte under its last position to the end of the infix.
+     */
+    private static final class ContainsPattern
+            extends LikePattern
+    {
+        private final Slice infix;
+        private final byte last;
+        private final int[] shifts = new int[256];
+
+        private ContainsPattern(Slice infix)
+        {
+            super(EMPTY_SLICE);
+            this.infix = infix;
+            int length = infix.length();
+            this.last = infix.getByte(length - 1);
+            Arrays.fill(shifts, length);
+            for (int i = 0; i < length - 1; i++) {
+                shifts[infix.getByte(i) & 0xFF] = length - 1 - i;
+            }
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            int length = infix.length();
+            int end = value.length() - length;
+            int position = 0;
+            while (position <= end) {
+                byte current = value.getByte(position + length - 1);
+                if (current == last && value.equals(position, length - 1, infix, 0, length - 1)) {
+                    return true;
+                }
+                position += shifts[current & 0xFF];
+            }
+            return false;
+        }
+    }
+
+    private static final class RegexPattern
+            extends LikePattern
+    {
+        private final SliceRegex regex;
+
+        private RegexPattern(Slice prefix, SliceRegex regex)
+        {
+            super(prefix);
+            this.regex = regex;
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            return regex.find(value);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 
 import java.lang.ref.WeakReference;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -67,6 +68,24 @@ public final class MoreFutures
         }
     }
 
+    public static <T> ListenableFuture<T> toListenableFuture(CompletableFuture<T> future)
+    {
+        checkNotNull(future, "future is null");
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            return Futures.immediateFuture(future.getNow(null));
+        }
+        SettableFuture<T> settableFuture = SettableFuture.create();
+        future.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                settableFuture.setException(throwable);
+            }
+            else {
+                settableFuture.set(value);
+            }
+        });
+        return settableFuture;
+    }
+
     public static <T> ListenableFuture<T> addTimeout(final ListenableFuture<T> future, final Callable<T> timeoutTask, Duration timeout, ScheduledExecutorService executorService)
     {
         // if the future is already complete, just return it
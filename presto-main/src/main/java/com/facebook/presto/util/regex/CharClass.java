@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable set of code points, held as sorted disjoint ranges with a bitmap for ASCII.
+ */
+final class CharClass
+{
+    static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+
+    static final CharClass DIGIT = new Builder().addRange('0', '9').build();
+    static final CharClass WORD = new Builder().addRange('a', 'z').addRange('A', 'Z').addRange('0', '9').add('_').build();
+    static final CharClass SPACE = new Builder().add(' ').addRange('\t', '\r').build();
+    static final CharClass HORIZONTAL_SPACE = new Builder()
+            .add(' ').add('\t').add(0xA0).add(0x1680).add(0x180E).addRange(0x2000, 0x200A).add(0x202F).add(0x205F).add(0x3000)
+            .build();
+    static final CharClass VERTICAL_SPACE = new Builder().addRange('\n', '\r').add(0x85).add(0x2028).add(0x2029).build();
+
+    // sorted, disjoint and non adjacent inclusive ranges: low, high, low, high...
+    private final int[] ranges;
+    private final long asciiLow;
+    private final long asciiHigh;
+
+    private CharClass(int[] ranges)
+    {
+        this.ranges = ranges;
+        long low = 0;
+        long high = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int codePoint = ranges[i]; codePoint <= Math.min(ranges[i + 1], 127); codePoint++) {
+                if (codePoint < 64) {
+                    low |= 1L << codePoint;
+                }
+                else {
+                    high |= 1L << (codePoint - 64);
+                }
+            }
+        }
+        this.asciiLow = low;
+        this.asciiHigh = high;
+    }
+
+    boolean contains(int codePoint)
+    {
+        if (codePoint < 64) {
+            return (asciiLow & (1L << codePoint)) != 0;
+        }
+        if (codePoint < 128) {
+            return (asciiHigh & (1L << (codePoint - 64))) != 0;
+        }
+        // binary search for the last range starting at or before the code point
+        int low = 0;
+        int high = (ranges.length / 2) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (ranges[middle * 2] <= codePoint) {
+                if (codePoint <= ranges[middle * 2 + 1]) {
+                    return true;
+                }
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < ranges.length; i += 2) {
+            builder.append(String.format("\\x{%x}", ranges[i]));
+            if (ranges[i + 1] != ranges[i]) {
+                builder.append(String.format("-\\x{%x}", ranges[i + 1]));
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    static final class Builder
+    {
+        private final List<int[]> ranges = new ArrayList<>();
+
+        Builder add(int codePoint)
+        {
+            return addRange(codePoint, codePoint);
+        }
+
+        Builder addRange(int low, int high)
+        {
+            ranges.add(new int[] {low, high});
+            return this;
+        }
+
+        /**
+         * Adds the range and, like java.util.regex without UNICODE_CASE, the other case of the ASCII letters in it
+         */
+        Builder addRangeIgnoreCase(int low, int high)
+        {
+            addRange(low, high);
+            addShifted(low, high, 'a', 'z', 'A' - 'a');
+            addShifted(low, high, 'A', 'Z', 'a' - 'A');
+            return this;
+        }
+
+        Builder addClass(CharClass charClass, boolean negate)
+        {
+            int[] source = negate ? complement(charClass.ranges) : charClass.ranges;
+            for (int i = 0; i < source.length; i += 2) {
+                addRange(source[i], source[i + 1]);
+            }
+            return this;
+        }
+
+        CharClass build()
+        {
+            return build(false);
+        }
+
+        CharClass build(boolean negate)
+        {
+            int[][] sorted = ranges.toArray(new int[ranges.size()][]);
+            Arrays.sort(sorted, (left, right) -> Integer.compare(left[0], right[0]));
+
+            int[] merged = new int[sorted.length * 2];
+            int size = 0;
+            for (int[] range : sorted) {
+                if (size > 0 && range[0] <= merged[size - 1] + 1) {
+                    merged[size - 1] = Math.max(merged[size - 1], range[1]);
+                }
+                else {
+                    merged[size++] = range[0];
+                    merged[size++] = range[1];
+                }
+            }
+            merged = Arrays.copyOf(merged, size);
+            return new CharClass(negate ? complement(merged) : merged);
+        }
+
+        private void addShifted(int low, int high, int letterLow, int letterHigh, int shift)
+        {
+            int from = Math.max(low, letterLow);
+            int to = Math.min(high, letterHigh);
+            if (from <= to) {
+                addRange(from + shift, to + shift);
+            }
+        }
+
+        private static int[] complement(int[] ranges)
+        {
+            int[] result = new int[ranges.length + 2];
+            int size = 0;
+            int next = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] > next) {
+                    result[size++] = next;
+                    result[size++] = ranges[i] - 1;
+                }
+                next = ranges[i + 1] + 1;
+            }
+            if (next <= MAX_CODE_POINT) {
+                result[size++] = next;
+                result[size++] = MAX_CODE_POINT;
+            }
+            return Arrays.copyOf(result, size);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import io.airlift.slice.Slice;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.facebook.presto.util.regex.RegexProgram.AT_END;
+import static com.facebook.presto.util.regex.RegexProgram.AT_START;
+import static com.facebook.presto.util.regex.RegexProgram.ASSERT;
+import static com.facebook.presto.util.regex.RegexProgram.FINAL_TERMINATOR;
+import static com.facebook.presto.util.regex.RegexProgram.JUMP;
+import static com.facebook.presto.util.regex.RegexProgram.LOOP;
+import static com.facebook.presto.util.regex.RegexProgram.MATCH;
+import static com.facebook.presto.util.regex.RegexProgram.SAVE;
+import static com.facebook.presto.util.regex.RegexProgram.SPLIT;
+import static com.facebook.presto.util.regex.RegexProgram.consumes;
+import static com.facebook.presto.util.regex.RegexProgram.holds;
+import static com.facebook.presto.util.regex.RegexProgram.isFinalTerminator;
+import static com.facebook.presto.util.regex.RegexProgram.isLineTerminator;
+import static com.facebook.presto.util.regex.RegexProgram.nextContext;
+import static com.facebook.presto.util.regex.RegexProgram.previousContext;
+
+/**
+ * Tells whether the program matches anywhere in the input, without groups. The sets of
+ * threads the program can be in are built lazily into the states of a deterministic
+ * automaton, so after warming up every byte of ASCII input costs one array lookup.
+ * <p>
+ * States and their transitions are shared by all threads. A transition is published
+ * without locking, as states are immutable apart from their transitions, and building a
+ * new state is serialized. When there are too many states the cache starts over.
+ */
+@ThreadSafe
+final class LazyDfa
+{
+    private static final int MAX_STATES = 2_000;
+    // every combination of the bits of RegexProgram.PREVIOUS_MASK
+    private static final int PREVIOUS_CONTEXTS = RegexProgram.PREVIOUS_MASK + 1;
+
+    // transition results that end the search
+    private static final State MATCHED = new State(new int[0], 0);
+    private static final State DEAD = new State(new int[0], 0);
+
+    private final RegexProgram program;
+    private final Map<State, State> states = new HashMap<>();
+    private final State[] startStates = new State[PREVIOUS_CONTEXTS];
+
+    LazyDfa(RegexProgram program)
+    {
+        this.program = program;
+    }
+
+    /**
+     * @return true if there is a match that starts at or after the start
+     */
+    boolean find(Slice input, int start)
+    {
+        int end = input.length();
+        int previous = start == 0 ? -1 : Utf8.codePointBefore(input, start);
+        State state = startState(previousContext(previous) | (start == 0 ? AT_START : 0));
+
+        int position = start;
+        while (position < end) {
+            int codePoint = input.getByte(position);
+            int length = 1;
+            if (codePoint < 0) {
+                int decoded = Utf8.decode(input, position);
+                codePoint = Utf8.codePoint(decoded);
+                length = Utf8.length(decoded);
+            }
+
+            State next;
+            if (program.hasFinalTerminatorAssertion() && isLineTerminator(codePoint) && isFinalTerminator(input, position, codePoint, length, previous)) {
+                // $ needs more than the next code point to tell if it is before the final line terminator
+                next = step(state, codePoint, FINAL_TERMINATOR);
+            }
+            else {
+                next = codePoint < 128 ? state.ascii[codePoint] : state.other.get(codePoint);
+                if (next == null) {
+                    next = transition(state, codePoint);
+                }
+            }
+
+            if (next == MATCHED) {
+                return true;
+            }
+            if (next == DEAD) {
+                return false;
+            }
+            state = next;
+            previous = codePoint;
+            position += length;
+        }
+
+        int matchesAtEnd = state.matchesAtEnd;
+        if (matchesAtEnd == 0) {
+            matchesAtEnd = closure(state, state.context | AT_END | FINAL_TERMINATOR, -1, null) ? 1 : -1;
+            state.matchesAtEnd = matchesAtEnd;
+        }
+        return matchesAtEnd > 0;
+    }
+
+    private State startState(int context)
+    {
+        State state = startStates[context];
+        if (state == null) {
+            synchronized (this) {
+                state = intern(new State(new int[0], context));
+                startStates[context] = state;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Computes and caches the transition on a code point that tells nothing more than itself about the surroundings
+     */
+    private State transition(State state, int codePoint)
+    {
+        State next = step(state, codePoint, 0);
+        if (codePoint < 128) {
+            state.ascii[codePoint] = next;
+        }
+        else {
+            state.other.putIfAbsent(codePoint, next);
+        }
+        return next;
+    }
+
+    private State step(State state, int codePoint, int extraContext)
+    {
+        int context = state.context | nextContext(codePoint) | extraContext;
+        IntSet targets = new IntSet(program.size());
+        if (closure(state, context, codePoint, targets)) {
+            return MATCHED;
+        }
+        // past the first code point, a match anchored at the start can only continue the threads already running
+        if (targets.size == 0 && program.isAnchoredAtStart()) {
+            return DEAD;
+        }
+        int[] pcs = Arrays.copyOf(targets.values, targets.size);
+        Arrays.sort(pcs);
+        synchronized (this) {
+            return intern(new State(pcs, previousContext(codePoint)));
+        }
+    }
+
+    /**
+     * Follows the threads of the state, and a new thread if a match can start here, to the instructions
+     * that consume input, and collects where those that accept the code point continue.
+     *
+     * @return true if a thread reaches the end of the program
+     */
+    private boolean closure(State state, int context, int codePoint, IntSet targets)
+    {
+        IntSet visited = new IntSet(program.size());
+        int[] stack = new int[program.size() + state.pcs.length + 1];
+        int top = 0;
+        for (int pc : state.pcs) {
+            stack[top++] = pc;
+        }
+        if (!program.isAnchoredAtStart() || (context & AT_START) != 0) {
+            stack[top++] = 0;
+        }
+
+        while (top > 0) {
+            int pc = stack[--top];
+            while (visited.add(pc)) {
+                int opcode = program.opcode(pc);
+                if (opcode == MATCH) {
+                    return true;
+                }
+                if (opcode == JUMP) {
+                    pc = program.argument(pc);
+                }
+                else if (opcode == SPLIT || opcode == LOOP) {
+                    stack[top++] = program.alternative(pc);
+                    pc = program.argument(pc);
+                }
+                else if (opcode == SAVE) {
+                    pc++;
+                }
+                else if (opcode == ASSERT) {
+                    if (!holds(program.argument(pc), context)) {
+                        break;
+                    }
+                    pc++;
+                }
+                else {
+                    if (targets != null && consumes(opcode) && program.accepts(pc, codePoint)) {
+                        targets.add(pc + 1);
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private State intern(State state)
+    {
+        State existing = states.get(state);
+        if (existing != null) {
+            return existing;
+        }
+        if (states.size() >= MAX_STATES) {
+            // states that are still in use keep working, they are just no longer shared
+            states.clear();
+            Arrays.fill(startStates, null);
+        }
+        states.put(state, state);
+        return state;
+    }
+
+    private static final class State
+    {
+        private final int[] pcs;
+        // what the code point that led here says about the surroundings of the next position
+        private final int context;
+        private final State[] ascii = new State[128];
+        private final ConcurrentMap<Integer, State> other = new ConcurrentHashMap<>();
+        // 0 if not known yet, 1 if the program matches when the input ends in this state, -1 if not
+        private volatile int matchesAtEnd;
+
+        private State(int[] pcs, int context)
+        {
+            this.pcs = pcs;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            State other = (State) obj;
+            return context == other.context && Arrays.equals(pcs, other.pcs);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * Arrays.hashCode(pcs) + context;
+        }
+    }
+
+    private static final class IntSet
+    {
+        private final int[] sparse;
+        private final int[] values;
+        private int size;
+
+        private IntSet(int capacity)
+        {
+            this.sparse = new int[capacity];
+            this.values = new int[capacity];
+        }
+
+        private boolean add(int value)
+        {
+            int index = sparse[value];
+            if (index < size && values[index] == value) {
+                return false;
+            }
+            sparse[value] = size;
+            values[size++] = value;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import io.airlift.slice.Slice;
+
+import java.util.Arrays;
+
+import static com.facebook.presto.util.regex.RegexProgram.ASSERT;
+import static com.facebook.presto.util.regex.RegexProgram.JUMP;
+import static com.facebook.presto.util.regex.RegexProgram.LOOP;
+import static com.facebook.presto.util.regex.RegexProgram.MATCH;
+import static com.facebook.presto.util.regex.RegexProgram.SAVE;
+import static com.facebook.presto.util.regex.RegexProgram.SPLIT;
+import static com.facebook.presto.util.regex.RegexProgram.consumes;
+import static com.facebook.presto.util.regex.RegexProgram.context;
+import static com.facebook.presto.util.regex.RegexProgram.holds;
+
+/**
+ * Finds the leftmost match and its groups by running all threads of the program in lock step,
+ * one code point at a time. Threads are kept in priority order and a thread that reaches an
+ * instruction another thread already holds at that position is dropped, so the match takes
+ * time linear in the input, and picks the same groups a backtracking matcher would.
+ * <p>
+ * An instance holds the thread lists of one search at a time and is not thread safe.
+ */
+final class PikeVm
+{
+    private final RegexProgram program;
+    private final int slots;
+    private ThreadList current;
+    private ThreadList next;
+    private final int[] captures;
+    private final int[] stack;
+    private final int[] stackValues;
+
+    PikeVm(RegexProgram program)
+    {
+        this.program = program;
+        this.slots = (program.getGroupCount() + 1) * 2;
+        this.current = new ThreadList(program.size(), slots);
+        this.next = new ThreadList(program.size(), slots);
+        this.captures = new int[slots];
+        this.stack = new int[program.size() * 2 + 1];
+        this.stackValues = new int[program.size() * 2 + 1];
+    }
+
+    /**
+     * Finds the leftmost match that starts at or after the start
+     *
+     * @param groups receives the byte offsets of the groups, start and end in turn, -1 for a group that did not participate
+     * @return true if there is a match
+     */
+    boolean search(Slice input, int start, int[] groups)
+    {
+        int end = input.length();
+        boolean matched = false;
+        current.clear();
+
+        int position = start;
+        int previous = start == 0 ? -1 : Utf8.codePointBefore(input, start);
+        int context = program.hasAssertions() ? context(input, position, previous) : 0;
+        while (true) {
+            if (!matched && !(program.isAnchoredAtStart() && position > 0)) {
+                // the lowest priority thread starts a match here
+                Arrays.fill(captures, -1);
+                addThread(current, 0, position, context);
+            }
+            if (current.size == 0) {
+                break;
+            }
+
+            int codePoint = -1;
+            int nextPosition = position;
+            int nextContext = 0;
+            if (position < end) {
+                int decoded = Utf8.decode(input, position);
+                codePoint = Utf8.codePoint(decoded);
+                nextPosition = position + Utf8.length(decoded);
+                if (program.hasAssertions()) {
+                    nextContext = context(input, nextPosition, codePoint);
+                }
+            }
+
+            next.clear();
+            for (int i = 0; i < current.size; i++) {
+                int pc = current.pcs[i];
+                int opcode = program.opcode(pc);
+                if (opcode == MATCH) {
+                    System.arraycopy(current.captures, i * slots, groups, 0, slots);
+                    matched = true;
+                    // the threads after this one have lower priority
+                    break;
+                }
+                if (codePoint >= 0 && consumes(opcode) && program.accepts(pc, codePoint)) {
+                    System.arraycopy(current.captures, i * slots, captures, 0, slots);
+                    addThread(next, pc + 1, nextPosition, nextContext);
+                }
+            }
+
+            if (position >= end) {
+                break;
+            }
+            ThreadList swap = current;
+            current = next;
+            next = swap;
+            position = nextPosition;
+            context = nextContext;
+        }
+        return matched;
+    }
+
+    /**
+     * Adds the thread at pc and every thread it can follow to without consuming input, in priority order
+     */
+    private void addThread(ThreadList list, int startPc, int position, int context)
+    {
+        // a negative entry restores a capture slot once the threads that saved it are added
+        int top = 0;
+        stack[top++] = startPc;
+        while (top > 0) {
+            int entry = stack[--top];
+            if (entry < 0) {
+                captures[-entry - 1] = stackValues[top];
+                continue;
+            }
+            int pc = entry;
+            while (true) {
+                if (list.contains(pc)) {
+                    // back at a loop without consuming input, so like java.util.regex this empty iteration is the last
+                    if (program.opcode(pc) == LOOP) {
+                        pc++;
+                        continue;
+                    }
+                    break;
+                }
+                int index = list.add(pc);
+                int opcode = program.opcode(pc);
+                if (opcode == JUMP) {
+                    pc = program.argument(pc);
+                }
+                else if (opcode == SPLIT || opcode == LOOP) {
+                    stack[top++] = program.alternative(pc);
+                    pc = program.argument(pc);
+                }
+                else if (opcode == SAVE) {
+                    int slot = program.argument(pc);
+                    if (slot < slots) {
+                        stackValues[top] = captures[slot];
+                        stack[top++] = -slot - 1;
+                        captures[slot] = position;
+                    }
+                    pc++;
+                }
+                else if (opcode == ASSERT) {
+                    if (!holds(program.argument(pc), context)) {
+                        break;
+                    }
+                    pc++;
+                }
+                else {
+                    System.arraycopy(captures, 0, list.captures, index * slots, slots);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static final class ThreadList
+    {
+        private final int[] sparse;
+        private final int[] pcs;
+        private final int[] captures;
+        private int size;
+
+        private ThreadList(int programSize, int slots)
+        {
+            this.sparse = new int[programSize];
+            this.pcs = new int[programSize];
+            this.captures = new int[programSize * slots];
+        }
+
+        private boolean contains(int pc)
+        {
+            int index = sparse[pc];
+            return index < size && pcs[index] == pc;
+        }
+
+        private int add(int pc)
+        {
+            sparse[pc] = size;
+            pcs[size] = pc;
+            return size++;
+        }
+
+        private void clear()
+        {
+            size = 0;
+        }
+    }
+}
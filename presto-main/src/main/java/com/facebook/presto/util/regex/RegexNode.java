@@ -0,0 +1,289 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.facebook.presto.util.regex.RegexProgram.ANY;
+import static com.facebook.presto.util.regex.RegexProgram.ANY_BUT_LINE_TERMINATOR;
+import static com.facebook.presto.util.regex.RegexProgram.ASSERT;
+import static com.facebook.presto.util.regex.RegexProgram.BEGIN_TEXT;
+import static com.facebook.presto.util.regex.RegexProgram.CHAR;
+import static com.facebook.presto.util.regex.RegexProgram.CHAR_IGNORE_CASE;
+import static com.facebook.presto.util.regex.RegexProgram.JUMP;
+import static com.facebook.presto.util.regex.RegexProgram.LOOP;
+import static com.facebook.presto.util.regex.RegexProgram.SAVE;
+import static com.facebook.presto.util.regex.RegexProgram.SPLIT;
+
+/**
+ * The syntax tree of a parsed regular expression, which emits its own instructions.
+ */
+abstract class RegexNode
+{
+    abstract void emit(RegexProgram.Builder program);
+
+    boolean isAnchoredAtStart()
+    {
+        return false;
+    }
+
+    static final class Empty
+            extends RegexNode
+    {
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+        }
+    }
+
+    static final class Literal
+            extends RegexNode
+    {
+        private final int codePoint;
+        private final boolean ignoreCase;
+
+        Literal(int codePoint, boolean ignoreCase)
+        {
+            this.codePoint = codePoint;
+            // without UNICODE_CASE only ASCII letters have another case
+            this.ignoreCase = ignoreCase && ((codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z'));
+        }
+
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+            if (ignoreCase) {
+                program.emit(CHAR_IGNORE_CASE, Character.toLowerCase(codePoint), 0);
+            }
+            else {
+                program.emit(CHAR, codePoint, 0);
+            }
+        }
+    }
+
+    static final class AnyChar
+            extends RegexNode
+    {
+        private final boolean dotAll;
+
+        AnyChar(boolean dotAll)
+        {
+            this.dotAll = dotAll;
+        }
+
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+            program.emit(dotAll ? ANY : ANY_BUT_LINE_TERMINATOR, 0, 0);
+        }
+    }
+
+    static final class CharacterClass
+            extends RegexNode
+    {
+        private final CharClass charClass;
+
+        CharacterClass(CharClass charClass)
+        {
+            this.charClass = charClass;
+        }
+
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+            program.emitClass(charClass);
+        }
+    }
+
+    static final class Assertion
+            extends RegexNode
+    {
+        private final int assertion;
+
+        Assertion(int assertion)
+        {
+            this.assertion = assertion;
+        }
+
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+            program.emit(ASSERT, assertion, 0);
+        }
+
+        @Override
+        boolean isAnchoredAtStart()
+        {
+            return assertion == BEGIN_TEXT;
+        }
+    }
+
+    static final class Concatenation
+            extends RegexNode
+    {
+        private final List<RegexNode> nodes;
+
+        Concatenation(List<RegexNode> nodes)
+        {
+            this.nodes = ImmutableList.copyOf(nodes);
+        }
+
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+            for (RegexNode node : nodes) {
+                node.emit(program);
+            }
+        }
+
+        @Override
+        boolean isAnchoredAtStart()
+        {
+            return !nodes.isEmpty() && nodes.get(0).isAnchoredAtStart();
+        }
+    }
+
+    static final class Alternation
+            extends RegexNode
+    {
+        private final List<RegexNode> alternatives;
+
+        Alternation(List<RegexNode> alternatives)
+        {
+            this.alternatives = ImmutableList.copyOf(alternatives);
+        }
+
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+            // split to each alternative in turn, preferring the earlier ones
+            int[] jumps = new int[alternatives.size() - 1];
+            for (int i = 0; i < alternatives.size() - 1; i++) {
+                int split = program.emit(SPLIT, program.position() + 1, 0);
+                alternatives.get(i).emit(program);
+                jumps[i] = program.emit(JUMP, 0, 0);
+                program.setAlternative(split, program.position());
+            }
+            alternatives.get(alternatives.size() - 1).emit(program);
+            for (int jump : jumps) {
+                program.setArgument(jump, program.position());
+            }
+        }
+
+        @Override
+        boolean isAnchoredAtStart()
+        {
+            for (RegexNode alternative : alternatives) {
+                if (!alternative.isAnchoredAtStart()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static final class Group
+            extends RegexNode
+    {
+        private final int index;
+        private final RegexNode node;
+
+        Group(int index, RegexNode node)
+        {
+            this.index = index;
+            this.node = node;
+        }
+
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+            program.emit(SAVE, index * 2, 0);
+            node.emit(program);
+            program.emit(SAVE, index * 2 + 1, 0);
+        }
+
+        @Override
+        boolean isAnchoredAtStart()
+        {
+            return node.isAnchoredAtStart();
+        }
+    }
+
+    static final class Repetition
+            extends RegexNode
+    {
+        static final int UNBOUNDED = -1;
+
+        private final RegexNode node;
+        private final int min;
+        private final int max;
+        private final boolean greedy;
+
+        Repetition(RegexNode node, int min, int max, boolean greedy)
+        {
+            this.node = node;
+            this.min = min;
+            this.max = max;
+            this.greedy = greedy;
+        }
+
+        @Override
+        void emit(RegexProgram.Builder program)
+        {
+            if (max == UNBOUNDED) {
+                for (int i = 1; i < min; i++) {
+                    node.emit(program);
+                }
+                // x* is (x+)?, so like java.util.regex the first x may be empty, and x+ is x, then back to x or on
+                int skip = min == 0 ? program.emit(SPLIT, 0, 0) : -1;
+                int start = program.position();
+                node.emit(program);
+                int loop = program.emit(LOOP, 0, 0);
+                branch(program, loop, start, program.position());
+                if (skip >= 0) {
+                    branch(program, skip, start, program.position());
+                }
+                return;
+            }
+
+            for (int i = 0; i < min; i++) {
+                node.emit(program);
+            }
+            // x{0,n} nests the optional copies, (x(x(x)?)?)?, so every split skips to the end
+            int[] splits = new int[max - min];
+            for (int i = 0; i < splits.length; i++) {
+                splits[i] = program.emit(SPLIT, 0, 0);
+                node.emit(program);
+            }
+            int end = program.position();
+            for (int split : splits) {
+                branch(program, split, split + 1, end);
+            }
+        }
+
+        private void branch(RegexProgram.Builder program, int split, int repeat, int exit)
+        {
+            program.setArgument(split, greedy ? repeat : exit);
+            program.setAlternative(split, greedy ? exit : repeat);
+        }
+
+        @Override
+        boolean isAnchoredAtStart()
+        {
+            return min > 0 && node.isAnchoredAtStart();
+        }
+    }
+}
@@ -0,0 +1,611 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import com.facebook.presto.util.regex.RegexNode.Alternation;
+import com.facebook.presto.util.regex.RegexNode.AnyChar;
+import com.facebook.presto.util.regex.RegexNode.Assertion;
+import com.facebook.presto.util.regex.RegexNode.CharacterClass;
+import com.facebook.presto.util.regex.RegexNode.Concatenation;
+import com.facebook.presto.util.regex.RegexNode.Empty;
+import com.facebook.presto.util.regex.RegexNode.Group;
+import com.facebook.presto.util.regex.RegexNode.Literal;
+import com.facebook.presto.util.regex.RegexNode.Repetition;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.util.regex.RegexNode.Repetition.UNBOUNDED;
+import static com.facebook.presto.util.regex.RegexProgram.BEGIN_LINE;
+import static com.facebook.presto.util.regex.RegexProgram.BEGIN_TEXT;
+import static com.facebook.presto.util.regex.RegexProgram.END_LINE;
+import static com.facebook.presto.util.regex.RegexProgram.END_TEXT;
+import static com.facebook.presto.util.regex.RegexProgram.END_TEXT_OR_FINAL_TERMINATOR;
+import static com.facebook.presto.util.regex.RegexProgram.NOT_WORD_BOUNDARY;
+import static com.facebook.presto.util.regex.RegexProgram.WORD_BOUNDARY;
+
+/**
+ * Parses the java.util.regex syntax that has a linear time match: literals, classes, groups,
+ * alternation, greedy and reluctant repetition, anchors, word boundaries and the i, m and s
+ * flags. Anything else, including every malformed pattern, raises {@link UnsupportedRegexException},
+ * so that java.util.regex decides what it means and reports its errors.
+ */
+final class RegexParser
+{
+    static final int CASE_INSENSITIVE = 1;
+    static final int MULTILINE = 2;
+    static final int DOTALL = 4;
+
+    private static final int MAX_NESTING = 100;
+    private static final int MAX_REPETITION = 1000;
+
+    private static final Map<String, CharClass> POSIX_CLASSES = ImmutableMap.<String, CharClass>builder()
+            .put("Lower", new CharClass.Builder().addRange('a', 'z').build())
+            .put("Upper", new CharClass.Builder().addRange('A', 'Z').build())
+            .put("ASCII", new CharClass.Builder().addRange(0, 0x7F).build())
+            .put("Alpha", new CharClass.Builder().addRange('a', 'z').addRange('A', 'Z').build())
+            .put("Digit", CharClass.DIGIT)
+            .put("Alnum", new CharClass.Builder().addRange('a', 'z').addRange('A', 'Z').addRange('0', '9').build())
+            .put("Punct", new CharClass.Builder().addRange('!', '/').addRange(':', '@').addRange('[', '`').addRange('{', '~').build())
+            .put("Graph", new CharClass.Builder().addRange('!', '~').build())
+            .put("Print", new CharClass.Builder().addRange(' ', '~').build())
+            .put("Blank", new CharClass.Builder().add(' ').add('\t').build())
+            .put("Cntrl", new CharClass.Builder().addRange(0, 0x1F).add(0x7F).build())
+            .put("XDigit", new CharClass.Builder().addRange('0', '9').addRange('a', 'f').addRange('A', 'F').build())
+            .put("Space", CharClass.SPACE)
+            .build();
+
+    private final int[] pattern;
+    private int position;
+    private int flags;
+    private int depth;
+    private int groupCount;
+    private final Map<String, Integer> groupNames = new HashMap<>();
+
+    private RegexParser(String pattern, int flags)
+    {
+        this.pattern = pattern.codePoints().toArray();
+        this.flags = flags;
+    }
+
+    static RegexProgram compile(String pattern, int flags)
+    {
+        RegexParser parser = new RegexParser(pattern, flags);
+        RegexNode root = parser.parseAlternation();
+        if (parser.position < parser.pattern.length) {
+            throw new UnsupportedRegexException("Unmatched closing ')'");
+        }
+        return RegexProgram.compile(root, parser.groupCount, ImmutableMap.copyOf(parser.groupNames));
+    }
+
+    private RegexNode parseAlternation()
+    {
+        if (++depth > MAX_NESTING) {
+            throw new UnsupportedRegexException("Pattern nests too deeply");
+        }
+        List<RegexNode> alternatives = new ArrayList<>();
+        alternatives.add(parseConcatenation());
+        while (peek() == '|') {
+            position++;
+            alternatives.add(parseConcatenation());
+        }
+        depth--;
+        return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+    }
+
+    private RegexNode parseConcatenation()
+    {
+        List<RegexNode> nodes = new ArrayList<>();
+        while (position < pattern.length && peek() != '|' && peek() != ')') {
+            RegexNode atom;
+            if (peek() == '\\' && peek(1) == 'Q') {
+                // quoted characters are literals, and a repetition after the quote applies to the last one
+                List<RegexNode> quoted = parseQuoted();
+                if (quoted.isEmpty()) {
+                    continue;
+                }
+                nodes.addAll(quoted.subList(0, quoted.size() - 1));
+                atom = quoted.get(quoted.size() - 1);
+            }
+            else {
+                atom = parseAtom();
+                if (atom == null) {
+                    // inline flags
+                    if (isRepetition(peek())) {
+                        throw new UnsupportedRegexException("Dangling meta character");
+                    }
+                    continue;
+                }
+            }
+            nodes.add(parseRepetition(atom));
+        }
+        if (nodes.isEmpty()) {
+            return new Empty();
+        }
+        return nodes.size() == 1 ? nodes.get(0) : new Concatenation(nodes);
+    }
+
+    private RegexNode parseRepetition(RegexNode atom)
+    {
+        int min;
+        int max;
+        switch (peek()) {
+            case '*':
+                min = 0;
+                max = UNBOUNDED;
+                position++;
+                break;
+            case '+':
+                min = 1;
+                max = UNBOUNDED;
+                position++;
+                break;
+            case '?':
+                min = 0;
+                max = 1;
+                position++;
+                break;
+            case '{':
+                position++;
+                min = parseNumber();
+                if (peek() == ',') {
+                    position++;
+                    max = peek() == '}' ? UNBOUNDED : parseNumber();
+                }
+                else {
+                    max = min;
+                }
+                if (next() != '}' || (max != UNBOUNDED && max < min) || Math.max(min, max) > MAX_REPETITION) {
+                    throw new UnsupportedRegexException("Illegal repetition");
+                }
+                break;
+            default:
+                return atom;
+        }
+
+        if (atom instanceof Assertion) {
+            throw new UnsupportedRegexException("Repeated assertion");
+        }
+        boolean greedy = true;
+        if (peek() == '?') {
+            greedy = false;
+            position++;
+        }
+        // possessive repetition, or a repetition of a repetition
+        if (isRepetition(peek())) {
+            throw new UnsupportedRegexException("Unsupported repetition");
+        }
+        return new Repetition(atom, min, max, greedy);
+    }
+
+    private RegexNode parseAtom()
+    {
+        int codePoint = next();
+        switch (codePoint) {
+            case '(':
+                return parseGroup();
+            case '[':
+                return new CharacterClass(parseClass());
+            case '.':
+                return new AnyChar(has(DOTALL));
+            case '^':
+                return new Assertion(has(MULTILINE) ? BEGIN_LINE : BEGIN_TEXT);
+            case '$':
+                return new Assertion(has(MULTILINE) ? END_LINE : END_TEXT_OR_FINAL_TERMINATOR);
+            case '\\':
+                return parseEscape();
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw new UnsupportedRegexException("Dangling meta character");
+            default:
+                return literal(codePoint);
+        }
+    }
+
+    /**
+     * @return the group, or null for inline flags that apply to the rest of the enclosing group
+     */
+    private RegexNode parseGroup()
+    {
+        int savedFlags = flags;
+        RegexNode node;
+        if (peek() == '?') {
+            position++;
+            int codePoint = next();
+            if (codePoint == ':') {
+                node = parseAlternation();
+            }
+            else if (codePoint == '<' && isAsciiLetter(peek())) {
+                int start = position;
+                while (isAsciiLetter(peek()) || isAsciiDigit(peek())) {
+                    position++;
+                }
+                String name = new String(pattern, start, position - start);
+                if (next() != '>' || groupNames.containsKey(name)) {
+                    throw new UnsupportedRegexException("Invalid named group");
+                }
+                int index = ++groupCount;
+                groupNames.put(name, index);
+                node = new Group(index, parseAlternation());
+            }
+            else {
+                // inline flags, (?i) or (?i-s:X), anything else is look-around or an atomic group
+                position--;
+                parseFlags();
+                if (peek() == ')') {
+                    position++;
+                    return null;
+                }
+                if (next() != ':') {
+                    throw new UnsupportedRegexException("Unknown group type");
+                }
+                node = parseAlternation();
+            }
+        }
+        else {
+            int index = ++groupCount;
+            node = new Group(index, parseAlternation());
+        }
+        if (next() != ')') {
+            throw new UnsupportedRegexException("Unclosed group");
+        }
+        flags = savedFlags;
+        return node;
+    }
+
+    private void parseFlags()
+    {
+        boolean enable = true;
+        boolean any = false;
+        while (true) {
+            int codePoint = peek();
+            int flag;
+            switch (codePoint) {
+                case 'i':
+                    flag = CASE_INSENSITIVE;
+                    break;
+                case 'm':
+                    flag = MULTILINE;
+                    break;
+                case 's':
+                    flag = DOTALL;
+                    break;
+                case '-':
+                    if (!enable) {
+                        throw new UnsupportedRegexException("Unknown inline modifier");
+                    }
+                    enable = false;
+                    position++;
+                    continue;
+                default:
+                    if (!any) {
+                        throw new UnsupportedRegexException("Unknown inline modifier");
+                    }
+                    return;
+            }
+            any = true;
+            position++;
+            flags = enable ? flags | flag : flags & ~flag;
+        }
+    }
+
+    private RegexNode parseEscape()
+    {
+        int codePoint = next();
+        switch (codePoint) {
+            case 'd':
+            case 'D':
+            case 'w':
+            case 'W':
+            case 's':
+            case 'S':
+            case 'h':
+            case 'H':
+            case 'v':
+            case 'V':
+                return new CharacterClass(new CharClass.Builder().addClass(predefinedClass(codePoint), Character.isUpperCase(codePoint)).build());
+            case 'p':
+            case 'P':
+                return new CharacterClass(new CharClass.Builder().addClass(posixClass(), codePoint == 'P').build());
+            case 'b':
+                return new Assertion(WORD_BOUNDARY);
+            case 'B':
+                return new Assertion(NOT_WORD_BOUNDARY);
+            case 'A':
+                return new Assertion(BEGIN_TEXT);
+            case 'z':
+                return new Assertion(END_TEXT);
+            case 'Z':
+                return new Assertion(END_TEXT_OR_FINAL_TERMINATOR);
+            default:
+                return literal(parseEscapedCharacter(codePoint));
+        }
+    }
+
+    private CharClass parseClass()
+    {
+        CharClass.Builder builder = new CharClass.Builder();
+        boolean negate = false;
+        if (peek() == '^') {
+            negate = true;
+            position++;
+        }
+        if (peek() == ']') {
+            throw new UnsupportedRegexException("Leading ] in class");
+        }
+        while (true) {
+            int codePoint = next();
+            if (codePoint == ']') {
+                break;
+            }
+            if (codePoint == -1) {
+                throw new UnsupportedRegexException("Unclosed character class");
+            }
+            if (codePoint == '[' || (codePoint == '&' && peek() == '&')) {
+                throw new UnsupportedRegexException("Class union or intersection");
+            }
+            if (codePoint == '\\') {
+                int escaped = next();
+                CharClass predefined = null;
+                if ("dDwWsShHvV".indexOf(escaped) >= 0) {
+                    predefined = predefinedClass(escaped);
+                }
+                else if (escaped == 'p' || escaped == 'P') {
+                    predefined = posixClass();
+                }
+                if (predefined != null) {
+                    if (peek() == '-' && peek(1) != ']') {
+                        throw new UnsupportedRegexException("Illegal character range");
+                    }
+                    builder.addClass(predefined, Character.isUpperCase(escaped));
+                    continue;
+                }
+                if (escaped == 'Q' || escaped == 'E' || escaped == 'b' || escaped == 'B') {
+                    throw new UnsupportedRegexException("Unsupported escape in class");
+                }
+                codePoint = parseEscapedCharacter(escaped);
+            }
+
+            int high = codePoint;
+            if (peek() == '-' && peek(1) != ']' && peek(1) != -1) {
+                position++;
+                high = next();
+                if (high == '[' || high == '&') {
+                    throw new UnsupportedRegexException("Illegal character range");
+                }
+                if (high == '\\') {
+                    int escaped = next();
+                    if ("dDwWsShHvVpPQEbB".indexOf(escaped) >= 0) {
+                        throw new UnsupportedRegexException("Illegal character range");
+                    }
+                    high = parseEscapedCharacter(escaped);
+                }
+                if (high < codePoint) {
+                    throw new UnsupportedRegexException("Illegal character range");
+                }
+            }
+            if (has(CASE_INSENSITIVE)) {
+                builder.addRangeIgnoreCase(codePoint, high);
+            }
+            else {
+                builder.addRange(codePoint, high);
+            }
+        }
+        return builder.build(negate);
+    }
+
+    private List<RegexNode> parseQuoted()
+    {
+        // skip \Q
+        position += 2;
+        List<RegexNode> nodes = new ArrayList<>();
+        while (position < pattern.length) {
+            if (peek() == '\\' && peek(1) == 'E') {
+                position += 2;
+                break;
+            }
+            nodes.add(literal(next()));
+        }
+        return nodes;
+    }
+
+    private int parseEscapedCharacter(int codePoint)
+    {
+        switch (codePoint) {
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case 'a':
+                return 0x07;
+            case 'e':
+                return 0x1B;
+            case '0':
+                return parseOctal();
+            case 'x':
+                if (peek() == '{') {
+                    position++;
+                    int value = parseHex(8);
+                    if (next() != '}' || value > Character.MAX_CODE_POINT) {
+                        throw new UnsupportedRegexException("Illegal hexadecimal escape sequence");
+                    }
+                    return checkNotSurrogate(value);
+                }
+                return parseHex(2);
+            case 'u':
+                return checkNotSurrogate(parseHex(4));
+            case 'c':
+                int control = next();
+                if (control == -1) {
+                    throw new UnsupportedRegexException("Illegal control escape sequence");
+                }
+                return control ^ 64;
+            case -1:
+                throw new UnsupportedRegexException("Unexpected internal error");
+            default:
+                // an escaped letter or digit that is not a known escape is an error, or a back reference
+                if (isAsciiLetter(codePoint) || isAsciiDigit(codePoint)) {
+                    throw new UnsupportedRegexException("Illegal/unsupported escape sequence");
+                }
+                return codePoint;
+        }
+    }
+
+    private int parseOctal()
+    {
+        // \0n, \0nn or \0mnn with m at most 3
+        int digits = 0;
+        int value = 0;
+        while (digits < 3 && peek() >= '0' && peek() <= '7') {
+            int next = value * 8 + (peek() - '0');
+            if (next > 0377) {
+                break;
+            }
+            value = next;
+            position++;
+            digits++;
+        }
+        if (digits == 0) {
+            throw new UnsupportedRegexException("Illegal octal escape sequence");
+        }
+        return value;
+    }
+
+    private int parseHex(int maxDigits)
+    {
+        int value = 0;
+        int digits = 0;
+        while (digits < maxDigits && Character.digit(peek(), 16) >= 0 && peek() < 128) {
+            value = value * 16 + Character.digit(next(), 16);
+            digits++;
+        }
+        // \xhh and the four digit unicode escape take an exact number of digits, \x{...} at least one
+        if (digits == 0 || (maxDigits != 8 && digits != maxDigits)) {
+            throw new UnsupportedRegexException("Illegal hexadecimal escape sequence");
+        }
+        return value;
+    }
+
+    private CharClass posixClass()
+    {
+        if (next() != '{') {
+            throw new UnsupportedRegexException("Unsupported property");
+        }
+        int start = position;
+        while (position < pattern.length && peek() != '}') {
+            position++;
+        }
+        String name = new String(pattern, start, position - start);
+        position++;
+        CharClass charClass = POSIX_CLASSES.get(name);
+        // java.util.regex folds the case of some properties but not others
+        if (charClass == null || (has(CASE_INSENSITIVE) && (name.equals("Lower") || name.equals("Upper")))) {
+            throw new UnsupportedRegexException("Unsupported property " + name);
+        }
+        return charClass;
+    }
+
+    private static CharClass predefinedClass(int codePoint)
+    {
+        switch (Character.toLowerCase(codePoint)) {
+            case 'd':
+                return CharClass.DIGIT;
+            case 'w':
+                return CharClass.WORD;
+            case 's':
+                return CharClass.SPACE;
+            case 'h':
+                return CharClass.HORIZONTAL_SPACE;
+            case 'v':
+                return CharClass.VERTICAL_SPACE;
+            default:
+                throw new IllegalArgumentException("Not a predefined class: " + codePoint);
+        }
+    }
+
+    private RegexNode literal(int codePoint)
+    {
+        return new Literal(codePoint, has(CASE_INSENSITIVE));
+    }
+
+    private int parseNumber()
+    {
+        int start = position;
+        long value = 0;
+        while (isAsciiDigit(peek())) {
+            value = Math.min(value * 10 + (next() - '0'), Integer.MAX_VALUE);
+        }
+        if (position == start) {
+            throw new UnsupportedRegexException("Illegal repetition");
+        }
+        return (int) value;
+    }
+
+    private boolean has(int flag)
+    {
+        return (flags & flag) != 0;
+    }
+
+    private int peek()
+    {
+        return peek(0);
+    }
+
+    private int peek(int offset)
+    {
+        return position + offset < pattern.length ? pattern[position + offset] : -1;
+    }
+
+    private int next()
+    {
+        if (position >= pattern.length) {
+            // unterminated class, group or escape
+            position++;
+            return -1;
+        }
+        return pattern[position++];
+    }
+
+    private static int checkNotSurrogate(int codePoint)
+    {
+        if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+            throw new UnsupportedRegexException("Surrogate escape");
+        }
+        return codePoint;
+    }
+
+    private static boolean isRepetition(int codePoint)
+    {
+        return codePoint == '*' || codePoint == '+' || codePoint == '?' || codePoint == '{';
+    }
+
+    private static boolean isAsciiLetter(int codePoint)
+    {
+        return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(int codePoint)
+    {
+        return codePoint >= '0' && codePoint <= '9';
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import io.airlift.slice.Slice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The instructions of a compiled regular expression. Every instruction either consumes one
+ * code point, or is free to follow: a jump, a split with a preferred branch, a capture
+ * position or an assertion about the surroundings of the current position.
+ */
+final class RegexProgram
+{
+    // a pattern that compiles to more instructions than this is left to java.util.regex
+    static final int MAX_INSTRUCTIONS = 10_000;
+
+    static final int MATCH = 0;
+    static final int CHAR = 1;
+    static final int CHAR_IGNORE_CASE = 2;
+    static final int ANY = 3;
+    static final int ANY_BUT_LINE_TERMINATOR = 4;
+    static final int CLASS = 5;
+    static final int SPLIT = 6;
+    static final int JUMP = 7;
+    static final int SAVE = 8;
+    static final int ASSERT = 9;
+    // a split back into a repetition, followed by the way out of it
+    static final int LOOP = 10;
+
+    // assertions
+    static final int BEGIN_TEXT = 0;
+    static final int END_TEXT = 1;
+    static final int END_TEXT_OR_FINAL_TERMINATOR = 2;
+    static final int BEGIN_LINE = 3;
+    static final int END_LINE = 4;
+    static final int WORD_BOUNDARY = 5;
+    static final int NOT_WORD_BOUNDARY = 6;
+
+    // the surroundings of a position, see context()
+    static final int AT_START = 1;
+    static final int AT_END = 1 << 1;
+    static final int PREVIOUS_WORD = 1 << 2;
+    static final int PREVIOUS_LINE_TERMINATOR = 1 << 3;
+    static final int PREVIOUS_CARRIAGE_RETURN = 1 << 4;
+    static final int NEXT_WORD = 1 << 5;
+    static final int NEXT_LINE_TERMINATOR = 1 << 6;
+    static final int NEXT_LINE_FEED = 1 << 7;
+    static final int FINAL_TERMINATOR = 1 << 8;
+
+    static final int PREVIOUS_MASK = AT_START | PREVIOUS_WORD | PREVIOUS_LINE_TERMINATOR | PREVIOUS_CARRIAGE_RETURN;
+
+    private final int[] opcodes;
+    private final int[] arguments;
+    private final int[] alternatives;
+    private final CharClass[] classes;
+    private final int groupCount;
+    private final Map<String, Integer> groupNames;
+    private final boolean anchoredAtStart;
+    private final boolean hasAssertions;
+    private final boolean hasFinalTerminatorAssertion;
+
+    private RegexProgram(Builder builder, int groupCount, Map<String, Integer> groupNames, boolean anchoredAtStart)
+    {
+        int size = builder.size;
+        this.opcodes = Arrays.copyOf(builder.opcodes, size);
+        this.arguments = Arrays.copyOf(builder.arguments, size);
+        this.alternatives = Arrays.copyOf(builder.alternatives, size);
+        this.classes = builder.classes.toArray(new CharClass[builder.classes.size()]);
+        this.groupCount = groupCount;
+        this.groupNames = groupNames;
+        this.anchoredAtStart = anchoredAtStart;
+
+        boolean assertions = false;
+        boolean finalTerminator = false;
+        for (int pc = 0; pc < size; pc++) {
+            if (opcodes[pc] == ASSERT) {
+                assertions = true;
+                finalTerminator |= arguments[pc] == END_TEXT_OR_FINAL_TERMINATOR;
+            }
+        }
+        this.hasAssertions = assertions;
+        this.hasFinalTerminatorAssertion = finalTerminator;
+    }
+
+    static RegexProgram compile(RegexNode root, int groupCount, Map<String, Integer> groupNames)
+    {
+        Builder builder = new Builder();
+        builder.emit(SAVE, 0, 0);
+        root.emit(builder);
+        builder.emit(SAVE, 1, 0);
+        builder.emit(MATCH, 0, 0);
+        return new RegexProgram(builder, groupCount, groupNames, root.isAnchoredAtStart());
+    }
+
+    int size()
+    {
+        return opcodes.length;
+    }
+
+    int opcode(int pc)
+    {
+        return opcodes[pc];
+    }
+
+    int argument(int pc)
+    {
+        return arguments[pc];
+    }
+
+    int alternative(int pc)
+    {
+        return alternatives[pc];
+    }
+
+    int getGroupCount()
+    {
+        return groupCount;
+    }
+
+    Map<String, Integer> getGroupNames()
+    {
+        return groupNames;
+    }
+
+    /**
+     * @return true if a match can only start at the beginning of the input
+     */
+    boolean isAnchoredAtStart()
+    {
+        return anchoredAtStart;
+    }
+
+    boolean hasAssertions()
+    {
+        return hasAssertions;
+    }
+
+    boolean hasFinalTerminatorAssertion()
+    {
+        return hasFinalTerminatorAssertion;
+    }
+
+    /**
+     * @return true if the instruction at pc, which must consume a code point, accepts the code point
+     */
+    boolean accepts(int pc, int codePoint)
+    {
+        switch (opcodes[pc]) {
+            case CHAR:
+                return codePoint == arguments[pc];
+            case CHAR_IGNORE_CASE:
+                // the argument is a lower case ASCII letter
+                return codePoint == arguments[pc] || codePoint == arguments[pc] - ('a' - 'A');
+            case ANY:
+                return true;
+            case ANY_BUT_LINE_TERMINATOR:
+                return !isLineTerminator(codePoint);
+            case CLASS:
+                return classes[arguments[pc]].contains(codePoint);
+            default:
+                return false;
+        }
+    }
+
+    static boolean consumes(int opcode)
+    {
+        return opcode >= CHAR && opcode <= CLASS;
+    }
+
+    /**
+     * @return true if the assertion holds in the context, see {@link #context(Slice, int, int)}
+     */
+    static boolean holds(int assertion, int context)
+    {
+        switch (assertion) {
+            case BEGIN_TEXT:
+                return (context & AT_START) != 0;
+            case END_TEXT:
+                return (context & AT_END) != 0;
+            case END_TEXT_OR_FINAL_TERMINATOR:
+                return (context & (AT_END | FINAL_TERMINATOR)) != 0;
+            case BEGIN_LINE:
+                // like java.util.regex, not at the end of the input, even after a line terminator, and not within \r\n
+                if ((context & AT_END) != 0) {
+                    return false;
+                }
+                return (context & AT_START) != 0 ||
+                        ((context & PREVIOUS_LINE_TERMINATOR) != 0 && (context & (PREVIOUS_CARRIAGE_RETURN | NEXT_LINE_FEED)) != (PREVIOUS_CARRIAGE_RETURN | NEXT_LINE_FEED));
+            case END_LINE:
+                if ((context & AT_END) != 0) {
+                    return true;
+                }
+                return (context & NEXT_LINE_TERMINATOR) != 0 && (context & (PREVIOUS_CARRIAGE_RETURN | NEXT_LINE_FEED)) != (PREVIOUS_CARRIAGE_RETURN | NEXT_LINE_FEED);
+            case WORD_BOUNDARY:
+                return ((context & PREVIOUS_WORD) != 0) != ((context & NEXT_WORD) != 0);
+            case NOT_WORD_BOUNDARY:
+                return ((context & PREVIOUS_WORD) != 0) == ((context & NEXT_WORD) != 0);
+            default:
+                throw new IllegalArgumentException("Unknown assertion " + assertion);
+        }
+    }
+
+    /**
+     * @return the surroundings of the position, previous is the code point before it or -1 at the start
+     */
+    static int context(Slice input, int position, int previous)
+    {
+        int context = previousContext(previous);
+        if (position == 0) {
+            context |= AT_START;
+        }
+        if (position >= input.length()) {
+            return context | AT_END | FINAL_TERMINATOR;
+        }
+        int decoded = Utf8.decode(input, position);
+        int codePoint = Utf8.codePoint(decoded);
+        context |= nextContext(codePoint);
+        if (isFinalTerminator(input, position, codePoint, Utf8.length(decoded), previous)) {
+            context |= FINAL_TERMINATOR;
+        }
+        return context;
+    }
+
+    static int previousContext(int previous)
+    {
+        if (previous < 0) {
+            return 0;
+        }
+        int context = 0;
+        if (isWord(previous)) {
+            context |= PREVIOUS_WORD;
+        }
+        if (isLineTerminator(previous)) {
+            context |= PREVIOUS_LINE_TERMINATOR;
+            if (previous == '\r') {
+                context |= PREVIOUS_CARRIAGE_RETURN;
+            }
+        }
+        return context;
+    }
+
+    static int nextContext(int next)
+    {
+        int context = 0;
+        if (isWord(next)) {
+            context |= NEXT_WORD;
+        }
+        if (isLineTerminator(next)) {
+            context |= NEXT_LINE_TERMINATOR;
+            if (next == '\n') {
+                context |= NEXT_LINE_FEED;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * @return true if the input ends with the line terminator at the position, where $ and \Z match
+     */
+    static boolean isFinalTerminator(Slice input, int position, int codePoint, int length, int previous)
+    {
+        int remaining = input.length() - position;
+        if (codePoint == '\r' && remaining == 2) {
+            return input.getByte(position + 1) == '\n';
+        }
+        return remaining == length && isLineTerminator(codePoint) && !(codePoint == '\n' && previous == '\r');
+    }
+
+    static boolean isLineTerminator(int codePoint)
+    {
+        return codePoint == '\n' || codePoint == '\r' || codePoint == 0x85 || codePoint == 0x2028 || codePoint == 0x2029;
+    }
+
+    /**
+     * @return true if the code point is part of a word for \b, which unlike \w is not limited to ASCII
+     */
+    static boolean isWord(int codePoint)
+    {
+        if (codePoint < 128) {
+            return CharClass.WORD.contains(codePoint);
+        }
+        return Character.isLetterOrDigit(codePoint);
+    }
+
+    static final class Builder
+    {
+        private int[] opcodes = new int[16];
+        private int[] arguments = new int[16];
+        private int[] alternatives = new int[16];
+        private int size;
+        private final List<CharClass> classes = new ArrayList<>();
+
+        int emit(int opcode, int argument, int alternative)
+        {
+            if (size == MAX_INSTRUCTIONS) {
+                throw new UnsupportedRegexException("Pattern is too large");
+            }
+            if (size == opcodes.length) {
+                opcodes = Arrays.copyOf(opcodes, size * 2);
+                arguments = Arrays.copyOf(arguments, size * 2);
+                alternatives = Arrays.copyOf(alternatives, size * 2);
+            }
+            opcodes[size] = opcode;
+            arguments[size] = argument;
+            alternatives[size] = alternative;
+            return size++;
+        }
+
+        int emitClass(CharClass charClass)
+        {
+            classes.add(charClass);
+            return emit(CLASS, classes.size() - 1, 0);
+        }
+
+        int position()
+        {
+            return size;
+        }
+
+        /**
+         * Points the jump or the preferred branch of the split at pc to the target
+         */
+        void setArgument(int pc, int target)
+        {
+            checkArgument(opcodes[pc] == JUMP || opcodes[pc] == SPLIT || opcodes[pc] == LOOP, "not a jump");
+            arguments[pc] = target;
+        }
+
+        /**
+         * Points the other branch of the split at pc to the target
+         */
+        void setAlternative(int pc, int target)
+        {
+            checkArgument(opcodes[pc] == SPLIT || opcodes[pc] == LOOP, "not a split");
+            alternatives[pc] = target;
+        }
+    }
+}
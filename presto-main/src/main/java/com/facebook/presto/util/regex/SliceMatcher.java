@@ -0,0 +1,36 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import io.airlift.slice.Slice;
+
+import javax.annotation.Nullable;
+
+/**
+ * Finds the matches of a {@link SliceRegex} in turn, like {@link java.util.regex.Matcher#find()}.
+ */
+public interface SliceMatcher
+{
+    /**
+     * Finds the next match, which starts where the previous one ended, or a code point
+     * later if the previous match was empty
+     */
+    boolean find();
+
+    /**
+     * @return the text of the group in the current match, or null if the group did not participate
+     */
+    @Nullable
+    Slice group(int group);
+}
@@ -0,0 +1,331 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+
+import javax.annotation.Nullable;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * A regular expression in the java.util.regex syntax that matches UTF-8 slices directly.
+ * <p>
+ * Patterns without back references, look-around, possessive repetition and the like are run
+ * by an automaton in time linear in the input, whatever the pattern, so a query cannot stall
+ * on catastrophic backtracking. Whether there is a match is answered by a {@link LazyDfa};
+ * groups are found by a {@link PikeVm}. Patterns that need a backtracking matcher, and
+ * malformed ones, are handed to java.util.regex, which also reports their syntax errors.
+ * <p>
+ * Results are those of java.util.regex, except that positions are code points rather than
+ * UTF-16 chars, and that a repetition whose body can match empty may capture differently,
+ * since a backtracking matcher treats empty iterations specially.
+ * <p>
+ * Instances are immutable and thread safe; matchers are not.
+ */
+public final class SliceRegex
+{
+    public static final int CASE_INSENSITIVE = RegexParser.CASE_INSENSITIVE;
+    public static final int MULTILINE = RegexParser.MULTILINE;
+    public static final int DOTALL = RegexParser.DOTALL;
+
+    private final String pattern;
+    @Nullable
+    private final RegexProgram program;
+    @Nullable
+    private final LazyDfa dfa;
+    @Nullable
+    private final Pattern fallback;
+
+    private SliceRegex(String pattern, @Nullable RegexProgram program, @Nullable Pattern fallback)
+    {
+        this.pattern = pattern;
+        this.program = program;
+        this.dfa = program == null ? null : new LazyDfa(program);
+        this.fallback = fallback;
+    }
+
+    public static SliceRegex compile(Slice pattern)
+    {
+        return compile(pattern.toStringUtf8(), 0);
+    }
+
+    /**
+     * @param flags a combination of {@link #CASE_INSENSITIVE}, {@link #MULTILINE} and {@link #DOTALL}
+     * @throws PatternSyntaxException if the pattern is malformed
+     */
+    public static SliceRegex compile(String pattern, int flags)
+    {
+        checkNotNull(pattern, "pattern is null");
+        try {
+            return new SliceRegex(pattern, RegexParser.compile(pattern, flags), null);
+        }
+        catch (UnsupportedRegexException e) {
+            return new SliceRegex(pattern, null, Pattern.compile(pattern, toJavaFlags(flags)));
+        }
+    }
+
+    /**
+     * @return true if the pattern is run in linear time, false if it needs java.util.regex
+     */
+    public boolean isLinear()
+    {
+        return program != null;
+    }
+
+    public int groupCount()
+    {
+        if (program != null) {
+            return program.getGroupCount();
+        }
+        return fallback.matcher("").groupCount();
+    }
+
+    /**
+     * @return true if the pattern matches anywhere in the input
+     */
+    public boolean find(Slice input)
+    {
+        if (dfa != null) {
+            return dfa.find(input, 0);
+        }
+        return fallback.matcher(input.toStringUtf8()).find();
+    }
+
+    public SliceMatcher matcher(Slice input)
+    {
+        if (program != null) {
+            return new LinearMatcher(input);
+        }
+        return new JavaMatcher(fallback.matcher(input.toStringUtf8()));
+    }
+
+    /**
+     * Replaces every match with the replacement, where $n and ${name} stand for a group
+     * and a backslash quotes the next character, as in {@link Matcher#replaceAll(String)}
+     */
+    public Slice replaceAll(Slice input, Slice replacement)
+    {
+        if (program == null) {
+            return utf8Slice(fallback.matcher(input.toStringUtf8()).replaceAll(replacement.toStringUtf8()));
+        }
+
+        LinearMatcher matcher = new LinearMatcher(input);
+        if (!matcher.find()) {
+            return input;
+        }
+        SliceOutput output = new DynamicSliceOutput(input.length() + replacement.length());
+        int appended = 0;
+        do {
+            output.writeBytes(input, appended, matcher.start() - appended);
+            appendReplacement(output, matcher, replacement);
+            appended = matcher.end();
+        }
+        while (matcher.find());
+        output.writeBytes(input, appended, input.length() - appended);
+        return output.slice();
+    }
+
+    private void appendReplacement(SliceOutput output, LinearMatcher matcher, Slice replacement)
+    {
+        int position = 0;
+        while (position < replacement.length()) {
+            byte next = replacement.getByte(position);
+            if (next == '\\') {
+                position++;
+                if (position == replacement.length()) {
+                    throw new IllegalArgumentException("character to be escaped is missing");
+                }
+                int length = Utf8.length(Utf8.decode(replacement, position));
+                output.writeBytes(replacement, position, length);
+                position += length;
+            }
+            else if (next == '$') {
+                position++;
+                if (position == replacement.length()) {
+                    throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                }
+                int group;
+                if (replacement.getByte(position) == '{') {
+                    int start = ++position;
+                    while (position < replacement.length() && isAsciiLetterOrDigit(replacement.getByte(position))) {
+                        position++;
+                    }
+                    if (position == start || position == replacement.length() || replacement.getByte(position) != '}') {
+                        throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                    }
+                    String name = replacement.slice(start, position - start).toStringUtf8();
+                    position++;
+                    Integer index = program.getGroupNames().get(name);
+                    if (index == null) {
+                        throw new IllegalArgumentException("No group with name {" + name + "}");
+                    }
+                    group = index;
+                }
+                else {
+                    // the first digit is the group, later digits only while the group exists
+                    group = replacement.getByte(position) - '0';
+                    if (group < 0 || group > 9) {
+                        throw new IllegalArgumentException("Illegal group reference");
+                    }
+                    position++;
+                    while (position < replacement.length()) {
+                        int digit = replacement.getByte(position) - '0';
+                        if (digit < 0 || digit > 9 || group * 10 + digit > program.getGroupCount()) {
+                            break;
+                        }
+                        group = group * 10 + digit;
+                        position++;
+                    }
+                }
+                if (group > program.getGroupCount()) {
+                    throw new IndexOutOfBoundsException("No group " + group);
+                }
+                Slice text = matcher.group(group);
+                if (text != null) {
+                    output.writeBytes(text);
+                }
+            }
+            else {
+                output.writeByte(next);
+                position++;
+            }
+        }
+    }
+
+    private static boolean isAsciiLetterOrDigit(byte value)
+    {
+        return (value >= 'a' && value <= 'z') || (value >= 'A' && value <= 'Z') || (value >= '0' && value <= '9');
+    }
+
+    private static int toJavaFlags(int flags)
+    {
+        int javaFlags = 0;
+        if ((flags & CASE_INSENSITIVE) != 0) {
+            javaFlags |= Pattern.CASE_INSENSITIVE;
+        }
+        if ((flags & MULTILINE) != 0) {
+            javaFlags |= Pattern.MULTILINE;
+        }
+        if ((flags & DOTALL) != 0) {
+            javaFlags |= Pattern.DOTALL;
+        }
+        return javaFlags;
+    }
+
+    public String pattern()
+    {
+        return pattern;
+    }
+
+    @Override
+    public String toString()
+    {
+        return pattern;
+    }
+
+    private final class LinearMatcher
+            implements SliceMatcher
+    {
+        private final Slice input;
+        private final int[] groups;
+        private PikeVm vm;
+        private int searchFrom;
+        private boolean matched;
+
+        private LinearMatcher(Slice input)
+        {
+            this.input = input;
+            this.groups = new int[(program.getGroupCount() + 1) * 2];
+        }
+
+        @Override
+        public boolean find()
+        {
+            if (searchFrom > input.length() || !dfa.find(input, searchFrom)) {
+                matched = false;
+                searchFrom = input.length() + 1;
+                return false;
+            }
+            if (vm == null) {
+                vm = new PikeVm(program);
+            }
+            matched = vm.search(input, searchFrom, groups);
+            if (!matched) {
+                searchFrom = input.length() + 1;
+                return false;
+            }
+            searchFrom = groups[1];
+            if (groups[1] == groups[0]) {
+                // an empty match, the next one starts a code point later
+                searchFrom += searchFrom < input.length() ? Utf8.length(Utf8.decode(input, searchFrom)) : 1;
+            }
+            return true;
+        }
+
+        @Override
+        public Slice group(int group)
+        {
+            if (!matched) {
+                throw new IllegalStateException("No match found");
+            }
+            int start = groups[group * 2];
+            if (start < 0) {
+                return null;
+            }
+            return input.slice(start, groups[group * 2 + 1] - start);
+        }
+
+        private int start()
+        {
+            return groups[0];
+        }
+
+        private int end()
+        {
+            return groups[1];
+        }
+    }
+
+    private static final class JavaMatcher
+            implements SliceMatcher
+    {
+        private final Matcher matcher;
+
+        private JavaMatcher(Matcher matcher)
+        {
+            this.matcher = matcher;
+        }
+
+        @Override
+        public boolean find()
+        {
+            return matcher.find();
+        }
+
+        @Override
+        public Slice group(int group)
+        {
+            String text = matcher.group(group);
+            return text == null ? null : utf8Slice(text);
+        }
+    }
+}
@@ -11,32 +11,17 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.facebook.presto.plugin.jdbc.cache;
+package com.facebook.presto.util.regex;
 
-import java.util.List;
-
-public class JdbcJavaBean
+/**
+ * Thrown for a pattern the linear time engine does not run, such as one with back references
+ * or look-around. Those patterns, and malformed ones, are compiled by java.util.regex instead.
+ */
+class UnsupportedRegexException
+        extends RuntimeException
 {
-    private List<String> columns;
-    private Object[] values;
-    public JdbcJavaBean(List<String> columns)
-    {
-        this.columns = columns;
-        this.values = new Object[columns.size()];
-    }
-
-    public Object getFieldObjectValue(int index)
-    {
-        return values[index];
-    }
-
-    public void setFieldObjectValue(int index, Object value)
-    {
-        values[index] = value;
-    }
-
-    public List<String> getColumns()
+    UnsupportedRegexException(String message)
     {
-        return columns;
+        super(message);
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import io.airlift.slice.Slice;
+
+/**
+ * Decodes code points straight from UTF-8 bytes. A byte that does not start a well formed
+ * sequence decodes to U+FFFD on its own, as the String decoder would replace it.
+ */
+final class Utf8
+{
+    static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private static final int LENGTH_SHIFT = 21;
+    private static final int CODE_POINT_MASK = (1 << LENGTH_SHIFT) - 1;
+
+    private Utf8() {}
+
+    /**
+     * @return the code point at the position and its length in bytes, packed for {@link #codePoint(int)} and {@link #length(int)}
+     */
+    static int decode(Slice input, int position)
+    {
+        int first = input.getByte(position) & 0xFF;
+        if (first < 0x80) {
+            return (1 << LENGTH_SHIFT) | first;
+        }
+
+        int length;
+        int codePoint;
+        int minimum;
+        if ((first & 0xE0) == 0xC0) {
+            length = 2;
+            codePoint = first & 0x1F;
+            minimum = 0x80;
+        }
+        else if ((first & 0xF0) == 0xE0) {
+            length = 3;
+            codePoint = first & 0x0F;
+            minimum = 0x800;
+        }
+        else if ((first & 0xF8) == 0xF0) {
+            length = 4;
+            codePoint = first & 0x07;
+            minimum = 0x10000;
+        }
+        else {
+            return invalid();
+        }
+
+        if (position + length > input.length()) {
+            return invalid();
+        }
+        for (int i = 1; i < length; i++) {
+            int next = input.getByte(position + i) & 0xFF;
+            if ((next & 0xC0) != 0x80) {
+                return invalid();
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+        if (codePoint < minimum || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            return invalid();
+        }
+        return (length << LENGTH_SHIFT) | codePoint;
+    }
+
+    /**
+     * @return the code point that ends right before the position, which must not be the start
+     */
+    static int codePointBefore(Slice input, int position)
+    {
+        int start = position - 1;
+        // a code point is at most four bytes, so look back over at most three continuation bytes
+        while (start > 0 && start > position - 4 && (input.getByte(start) & 0xC0) == 0x80) {
+            start--;
+        }
+        int decoded = decode(input, start);
+        if (start + length(decoded) == position) {
+            return codePoint(decoded);
+        }
+        return REPLACEMENT_CHARACTER;
+    }
+
+    static int codePoint(int decoded)
+    {
+        return decoded & CODE_POINT_MASK;
+    }
+
+    static int length(int decoded)
+    {
+        return decoded >>> LENGTH_SHIFT;
+    }
+
+    private static int invalid()
+    {
+        return (1 << LENGTH_SHIFT) | REPLACEMENT_CHARACTER;
+    }
+}
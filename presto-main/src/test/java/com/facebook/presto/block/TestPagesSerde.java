@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.block;
 
+import com.facebook.presto.block.PagesSerde.CompressedPagesReader;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
@@ -26,12 +27,15 @@ import org.testng.annotations.Test;
 import java.util.Iterator;
 import java.util.List;
 
+import static com.facebook.presto.block.PagesSerde.readCompressedPages;
 import static com.facebook.presto.block.PagesSerde.readPages;
+import static com.facebook.presto.block.PagesSerde.writeCompressedPages;
 import static com.facebook.presto.block.PagesSerde.writePages;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
+import static io.airlift.testing.Assertions.assertLessThan;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 
@@ -60,6 +64,34 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testCompressedRoundTrip()
+    {
+        BlockBuilder compressibleBlockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 1000);
+        for (int i = 0; i < 1000; i++) {
+            VARCHAR.writeString(compressibleBlockBuilder, "alice");
+        }
+        Block compressibleBlock = compressibleBlockBuilder.build();
+        Page compressiblePage = new Page(compressibleBlock, compressibleBlock);
+
+        // too small to shrink, so it is stored raw
+        BlockBuilder tinyBlockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1);
+        BIGINT.writeLong(tinyBlockBuilder, 123);
+        Page tinyPage = new Page(tinyBlockBuilder.build());
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writeCompressedPages(createTestingBlockEncodingManager(), sliceOutput, ImmutableList.of(compressiblePage, tinyPage, compressiblePage));
+
+        CompressedPagesReader pageIterator = readCompressedPages(createTestingBlockEncodingManager(), sliceOutput.slice().getInput());
+        assertPageEquals(ImmutableList.<Type>of(VARCHAR, VARCHAR), pageIterator.next(), compressiblePage);
+        assertPageEquals(ImmutableList.<Type>of(BIGINT), pageIterator.next(), tinyPage);
+        assertPageEquals(ImmutableList.<Type>of(VARCHAR, VARCHAR), pageIterator.next(), compressiblePage);
+        assertFalse(pageIterator.hasNext());
+
+        assertLessThan(pageIterator.getCompressedBytes(), pageIterator.getUncompressedBytes());
+        assertLessThan(sliceOutput.size(), serializedSize(ImmutableList.<Type>of(VARCHAR, VARCHAR), compressiblePage) * 2);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
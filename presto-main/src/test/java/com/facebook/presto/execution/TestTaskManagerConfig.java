@@ -18,6 +18,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -45,7 +46,11 @@ public class TestTaskManagerConfig
                 .setMaxPartialAggregationMemoryUsage(new DataSize(16, Unit.MEGABYTE))
                 .setSinkMaxBufferSize(new DataSize(32, Unit.MEGABYTE))
                 .setWriterCount(1)
-                .setHttpNotificationThreads(25));
+                .setHttpNotificationThreads(25)
+                .setDynamicFilteringEnabled(true)
+                .setSpillEnabled(false)
+                .setSpillPath(Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString())
+                .setMaxSpillPerNode(new DataSize(100, Unit.GIGABYTE)));
     }
 
     @Test
@@ -66,6 +71,10 @@ public class TestTaskManagerConfig
                 .put("sink.max-buffer-size", "42MB")
                 .put("task.writer-count", "3")
                 .put("task.http-notification-threads", "4")
+                .put("task.dynamic-filtering-enabled", "false")
+                .put("experimental.spill-enabled", "true")
+                .put("experimental.spill-path", "/tmp/custom/spills")
+                .put("experimental.max-spill-per-node", "10GB")
                 .build();
 
         TaskManagerConfig expected = new TaskManagerConfig()
@@ -82,7 +91,11 @@ public class TestTaskManagerConfig
                 .setClientTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setSinkMaxBufferSize(new DataSize(42, Unit.MEGABYTE))
                 .setWriterCount(3)
-                .setHttpNotificationThreads(4);
+                .setHttpNotificationThreads(4)
+                .setDynamicFilteringEnabled(false)
+                .setSpillEnabled(true)
+                .setSpillPath("/tmp/custom/spills")
+                .setMaxSpillPerNode(new DataSize(10, Unit.GIGABYTE));
 
         assertFullMapping(properties, expected);
     }
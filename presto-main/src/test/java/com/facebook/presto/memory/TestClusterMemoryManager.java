@@ -0,0 +1,390 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.execution.QueryExecution;
+import com.facebook.presto.execution.QueryId;
+import com.facebook.presto.execution.QueryInfo;
+import com.facebook.presto.execution.QueryState;
+import com.facebook.presto.execution.StageId;
+import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.metadata.AllNodes;
+import com.facebook.presto.metadata.InternalNodeManager;
+import com.facebook.presto.metadata.PrestoNode;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.http.client.testing.TestingHttpClient;
+import io.airlift.json.JsonCodec;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.metadata.NodeVersion.UNKNOWN;
+import static com.facebook.presto.spi.StandardErrorCode.CLUSTER_OUT_OF_MEMORY;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestClusterMemoryManager
+{
+    private static final JsonCodec<MemoryInfo> MEMORY_INFO_CODEC = jsonCodec(MemoryInfo.class);
+
+    private static final QueryId QUERY_1 = new QueryId("query1");
+    private static final QueryId QUERY_2 = new QueryId("query2");
+
+    private final TestingTicker ticker = new TestingTicker();
+    private TestingNodeManager nodeManager;
+    private Map<String, TestingRemoteNodeMemory> remoteNodes;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        nodeManager = new TestingNodeManager();
+        nodeManager.addNode("node1");
+        nodeManager.addNode("node2");
+        remoteNodes = new HashMap<>();
+    }
+
+    @Test
+    public void testSumsReservationsAcrossNodes()
+    {
+        ClusterMemoryManager memoryManager = createMemoryManager(new MemoryManagerConfig().setMaxQueryMemory(new DataSize(100, BYTE)));
+        poll(memoryManager);
+
+        // neither node alone holds more than the limit for query1
+        setPool("node1", 1000, 910, ImmutableMap.of(QUERY_1, 60L, QUERY_2, 30L));
+        setPool("node2", 1000, 880, ImmutableMap.of(QUERY_1, 60L, QUERY_2, 60L));
+        poll(memoryManager);
+
+        TestingQueryExecution query1 = new TestingQueryExecution(QUERY_1);
+        TestingQueryExecution query2 = new TestingQueryExecution(QUERY_2);
+        memoryManager.process(ImmutableList.of(query1, query2));
+
+        assertTrue(query1.getFailure() instanceof ExceededMemoryLimitException);
+        assertNull(query2.getFailure());
+        assertEquals(memoryManager.getClusterMemoryBytes(), 2000);
+        assertEquals(memoryManager.getClusterMemoryUsageBytes(), 210);
+        assertEquals(memoryManager.getBlockedNodes(), 0);
+    }
+
+    @Test
+    public void testKillsBiggestQueryAfterDelay()
+    {
+        ClusterMemoryManager memoryManager = createMemoryManager(new MemoryManagerConfig().setKillOnOutOfMemoryDelay(new Duration(5, MINUTES)));
+        poll(memoryManager);
+
+        setPool("node1", 1000, -100, ImmutableMap.of(QUERY_1, 800L, QUERY_2, 300L));
+        setPool("node2", 1000, 800, ImmutableMap.of(QUERY_2, 200L));
+        poll(memoryManager);
+
+        TestingQueryExecution query1 = new TestingQueryExecution(QUERY_1);
+        TestingQueryExecution query2 = new TestingQueryExecution(QUERY_2);
+        Iterable<QueryExecution> queries = ImmutableList.of(query1, query2);
+
+        runFor(memoryManager, queries, 300);
+        assertEquals(memoryManager.getBlockedNodes(), 1);
+        assertNull(query1.getFailure());
+        assertNull(query2.getFailure());
+
+        // query1 uses 800 bytes and query2 500 bytes across the cluster
+        runFor(memoryManager, queries, 1);
+        assertTrue(query1.getFailure() instanceof PrestoException);
+        assertEquals(((PrestoException) query1.getFailure()).getErrorCode(), CLUSTER_OUT_OF_MEMORY.toErrorCode());
+        assertNull(query2.getFailure());
+        assertEquals(memoryManager.getQueriesKilledDueToOutOfMemory(), 1);
+
+        // the nodes get a full delay to free the memory of the killed query
+        runFor(memoryManager, queries, 300);
+        assertNull(query2.getFailure());
+        assertEquals(memoryManager.getQueriesKilledDueToOutOfMemory(), 1);
+    }
+
+    @Test
+    public void testRecoveredNodeRestartsDelay()
+    {
+        ClusterMemoryManager memoryManager = createMemoryManager(new MemoryManagerConfig().setKillOnOutOfMemoryDelay(new Duration(5, MINUTES)));
+        poll(memoryManager);
+
+        Iterable<QueryExecution> queries = ImmutableList.of(new TestingQueryExecution(QUERY_1));
+        setPool("node1", 1000, -100, ImmutableMap.of(QUERY_1, 1100L));
+        poll(memoryManager);
+        runFor(memoryManager, queries, 240);
+
+        setPool("node1", 1000, 100, ImmutableMap.of(QUERY_1, 900L));
+        runFor(memoryManager, queries, 2);
+
+        setPool("node1", 1000, -100, ImmutableMap.of(QUERY_1, 1100L));
+        runFor(memoryManager, queries, 240);
+        assertEquals(memoryManager.getQueriesKilledDueToOutOfMemory(), 0);
+    }
+
+    @Test
+    public void testKillerDisabled()
+    {
+        ClusterMemoryManager memoryManager = createMemoryManager(new MemoryManagerConfig()
+                .setKillOnOutOfMemory(false)
+                .setKillOnOutOfMemoryDelay(new Duration(5, MINUTES)));
+        poll(memoryManager);
+
+        TestingQueryExecution query = new TestingQueryExecution(QUERY_1);
+        setPool("node1", 1000, -100, ImmutableMap.of(QUERY_1, 1100L));
+        poll(memoryManager);
+        runFor(memoryManager, ImmutableList.of(query), 600);
+
+        assertNull(query.getFailure());
+        assertEquals(memoryManager.getBlockedNodes(), 1);
+        assertEquals(memoryManager.getQueriesKilledDueToOutOfMemory(), 0);
+    }
+
+    @Test
+    public void testIgnoresStaleNodes()
+    {
+        ClusterMemoryManager memoryManager = createMemoryManager(new MemoryManagerConfig().setMaxQueryMemory(new DataSize(100, BYTE)));
+        poll(memoryManager);
+
+        setPool("node1", 1000, 940, ImmutableMap.of(QUERY_1, 60L));
+        setPool("node2", 1000, 940, ImmutableMap.of(QUERY_1, 60L));
+        poll(memoryManager);
+
+        // node2 stops responding and its last report ages out
+        remoteNodes.get("node2").stopResponding();
+        ticker.increment(11, SECONDS);
+        poll(memoryManager);
+
+        TestingQueryExecution query = new TestingQueryExecution(QUERY_1);
+        memoryManager.process(ImmutableList.of(query));
+        assertNull(query.getFailure());
+        assertEquals(memoryManager.getClusterMemoryBytes(), 1000);
+    }
+
+    @Test
+    public void testIgnoresInactiveNodes()
+    {
+        ClusterMemoryManager memoryManager = createMemoryManager(new MemoryManagerConfig().setMaxQueryMemory(new DataSize(100, BYTE)));
+        poll(memoryManager);
+
+        setPool("node1", 1000, 940, ImmutableMap.of(QUERY_1, 60L));
+        setPool("node2", 1000, 940, ImmutableMap.of(QUERY_1, 60L));
+        poll(memoryManager);
+
+        // node2 leaves the cluster while its last report is still fresh
+        nodeManager.removeNode("node2");
+        poll(memoryManager);
+
+        TestingQueryExecution query = new TestingQueryExecution(QUERY_1);
+        memoryManager.process(ImmutableList.of(query));
+        assertNull(query.getFailure());
+        assertEquals(memoryManager.getClusterMemoryBytes(), 1000);
+    }
+
+    private ClusterMemoryManager createMemoryManager(MemoryManagerConfig config)
+    {
+        return new ClusterMemoryManager(nodeManager, node -> {
+            TestingRemoteNodeMemory remoteNode = new TestingRemoteNodeMemory(node, ticker);
+            remoteNodes.put(node.getNodeIdentifier(), remoteNode);
+            return remoteNode;
+        }, config, ticker);
+    }
+
+    /**
+     * Lets the memory manager request the pools of the nodes without enforcing any limit.
+     */
+    private static void poll(ClusterMemoryManager memoryManager)
+    {
+        memoryManager.process(ImmutableList.<QueryExecution>of());
+    }
+
+    /**
+     * Runs the memory manager once a second, as the query manager does.
+     */
+    private void runFor(ClusterMemoryManager memoryManager, Iterable<QueryExecution> queries, int seconds)
+    {
+        for (int i = 0; i < seconds; i++) {
+            ticker.increment(1, SECONDS);
+            memoryManager.process(queries);
+        }
+    }
+
+    private void setPool(String nodeId, long maxBytes, long freeBytes, Map<QueryId, Long> queryMemoryReservations)
+    {
+        MemoryPoolInfo pool = new MemoryPoolInfo(maxBytes, freeBytes, queryMemoryReservations);
+        remoteNodes.get(nodeId).setResponse(new MemoryInfo(new DataSize(1, GIGABYTE), ImmutableMap.of("general", pool)));
+    }
+
+    private static class TestingRemoteNodeMemory
+            extends RemoteNodeMemory
+    {
+        private MemoryInfo response;
+
+        public TestingRemoteNodeMemory(Node node, TestingTicker ticker)
+        {
+            super(new TestingHttpClient(request -> {
+                throw new UnsupportedOperationException();
+            }, sameThreadExecutor()), node.getHttpUri(), MEMORY_INFO_CODEC, ticker);
+        }
+
+        public void setResponse(MemoryInfo response)
+        {
+            this.response = response;
+        }
+
+        public void stopResponding()
+        {
+            response = null;
+        }
+
+        @Override
+        public void asyncRefresh()
+        {
+            if (response != null) {
+                updateMemoryInfo(response);
+            }
+        }
+    }
+
+    private static class TestingNodeManager
+            implements InternalNodeManager
+    {
+        private final Node localNode = new PrestoNode("local", URI.create("local://127.0.0.1"), UNKNOWN);
+        private final Set<Node> nodes = new LinkedHashSet<>();
+
+        public void addNode(String nodeId)
+        {
+            nodes.add(new PrestoNode(nodeId, URI.create("http://" + nodeId + ":8080"), UNKNOWN));
+        }
+
+        public void removeNode(String nodeId)
+        {
+            nodes.removeIf(node -> node.getNodeIdentifier().equals(nodeId));
+        }
+
+        @Override
+        public AllNodes getAllNodes()
+        {
+            return new AllNodes(ImmutableSet.copyOf(nodes), ImmutableSet.<Node>of());
+        }
+
+        @Override
+        public void refreshNodes()
+        {
+        }
+
+        @Override
+        public Set<Node> getActiveNodes()
+        {
+            return ImmutableSet.copyOf(nodes);
+        }
+
+        @Override
+        public Set<Node> getActiveDatasourceNodes(String datasourceName)
+        {
+            return ImmutableSet.copyOf(nodes);
+        }
+
+        @Override
+        public Node getCurrentNode()
+        {
+            return localNode;
+        }
+
+        @Override
+        public Set<Node> getCoordinators()
+        {
+            return ImmutableSet.of(localNode);
+        }
+    }
+
+    private static class TestingQueryExecution
+            implements QueryExecution
+    {
+        private final QueryId queryId;
+        private Throwable failure;
+
+        public TestingQueryExecution(QueryId queryId)
+        {
+            this.queryId = queryId;
+        }
+
+        public Throwable getFailure()
+        {
+            return failure;
+        }
+
+        @Override
+        public QueryId getQueryId()
+        {
+            return queryId;
+        }
+
+        @Override
+        public void fail(Throwable cause)
+        {
+            failure = cause;
+        }
+
+        @Override
+        public QueryInfo getQueryInfo()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Duration waitForStateChange(QueryState currentState, Duration maxWait)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void start()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancelStage(StageId stageId)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recordHeartbeat()
+        {
+        }
+
+        @Override
+        public void addStateChangeListener(StateChangeListener<QueryState> stateChangeListener)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
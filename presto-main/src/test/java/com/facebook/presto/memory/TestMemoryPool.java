@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.execution.QueryId;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestMemoryPool
+{
+    private static final QueryId QUERY_1 = new QueryId("query1");
+    private static final QueryId QUERY_2 = new QueryId("query2");
+
+    @Test
+    public void testReserveAndFree()
+    {
+        MemoryPool pool = new MemoryPool("test", new DataSize(1000, BYTE));
+
+        assertTrue(pool.reserve(QUERY_1, 300).isDone());
+        assertTrue(pool.reserve(QUERY_2, 200).isDone());
+        assertTrue(pool.reserve(QUERY_1, 100).isDone());
+        assertEquals(pool.getFreeBytes(), 400);
+        assertEquals(pool.getInfo().getQueryMemoryReservations(), ImmutableMap.of(QUERY_1, 400L, QUERY_2, 200L));
+
+        pool.free(QUERY_1, 400);
+        assertEquals(pool.getFreeBytes(), 800);
+        assertEquals(pool.getInfo().getQueryMemoryReservations(), ImmutableMap.of(QUERY_2, 200L));
+    }
+
+    @Test
+    public void testBlockedUntilFreed()
+    {
+        MemoryPool pool = new MemoryPool("test", new DataSize(1000, BYTE));
+
+        assertTrue(pool.reserve(QUERY_1, 600).isDone());
+
+        // the reservation is granted, but the pool is now over-committed
+        ListenableFuture<?> future = pool.reserve(QUERY_2, 600);
+        assertFalse(future.isDone());
+        assertEquals(pool.getFreeBytes(), -200);
+        assertFalse(pool.isBlocked().isDone());
+
+        pool.free(QUERY_2, 100);
+        assertFalse(future.isDone());
+
+        pool.free(QUERY_1, 100);
+        assertTrue(future.isDone());
+        assertTrue(pool.isBlocked().isDone());
+        assertEquals(pool.getFreeBytes(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFreeMoreThanReserved()
+    {
+        MemoryPool pool = new MemoryPool("test", new DataSize(1000, BYTE));
+        pool.reserve(QUERY_1, 100);
+        pool.free(QUERY_1, 200);
+    }
+}
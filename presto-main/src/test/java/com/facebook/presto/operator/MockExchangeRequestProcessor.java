@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompression;
 import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.client.PrestoHeaders;
 import com.facebook.presto.execution.BufferResult;
@@ -39,6 +40,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
@@ -94,11 +96,18 @@ public class MockExchangeRequestProcessor
         BufferResult result = buffers.getUnchecked(location).getPages(requestLocation.getSequenceId(), maxSize);
         List<Page> pages = result.getPages();
 
+        PageCompression compression = PageCompression.fromHeader(request.getHeader(PRESTO_PAGE_COMPRESSION));
+
         byte[] bytes = new byte[0];
         HttpStatus status;
         if (!pages.isEmpty()) {
             DynamicSliceOutput sliceOutput = new DynamicSliceOutput(64);
-            PagesSerde.writePages(createTestingBlockEncodingManager(), sliceOutput, pages);
+            if (compression == PageCompression.SNAPPY) {
+                PagesSerde.writeCompressedPages(createTestingBlockEncodingManager(), sliceOutput, pages);
+            }
+            else {
+                PagesSerde.writePages(createTestingBlockEncodingManager(), sliceOutput, pages);
+            }
             bytes = sliceOutput.slice().getBytes();
             status = HttpStatus.OK;
         }
@@ -109,14 +118,15 @@ public class MockExchangeRequestProcessor
             status = HttpStatus.NO_CONTENT;
         }
 
-        return new TestingResponse(
-                status,
-                ImmutableListMultimap.of(
-                        CONTENT_TYPE, PRESTO_PAGES,
-                        PRESTO_PAGE_TOKEN, String.valueOf(result.getToken()),
-                        PRESTO_PAGE_NEXT_TOKEN, String.valueOf(result.getNextToken())
-                ),
-                bytes);
+        ImmutableListMultimap.Builder<String, String> headers = ImmutableListMultimap.<String, String>builder()
+                .put(CONTENT_TYPE, PRESTO_PAGES)
+                .put(PRESTO_PAGE_TOKEN, String.valueOf(result.getToken()))
+                .put(PRESTO_PAGE_NEXT_TOKEN, String.valueOf(result.getNextToken()));
+        if (compression != PageCompression.NONE) {
+            headers.put(PRESTO_PAGE_COMPRESSION, compression.name());
+        }
+
+        return new TestingResponse(status, headers.build(), bytes);
     }
 
     private class RequestLocation
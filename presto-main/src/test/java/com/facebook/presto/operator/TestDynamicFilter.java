@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.HyperLogLogType.HYPER_LOG_LOG;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilter
+{
+    private static final ColumnHandle COLUMN = new ColumnHandle("test", new TestingColumnHandle("column"));
+
+    @Test
+    public void testDistinctValues()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(BIGINT, VARCHAR));
+        assertTrue(dynamicFilter.getTupleDomain(0, COLUMN).isAll());
+
+        DynamicFilter.Collector collector = dynamicFilter.createCollector();
+        rowPagesBuilder(BIGINT, VARCHAR)
+                .row(3L, "c")
+                .row(1L, "a")
+                .row(null, null)
+                .pageBreak()
+                .row(3L, "a")
+                .build()
+                .forEach(page -> collector.add(page, ImmutableList.of(0, 1)));
+        collector.publish();
+
+        assertEquals(dynamicFilter.getTupleDomain(0, COLUMN), tupleDomain(SortedRangeSet.of(Range.equal(1L), Range.equal(3L))));
+        assertEquals(dynamicFilter.getTupleDomain(1, COLUMN), tupleDomain(SortedRangeSet.of(Range.equal(utf8Slice("a")), Range.equal(utf8Slice("c")))));
+    }
+
+    @Test
+    public void testRange()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(BIGINT));
+        DynamicFilter.Collector collector = dynamicFilter.createCollector();
+        rowPagesBuilder(BIGINT)
+                .addSequencePage(10_000, 5)
+                .build()
+                .forEach(page -> collector.add(page, ImmutableList.of(0)));
+        collector.publish();
+
+        assertEquals(dynamicFilter.getTupleDomain(0, COLUMN), tupleDomain(SortedRangeSet.of(Range.range(5L, true, 10_004L, true))));
+    }
+
+    @Test
+    public void testNoVarcharRange()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(VARCHAR, BIGINT));
+        DynamicFilter.Collector collector = dynamicFilter.createCollector();
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(VARCHAR, BIGINT);
+        for (int i = 0; i < 1001; i++) {
+            rowPagesBuilder.row("key" + i, (long) i);
+        }
+        rowPagesBuilder.build().forEach(page -> collector.add(page, ImmutableList.of(0, 1)));
+        collector.publish();
+
+        // a connector may order strings by a collation, so only the numeric keys become a range
+        assertTrue(dynamicFilter.getTupleDomain(0, COLUMN).isAll());
+        assertEquals(dynamicFilter.getTupleDomain(1, COLUMN), tupleDomain(SortedRangeSet.of(Range.range(0L, true, 1000L, true))));
+    }
+
+    @Test
+    public void testNonFiniteDoubles()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(DOUBLE, DOUBLE, DOUBLE));
+        DynamicFilter.Collector collector = dynamicFilter.createCollector();
+        rowPagesBuilder(DOUBLE, DOUBLE, DOUBLE)
+                .row(1.0, 1.0, 1.0)
+                .row(Double.NaN, 2.0, 2.0)
+                .pageBreak()
+                .row(3.0, Double.NEGATIVE_INFINITY, 3.0)
+                .build()
+                .forEach(page -> collector.add(page, ImmutableList.of(0, 1, 2)));
+        collector.publish();
+
+        // NaN and infinity have no SQL literal, so the keys are not summarized
+        assertTrue(dynamicFilter.getTupleDomain(0, COLUMN).isAll());
+        assertTrue(dynamicFilter.getTupleDomain(1, COLUMN).isAll());
+        assertEquals(dynamicFilter.getTupleDomain(2, COLUMN), tupleDomain(SortedRangeSet.of(Range.equal(1.0), Range.equal(2.0), Range.equal(3.0))));
+    }
+
+    @Test
+    public void testEmptyBuild()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(BIGINT));
+        dynamicFilter.createCollector().publish();
+
+        assertTrue(dynamicFilter.getTupleDomain(0, COLUMN).isNone());
+    }
+
+    @Test
+    public void testUnsupportedType()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(HYPER_LOG_LOG));
+        dynamicFilter.createCollector().publish();
+
+        assertTrue(dynamicFilter.getTupleDomain(0, COLUMN).isAll());
+    }
+
+    private static TupleDomain<ColumnHandle> tupleDomain(SortedRangeSet ranges)
+    {
+        return TupleDomain.withColumnDomains(ImmutableMap.of(COLUMN, Domain.create(ranges, false)));
+    }
+}
@@ -102,6 +102,41 @@ public class TestExchangeClient
         assertStatus(exchangeClient.getStatus().getPageBufferClientStatuses().get(0), location, "closed", 3, 2, 2, "not scheduled");
     }
 
+    @Test
+    public void testCompression()
+            throws Exception
+    {
+        DataSize maxResponseSize = new DataSize(10, Unit.MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+
+        URI location = URI.create("http://localhost:8080");
+        processor.addPage(location, createPage(1000));
+        processor.addPage(location, createPage(1000));
+        processor.setComplete(location);
+
+        @SuppressWarnings("resource")
+        ExchangeClient exchangeClient = new ExchangeClient(createTestingBlockEncodingManager(),
+                new DataSize(32, Unit.MEGABYTE),
+                maxResponseSize,
+                1,
+                new Duration(1, TimeUnit.MINUTES),
+                new TestingHttpClient(processor, executor),
+                executor,
+                true);
+
+        exchangeClient.addLocation(location);
+        exchangeClient.noMoreLocations();
+
+        assertPageEquals(exchangeClient.getNextPage(new Duration(1, TimeUnit.SECONDS)), createPage(1000));
+        assertPageEquals(exchangeClient.getNextPage(new Duration(1, TimeUnit.SECONDS)), createPage(1000));
+        assertNull(exchangeClient.getNextPage(new Duration(1, TimeUnit.SECONDS)));
+        assertEquals(exchangeClient.isClosed(), true);
+
+        ExchangeClientStatus status = exchangeClient.getStatus();
+        assertTrue(status.getCompressedBytes() > 0);
+        assertLessThan(status.getCompressedBytes(), status.getUncompressedBytes());
+    }
+
     @Test(timeOut = 10000)
     public void testAddLocation()
             throws Exception
@@ -37,7 +37,8 @@ public class TestExchangeClientConfig
                 .setConcurrentRequestMultiplier(3)
                 .setMinErrorDuration(new Duration(1, TimeUnit.MINUTES))
                 .setMaxResponseSize(new HttpClientConfig().getMaxContentLength())
-                .setClientThreads(25));
+                .setClientThreads(25)
+                .setCompressionEnabled(false));
     }
 
     @Test
@@ -49,6 +50,7 @@ public class TestExchangeClientConfig
                 .put("exchange.min-error-duration", "13s")
                 .put("exchange.max-response-size", "1kB")
                 .put("exchange.client-threads", "2")
+                .put("exchange.compression-enabled", "true")
                 .build();
 
         ExchangeClientConfig expected = new ExchangeClientConfig()
@@ -56,7 +58,8 @@ public class TestExchangeClientConfig
                 .setConcurrentRequestMultiplier(13)
                 .setMinErrorDuration(new Duration(13, TimeUnit.SECONDS))
                 .setMaxResponseSize(new DataSize(1, Unit.KILOBYTE))
-                .setClientThreads(2);
+                .setClientThreads(2)
+                .setCompressionEnabled(true);
 
         assertFullMapping(properties, expected);
     }
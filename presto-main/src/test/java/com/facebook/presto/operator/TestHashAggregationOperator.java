@@ -38,6 +38,9 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -61,6 +64,7 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
 import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
@@ -68,6 +72,7 @@ import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
@@ -183,6 +188,58 @@ public class TestHashAggregationOperator
         toPages(operator, input);
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testSpill(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        for (int pass = 0; pass < 2; pass++) {
+            for (int start = 0; start < 40_000; start += 10_000) {
+                rowPagesBuilder.addSequencePage(10_000, start);
+            }
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        Path spillPath = Files.createTempDirectory("spill");
+        try {
+            HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                    0,
+                    ImmutableList.of(BIGINT),
+                    hashChannels,
+                    Step.SINGLE,
+                    ImmutableList.of(COUNT.bind(ImmutableList.of(0), Optional.empty(), Optional.empty(), 1.0),
+                            LONG_SUM.bind(ImmutableList.of(0), Optional.empty(), Optional.empty(), 1.0)),
+                    rowPagesBuilder.getHashChannel(),
+                    10_000,
+                    new DataSize(16, MEGABYTE),
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), ImmutableList.of(spillPath), new SpillSpaceTracker(new DataSize(1, Unit.GIGABYTE)))));
+
+            // only the pre-allocated memory is available, so the groups do not fit in memory
+            DriverContext driverContext = new TaskContext(new TaskId("query", "stage", "task"), executor, TEST_SESSION, new DataSize(1, Unit.KILOBYTE))
+                    .addPipelineContext(true, true)
+                    .addDriverContext();
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+            for (int i = 0; i < 40_000; i++) {
+                expected.row(i, 2, 2 * i);
+            }
+
+            assertOperatorEqualsIgnoreOrder(operator, input, expected.build(), hashEnabled, Optional.of(hashChannels.size()));
+            assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+
+            // spill files are removed when the operator is closed
+            operator.close();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spillPath)) {
+                assertFalse(files.iterator().hasNext());
+            }
+        }
+        finally {
+            Files.deleteIfExists(spillPath);
+        }
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testHashBuilderResize(boolean hashEnabled)
     {
@@ -28,18 +28,32 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.dropChannel;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
+import static com.facebook.presto.operator.OperatorAssertion.without;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static com.google.common.collect.Iterables.concat;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashJoinOperator
@@ -491,6 +505,81 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperator, probeInput, expected, hashEnabled, ImmutableList.of(buildTypes.size() + probeTypes.size()));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testInnerJoinWithSpill(boolean hashEnabled)
+            throws Exception
+    {
+        // the build side does not fit in the memory of the task
+        TaskContext spillTaskContext = new TaskContext(new TaskId("query", "stage", "task"), executor, TEST_SESSION, new DataSize(1, MEGABYTE));
+        DriverContext driverContext = spillTaskContext.addPipelineContext(true, true).addDriverContext();
+
+        Path spillPath = Files.createTempDirectory("spill");
+        try {
+            // build
+            OperatorContext operatorContext = driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+            List<Type> buildTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+            RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), buildTypes);
+            for (int i = 0; i < 10; i++) {
+                rowPagesBuilder.addSequencePage(10_000, i * 10_000, i * 10_000 + 1_000_000);
+            }
+            Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder.build());
+            HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
+                    1,
+                    rowPagesBuilder.getTypes(),
+                    Ints.asList(0),
+                    rowPagesBuilder.getHashChannel(),
+                    100,
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), ImmutableList.of(spillPath), new SpillSpaceTracker(new DataSize(1, GIGABYTE)))));
+            Operator sourceHashProvider = hashBuilderOperatorFactory.createOperator(driverContext);
+
+            Driver driver = new Driver(driverContext, buildOperator, sourceHashProvider);
+            while (!driver.isFinished()) {
+                driver.process();
+            }
+            assertTrue(sourceHashProvider.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+
+            // probe with every key of the build side and as many keys without a match
+            List<Type> probeTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+            RowPagesBuilder rowPagesBuilderProbe = rowPagesBuilder(hashEnabled, Ints.asList(0), probeTypes);
+            for (int i = 0; i < 20; i++) {
+                rowPagesBuilderProbe.addSequencePage(10_000, i * 10_000, i * 10_000 + 2_000_000);
+            }
+            OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                    0,
+                    hashBuilderOperatorFactory.getLookupSourceSupplier(),
+                    rowPagesBuilderProbe.getTypes(),
+                    Ints.asList(0),
+                    rowPagesBuilderProbe.getHashChannel());
+            Operator joinOperator = joinOperatorFactory.createOperator(spillTaskContext.addPipelineContext(true, true).addDriverContext());
+
+            // expected
+            MaterializedResult.Builder expected = MaterializedResult.resultBuilder(spillTaskContext.getSession(), concat(probeTypes, buildTypes));
+            for (long key = 0; key < 100_000; key++) {
+                expected.row(key, key + 2_000_000, key, key + 1_000_000);
+            }
+
+            List<Page> pages = toPages(joinOperator, rowPagesBuilderProbe.build());
+            List<Type> outputTypes = joinOperator.getTypes();
+            if (hashEnabled) {
+                List<Integer> hashChannels = ImmutableList.of(probeTypes.size(), probeTypes.size() + buildTypes.size() + 1);
+                pages = dropChannel(pages, hashChannels);
+                outputTypes = without(outputTypes, hashChannels);
+            }
+            MaterializedResult actual = toMaterializedResult(spillTaskContext.getSession(), outputTypes, pages);
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+
+            // spill files are removed once the last user of the build side is closed
+            joinOperator.close();
+            joinOperatorFactory.close();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spillPath)) {
+                assertFalse(files.iterator().hasNext());
+            }
+        }
+        finally {
+            Files.deleteIfExists(spillPath);
+        }
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Task exceeded max memory size.*", dataProvider = "hashEnabledValues")
     public void testMemoryLimit(boolean hashEnabled)
             throws Exception
@@ -14,9 +14,11 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
@@ -25,21 +27,31 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
 import static com.facebook.presto.operator.OperatorAssertion.toPages;
+import static com.facebook.presto.spi.StandardErrorCode.EXCEEDED_SPILL_LIMIT;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
 import static com.facebook.presto.spi.block.SortOrder.DESC_NULLS_LAST;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -186,4 +198,109 @@ public class TestOrderByOperator
 
         toPages(operator, input);
     }
+
+    @Test
+    public void testSpill()
+            throws Exception
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(BIGINT, DOUBLE);
+        for (int i = 0; i < 40; i++) {
+            int start = (i * 7 % 40) * 10_000;
+            rowPagesBuilder.addSequencePage(10_000, start, start);
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        Path spillPath = Files.createTempDirectory("spill");
+        try {
+            OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                    0,
+                    ImmutableList.of(BIGINT, DOUBLE),
+                    ImmutableList.of(1),
+                    10,
+                    ImmutableList.of(0),
+                    ImmutableList.of(DESC_NULLS_LAST),
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), ImmutableList.of(spillPath), new SpillSpaceTracker(new DataSize(1, Unit.GIGABYTE)))));
+
+            // the input does not fit in the memory of the task
+            DriverContext driverContext = new TaskContext(new TaskId("query", "stage", "task"), executor, TEST_SESSION, new DataSize(1, Unit.MEGABYTE))
+                    .addPipelineContext(true, true)
+                    .addDriverContext();
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), DOUBLE);
+            for (int i = 399_999; i >= 0; i--) {
+                expected.row((double) i);
+            }
+
+            assertOperatorEquals(operator, input, expected.build());
+            assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+
+            // spill files are removed when the operator is closed
+            operator.close();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spillPath)) {
+                assertFalse(files.iterator().hasNext());
+            }
+        }
+        finally {
+            Files.deleteIfExists(spillPath);
+        }
+    }
+
+    @Test
+    public void testSpillLimit()
+            throws Exception
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(BIGINT, DOUBLE);
+        for (int i = 0; i < 40; i++) {
+            rowPagesBuilder.addSequencePage(10_000, i * 10_000, i * 10_000);
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        Path spillPath = Files.createTempDirectory("spill");
+        try {
+            SpillSpaceTracker spillSpaceTracker = new SpillSpaceTracker(new DataSize(256, Unit.KILOBYTE));
+            OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                    0,
+                    ImmutableList.of(BIGINT, DOUBLE),
+                    ImmutableList.of(1),
+                    10,
+                    ImmutableList.of(0),
+                    ImmutableList.of(ASC_NULLS_LAST),
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), ImmutableList.of(spillPath), spillSpaceTracker)));
+
+            DriverContext driverContext = new TaskContext(new TaskId("query", "stage", "task"), executor, TEST_SESSION, new DataSize(1, Unit.MEGABYTE))
+                    .addPipelineContext(true, true)
+                    .addDriverContext();
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            try {
+                toPages(operator, input);
+                fail("expected the spill limit to be exceeded");
+            }
+            catch (PrestoException e) {
+                assertEquals(e.getErrorCode(), EXCEEDED_SPILL_LIMIT.toErrorCode());
+            }
+
+            // the run is cut off at the limit instead of being written in full
+            long spilledBytes = 0;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spillPath)) {
+                for (Path file : files) {
+                    spilledBytes += Files.size(file);
+                }
+            }
+            assertTrue(spilledBytes <= spillSpaceTracker.getMaxSize().toBytes());
+            assertEquals(spillSpaceTracker.getCurrentSize().toBytes(), spilledBytes);
+
+            operator.close();
+            assertEquals(spillSpaceTracker.getCurrentSize().toBytes(), 0);
+        }
+        finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spillPath)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.deleteIfExists(spillPath);
+        }
+    }
 }
@@ -20,30 +20,40 @@ import com.facebook.presto.metadata.ColumnHandle;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.index.PageRecordSet;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.testng.annotations.Test;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.slice.Slices.utf8Slice;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 public class TestScanFilterAndProjectOperator
 {
+    private static final ColumnHandle COLUMN = new ColumnHandle("test", new TestingColumnHandle("column"));
+
     private final ExecutorService executor;
 
     public TestScanFilterAndProjectOperator()
@@ -117,6 +127,89 @@ public class TestScanFilterAndProjectOperator
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testPageSourceCreatedOnFirstOutput()
+            throws Exception
+    {
+        final Page input = SequencePageBuilder.createSequencePage(ImmutableList.of(VARCHAR), 100, 0);
+        DriverContext driverContext = newDriverContext();
+
+        AtomicReference<TupleDomain<ColumnHandle>> buildSummary = new AtomicReference<>(TupleDomain.all());
+        AtomicReference<TupleDomain<ColumnHandle>> appliedFilter = new AtomicReference<>();
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("0"),
+                new PageSourceProvider() {
+                    @Override
+                    public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns)
+                    {
+                        throw new AssertionError("expected the dynamic filter to be passed");
+                    }
+
+                    @Override
+                    public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+                    {
+                        appliedFilter.set(dynamicFilter);
+                        return new FixedPageSource(ImmutableList.of(input));
+                    }
+                },
+                new GenericCursorProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(VARCHAR, 0))),
+                new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(VARCHAR, 0))),
+                ImmutableList.of(COLUMN),
+                ImmutableList.<Type>of(VARCHAR),
+                ImmutableList.of(buildSummary::get));
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(new Split("test", TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+        assertNull(appliedFilter.get());
+        assertFalse(operator.isFinished());
+
+        // the build side of the join completes after the split was added
+        TupleDomain<ColumnHandle> summary = TupleDomain.withColumnDomains(ImmutableMap.of(COLUMN, Domain.singleValue(utf8Slice("1"))));
+        buildSummary.set(summary);
+
+        List<Page> output = toPages(operator);
+        assertEquals(appliedFilter.get(), summary);
+        assertEquals(output.stream().mapToInt(Page::getPositionCount).sum(), 100);
+    }
+
+    @Test
+    public void testEmptyBuildSkipsSplit()
+            throws Exception
+    {
+        DriverContext driverContext = newDriverContext();
+
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("0"),
+                new PageSourceProvider() {
+                    @Override
+                    public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns)
+                    {
+                        throw new AssertionError("split of an empty join should not be read");
+                    }
+
+                    @Override
+                    public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+                    {
+                        throw new AssertionError("split of an empty join should not be read");
+                    }
+                },
+                new GenericCursorProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(VARCHAR, 0))),
+                new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(VARCHAR, 0))),
+                ImmutableList.of(COLUMN),
+                ImmutableList.<Type>of(VARCHAR),
+                ImmutableList.of(TupleDomain::<ColumnHandle>none));
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(new Split("test", TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        assertTrue(toPages(operator).isEmpty());
+        assertTrue(operator.isFinished());
+    }
+
     public static List<Page> toPages(Operator operator)
     {
         ImmutableList.Builder<Page> outputPages = ImmutableList.builder();
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.operator.WindowOperator.WindowOperatorFactory;
 import com.facebook.presto.operator.window.FirstValueFunction.VarcharFirstValueFunction;
@@ -37,6 +38,9 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -51,8 +55,11 @@ import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestWindowOperator
@@ -416,6 +423,62 @@ public class TestWindowOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testSpill()
+            throws Exception
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(BIGINT, BIGINT);
+        for (int i = 0; i < 200_000; i++) {
+            if (i > 0 && i % 10_000 == 0) {
+                rowPagesBuilder.pageBreak();
+            }
+            rowPagesBuilder.row(i % 1000, i);
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        Path spillPath = Files.createTempDirectory("spill");
+        try {
+            WindowOperatorFactory operatorFactory = new WindowOperatorFactory(
+                    0,
+                    ImmutableList.of(BIGINT, BIGINT),
+                    Ints.asList(0, 1),
+                    ROW_NUMBER,
+                    Ints.asList(0),
+                    Ints.asList(1),
+                    ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                    WindowFrame.Type.RANGE,
+                    FrameBound.Type.UNBOUNDED_PRECEDING, Optional.empty(),
+                    FrameBound.Type.UNBOUNDED_FOLLOWING, Optional.empty(),
+                    10,
+                    Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), ImmutableList.of(spillPath), new SpillSpaceTracker(new DataSize(1, Unit.GIGABYTE)))));
+
+            // the input does not fit in the memory of the task, but each partition does
+            DriverContext driverContext = new TaskContext(new TaskId("query", "stage", "task"), executor, TEST_SESSION, new DataSize(512, Unit.KILOBYTE))
+                    .addPipelineContext(true, true)
+                    .addDriverContext();
+            Operator operator = operatorFactory.createOperator(driverContext);
+
+            MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+            for (int partition = 0; partition < 1000; partition++) {
+                for (int i = 0; i < 200; i++) {
+                    expected.row(partition, partition + i * 1000, i + 1);
+                }
+            }
+
+            assertOperatorEquals(operator, input, expected.build());
+            assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+
+            // spill files are removed when the operator is closed
+            operator.close();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spillPath)) {
+                assertFalse(files.iterator().hasNext());
+            }
+        }
+        finally {
+            Files.deleteIfExists(spillPath);
+        }
+    }
+
     private static WindowOperatorFactory createFactoryUnbounded(
             List<? extends Type> sourceTypes,
             List<Integer> outputChannels,
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.scalar;
+
+import com.facebook.presto.util.regex.SliceRegex;
+import io.airlift.slice.Slice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares java.util.regex, which needs a String per row, with {@link SliceRegex}
+ * on the patterns of SqlRegexpLikeBenchmark and SqlLikeBenchmark.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkRegexpFunctions
+{
+    private static final int ROWS = 10_000;
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int javaRegex(BenchmarkData data)
+    {
+        int matches = 0;
+        for (Slice value : data.getValues()) {
+            if (data.getJavaPattern().matcher(value.toString(UTF_8)).find()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int sliceRegex(BenchmarkData data)
+    {
+        int matches = 0;
+        for (Slice value : data.getValues()) {
+            if (data.getSlicePattern().find(value)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        // TPC-H comments are random words from a small grammar
+        private static final String[] WORDS = {
+                "furiously", "sly", "careful", "blithely", "quickly", "fluffily", "slyly", "ironic", "final", "regular",
+                "express", "bold", "pending", "even", "special", "deposits", "requests", "accounts", "packages", "instructions",
+                "theodolites", "foxes", "pinto", "beans", "ideas", "dependencies", "platelets", "asymptotes", "courts", "dolphins",
+                "wake", "sleep", "haggle", "nag", "use", "boost", "affix", "detect", "integrate", "cajole",
+                "about", "above", "according", "to", "across", "after", "against", "along", "among", "the"};
+
+        @Param({"regexp_like", "like"})
+        private String function;
+
+        private Pattern javaPattern;
+        private SliceRegex slicePattern;
+        private Slice[] values;
+
+        @Setup
+        public void setup()
+        {
+            if (function.equals("regexp_like")) {
+                // regexp_like(comment, '\b[a-z]{5}ly\b')
+                javaPattern = Pattern.compile("\\b[a-z]{5}ly\\b");
+                slicePattern = SliceRegex.compile(utf8Slice("\\b[a-z]{5}ly\\b"));
+            }
+            else {
+                // comment LIKE '%ly%ly%', as the LIKE translation compiles it
+                javaPattern = Pattern.compile("\\A.*ly.*ly.*\\z", Pattern.DOTALL);
+                slicePattern = SliceRegex.compile("\\A.*ly.*ly.*\\z", SliceRegex.DOTALL);
+            }
+
+            Random random = new Random(0);
+            values = new Slice[ROWS];
+            for (int i = 0; i < ROWS; i++) {
+                StringBuilder comment = new StringBuilder();
+                int words = 3 + random.nextInt(12);
+                for (int word = 0; word < words; word++) {
+                    if (word > 0) {
+                        comment.append(' ');
+                    }
+                    comment.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                values[i] = utf8Slice(comment.toString());
+            }
+        }
+
+        public Pattern getJavaPattern()
+        {
+            return javaPattern;
+        }
+
+        public SliceRegex getSlicePattern()
+        {
+            return slicePattern;
+        }
+
+        public Slice[] getValues()
+        {
+            return values;
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkRegexpFunctions.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
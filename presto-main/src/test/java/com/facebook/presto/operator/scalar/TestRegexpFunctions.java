@@ -14,6 +14,7 @@
 package com.facebook.presto.operator.scalar;
 
 import com.facebook.presto.spi.PrestoException;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -47,6 +48,17 @@ public class TestRegexpFunctions
         assertFunction("REGEXP_LIKE('Hello', '^[a-z]+$')", false);
         assertFunction("REGEXP_LIKE('Hello', '^(?i)[a-z]+$')", true);
         assertFunction("REGEXP_LIKE('Hello', '^[a-zA-Z]+$')", true);
+
+        assertFunction("REGEXP_LIKE('\u540d\u8a89', '^.\u8a89$')", true);
+        assertFunction("REGEXP_LIKE('aa', '(a)\\1')", true);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testRegexpLikeLinearTime()
+    {
+        String value = Strings.repeat("a", 10_000);
+        assertFunction("REGEXP_LIKE('" + value + "', '(a|aa)*b')", false);
+        assertFunction("REGEXP_REPLACE('" + value + "', '(a*)*b', 'x')", value);
     }
 
     @Test
@@ -69,6 +81,7 @@ public class TestRegexpFunctions
         assertFunction("REGEXP_EXTRACT('Hello world bye', '\\b[a-z]([a-z]*)')", "world");
         assertFunction("REGEXP_EXTRACT('Hello world bye', '\\b[a-z]([a-z]*)', 1)", "orld");
         assertFunction("REGEXP_EXTRACT('rat cat\nbat dog', 'ra(.)|blah(.)(.)', 2)", null);
+        assertFunction("REGEXP_EXTRACT('\u540d\u8a89 x', '(\\S)(\\S)', 2)", "\u8a89");
     }
 
     @Test
@@ -13,14 +13,16 @@
  */
 package com.facebook.presto.sql;
 
+import com.facebook.presto.type.LikePattern;
+import com.google.common.base.Strings;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
-import org.joni.Regex;
 import org.testng.annotations.Test;
 
 import static com.facebook.presto.type.LikeFunctions.like;
 import static com.facebook.presto.type.LikeFunctions.likePattern;
 import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -29,35 +31,105 @@ public class TestLikeFunctions
     @Test
     public void testLikeBasic()
     {
-        Regex regex = likePattern(utf8Slice("f%b__"));
+        LikePattern regex = likePattern(utf8Slice("f%b__"));
         assertTrue(like(utf8Slice("foobar"), regex));
     }
 
     @Test
     public void testLikeNewlineInPattern()
     {
-        Regex regex = likePattern(utf8Slice("%o\nbar"));
+        LikePattern regex = likePattern(utf8Slice("%o\nbar"));
         assertTrue(like(utf8Slice("foo\nbar"), regex));
     }
 
     @Test
     public void testLikeNewlineBeforeMatch()
     {
-        Regex regex = likePattern(utf8Slice("%b%"));
+        LikePattern regex = likePattern(utf8Slice("%b%"));
         assertTrue(like(utf8Slice("foo\nbar"), regex));
     }
 
     @Test
     public void testLikeNewlineInMatch()
     {
-        Regex regex = likePattern(utf8Slice("f%b%"));
+        LikePattern regex = likePattern(utf8Slice("f%b%"));
         assertTrue(like(utf8Slice("foo\nbar"), regex));
     }
 
+    @Test
+    public void testLikeAnchoredOnValue()
+    {
+        LikePattern regex = likePattern(utf8Slice("bar"));
+        assertFalse(like(utf8Slice("foo\nbar"), regex));
+        assertFalse(like(utf8Slice("bar\n"), regex));
+        assertTrue(like(utf8Slice("bar"), regex));
+    }
+
+    @Test
+    public void testLikeRegexCharacters()
+    {
+        LikePattern regex = likePattern(utf8Slice("a.(b)*[c]+?{1}$^|"));
+        assertTrue(like(utf8Slice("a.(b)*[c]+?{1}$^|"), regex));
+        assertFalse(like(utf8Slice("ax(b)*[c]+?{1}$^|"), regex));
+    }
+
+    @Test(timeOut = 1000)
+    public void testLikeLinearTime()
+    {
+        LikePattern regex = likePattern(utf8Slice("%a%a%a%a%a%a%a%a%a%a%b"));
+        assertFalse(like(utf8Slice(Strings.repeat("a", 100_000)), regex));
+    }
+
+    @Test
+    public void testLikeShapes()
+    {
+        assertLike("abc", "abc", true);
+        assertLike("abc", "abcd", false);
+        assertLike("", "", true);
+        assertLike("", "a", false);
+
+        assertLike("ab%", "ab", true);
+        assertLike("ab%", "abc\nd", true);
+        assertLike("ab%", "a", false);
+        assertLike("ab%%", "xab", false);
+
+        assertLike("%bc", "bc", true);
+        assertLike("%bc", "abc", true);
+        assertLike("%bc", "bcd", false);
+
+        assertLike("%aab%", "aaab", true);
+        assertLike("%aab%", "abaab", true);
+        assertLike("%aab%", "aa", false);
+        assertLike("%%b%%", "abc", true);
+        assertLike("%\u8a89%", "\u540d\u8a89x", true);
+        assertLike("%\u8a89%", "\u540d", false);
+
+        assertLike("%", "", true);
+        assertLike("%%", "abc", true);
+
+        assertLike("a%c", "abbc", true);
+        assertLike("a%c", "abcd", false);
+        assertLike("_b%", "abc", true);
+        assertLike("_b%", "bc", false);
+    }
+
+    @Test
+    public void testLikePrefix()
+    {
+        assertEquals(likePattern(utf8Slice("abc")).getPrefix(), utf8Slice("abc"));
+        assertTrue(likePattern(utf8Slice("abc")).isExact());
+        assertEquals(likePattern(utf8Slice("abc%")).getPrefix(), utf8Slice("abc"));
+        assertEquals(likePattern(utf8Slice("ab_c%")).getPrefix(), utf8Slice("ab"));
+        assertEquals(likePattern(utf8Slice("%abc")).getPrefix(), utf8Slice(""));
+        assertEquals(likePattern(utf8Slice("a\\%b%"), utf8Slice("\\")).getPrefix(), utf8Slice("a%b"));
+        assertTrue(likePattern(utf8Slice("a\\%b"), utf8Slice("\\")).isExact());
+        assertFalse(likePattern(utf8Slice("a\\%b%"), utf8Slice("\\")).isExact());
+    }
+
     @Test(timeOut = 1000)
     public void testLikeUtf8Pattern()
     {
-        Regex regex = likePattern(utf8Slice("%\u540d\u8a89%"), utf8Slice("\\"));
+        LikePattern regex = likePattern(utf8Slice("%\u540d\u8a89%"), utf8Slice("\\"));
         assertFalse(like(utf8Slice("foo"), regex));
     }
 
@@ -66,7 +138,7 @@ public class TestLikeFunctions
     public void testLikeInvalidUtf8Value()
     {
         Slice value = Slices.wrappedBuffer(new byte[] {'a', 'b', 'c', (byte) 0xFF, 'x', 'y'});
-        Regex regex = likePattern(utf8Slice("%b%"), utf8Slice("\\"));
+        LikePattern regex = likePattern(utf8Slice("%b%"), utf8Slice("\\"));
         assertTrue(like(value, regex));
     }
 
@@ -74,7 +146,7 @@ public class TestLikeFunctions
     public void testBackslashesNoSpecialTreatment()
             throws Exception
     {
-        Regex regex = likePattern(utf8Slice("\\abc\\/\\\\"));
+        LikePattern regex = likePattern(utf8Slice("\\abc\\/\\\\"));
         assertTrue(like(utf8Slice("\\abc\\/\\\\"), regex));
     }
 
@@ -82,7 +154,7 @@ public class TestLikeFunctions
     public void testSelfEscaping()
             throws Exception
     {
-        Regex regex = likePattern(utf8Slice("\\\\abc\\%"), utf8Slice("\\"));
+        LikePattern regex = likePattern(utf8Slice("\\\\abc\\%"), utf8Slice("\\"));
         assertTrue(like(utf8Slice("\\abc%"), regex));
     }
 
@@ -90,7 +162,13 @@ public class TestLikeFunctions
     public void testAlternateEscapedCharacters()
             throws Exception
     {
-        Regex regex = likePattern(utf8Slice("xxx%x_xabcxx"), utf8Slice("x"));
+        LikePattern regex = likePattern(utf8Slice("xxx%x_xabcxx"), utf8Slice("x"));
         assertTrue(like(utf8Slice("x%_abcx"), regex));
     }
+
+    private static void assertLike(String pattern, String value, boolean expected)
+    {
+        assertEquals(like(utf8Slice(value), likePattern(utf8Slice(pattern))), expected, pattern + " " + value);
+        assertEquals(like(utf8Slice(value), likePattern(utf8Slice(pattern), utf8Slice("\\"))), expected, pattern + " " + value);
+    }
 }
@@ -30,6 +30,7 @@ import com.facebook.presto.sql.tree.FunctionCall;
 import com.facebook.presto.sql.tree.InListExpression;
 import com.facebook.presto.sql.tree.InPredicate;
 import com.facebook.presto.sql.tree.IsNullPredicate;
+import com.facebook.presto.sql.tree.LikePredicate;
 import com.facebook.presto.sql.tree.LongLiteral;
 import com.facebook.presto.sql.tree.NotExpression;
 import com.facebook.presto.sql.tree.NullLiteral;
@@ -870,6 +871,36 @@ public class TestDomainTranslator
         assertEquals(result.getTupleDomain(), withColumnDomains(ImmutableMap.of(ACH, Domain.create(SortedRangeSet.of(Range.lessThan(1L)), false))));
     }
 
+    @Test
+    public void testFromLikePredicate()
+            throws Exception
+    {
+        Expression originalExpression = like(C, "abc%");
+        ExtractionResult result = fromPredicate(originalExpression);
+        assertEquals(result.getRemainingExpression(), originalExpression);
+        assertEquals(result.getTupleDomain(), withColumnDomains(ImmutableMap.of(CCH, Domain.create(SortedRangeSet.of(Range.range(utf8Slice("abc"), true, utf8Slice("abd"), false)), false))));
+
+        originalExpression = like(C, "ab_d%e");
+        result = fromPredicate(originalExpression);
+        assertEquals(result.getRemainingExpression(), originalExpression);
+        assertEquals(result.getTupleDomain(), withColumnDomains(ImmutableMap.of(CCH, Domain.create(SortedRangeSet.of(Range.range(utf8Slice("ab"), true, utf8Slice("ac"), false)), false))));
+
+        originalExpression = new LikePredicate(reference(C), stringLiteral("a\\%b"), stringLiteral("\\"));
+        result = fromPredicate(originalExpression);
+        assertEquals(result.getRemainingExpression(), TRUE_LITERAL);
+        assertEquals(result.getTupleDomain(), withColumnDomains(ImmutableMap.of(CCH, Domain.create(SortedRangeSet.of(Range.equal(utf8Slice("a%b"))), false))));
+
+        originalExpression = not(like(C, "abc%"));
+        result = fromPredicate(originalExpression);
+        assertEquals(result.getRemainingExpression(), originalExpression);
+        assertTrue(result.getTupleDomain().isAll());
+
+        originalExpression = like(C, "%abc");
+        result = fromPredicate(originalExpression);
+        assertEquals(result.getRemainingExpression(), originalExpression);
+        assertTrue(result.getTupleDomain().isAll());
+    }
+
     @Test
     public void testFromIsNullPredicate()
             throws Exception
@@ -1020,6 +1051,11 @@ public class TestDomainTranslator
         return comparison(IS_DISTINCT_FROM, reference(symbol), expression);
     }
 
+    private static LikePredicate like(Symbol symbol, String pattern)
+    {
+        return new LikePredicate(reference(symbol), stringLiteral(pattern), null);
+    }
+
     private static Expression isNotNull(Symbol symbol)
     {
         return new NotExpression(new IsNullPredicate(reference(symbol)));
@@ -13,25 +13,58 @@
  */
 package com.facebook.presto.sql.planner;
 
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.TableHandle;
 import com.facebook.presto.spi.ErrorCodeSupplier;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.BooleanLiteral;
+import com.facebook.presto.sql.tree.LongLiteral;
 import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tpch.TpchConnectorFactory;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
 import org.intellij.lang.annotations.Language;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
+import java.util.Map;
+import java.util.Optional;
+
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.SystemSessionProperties.DYNAMIC_FILTERING;
 import static com.facebook.presto.spi.StandardErrorCode.COMPILER_ERROR;
 import static java.util.Collections.nCopies;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 public class TestLocalExecutionPlanner
 {
+    private static final TableHandle TABLE = new TableHandle("test", new TestingTableHandle());
+
+    private static final Symbol A = new Symbol("a");
+    private static final Symbol B = new Symbol("b");
+    private static final Symbol C = new Symbol("c");
+
     @SuppressWarnings("resource")
     private final LocalQueryRunner runner = new LocalQueryRunner(TEST_SESSION);
 
+    public TestLocalExecutionPlanner()
+    {
+        runner.createCatalog(TEST_SESSION.getCatalog(), new TpchConnectorFactory(runner.getNodeManager(), 1), ImmutableMap.<String, String>of());
+    }
+
     @AfterClass(alwaysRun = true)
     public void cleanup()
     {
@@ -47,6 +80,154 @@ public class TestLocalExecutionPlanner
         assertFails("SELECT " + outer, COMPILER_ERROR);
     }
 
+    @Test
+    public void testDynamicFilterThroughFilterAndProject()
+    {
+        PlanNode scan = tableScan("scan", A, B);
+        PlanNode filter = new FilterNode(new PlanNodeId("filter"), scan, BooleanLiteral.TRUE_LITERAL);
+        PlanNode project = new ProjectNode(new PlanNodeId("project"), filter, ImmutableMap.of(
+                C, A.toQualifiedNameReference(),
+                B, new LongLiteral("1")));
+
+        assertDynamicFilterScan(project, C, "scan", "a");
+        // a computed value is not a column of the scan
+        assertNoDynamicFilterScan(project, B);
+    }
+
+    @Test
+    public void testDynamicFilterThroughSemiJoin()
+    {
+        PlanNode semiJoin = new SemiJoinNode(
+                new PlanNodeId("semiJoin"),
+                tableScan("source", A),
+                tableScan("filteringSource", B),
+                A,
+                B,
+                C,
+                Optional.empty(),
+                Optional.empty());
+
+        assertDynamicFilterScan(semiJoin, A, "source", "a");
+        assertNoDynamicFilterScan(semiJoin, B);
+        assertNoDynamicFilterScan(semiJoin, C);
+    }
+
+    @Test
+    public void testDynamicFilterThroughJoins()
+    {
+        // only the preserved sides of outer joins pass their rows through unchanged
+        PlanNode inner = join(JoinNode.Type.INNER);
+        assertDynamicFilterScan(inner, A, "left", "a");
+        assertDynamicFilterScan(inner, B, "right", "b");
+
+        PlanNode left = join(JoinNode.Type.LEFT);
+        assertDynamicFilterScan(left, A, "left", "a");
+        assertNoDynamicFilterScan(left, B);
+
+        PlanNode right = join(JoinNode.Type.RIGHT);
+        assertNoDynamicFilterScan(right, A);
+        assertDynamicFilterScan(right, B, "right", "b");
+
+        PlanNode full = join(JoinNode.Type.FULL);
+        assertNoDynamicFilterScan(full, A);
+        assertNoDynamicFilterScan(full, B);
+    }
+
+    @Test
+    public void testDynamicFilterResults()
+    {
+        // nested inner joins with value set and range summaries
+        assertDynamicFilterResults("" +
+                "SELECT o.orderkey, c.name, n.name " +
+                "FROM orders o " +
+                "JOIN customer c ON o.custkey = c.custkey " +
+                "JOIN (SELECT * FROM nation WHERE regionkey = 1) n ON c.nationkey = n.nationkey");
+        assertDynamicFilterResults("" +
+                "SELECT o.orderkey, l.linenumber " +
+                "FROM lineitem l " +
+                "JOIN (SELECT * FROM orders WHERE totalprice > 100000) o ON l.orderkey = o.orderkey " +
+                "JOIN customer c ON o.custkey = c.custkey");
+
+        // varchar keys, more than the distinct values summarized
+        assertDynamicFilterResults("" +
+                "SELECT c1.custkey, c2.custkey " +
+                "FROM customer c1 " +
+                "JOIN (SELECT * FROM customer WHERE acctbal > 0) c2 ON c1.name = c2.name");
+        assertDynamicFilterResults("" +
+                "SELECT n1.nationkey, n2.nationkey " +
+                "FROM nation n1 " +
+                "JOIN (SELECT * FROM nation WHERE regionkey = 0) n2 ON n1.name = n2.name");
+
+        // outer joins and semi joins below the probe side
+        assertDynamicFilterResults("" +
+                "SELECT o.orderkey, c.custkey, n.nationkey " +
+                "FROM orders o " +
+                "LEFT JOIN (SELECT * FROM customer WHERE nationkey = 1) c ON o.custkey = c.custkey " +
+                "JOIN (SELECT * FROM nation WHERE regionkey = 1) n ON c.nationkey = n.nationkey");
+        assertDynamicFilterResults("" +
+                "SELECT o.orderkey, c.custkey, n.nationkey " +
+                "FROM (SELECT * FROM customer WHERE nationkey = 1) c " +
+                "RIGHT JOIN orders o ON o.custkey = c.custkey " +
+                "JOIN (SELECT * FROM nation WHERE regionkey = 1) n ON c.nationkey = n.nationkey");
+        assertDynamicFilterResults("" +
+                "SELECT o.orderkey, c.name " +
+                "FROM orders o " +
+                "JOIN (SELECT * FROM customer WHERE mktsegment = 'BUILDING') c ON o.custkey = c.custkey " +
+                "WHERE o.orderkey IN (SELECT orderkey FROM lineitem WHERE quantity > 49)");
+
+        // an empty build side skips every split of the probe side
+        assertDynamicFilterResults("" +
+                "SELECT o.orderkey " +
+                "FROM orders o " +
+                "JOIN (SELECT * FROM customer WHERE name = 'nobody') c ON o.custkey = c.custkey");
+    }
+
+    private void assertDynamicFilterResults(@Language("SQL") String sql)
+    {
+        MaterializedResult expected = runner.execute(TEST_SESSION.withSystemProperty(DYNAMIC_FILTERING, "false"), sql);
+        MaterializedResult actual = runner.execute(TEST_SESSION.withSystemProperty(DYNAMIC_FILTERING, "true"), sql);
+        assertEquals(ImmutableMultiset.copyOf(actual.getMaterializedRows()), ImmutableMultiset.copyOf(expected.getMaterializedRows()));
+    }
+
+    private static void assertDynamicFilterScan(PlanNode node, Symbol symbol, String scanId, String column)
+    {
+        Optional<Map.Entry<PlanNodeId, ColumnHandle>> scan = LocalExecutionPlanner.findDynamicFilterScan(node, symbol);
+        assertTrue(scan.isPresent());
+        assertEquals(scan.get().getKey(), new PlanNodeId(scanId));
+        assertEquals(scan.get().getValue(), columnHandle(column));
+    }
+
+    private static void assertNoDynamicFilterScan(PlanNode node, Symbol symbol)
+    {
+        assertFalse(LocalExecutionPlanner.findDynamicFilterScan(node, symbol).isPresent());
+    }
+
+    private static JoinNode join(JoinNode.Type type)
+    {
+        return new JoinNode(
+                new PlanNodeId("join"),
+                type,
+                tableScan("left", A),
+                tableScan("right", B),
+                ImmutableList.of(new JoinNode.EquiJoinClause(A, B)),
+                Optional.empty(),
+                Optional.empty());
+    }
+
+    private static TableScanNode tableScan(String id, Symbol... symbols)
+    {
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        for (Symbol symbol : symbols) {
+            assignments.put(symbol, columnHandle(symbol.getName()));
+        }
+        return new TableScanNode(new PlanNodeId(id), TABLE, ImmutableList.copyOf(symbols), assignments.build(), null, Optional.empty());
+    }
+
+    private static ColumnHandle columnHandle(String name)
+    {
+        return new ColumnHandle("test", new TestingColumnHandle(name));
+    }
+
     private void assertFails(@Language("SQL") String sql, ErrorCodeSupplier supplier)
     {
         try {
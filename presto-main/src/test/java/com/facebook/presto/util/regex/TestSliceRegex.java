@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.util.regex;
+
+import com.google.common.base.Strings;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestSliceRegex
+{
+    private static final String[] PATTERNS = {
+            "",
+            "a",
+            "abc",
+            "a|b|",
+            "(a)(b)?(c)*",
+            "(?<first>[a-c]+)_(?<second>\\d{2,3})",
+            "a*?b",
+            "a{2}|b{1,}|c{0,2}?",
+            "[^a-c\\s]+",
+            "[\\w&&[^a]]",
+            "\\bfoo\\b",
+            "\\Bo\\B",
+            "^\\w+$",
+            "(?m)^\\w+$",
+            "(?s).+",
+            ".+",
+            "\\A\\s*|\\s*\\z",
+            "\\Z",
+            "(?i)straSSe|\u00e9t\u00e9",
+            "(?i:ab)c",
+            "\\p{Alpha}\\p{Digit}\\P{Punct}",
+            "\\Qa.b\\E+",
+            "[\u4e00-\u9fff]+",
+            "\\x{1F600}|\\u00e9",
+            "(\\d+)-(\\d+)",
+            "((a|b)c)+",
+            "\\t\\n\\r\\f\\e\\a\\cA\\0101\\x41",
+    };
+
+    private static final String[] INPUTS = {
+            "",
+            "a",
+            "abcabc",
+            "aab_123 cc_12 ab_1234",
+            "foo bar\nfood foo\n",
+            "line one\r\nline two\u2028",
+            "ab\tcd \n\r\f\u001b\u0007\u0001AA",
+            "Stra\u00dfe \u00e9t\u00c9 STRASSE",
+            "a1b \u540d\u8a89\u4e00 \u00e9",
+            "a.b.b a.bb",
+            "12-34 5-6-7",
+            "acbcac bcx",
+    };
+
+    @Test
+    public void testMatchesJavaRegex()
+    {
+        for (String pattern : PATTERNS) {
+            SliceRegex regex = SliceRegex.compile(utf8Slice(pattern));
+            Pattern expected = Pattern.compile(pattern);
+            for (String input : INPUTS) {
+                String message = "pattern " + pattern + " input " + input;
+                assertEquals(regex.find(utf8Slice(input)), expected.matcher(input).find(), message);
+                assertEquals(matches(regex, input), matches(expected, input), message);
+                assertEquals(regex.replaceAll(utf8Slice(input), utf8Slice("<$0>")).toStringUtf8(), expected.matcher(input).replaceAll("<$0>"), message);
+            }
+        }
+    }
+
+    @Test
+    public void testLinear()
+    {
+        assertTrue(SliceRegex.compile(utf8Slice("(a|b)*c")).isLinear());
+        assertTrue(SliceRegex.compile(utf8Slice("\\p{Lower}+")).isLinear());
+        assertFalse(SliceRegex.compile(utf8Slice("(a)\\1")).isLinear());
+        assertFalse(SliceRegex.compile(utf8Slice("a(?=b)")).isLinear());
+        assertFalse(SliceRegex.compile(utf8Slice("a++")).isLinear());
+    }
+
+    @Test(timeOut = 5000)
+    public void testCatastrophicPatterns()
+    {
+        Slice input = utf8Slice(Strings.repeat("a", 100_000));
+        for (String pattern : new String[] {"(a*)*b", "(a|aa)+b", "(a|a?)+b", "(.*a){20}b"}) {
+            SliceRegex regex = SliceRegex.compile(utf8Slice(pattern));
+            assertTrue(regex.isLinear(), pattern);
+            assertFalse(regex.find(input), pattern);
+            assertFalse(regex.matcher(input).find(), pattern);
+            assertEquals(regex.replaceAll(input, utf8Slice("x")), input, pattern);
+        }
+    }
+
+    @Test
+    public void testFallback()
+    {
+        SliceRegex regex = SliceRegex.compile(utf8Slice("(.)\\1"));
+        assertTrue(regex.find(utf8Slice("abbc")));
+        SliceMatcher matcher = regex.matcher(utf8Slice("abbc\u00e9\u00e9"));
+        assertTrue(matcher.find());
+        assertEquals(matcher.group(0), utf8Slice("bb"));
+        assertTrue(matcher.find());
+        assertEquals(matcher.group(1), utf8Slice("\u00e9"));
+        assertFalse(matcher.find());
+        assertEquals(regex.replaceAll(utf8Slice("aabcc"), utf8Slice("$1")), utf8Slice("abc"));
+    }
+
+    @Test
+    public void testInvalidPattern()
+    {
+        for (String pattern : new String[] {"(a", "a)", "[a", "a{2,1}", "*", "\\k<missing>", "(?<a>x)(?<a>y)"}) {
+            try {
+                SliceRegex.compile(utf8Slice(pattern));
+                fail("expected PatternSyntaxException for " + pattern);
+            }
+            catch (PatternSyntaxException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testGroups()
+    {
+        SliceRegex regex = SliceRegex.compile(utf8Slice("(\u540d)(x)?(\u8a89+)"));
+        assertEquals(regex.groupCount(), 3);
+        SliceMatcher matcher = regex.matcher(utf8Slice("\u540d\u8a89\u8a89 \u540d\u8a89"));
+        assertTrue(matcher.find());
+        assertEquals(matcher.group(1), utf8Slice("\u540d"));
+        assertNull(matcher.group(2));
+        assertEquals(matcher.group(3), utf8Slice("\u8a89\u8a89"));
+        assertTrue(matcher.find());
+        assertEquals(matcher.group(0), utf8Slice("\u540d\u8a89"));
+        assertFalse(matcher.find());
+    }
+
+    @Test
+    public void testSupplementaryCharacters()
+    {
+        // positions are code points, so unlike java.util.regex nothing matches between the halves of a surrogate pair
+        Slice input = utf8Slice("a\ud83d\ude00");
+        SliceMatcher matcher = SliceRegex.compile(utf8Slice("")).matcher(input);
+        int matches = 0;
+        while (matcher.find()) {
+            matches++;
+        }
+        assertEquals(matches, 3);
+
+        assertEquals(SliceRegex.compile(utf8Slice("a.\\z")).replaceAll(input, utf8Slice("x")), utf8Slice("x"));
+        assertTrue(SliceRegex.compile(utf8Slice("\\x{1F600}")).find(input));
+        assertTrue(SliceRegex.compile(utf8Slice("[\ud83d\ude00-\ud83d\ude4f]")).find(input));
+    }
+
+    @Test
+    public void testInvalidUtf8()
+    {
+        Slice input = Slices.wrappedBuffer(new byte[] {'a', (byte) 0xFF, 'b', (byte) 0xC3});
+        SliceRegex regex = SliceRegex.compile(utf8Slice("a.b"));
+        assertTrue(regex.find(input));
+        SliceMatcher matcher = regex.matcher(input);
+        assertTrue(matcher.find());
+        assertEquals(matcher.group(0), input.slice(0, 3));
+        assertTrue(SliceRegex.compile(utf8Slice("b.\\z")).find(input));
+    }
+
+    @Test
+    public void testReplacement()
+    {
+        SliceRegex regex = SliceRegex.compile(utf8Slice("(?<year>\\d{4})-(\\d{2})"));
+        assertEquals(regex.replaceAll(utf8Slice("on 2015-04 and 2016-05"), utf8Slice("$2/${year}")), utf8Slice("on 04/2015 and 05/2016"));
+        assertEquals(regex.replaceAll(utf8Slice("2015-04"), utf8Slice("\\$1 $10")), utf8Slice("$1 20150"));
+        assertEquals(regex.replaceAll(utf8Slice("none"), utf8Slice("$1")), utf8Slice("none"));
+
+        for (String replacement : new String[] {"$3", "${month}", "\\", "$", "${year"}) {
+            assertReplacementFails(regex, "2015-04", replacement);
+        }
+    }
+
+    private static void assertReplacementFails(SliceRegex regex, String input, String replacement)
+    {
+        RuntimeException expected = null;
+        try {
+            Pattern.compile(regex.pattern()).matcher(input).replaceAll(replacement);
+        }
+        catch (RuntimeException e) {
+            expected = e;
+        }
+        assertTrue(expected != null, replacement);
+        try {
+            regex.replaceAll(utf8Slice(input), utf8Slice(replacement));
+            fail("expected " + expected + " for " + replacement);
+        }
+        catch (RuntimeException e) {
+            assertEquals(e.getClass(), expected.getClass());
+            assertEquals(e.getMessage(), expected.getMessage());
+        }
+    }
+
+    private static List<List<String>> matches(SliceRegex regex, String input)
+    {
+        List<List<String>> matches = new ArrayList<>();
+        SliceMatcher matcher = regex.matcher(utf8Slice(input));
+        while (matcher.find()) {
+            List<String> groups = new ArrayList<>();
+            for (int group = 0; group <= regex.groupCount(); group++) {
+                Slice value = matcher.group(group);
+                groups.add(value == null ? null : value.toStringUtf8());
+            }
+            matches.add(groups);
+        }
+        return matches;
+    }
+
+    private static List<List<String>> matches(Pattern pattern, String input)
+    {
+        List<List<String>> matches = new ArrayList<>();
+        Matcher matcher = pattern.matcher(input);
+        while (matcher.find()) {
+            List<String> groups = new ArrayList<>();
+            for (int group = 0; group <= matcher.groupCount(); group++) {
+                groups.add(matcher.group(group));
+            }
+            matches.add(groups);
+        }
+        return matches;
+    }
+}
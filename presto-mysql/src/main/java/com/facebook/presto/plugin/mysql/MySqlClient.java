@@ -15,11 +15,16 @@ package com.facebook.presto.plugin.mysql;
 
 import com.facebook.presto.plugin.jdbc.BaseJdbcClient;
 import com.facebook.presto.plugin.jdbc.BaseJdbcConfig;
+import com.facebook.presto.plugin.jdbc.JdbcColumnHandle;
 import com.facebook.presto.plugin.jdbc.JdbcConnectorId;
+import com.facebook.presto.plugin.jdbc.JdbcSplit;
+import com.facebook.presto.plugin.jdbc.JdbcTextPageWriter;
 import com.facebook.presto.plugin.jdbc.cache.JdbcCacheConfig;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
 import com.facebook.presto.plugin.jdbc.subtable.JdbcSubTableConfig;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 import com.mysql.jdbc.Driver;
@@ -29,8 +34,12 @@ import javax.inject.Inject;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.List;
 import java.util.Set;
 
+import static com.google.common.collect.Iterables.transform;
 import static java.util.Locale.ENGLISH;
 
 public class MySqlClient
@@ -38,18 +47,18 @@ public class MySqlClient
 {
     @Inject
     public MySqlClient(JdbcConnectorId connectorId, BaseJdbcConfig config,
-            JdbcSubTableConfig subTableConfig, JdbcCacheConfig cacheConfig)
+            JdbcSubTableConfig subTableConfig, JdbcCacheConfig cacheConfig, JdbcConnectionPool connectionPool)
             throws SQLException
     {
-        super(connectorId, config, "`", new Driver(), subTableConfig, cacheConfig);
+        super(connectorId, config, "`", new Driver(), subTableConfig, cacheConfig, connectionPool);
         connectionProperties.setProperty("nullCatalogMeansCurrent", "false");
     }
 
     @Override
-    public Set<String> getSchemaNames()
+    protected Set<String> loadSchemaNames()
     {
         // for MySQL, we need to list catalogs instead of schemas
-        try (Connection connection = driver.connect(connectionUrl, connectionProperties);
+        try (Connection connection = getConnection();
                 ResultSet resultSet = connection.getMetaData().getCatalogs()) {
             ImmutableSet.Builder<String> schemaNames = ImmutableSet.builder();
             while (resultSet.next()) {
@@ -66,6 +75,29 @@ public class MySqlClient
         }
     }
 
+    @Override
+    public Statement createScanStatement(JdbcSplit split, Connection connection, List<JdbcColumnHandle> columnHandles)
+            throws SQLException
+    {
+        // with a server side cursor the driver honors the fetch size
+        if (usesCursorFetch(split)) {
+            return super.createScanStatement(split, connection, columnHandles);
+        }
+        // otherwise it reads the whole result into memory, unless the result is streamed row by row
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(Integer.MIN_VALUE);
+        return statement;
+    }
+
+    private static boolean usesCursorFetch(JdbcSplit split)
+    {
+        String property = split.getConnectionProperties().get("useCursorFetch");
+        if (property != null) {
+            return Boolean.parseBoolean(property);
+        }
+        return split.getConnectionUrl().toLowerCase(ENGLISH).contains("usecursorfetch=true");
+    }
+
     @Override
     protected ResultSet getTables(Connection connection, String schemaName, String tableName)
             throws SQLException
@@ -85,6 +117,13 @@ public class MySqlClient
 
     }
 
+    @Override
+    protected boolean hasBackslashEscapes()
+    {
+        // the default sql_mode of MySQL does not include NO_BACKSLASH_ESCAPES
+        return true;
+    }
+
     @Override
     protected String toSqlType(Type type)
     {
@@ -102,4 +141,30 @@ public class MySqlClient
         }
         return sqlType;
     }
+
+    @Override
+    protected JdbcTextPageWriter.TextLoader getTextLoader(String catalog, String schema, String table, List<String> columnNames)
+    {
+        String sql = new StringBuilder()
+                .append("LOAD DATA LOCAL INFILE 'presto' INTO TABLE ")
+                .append(quoted(catalog, schema, table))
+                .append(" CHARACTER SET utf8mb4 (")
+                .append(Joiner.on(", ").join(transform(columnNames, this::quoted)))
+                .append(")")
+                .toString();
+
+        return (connection, rows) -> {
+            try (Statement statement = connection.createStatement()) {
+                // the driver sends this stream instead of reading the named file
+                statement.unwrap(com.mysql.jdbc.Statement.class).setLocalInfileInputStream(rows);
+                statement.execute(sql);
+                // LOAD DATA LOCAL turns conversion errors and duplicate keys into warnings
+                SQLWarning warning = statement.getWarnings();
+                if (warning != null) {
+                    throw new SQLException("LOAD DATA into " + table + " failed: " + warning.getMessage(), warning.getSQLState(), warning.getErrorCode(), warning);
+                }
+                return statement.getUpdateCount();
+            }
+        };
+    }
 }
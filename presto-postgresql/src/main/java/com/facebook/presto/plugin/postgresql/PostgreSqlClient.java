@@ -15,46 +15,79 @@ package com.facebook.presto.plugin.postgresql;
 
 import com.facebook.presto.plugin.jdbc.BaseJdbcClient;
 import com.facebook.presto.plugin.jdbc.BaseJdbcConfig;
+import com.facebook.presto.plugin.jdbc.JdbcColumnHandle;
 import com.facebook.presto.plugin.jdbc.JdbcConnectorId;
-import com.facebook.presto.plugin.jdbc.JdbcOutputTableHandle;
+import com.facebook.presto.plugin.jdbc.JdbcSplit;
+import com.facebook.presto.plugin.jdbc.JdbcTextPageWriter;
 import com.facebook.presto.plugin.jdbc.cache.JdbcCacheConfig;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
 import com.facebook.presto.plugin.jdbc.subtable.JdbcSubTableConfig;
-import com.google.common.base.Throwables;
-import io.airlift.slice.Slice;
+import com.google.common.base.Joiner;
 import org.postgresql.Driver;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
 
 import javax.inject.Inject;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Collection;
+import java.sql.Statement;
+import java.util.List;
+
+import static com.google.common.collect.Iterables.transform;
 
 public class PostgreSqlClient
         extends BaseJdbcClient
 {
     @Inject
     public PostgreSqlClient(JdbcConnectorId connectorId, BaseJdbcConfig config,
-            JdbcSubTableConfig subTableConfig, JdbcCacheConfig cacheConfig)
+            JdbcSubTableConfig subTableConfig, JdbcCacheConfig cacheConfig, JdbcConnectionPool connectionPool)
+            throws SQLException
+    {
+        super(connectorId, config, "\"", new Driver(), subTableConfig, cacheConfig, connectionPool);
+    }
+
+    @Override
+    public Statement createScanStatement(JdbcSplit split, Connection connection, List<JdbcColumnHandle> columnHandles)
             throws SQLException
     {
-        super(connectorId, config, "\"", new Driver(), subTableConfig, cacheConfig);
+        // the driver only fetches in batches inside a transaction, the pool rolls it back on release
+        connection.setAutoCommit(false);
+        return super.createScanStatement(split, connection, columnHandles);
     }
 
     @Override
-    public void commitCreateTable(JdbcOutputTableHandle handle, Collection<Slice> fragments)
+    protected void renameTable(Connection connection, String catalog, String schema, String oldTable, String newTable)
+            throws SQLException
     {
         // PostgreSQL does not allow qualifying the target of a rename
         StringBuilder sql = new StringBuilder()
                 .append("ALTER TABLE ")
-                .append(quoted(handle.getCatalogName(), handle.getSchemaName(), handle.getTemporaryTableName()))
+                .append(quoted(catalog, schema, oldTable))
                 .append(" RENAME TO ")
-                .append(quoted(handle.getTableName()));
-
-        try (Connection connection = getConnection(handle)) {
-            execute(connection, sql.toString());
-        }
-        catch (SQLException e) {
-            throw Throwables.propagate(e);
-        }
+                .append(quoted(newTable));
+        execute(connection, sql.toString());
+    }
+
+    @Override
+    protected JdbcTextPageWriter.TextLoader getTextLoader(String catalog, String schema, String table, List<String> columnNames)
+    {
+        String sql = new StringBuilder()
+                .append("COPY ")
+                .append(quoted(catalog, schema, table))
+                .append(" (")
+                .append(Joiner.on(", ").join(transform(columnNames, this::quoted)))
+                .append(") FROM STDIN")
+                .toString();
+
+        return (connection, rows) -> {
+            try {
+                return new CopyManager(connection.unwrap(BaseConnection.class)).copyIn(sql, rows);
+            }
+            catch (IOException e) {
+                throw new SQLException(e);
+            }
+        };
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import com.facebook.presto.spi.type.Type;
+
+import java.util.Objects;
+
+/**
+ * An aggregate function call the engine offers to a connector. Only the {@code count},
+ * {@code sum}, {@code min} and {@code max} functions are offered, because their partial
+ * results can be combined by the engine with another aggregation.
+ */
+public class ConnectorAggregate
+{
+    private final String functionName;
+    private final ConnectorColumnHandle argument;
+    private final Type type;
+
+    /**
+     * @param argument the aggregated column, or null for {@code count(*)}
+     * @param type the type of the aggregate result
+     */
+    public ConnectorAggregate(String functionName, ConnectorColumnHandle argument, Type type)
+    {
+        this.functionName = Objects.requireNonNull(functionName, "functionName is null");
+        this.argument = argument;
+        this.type = Objects.requireNonNull(type, "type is null");
+    }
+
+    public String getFunctionName()
+    {
+        return functionName;
+    }
+
+    /**
+     * @return the aggregated column, or null for {@code count(*)}
+     */
+    public ConnectorColumnHandle getArgument()
+    {
+        return argument;
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public String toString()
+    {
+        return functionName + "(" + (argument == null ? "*" : argument) + ")";
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * The result of pushing an aggregation into a connector: a table handle whose rows are
+ * partial aggregates, one row per group per split, and the column holding each aggregate.
+ */
+public class ConnectorAggregationPushDown
+{
+    private final ConnectorTableHandle tableHandle;
+    private final List<ConnectorColumnHandle> aggregateColumns;
+
+    public ConnectorAggregationPushDown(ConnectorTableHandle tableHandle, List<ConnectorColumnHandle> aggregateColumns)
+    {
+        this.tableHandle = Objects.requireNonNull(tableHandle, "tableHandle is null");
+        this.aggregateColumns = unmodifiableList(new ArrayList<>(Objects.requireNonNull(aggregateColumns, "aggregateColumns is null")));
+    }
+
+    public ConnectorTableHandle getTableHandle()
+    {
+        return tableHandle;
+    }
+
+    /**
+     * @return the column holding the partial result of each aggregate, in the order the aggregates were offered
+     */
+    public List<ConnectorColumnHandle> getAggregateColumns()
+    {
+        return aggregateColumns;
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.spi;
 
+import com.facebook.presto.spi.block.SortOrder;
 import io.airlift.slice.Slice;
 
 import java.util.Collection;
@@ -130,4 +131,34 @@ public interface ConnectorMetadata
      * Gets the view data for views that match the specified table prefix.
      */
     Map<SchemaTableName, String> getViews(ConnectorSession session, SchemaTablePrefix prefix);
+
+    /**
+     * Returns a handle for the table that returns at most {@code limit} rows from each split,
+     * or null if the connector can not apply the limit. The engine still applies the limit
+     * to the rows returned.
+     */
+    default ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        return null;
+    }
+
+    /**
+     * Returns a handle for the table that returns, from each split, the first {@code limit}
+     * rows in the specified order, or null if the connector can not apply the ordering.
+     * The engine still sorts and limits the rows returned.
+     */
+    default ConnectorTableHandle pushDownTopN(ConnectorTableHandle tableHandle, List<ConnectorColumnHandle> sortColumns, List<SortOrder> sortOrders, long limit)
+    {
+        return null;
+    }
+
+    /**
+     * Pushes a grouped aggregation into the table. The rows of the returned table handle
+     * are partial aggregates, so a group may appear once per split and the engine combines
+     * them. Returns null if the connector can not compute the aggregates.
+     */
+    default ConnectorAggregationPushDown pushDownAggregation(ConnectorTableHandle tableHandle, List<ConnectorColumnHandle> groupBy, List<ConnectorAggregate> aggregates)
+    {
+        return null;
+    }
 }
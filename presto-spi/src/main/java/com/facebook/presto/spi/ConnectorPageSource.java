@@ -15,10 +15,13 @@ package com.facebook.presto.spi;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface ConnectorPageSource
         extends Closeable
 {
+    CompletableFuture<?> NOT_BLOCKED = CompletableFuture.completedFuture(null);
+
     /**
      * Gets the total input bytes that will be processed by this page source.
      * This is normally the same size as the split.  If size is not available,
@@ -38,6 +41,26 @@ public interface ConnectorPageSource
      */
     long getReadTimeNanos();
 
+    /**
+     * Gets the bytes this page source holds in buffers, such as rows the driver has
+     * fetched but not yet returned.  If the usage is not tracked, this method should
+     * return zero.
+     */
+    default long getSystemMemoryUsage()
+    {
+        return 0;
+    }
+
+    /**
+     * Returns a future that completes when this page source can make progress, such as
+     * when a resource shared with other page sources becomes available.  While the future
+     * is not done, {@link #getNextPage()} is not called.
+     */
+    default CompletableFuture<?> isBlocked()
+    {
+        return NOT_BLOCKED;
+    }
+
     /**
      * Will this page source product more pages?
      */
@@ -18,4 +18,15 @@ import java.util.List;
 public interface ConnectorPageSourceProvider
 {
     ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns);
+
+    /**
+     * Creates a page source for the split, given a dynamic filter on the columns that
+     * was derived from the build side of a join at execution time. The connector may use
+     * the filter to skip data, but is not required to; the engine still evaluates the join
+     * on all rows returned.
+     */
+    default ConnectorPageSource createPageSource(ConnectorSplit split, List<ConnectorColumnHandle> columns, TupleDomain<ConnectorColumnHandle> dynamicFilter)
+    {
+        return createPageSource(split, columns);
+    }
 }
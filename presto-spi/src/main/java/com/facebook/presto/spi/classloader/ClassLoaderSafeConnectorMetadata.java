@@ -14,6 +14,8 @@
 package com.facebook.presto.spi.classloader;
 
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregate;
+import com.facebook.presto.spi.ConnectorAggregationPushDown;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
@@ -24,6 +26,7 @@ import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.InsertOption;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.block.SortOrder;
 import io.airlift.slice.Slice;
 
 import java.util.Collection;
@@ -204,6 +207,30 @@ public class ClassLoaderSafeConnectorMetadata
         }
     }
 
+    @Override
+    public ConnectorTableHandle pushDownLimit(ConnectorTableHandle tableHandle, long limit)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.pushDownLimit(tableHandle, limit);
+        }
+    }
+
+    @Override
+    public ConnectorTableHandle pushDownTopN(ConnectorTableHandle tableHandle, List<ConnectorColumnHandle> sortColumns, List<SortOrder> sortOrders, long limit)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.pushDownTopN(tableHandle, sortColumns, sortOrders, limit);
+        }
+    }
+
+    @Override
+    public ConnectorAggregationPushDown pushDownAggregation(ConnectorTableHandle tableHandle, List<ConnectorColumnHandle> groupBy, List<ConnectorAggregate> aggregates)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.pushDownAggregation(tableHandle, groupBy, aggregates);
+        }
+    }
+
     @Override
     public String toString()
     {
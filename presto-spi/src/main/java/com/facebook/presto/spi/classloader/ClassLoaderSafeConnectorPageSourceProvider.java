@@ -17,6 +17,7 @@ import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.TupleDomain;
 
 import java.util.List;
 
@@ -43,6 +44,16 @@ public class ClassLoaderSafeConnectorPageSourceProvider
         }
     }
 
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSplit split,
+            List<ConnectorColumnHandle> columns,
+            TupleDomain<ConnectorColumnHandle> dynamicFilter)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.createPageSource(split, columns, dynamicFilter);
+        }
+    }
+
     @Override
     public String toString()
     {
@@ -13,7 +13,9 @@
  */
 package com.facebook.presto.plugin.sqlserver;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 import javax.inject.Inject;
 
@@ -23,17 +25,44 @@ import com.facebook.presto.plugin.jdbc.BaseJdbcClient;
 import com.facebook.presto.plugin.jdbc.BaseJdbcConfig;
 import com.facebook.presto.plugin.jdbc.JdbcConnectorId;
 import com.facebook.presto.plugin.jdbc.cache.JdbcCacheConfig;
+import com.facebook.presto.plugin.jdbc.pool.JdbcConnectionPool;
 import com.facebook.presto.plugin.jdbc.subtable.JdbcSubTableConfig;
+import com.google.common.base.Joiner;
+
+import static com.google.common.collect.Iterables.transform;
 
 public class SqlServerClient
         extends BaseJdbcClient
 {
     @Inject
     public SqlServerClient(JdbcConnectorId connectorId, BaseJdbcConfig config,
-            JdbcSubTableConfig subTableConfig, JdbcCacheConfig cacheConfig)
+            JdbcSubTableConfig subTableConfig, JdbcCacheConfig cacheConfig, JdbcConnectionPool connectionPool)
             throws SQLException
     {
-        super(connectorId, config, "\"", new Driver(), subTableConfig, cacheConfig);
+        super(connectorId, config, "\"", new Driver(), subTableConfig, cacheConfig, connectionPool);
         connectionProperties.setProperty("nullCatalogMeansCurrent", "false");
     }
+
+    @Override
+    public boolean supportsLimit()
+    {
+        // SQL Server uses TOP instead of LIMIT
+        return false;
+    }
+
+    @Override
+    protected void createStagingTable(Connection connection, String catalog, String schema, String table, String stagingTable, List<String> columnNames)
+            throws SQLException
+    {
+        // SQL Server has no CREATE TABLE AS
+        execute(connection, new StringBuilder()
+                .append("SELECT ")
+                .append(Joiner.on(", ").join(transform(columnNames, this::quoted)))
+                .append(" INTO ")
+                .append(quoted(catalog, schema, stagingTable))
+                .append(" FROM ")
+                .append(quoted(catalog, schema, table))
+                .append(" WHERE 1 = 0")
+                .toString());
+    }
 }